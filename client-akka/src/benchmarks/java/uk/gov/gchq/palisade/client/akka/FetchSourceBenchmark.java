@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocket;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import com.typesafe.config.ConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient.SSLMode;
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures {@link AkkaClient#fetchSource(String)} listing resources from a
+ * local websocket server which answers each CTS only after a delay, as if over
+ * a high-latency link, with a single CTS credit (one resource per round trip)
+ * and with many. Each operation is one resource, so the throughput is in
+ * resources per second.
+ * <p>
+ * Run with {@code mvn -pl client-akka -Pbenchmarks verify}.
+ *
+ * @since 0.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class FetchSourceBenchmark {
+
+    private static final int RESOURCES = 100;
+    private static final long TIMEOUT_SECONDS = 60L;
+
+    @Param({"1", "16"})
+    private int credits;
+
+    @Param({"0", "5"})
+    private long latencyMillis;
+
+    private ActorSystem system;
+    private Materializer materializer;
+    private ServerBinding binding;
+    private AkkaClient client;
+
+    /**
+     * Starts the server, and the client with the number of credits
+     *
+     * @throws Exception if the server cannot be started
+     */
+    @Setup
+    public void setUp() throws Exception {
+        system = ActorSystem.create("fetch-source-benchmark", ConfigFactory.parseMap(Map.of(AkkaClient.CTS_CREDITS, credits))
+                .withFallback(ConfigFactory.load()));
+        materializer = Materializer.createMaterializer(system);
+        binding = Http.get(system).newServerAt("localhost", 0)
+                .bindSync((final HttpRequest request) -> WebSocket.handleWebSocketRequestWith(request, serverFlow()))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        var url = "localhost:" + binding.localAddress().getPort();
+        client = new AkkaClient(url, url, Map.of(), system, SSLMode.NONE);
+    }
+
+    /**
+     * Stops the server and the client
+     */
+    @TearDown
+    public void tearDown() {
+        binding.unbind();
+        system.terminate();
+    }
+
+    /*
+     * Replies to each CTS with the next message after the latency, with any number of replies in flight at once, then COMPLETE
+     */
+    private Flow<Message, Message, NotUsed> serverFlow() {
+        var next = new AtomicInteger();
+        return Flow.<Message>create()
+                .mapAsync(1, msg -> msg.asTextMessage().getStreamedText().runWith(Sink.ignore(), materializer))
+                .map(ignored -> next.getAndIncrement())
+                .mapAsync(RESOURCES, i -> CompletableFuture.supplyAsync(() -> (Message) TextMessage.create(JsonCodec.writeWebSocketMessage(reply(i))),
+                        CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS)));
+    }
+
+    private static WebSocketMessage reply(final int i) {
+        return i < RESOURCES
+                ? WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .noHeaders()
+                .withBody(new FileResource()
+                        .id("file:/data/" + i)
+                        .type("type")
+                        .serialisedFormat("format")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")))
+                : WebSocketMessage.Builder.create()
+                .withType(MessageType.COMPLETE)
+                .noHeaders()
+                .noBody();
+    }
+
+    /**
+     * Every resource listed for a token
+     *
+     * @throws Exception if the resources cannot be listed
+     */
+    @Benchmark
+    @OperationsPerInvocation(RESOURCES)
+    public void fetchSource() throws Exception {
+        client.fetchSource("token")
+                .runWith(Sink.ignore(), materializer)
+                .toCompletableFuture()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+}
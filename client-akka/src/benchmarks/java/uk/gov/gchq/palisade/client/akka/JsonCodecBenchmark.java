@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a Filtered Resource Service websocket message with a bare
+ * {@code ObjectMapper} reading from a {@code String} (as before) against the
+ * {@link JsonCodec}, from both the bytes as received and a {@code String}. The
+ * message is split across several buffers, as a streamed message received in
+ * frames is. Each operation is one message, so the gc profiler's
+ * {@code gc.alloc.rate.norm} is the bytes allocated per message.
+ * <p>
+ * Run with {@code mvn -pl client-akka -Pbenchmarks verify}.
+ *
+ * @since 0.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private static final int FRAME = 64;
+
+    private ObjectMapper objectMapper;
+    private ByteString bytes;
+    private String text;
+
+    /**
+     * Writes the message decoded by every benchmark
+     */
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        text = JsonCodec.writeWebSocketMessage(WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .withHeader("token", "7c2d8d3e-0f27-4d1c-a5a6-4d3b7d9a1e42").noHeaders()
+                .withBody(new FileResource()
+                        .id("file:/data/local-data-store/employee_file0.avro")
+                        .type("uk.gov.gchq.syntheticdatagenerator.types.Employee")
+                        .serialisedFormat("avro")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service"))));
+        var data = ByteString.fromString(text);
+        bytes = ByteString.emptyByteString();
+        for (int i = 0; i < data.size(); i += FRAME) {
+            bytes = bytes.concat(data.slice(i, Math.min(i + FRAME, data.size())));
+        }
+    }
+
+    /**
+     * The message decoded by an {@code ObjectMapper} from the bytes converted to a {@code String}
+     *
+     * @return the decoded message
+     * @throws JsonProcessingException if the message cannot be decoded
+     */
+    @Benchmark
+    public WebSocketMessage objectMapper() throws JsonProcessingException {
+        return objectMapper.readValue(bytes.utf8String(), WebSocketMessage.class);
+    }
+
+    /**
+     * The message decoded by the {@code JsonCodec} from a {@code String}
+     *
+     * @return the decoded message
+     */
+    @Benchmark
+    public WebSocketMessage jsonCodecText() {
+        return JsonCodec.readWebSocketMessage(text);
+    }
+
+    /**
+     * The message decoded by the {@code JsonCodec} directly from the bytes
+     *
+     * @return the decoded message
+     */
+    @Benchmark
+    public WebSocketMessage jsonCodecBytes() {
+        return JsonCodec.readWebSocketMessage(bytes);
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.HttpEntity;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocket;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.util.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient.SSLMode;
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares reading every resource for a token one after another against
+ * {@link AkkaClient#readAll(String, int)} and
+ * {@link AkkaClient#readAllUnordered(String, int)}, from a local server which
+ * answers each data request after a delay, as if reading the resource. Each
+ * operation is one resource, so the throughput is in resources per second.
+ * <p>
+ * Run with {@code mvn -pl client-akka -Pbenchmarks verify}.
+ *
+ * @since 0.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ReadAllBenchmark {
+
+    private static final int RESOURCES = 64;
+    private static final int PARALLELISM = 16;
+    private static final long TIMEOUT_SECONDS = 60L;
+
+    @Param({"0", "5"})
+    private long readDelayMillis;
+
+    private ActorSystem system;
+    private Materializer materializer;
+    private ServerBinding binding;
+    private AkkaClient client;
+
+    /**
+     * Starts the server and the client used by every benchmark
+     *
+     * @throws Exception if the server cannot be started
+     */
+    @Setup
+    public void setUp() throws Exception {
+        system = ActorSystem.create("read-all-benchmark");
+        materializer = Materializer.createMaterializer(system);
+        binding = Http.get(system).newServerAt("localhost", 0)
+                .bind((final HttpRequest request) -> request.getUri().path().startsWith("/read")
+                        ? read(request)
+                        : CompletableFuture.completedFuture(WebSocket.handleWebSocketRequestWith(request, serverFlow())))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        var url = "localhost:" + binding.localAddress().getPort();
+        client = new AkkaClient(url, url, Map.of("data-service", url), system, SSLMode.NONE, Map.of("data-service", PARALLELISM), 1);
+    }
+
+    /**
+     * Stops the server and the client
+     */
+    @TearDown
+    public void tearDown() {
+        binding.unbind();
+        system.terminate();
+    }
+
+    /*
+     * Echoes the data request back as the contents of the resource, after the delay
+     */
+    private CompletionStage<HttpResponse> read(final HttpRequest request) {
+        return request.entity().toStrict(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS), materializer)
+                .thenApplyAsync((HttpEntity.Strict entity) -> HttpResponse.create().withEntity(entity.getData()),
+                        CompletableFuture.delayedExecutor(readDelayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * Replies to each CTS with the next resource, then COMPLETE
+     */
+    private Flow<Message, Message, NotUsed> serverFlow() {
+        var next = new AtomicInteger();
+        return Flow.<Message>create()
+                .mapAsync(1, msg -> msg.asTextMessage().getStreamedText().runWith(Sink.ignore(), materializer))
+                .map(ignored -> (Message) TextMessage.create(JsonCodec.writeWebSocketMessage(reply(next.getAndIncrement()))));
+    }
+
+    private static WebSocketMessage reply(final int i) {
+        return i < RESOURCES
+                ? WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .noHeaders()
+                .withBody(new FileResource()
+                        .id("file:/data/" + i)
+                        .type("type")
+                        .serialisedFormat("format")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")))
+                : WebSocketMessage.Builder.create()
+                .withType(MessageType.COMPLETE)
+                .noHeaders()
+                .noBody();
+    }
+
+    /**
+     * Every resource read one after another
+     *
+     * @throws Exception if a resource cannot be read
+     */
+    @Benchmark
+    @OperationsPerInvocation(RESOURCES)
+    public void sequential() throws Exception {
+        client.fetchSource("token")
+                .flatMapConcat(resource -> client.readSource("token", resource))
+                .runWith(Sink.ignore(), materializer)
+                .toCompletableFuture()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Every resource read by {@code readAll}, each collected in the order listed
+     *
+     * @throws Exception if a resource cannot be read
+     */
+    @Benchmark
+    @OperationsPerInvocation(RESOURCES)
+    public void readAll() throws Exception {
+        client.readAll("token", PARALLELISM)
+                .mapAsync(PARALLELISM, read -> read.second().runFold(ByteString.emptyByteString(), ByteString::concat, materializer))
+                .runWith(Sink.ignore(), materializer)
+                .toCompletableFuture()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Every resource read by {@code readAllUnordered}
+     *
+     * @throws Exception if a resource cannot be read
+     */
+    @Benchmark
+    @OperationsPerInvocation(RESOURCES)
+    public void readAllUnordered() throws Exception {
+        client.readAllUnordered("token", PARALLELISM)
+                .runWith(Sink.ignore(), materializer)
+                .toCompletableFuture()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+}
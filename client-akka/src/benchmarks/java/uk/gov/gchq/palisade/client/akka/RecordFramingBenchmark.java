@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import akka.util.ByteStringBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each of the {@link RecordFraming} flows splitting a resource of
+ * 100-byte records, which arrives in chunks that do not line up with the
+ * records, as the data of a resource read from a Data Service does. Each
+ * operation is one record, so the throughput is in records per second and the
+ * gc profiler's {@code gc.alloc.rate.norm} is the bytes allocated per record.
+ * <p>
+ * Run with {@code mvn -pl client-akka -Pbenchmarks verify}.
+ *
+ * @since 0.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class RecordFramingBenchmark {
+
+    private static final int RECORDS = 100_000;
+    private static final int RECORD_LENGTH = 100;
+    private static final int CHUNK = 64 * 1024 + 1;
+    private static final int MAX_LENGTH = 1024;
+    private static final long TIMEOUT_SECONDS = 60L;
+    private static final ByteString SYNC = ByteString.fromString("0123456789abcdef");
+
+    private ActorSystem system;
+    private Materializer materializer;
+    private List<ByteString> lines;
+    private List<ByteString> lengthPrefixed;
+    private List<ByteString> avroBlocks;
+
+    /**
+     * Writes the resource framed by each benchmark
+     */
+    @Setup
+    public void setUp() {
+        system = ActorSystem.create("record-framing-benchmark");
+        materializer = Materializer.createMaterializer(system);
+
+        var record = ByteString.fromString("x".repeat(RECORD_LENGTH - 1));
+        var linesBuilder = new ByteStringBuilder();
+        var lengthPrefixedBuilder = new ByteStringBuilder();
+        var avroBuilder = avroHeader();
+        for (int i = 0; i < RECORDS; i++) {
+            linesBuilder.append(record).putByte((byte) '\n');
+            lengthPrefixedBuilder.putInt(record.size(), ByteOrder.BIG_ENDIAN).append(record);
+            writeLong(avroBuilder, 1);
+            writeLong(avroBuilder, record.size());
+            avroBuilder.append(record).append(SYNC);
+        }
+        lines = split(linesBuilder.result());
+        lengthPrefixed = split(lengthPrefixedBuilder.result());
+        avroBlocks = split(avroBuilder.result());
+    }
+
+    /**
+     * Stops the actor system
+     */
+    @TearDown
+    public void tearDown() {
+        system.terminate();
+    }
+
+    private static List<ByteString> split(final ByteString data) {
+        var chunks = new ArrayList<ByteString>();
+        for (int i = 0; i < data.size(); i += CHUNK) {
+            chunks.add(data.slice(i, Math.min(i + CHUNK, data.size())));
+        }
+        return chunks;
+    }
+
+    private static ByteStringBuilder avroHeader() {
+        var builder = new ByteStringBuilder()
+                .append(ByteString.fromArray(new byte[]{'O', 'b', 'j', 1}));
+        // An empty metadata map
+        writeLong(builder, 0);
+        return builder.append(SYNC);
+    }
+
+    private static void writeLong(final ByteStringBuilder builder, final long value) {
+        var zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            builder.putByte((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        builder.putByte((byte) zigzag);
+    }
+
+    private long count(final List<ByteString> chunks, final Flow<ByteString, ByteString, NotUsed> framing) throws Exception {
+        return Source.from(chunks)
+                .via(framing)
+                .runWith(Sink.fold(0L, (count, record) -> count + 1), materializer)
+                .toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Line-delimited records
+     *
+     * @return the number of records framed
+     * @throws Exception if the records cannot be framed
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long lines() throws Exception {
+        return count(lines, RecordFraming.lines(MAX_LENGTH));
+    }
+
+    /**
+     * Length-prefixed records
+     *
+     * @return the number of records framed
+     * @throws Exception if the records cannot be framed
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long lengthPrefixed() throws Exception {
+        return count(lengthPrefixed, RecordFraming.lengthPrefixed(MAX_LENGTH));
+    }
+
+    /**
+     * Avro container blocks, of one record each
+     *
+     * @return the number of blocks framed
+     * @throws Exception if the blocks cannot be framed
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long avroBlocks() throws Exception {
+        return count(avroBlocks, RecordFraming.avroBlocks(MAX_LENGTH));
+    }
+
+}
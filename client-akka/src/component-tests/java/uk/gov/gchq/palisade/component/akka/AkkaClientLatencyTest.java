@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.Done;
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocket;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient;
+import uk.gov.gchq.palisade.client.akka.AkkaClient.SSLMode;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link AkkaClient#fetchSource(String)} against a websocket server which
+ * answers each CTS only after a delay, as if over a high-latency link, checking
+ * how many CTS messages are outstanding at once with a single CTS credit (one
+ * resource per round trip) and with many.
+ *
+ * @since 0.5.0
+ */
+class AkkaClientLatencyTest {
+
+    private static final int RESOURCES = 100;
+    private static final long LATENCY_MILLIS = 20L;
+    private static final int CREDITS = 16;
+    private static final long TIMEOUT_SECONDS = 60L;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // The CTS messages the server has received but not yet answered, and the most seen at once
+    private static final AtomicInteger OUTSTANDING = new AtomicInteger();
+    private static final AtomicInteger PEAK_OUTSTANDING = new AtomicInteger();
+
+    private static ActorSystem serverSystem;
+    private static ServerBinding binding;
+    private static Materializer serverMaterializer;
+
+    @BeforeAll
+    static void setupAll() throws Exception {
+        serverSystem = ActorSystem.create("latency-server");
+        serverMaterializer = Materializer.createMaterializer(serverSystem);
+        binding = Http.get(serverSystem).newServerAt("localhost", 0)
+                .bindSync((final HttpRequest request) -> WebSocket.handleWebSocketRequestWith(request, serverFlow()))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        binding.unbind();
+        serverSystem.terminate();
+    }
+
+    /*
+     * Replies to each CTS with the next message after the latency, with any number of replies in flight at once, then COMPLETE
+     */
+    private static Flow<Message, Message, NotUsed> serverFlow() {
+        var next = new AtomicInteger();
+        return Flow.<Message>create()
+                .mapAsync(1, msg -> msg.asTextMessage().getStreamedText().runWith(Sink.ignore(), serverMaterializer))
+                .map((Done ignored) -> {
+                    PEAK_OUTSTANDING.accumulateAndGet(OUTSTANDING.incrementAndGet(), Math::max);
+                    return next.getAndIncrement();
+                })
+                .mapAsync(RESOURCES, i -> CompletableFuture.supplyAsync(() -> {
+                    OUTSTANDING.decrementAndGet();
+                    return (Message) TextMessage.create(reply(i));
+                }, CompletableFuture.delayedExecutor(LATENCY_MILLIS, TimeUnit.MILLISECONDS)));
+    }
+
+    private static String reply(final int i) {
+        var message = i < RESOURCES
+                ? WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .noHeaders()
+                .withBody(new FileResource()
+                        .id("file:/data/" + i)
+                        .type("type")
+                        .serialisedFormat("format")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")))
+                : WebSocketMessage.Builder.create()
+                .withType(MessageType.COMPLETE)
+                .noHeaders()
+                .noBody();
+        try {
+            return MAPPER.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to write message", e);
+        }
+    }
+
+    /*
+     * Returns the most CTS messages outstanding at once while fetching every resource with the given number of credits
+     */
+    private static int fetchPeakOutstanding(final int credits) throws Exception {
+        var system = ActorSystem.create("latency-client", ConfigFactory.parseMap(Map.of(AkkaClient.CTS_CREDITS, credits))
+                .withFallback(ConfigFactory.load()));
+        try {
+            var port = binding.localAddress().getPort();
+            var client = new AkkaClient("localhost:" + port, "localhost:" + port, Map.of(), system, SSLMode.NONE);
+            PEAK_OUTSTANDING.set(0);
+            List<String> ids = client.fetchSource("token")
+                    .map(LeafResource::getId)
+                    .runWith(Sink.seq(), Materializer.createMaterializer(system))
+                    .toCompletableFuture()
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            assertThat(ids)
+                    .as("check every resource is returned in order with %d credits", credits)
+                    .containsExactlyElementsOf(IntStream.range(0, RESOURCES)
+                            .mapToObj(i -> "file:/data/" + i)
+                            .collect(Collectors.toList()));
+            return PEAK_OUTSTANDING.get();
+        } finally {
+            system.terminate();
+        }
+    }
+
+    @Test
+    void testCreditsHideLatency() throws Exception {
+        assertThat(fetchPeakOutstanding(1))
+                .as("check a single credit waits for each answer before sending the next CTS")
+                .isEqualTo(1);
+        assertThat(fetchPeakOutstanding(CREDITS))
+                .as("check %d credits keep several CTS outstanding, but no more than the credits", CREDITS)
+                .isGreaterThan(1)
+                .isLessThanOrEqualTo(CREDITS);
+    }
+}
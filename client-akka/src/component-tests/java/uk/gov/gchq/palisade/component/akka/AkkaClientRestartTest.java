@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocket;
+import akka.stream.Materializer;
+import akka.stream.RestartSettings;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient;
+import uk.gov.gchq.palisade.client.akka.AkkaClient.SSLMode;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Runs {@link AkkaClient#fetchSource(String, RestartSettings)} against a
+ * websocket server which closes the first connection for each token part way
+ * through the resources, then either replays them from the start, resumes
+ * from where it left off, or keeps closing early, depending on the token.
+ *
+ * @since 0.5.0
+ */
+class AkkaClientRestartTest {
+
+    private static final int RESOURCES = 20;
+    private static final int DROP_AFTER = 7;
+    private static final long TIMEOUT_SECONDS = 30L;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final RestartSettings SETTINGS = RestartSettings.create(Duration.ofMillis(10), Duration.ofMillis(100), 0.2)
+            .withMaxRestarts(3, Duration.ofMinutes(1));
+
+    private static final Map<String, AtomicInteger> CONNECTIONS = new ConcurrentHashMap<>();
+
+    private static ActorSystem system;
+    private static ServerBinding binding;
+    private static AkkaClient client;
+    private static Materializer materializer;
+
+    @BeforeAll
+    static void setupAll() throws Exception {
+        system = ActorSystem.create("restart");
+        materializer = Materializer.createMaterializer(system);
+        binding = Http.get(system).newServerAt("localhost", 0)
+                .bindSync((final HttpRequest request) -> {
+                    var path = request.getUri().path();
+                    var token = path.substring(path.lastIndexOf('/') + 1);
+                    var connection = CONNECTIONS.computeIfAbsent(token, ignored -> new AtomicInteger()).getAndIncrement();
+                    return WebSocket.handleWebSocketRequestWith(request, serverFlow(replies(token, connection)));
+                })
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        var port = binding.localAddress().getPort();
+        client = new AkkaClient("localhost:" + port, "localhost:" + port, Map.of(), system, SSLMode.NONE);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        binding.unbind();
+        system.terminate();
+    }
+
+    /*
+     * The first connection, and every connection for the 'drop' token, is closed after DROP_AFTER resources
+     */
+    private static List<Message> replies(final String token, final int connection) {
+        var first = connection > 0 && "resume".equals(token) ? DROP_AFTER : 0;
+        var last = connection == 0 || "drop".equals(token) ? DROP_AFTER : RESOURCES;
+        var replies = new ArrayList<Message>();
+        IntStream.range(first, last)
+                .mapToObj(i -> TextMessage.create(serialise(WebSocketMessage.Builder.create()
+                        .withType(MessageType.RESOURCE)
+                        .noHeaders()
+                        .withBody(new FileResource()
+                                .id("file:/data/" + i)
+                                .type("type")
+                                .serialisedFormat("format")
+                                .connectionDetail(new SimpleConnectionDetail().serviceName("data-service"))))))
+                .forEach(replies::add);
+        if (last == RESOURCES) {
+            replies.add(TextMessage.create(serialise(WebSocketMessage.Builder.create()
+                    .withType(MessageType.COMPLETE)
+                    .noHeaders()
+                    .noBody())));
+        }
+        return replies;
+    }
+
+    /*
+     * Replies to each CTS with the next message, closing the websocket once there are none left
+     */
+    private static Flow<Message, Message, NotUsed> serverFlow(final List<Message> replies) {
+        return Flow.<Message>create()
+                .mapAsync(1, msg -> msg.asTextMessage().getStreamedText().runWith(Sink.ignore(), materializer))
+                .zipWith(Source.from(replies), (ignored, reply) -> reply);
+    }
+
+    private static String serialise(final WebSocketMessage message) {
+        try {
+            return MAPPER.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to write message", e);
+        }
+    }
+
+    private static List<String> fetch(final String token) throws Exception {
+        return client.fetchSource(token, SETTINGS)
+                .map(LeafResource::getId)
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static List<String> ids(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "file:/data/" + i)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testReplay() throws Exception {
+        assertThat(fetch("replay"))
+                .as("check every resource is returned once when the service replays from the start")
+                .containsExactlyElementsOf(ids(RESOURCES));
+        assertThat(CONNECTIONS.get("replay"))
+                .as("check the websocket was re-opened once")
+                .hasValue(2);
+    }
+
+    @Test
+    void testResume() throws Exception {
+        assertThat(fetch("resume"))
+                .as("check every resource is returned once when the service resumes where it left off")
+                .containsExactlyElementsOf(ids(RESOURCES));
+        assertThat(CONNECTIONS.get("resume"))
+                .as("check the websocket was re-opened once")
+                .hasValue(2);
+    }
+
+    @Test
+    void testClosedWithoutRestartFails() {
+        var resources = new ArrayList<String>();
+        var done = client.fetchSource("once")
+                .map(LeafResource::getId)
+                .runForeach(resources::add, materializer)
+                .toCompletableFuture();
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check the source fails when the websocket is closed early without restarts")
+                .isThrownBy(() -> done.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .withCauseInstanceOf(IOException.class);
+        assertThat(resources)
+                .as("check the resources received before the websocket was closed are returned")
+                .containsExactlyElementsOf(ids(DROP_AFTER));
+    }
+
+    @Test
+    void testMaxRestarts() {
+        var resources = new ArrayList<String>();
+        var done = client.fetchSource("drop", SETTINGS)
+                .map(LeafResource::getId)
+                .runForeach(resources::add, materializer)
+                .toCompletableFuture();
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check the source fails once it runs out of restarts")
+                .isThrownBy(() -> done.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .withCauseInstanceOf(IOException.class);
+        assertThat(resources)
+                .as("check the resources received before running out of restarts are returned once")
+                .containsExactlyElementsOf(ids(DROP_AFTER));
+        assertThat(CONNECTIONS.get("drop"))
+                .as("check the websocket was re-opened up to the maximum number of restarts")
+                .hasValue(4);
+    }
+}
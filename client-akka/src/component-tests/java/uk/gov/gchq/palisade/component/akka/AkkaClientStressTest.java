@@ -0,0 +1,423 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.HttpEntity;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.StatusCodes;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocket;
+import akka.japi.Pair;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient;
+import uk.gov.gchq.palisade.client.akka.AkkaClient.SSLMode;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs many concurrent {@link AkkaClient#fetchSource(String)} streams on an actor
+ * system with only two dispatcher threads, against a websocket server which sends
+ * a mix of strict and streamed frames. Any stage blocking a dispatcher thread
+ * would stall every stream.
+ *
+ * @since 0.5.0
+ */
+class AkkaClientStressTest {
+
+    private static final int STREAMS = 32;
+    private static final int RESOURCES = 20;
+    private static final int READS = 20;
+    private static final long READ_DELAY_MILLIS = 200L;
+    private static final long TIMEOUT_MILLIS = 10_000L;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String MISSING = "file:/missing/";
+    // The reads the server is part way through, and the most seen at once
+    private static final AtomicInteger READING = new AtomicInteger();
+    private static final AtomicInteger PEAK_READING = new AtomicInteger();
+    // The same, for each host the server was reached by
+    private static final Map<String, AtomicInteger> READING_BY_HOST = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> PEAK_READING_BY_HOST = new ConcurrentHashMap<>();
+    // Listed resources for this token alternate between two data services, on two hosts of the same server
+    private static final String TWO_SERVICES = "two-services";
+    private static final int PER_SERVICE = 2;
+
+    private static ActorSystem serverSystem;
+    private static ActorSystem clientSystem;
+    private static ServerBinding binding;
+
+    @BeforeAll
+    static void setupAll() throws Exception {
+        serverSystem = ActorSystem.create("stress-server");
+        clientSystem = ActorSystem.create("stress-client", ConfigFactory.parseString(
+                "akka.actor.default-dispatcher.fork-join-executor { parallelism-min = 2, parallelism-max = 2 }")
+                .withFallback(ConfigFactory.load()));
+
+        var materializer = Materializer.createMaterializer(serverSystem);
+        binding = Http.get(serverSystem).newServerAt("localhost", 0)
+                .bind((final HttpRequest request) -> request.getUri().path().startsWith("/read")
+                        ? read(request, materializer)
+                        : CompletableFuture.completedFuture(WebSocket.handleWebSocketRequestWith(request,
+                        serverFlow(materializer, request.getUri().path().endsWith(TWO_SERVICES)))))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        binding.unbind();
+        clientSystem.terminate();
+        serverSystem.terminate();
+    }
+
+    /*
+     * Echoes the data request back as the contents of the resource, after a delay as if reading it, counting the reads in progress.
+     * Resources which are missing are not found.
+     */
+    private static CompletionStage<HttpResponse> read(final HttpRequest request, final Materializer materializer) {
+        var host = request.getUri().host().address();
+        var readingHost = READING_BY_HOST.computeIfAbsent(host, ignored -> new AtomicInteger());
+        PEAK_READING.accumulateAndGet(READING.incrementAndGet(), Math::max);
+        PEAK_READING_BY_HOST.computeIfAbsent(host, ignored -> new AtomicInteger()).accumulateAndGet(readingHost.incrementAndGet(), Math::max);
+        return request.entity().toStrict(TIMEOUT_MILLIS, materializer).thenApplyAsync((HttpEntity.Strict entity) -> {
+            READING.decrementAndGet();
+            readingHost.decrementAndGet();
+            if (leafResourceId(entity.getData().utf8String()).startsWith(MISSING)) {
+                return HttpResponse.create().withStatus(StatusCodes.NOT_FOUND).withEntity("not found");
+            }
+            return HttpResponse.create().withEntity(entity.getData());
+        }, CompletableFuture.delayedExecutor(READ_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * Replies to each CTS with the next message, alternating strict and streamed frames, and if asked the data service of each resource
+     */
+    private static Flow<Message, Message, NotUsed> serverFlow(final Materializer materializer, final boolean twoServices) {
+        var replies = new ArrayList<Message>();
+        for (int i = 0; i < RESOURCES; i++) {
+            var text = serialise(WebSocketMessage.Builder.create()
+                    .withType(MessageType.RESOURCE)
+                    .noHeaders()
+                    .withBody(new FileResource()
+                            .id("file:/data/" + i)
+                            .type("type")
+                            .serialisedFormat("format")
+                            .connectionDetail(new SimpleConnectionDetail().serviceName(twoServices && i % 2 == 1 ? "other-service" : "data-service"))));
+            replies.add(i % 2 == 0
+                    ? TextMessage.create(text)
+                    : TextMessage.create(Source.from(split(text))));
+        }
+        replies.add(TextMessage.create(serialise(WebSocketMessage.Builder.create()
+                .withType(MessageType.COMPLETE)
+                .noHeaders()
+                .noBody())));
+
+        return Flow.<Message>create()
+                .mapAsync(1, msg -> msg.asTextMessage().getStreamedText().runWith(Sink.ignore(), materializer))
+                .zipWith(Source.from(replies), (ignored, reply) -> reply);
+    }
+
+    private static String serialise(final WebSocketMessage message) {
+        try {
+            return MAPPER.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to write message", e);
+        }
+    }
+
+    private static String leafResourceId(final String dataRequest) {
+        try {
+            return MAPPER.readTree(dataRequest).get("leafResourceId").asText();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to read data request", e);
+        }
+    }
+
+    private static List<String> split(final String text) {
+        var half = text.length() / 2;
+        return List.of(text.substring(0, half), text.substring(half));
+    }
+
+    @Test
+    void testConcurrentFetchSource() throws Exception {
+        var port = binding.localAddress().getPort();
+        var client = new AkkaClient("localhost:" + port, "localhost:" + port, Map.of(), clientSystem, SSLMode.NONE);
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        var futures = IntStream.range(0, STREAMS)
+                .mapToObj(i -> client.fetchSource("token-" + i)
+                        .runWith(Sink.seq(), materializer)
+                        .toCompletableFuture())
+                .collect(Collectors.toList());
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+
+        for (CompletableFuture<List<LeafResource>> future : futures) {
+            assertThat(future.get())
+                    .as("check every resource is returned in order")
+                    .extracting(LeafResource::getId)
+                    .containsExactlyElementsOf(IntStream.range(0, RESOURCES)
+                            .mapToObj(i -> "file:/data/" + i)
+                            .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testReadAll() throws Exception {
+        var port = binding.localAddress().getPort();
+        var client = new AkkaClient("localhost:" + port, "localhost:" + port, Map.of("data-service", "localhost:" + port), clientSystem, SSLMode.NONE);
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        var reads = client.readAll("token", RESOURCES)
+                .mapAsyncUnordered(RESOURCES, read -> read.second()
+                        .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                        .thenApply(bytes -> Map.entry(read.first().getId(), leafResourceId(bytes.utf8String()))))
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(reads)
+                .as("check every resource is returned with its own contents")
+                .allSatisfy(read -> assertThat(read.getValue()).isEqualTo(read.getKey()))
+                .extracting(Map.Entry::getKey)
+                .as("check every resource is read")
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(0, RESOURCES)
+                        .mapToObj(i -> "file:/data/" + i)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testReadAllUnorderedIsParallel() throws Exception {
+        var port = binding.localAddress().getPort();
+        var client = new AkkaClient("localhost:" + port, "localhost:" + port, Map.of("data-service", "localhost:" + port), clientSystem, SSLMode.NONE,
+                Map.of("data-service", RESOURCES), 1);
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        // Read every resource one after another, as a baseline
+        PEAK_READING.set(0);
+        client.fetchSource("token")
+                .flatMapConcat(resource -> client.readSource("token", resource))
+                .runWith(Sink.ignore(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+        var sequentialPeak = PEAK_READING.getAndSet(0);
+
+        var chunks = client.readAllUnordered("token", RESOURCES)
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        var contents = chunks.stream().collect(Collectors.groupingBy(chunk -> chunk.first().getId(),
+                Collectors.reducing(ByteString.emptyByteString(), Pair::second, ByteString::concat)));
+        assertThat(contents)
+                .as("check every resource is read")
+                .hasSize(RESOURCES)
+                .allSatisfy((id, bytes) -> assertThat(leafResourceId(bytes.utf8String())).isEqualTo(id));
+        assertThat(sequentialPeak)
+                .as("check the baseline reads one resource at a time")
+                .isEqualTo(1);
+        assertThat(PEAK_READING)
+                .as("check the server was reading more than one resource at once")
+                .hasValueGreaterThan(1);
+    }
+
+    @Test
+    void testReadAllLimitsEachService() throws Exception {
+        var client = twoServiceClient();
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        PEAK_READING.set(0);
+        PEAK_READING_BY_HOST.clear();
+        var reads = client.readAll(TWO_SERVICES, RESOURCES, PER_SERVICE)
+                .mapAsyncUnordered(RESOURCES, read -> read.second()
+                        .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                        .thenApply(bytes -> leafResourceId(bytes.utf8String())))
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(reads)
+                .as("check every resource is read")
+                .hasSize(RESOURCES);
+        assertPeaks();
+    }
+
+    @Test
+    void testReadAllUnorderedLimitsEachService() throws Exception {
+        var client = twoServiceClient();
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        PEAK_READING.set(0);
+        PEAK_READING_BY_HOST.clear();
+        var chunks = client.readAllUnordered(TWO_SERVICES, RESOURCES, PER_SERVICE)
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(chunks)
+                .as("check every resource is read")
+                .extracting(chunk -> chunk.first().getId())
+                .containsOnlyElementsOf(IntStream.range(0, RESOURCES)
+                        .mapToObj(i -> "file:/data/" + i)
+                        .collect(Collectors.toList()))
+                .hasSizeGreaterThanOrEqualTo(RESOURCES);
+        assertPeaks();
+    }
+
+    /*
+     * A client reaching the data services on two hosts of the server, with a pool large enough to read every resource at once from each
+     */
+    private static AkkaClient twoServiceClient() {
+        var port = binding.localAddress().getPort();
+        return new AkkaClient("localhost:" + port, "localhost:" + port,
+                Map.of("data-service", "localhost:" + port, "other-service", "127.0.0.1:" + port), clientSystem, SSLMode.NONE,
+                Map.of("data-service", RESOURCES, "other-service", RESOURCES), 1);
+    }
+
+    private static void assertPeaks() {
+        assertThat(PEAK_READING_BY_HOST)
+                .as("check both data services were read")
+                .hasSize(2)
+                .allSatisfy((host, peak) -> assertThat(peak)
+                        .as("check no more than the limit were read at once from %s", host)
+                        .hasValueBetween(1, PER_SERVICE));
+        assertThat(PEAK_READING)
+                .as("check the data services were read at the same time")
+                .hasValueGreaterThan(PER_SERVICE);
+    }
+
+    @Test
+    void testReadFlowThroughPool() throws Exception {
+        var port = binding.localAddress().getPort();
+        var dataUrlMap = Map.of("data-service", "localhost:" + port);
+        var client = new AkkaClient("localhost:" + port, "localhost:" + port, dataUrlMap, clientSystem, SSLMode.NONE, Map.of("data-service", 2), 1);
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        var ids = IntStream.range(0, READS)
+                .mapToObj(i -> "file:/data/" + i)
+                .collect(Collectors.toList());
+
+        var bodies = Source.from(ids)
+                .map(id -> (LeafResource) new FileResource()
+                        .id(id)
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")))
+                .via(client.readFlow("token"))
+                .mapAsync(4, read -> read.second()
+                        .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                        .thenApply(bytes -> Map.entry(read.first().getId(), leafResourceId(bytes.utf8String()))))
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(bodies)
+                .as("check every response is paired with its resource")
+                .allSatisfy(read -> assertThat(read.getValue()).isEqualTo(read.getKey()))
+                .extracting(Map.Entry::getKey)
+                .as("check every resource is read through the pool")
+                .containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void testReadFlowFailsPerResource() throws Exception {
+        var port = binding.localAddress().getPort();
+        // Nothing listens on the port the server was bound to before, so requests to the dead service fail to connect
+        var deadPort = Http.get(serverSystem).newServerAt("localhost", 0).bindSync((final HttpRequest request) -> HttpResponse.create())
+                .thenCompose(dead -> dead.unbind().thenApply(ignored -> dead.localAddress().getPort()))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        var dataUrlMap = Map.of("data-service", "localhost:" + port, "dead-service", "localhost:" + deadPort);
+        var client = new AkkaClient("localhost:" + port, "localhost:" + port, dataUrlMap, clientSystem, SSLMode.NONE);
+        var materializer = Materializer.createMaterializer(clientSystem);
+
+        var resources = List.<LeafResource>of(
+                new FileResource().id("file:/data/0").connectionDetail(new SimpleConnectionDetail().serviceName("data-service")),
+                new FileResource().id(MISSING + "1").connectionDetail(new SimpleConnectionDetail().serviceName("data-service")),
+                new FileResource().id("file:/data/2").connectionDetail(new SimpleConnectionDetail().serviceName("dead-service")),
+                new FileResource().id("file:/data/3").connectionDetail(new SimpleConnectionDetail().serviceName("data-service")));
+
+        var reads = Source.from(resources)
+                .via(client.readFlow("token"))
+                .mapAsync(1, read -> read.second()
+                        .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                        .handle((bytes, error) -> Map.entry(read.first().getId(), error == null ? leafResourceId(bytes.utf8String()) : "failed")))
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(reads)
+                .as("check each resource which cannot be read fails on its own, and the others are still read")
+                .containsExactlyInAnyOrder(
+                        Map.entry("file:/data/0", "file:/data/0"),
+                        Map.entry(MISSING + "1", "failed"),
+                        Map.entry("file:/data/2", "failed"),
+                        Map.entry("file:/data/3", "file:/data/3"));
+    }
+
+    @Test
+    void testReadAsync() throws Exception {
+        var port = binding.localAddress().getPort();
+        var client = new AkkaClient("localhost:" + port, "localhost:" + port, Map.of("data-service", "localhost:" + port), clientSystem, SSLMode.NONE);
+        var materializer = Materializer.createMaterializer(clientSystem);
+        var resource = (LeafResource) new FileResource()
+                .id("file:/data/0")
+                .connectionDetail(new SimpleConnectionDetail().serviceName("data-service"));
+
+        var publisher = client.readAsync("token", resource).toCompletableFuture().get(60, TimeUnit.SECONDS);
+        var bytes = Source.fromPublisher(FlowAdapters.toPublisher(publisher))
+                .runFold(ByteString.emptyByteString(), (data, buffer) -> data.concat(ByteString.fromByteBuffer(buffer)), materializer)
+                .toCompletableFuture()
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(leafResourceId(bytes.utf8String()))
+                .as("check the resource is read as buffers")
+                .isEqualTo(resource.getId());
+        assertThat(clientSystem.dispatchers().hasDispatcher(AkkaClient.BLOCKING_DISPATCHER))
+                .as("check the blocking dispatcher is configured")
+                .isTrue();
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.HttpEntity;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.ws.Message;
+import akka.http.javadsl.model.ws.TextMessage;
+import akka.http.javadsl.model.ws.WebSocket;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializers;
+import akka.stream.Materializer;
+import akka.stream.RestartSettings;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient;
+import uk.gov.gchq.palisade.client.akka.AkkaClient.SSLMode;
+import uk.gov.gchq.palisade.client.akka.distributed.ResourceWorker;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkCoordinator;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Done;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Finished;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Request;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocolSerializer;
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Shares the resources of one token between workers on several actor systems
+ * in the same JVM, each standing in for a node of a cluster with its own
+ * {@link AkkaClient}, while the listing runs on another. Every message is
+ * serialised, as it would be between nodes. Checks every resource
+ * is read exactly once, that more nodes read more at once, that the
+ * work of a worker which stops is handed to another, and that a listing which
+ * ends early fails the coordinator unless it can be restarted.
+ *
+ * @since 0.5.0
+ */
+class DistributedReadTest {
+
+    private static final int RESOURCES = 48;
+    private static final int PARALLELISM = 2;
+    private static final int BUFFER_SIZE = 4;
+    private static final long READ_DELAY_MILLIS = 100L;
+    private static final long TIMEOUT_SECONDS = 60L;
+    private static final int TRUNCATE_AFTER = 10;
+    private static final RestartSettings SETTINGS = RestartSettings.create(Duration.ofMillis(10), Duration.ofMillis(100), 0.2)
+            .withMaxRestarts(3, Duration.ofMinutes(1));
+    private static final Map<String, AtomicInteger> CONNECTIONS = new ConcurrentHashMap<>();
+    // The reads the server is part way through, and the most seen at once
+    private static final AtomicInteger READING = new AtomicInteger();
+    private static final AtomicInteger PEAK_READING = new AtomicInteger();
+    private static final List<String> RESOURCE_IDS = IntStream.range(0, RESOURCES)
+            .mapToObj(i -> "file:/data/" + i)
+            .collect(Collectors.toList());
+
+    private static ActorSystem serverSystem;
+    private static ServerBinding binding;
+
+    private final List<ActorSystem> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void setupAll() throws Exception {
+        serverSystem = ActorSystem.create("distributed-server");
+        var materializer = Materializer.createMaterializer(serverSystem);
+        binding = Http.get(serverSystem).newServerAt("localhost", 0)
+                .bind((final HttpRequest request) -> request.getUri().path().startsWith("/read")
+                        ? read(request, materializer)
+                        : CompletableFuture.completedFuture(WebSocket.handleWebSocketRequestWith(request, serverFlow(materializer, limit(request)))))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        binding.unbind();
+        serverSystem.terminate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ActorSystem::terminate);
+        nodes.clear();
+    }
+
+    /*
+     * Echoes the data request back as the contents of the resource, after a delay as if reading it, counting the reads in progress
+     */
+    private static CompletionStage<HttpResponse> read(final HttpRequest request, final Materializer materializer) {
+        PEAK_READING.accumulateAndGet(READING.incrementAndGet(), Math::max);
+        return request.entity().toStrict(TIMEOUT_SECONDS * 1000, materializer).thenApplyAsync((HttpEntity.Strict entity) -> {
+            READING.decrementAndGet();
+            return HttpResponse.create().withEntity(entity.getData());
+        }, CompletableFuture.delayedExecutor(READ_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * The number of messages sent before the websocket is closed, which for the 'truncated' token, and the first connection for the
+     * 'flaky' token, is fewer than every resource
+     */
+    private static long limit(final HttpRequest request) {
+        var path = request.getUri().path();
+        var token = path.substring(path.lastIndexOf('/') + 1);
+        var connection = CONNECTIONS.computeIfAbsent(token, ignored -> new AtomicInteger()).getAndIncrement();
+        return "truncated".equals(token) || ("flaky".equals(token) && connection == 0) ? TRUNCATE_AFTER : Long.MAX_VALUE;
+    }
+
+    /*
+     * Replies to each CTS with the next resource, then COMPLETE, closing the websocket after the limit
+     */
+    private static Flow<Message, Message, NotUsed> serverFlow(final Materializer materializer, final long limit) {
+        var next = new AtomicInteger();
+        return Flow.<Message>create()
+                .mapAsync(1, msg -> msg.asTextMessage().getStreamedText().runWith(Sink.ignore(), materializer))
+                .map(ignored -> (Message) TextMessage.create(JsonCodec.writeWebSocketMessage(reply(next.getAndIncrement()))))
+                .take(limit);
+    }
+
+    private static WebSocketMessage reply(final int i) {
+        return i < RESOURCES
+                ? WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .noHeaders()
+                .withBody(new FileResource()
+                        .id(RESOURCE_IDS.get(i))
+                        .type("type")
+                        .serialisedFormat("format")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")))
+                : WebSocketMessage.Builder.create()
+                .withType(MessageType.COMPLETE)
+                .noHeaders()
+                .noBody();
+    }
+
+    /*
+     * Every message sent on a node is serialised and deserialised, as it would be between the nodes of a cluster
+     */
+    private ActorSystem node(final String name) {
+        var system = ActorSystem.create(name, ConfigFactory.parseString("akka.actor.serialize-messages = on")
+                .withFallback(ConfigFactory.load()));
+        nodes.add(system);
+        return system;
+    }
+
+    private static AkkaClient client(final ActorSystem system) {
+        var port = binding.localAddress().getPort();
+        return new AkkaClient("localhost:" + port, "localhost:" + port, Map.of("data-service", "localhost:" + port), system, SSLMode.NONE);
+    }
+
+    /*
+     * Records the node which read each resource, after checking its contents are its own data request
+     */
+    private static BiFunction<LeafResource, Source<ByteString, NotUsed>, CompletionStage<?>> recordReads(
+            final String node, final ActorSystem system, final Map<String, List<String>> reads) {
+        var materializer = Materializer.createMaterializer(system);
+        return (resource, data) -> data
+                .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                .thenAccept(bytes -> {
+                    assertThat(bytes.utf8String())
+                            .as("check the resource is read with its own data request")
+                            .contains(resource.getId());
+                    reads.computeIfAbsent(resource.getId(), id -> new ArrayList<>()).add(node);
+                });
+    }
+
+    /*
+     * Reads every resource with workers on the given number of nodes, returning the most reads the server had in progress at once
+     */
+    private int readAll(final int workerNodes, final Map<String, List<String>> reads) throws Exception {
+        var listing = node("listing");
+        var listingClient = client(listing);
+        var workers = IntStream.range(0, workerNodes)
+                .mapToObj(i -> node("worker-" + i))
+                .collect(Collectors.toList());
+
+        PEAK_READING.set(0);
+        var coordinator = WorkCoordinator.start(listing, listingClient, "token", BUFFER_SIZE);
+        for (ActorSystem worker : workers) {
+            ResourceWorker.start(worker, client(worker), coordinator.first(), PARALLELISM, recordReads(worker.name(), worker, reads));
+        }
+        coordinator.second().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return PEAK_READING.get();
+    }
+
+    @Test
+    void testEveryResourceReadOnce() throws Exception {
+        Map<String, List<String>> reads = new ConcurrentHashMap<>();
+        readAll(3, reads);
+
+        assertThat(reads)
+                .as("check every resource is read")
+                .containsOnlyKeys(RESOURCE_IDS)
+                .allSatisfy((id, readers) -> assertThat(readers).as("check %s is read once", id).hasSize(1));
+        assertThat(reads.values().stream().flatMap(List::stream).distinct())
+                .as("check every node reads some of the resources")
+                .containsExactlyInAnyOrder("worker-0", "worker-1", "worker-2");
+    }
+
+    @Test
+    void testReadsScaleWithNodes() throws Exception {
+        var singlePeak = readAll(1, new ConcurrentHashMap<>());
+        tearDown();
+        var scaledPeak = readAll(4, new ConcurrentHashMap<>());
+
+        assertThat(singlePeak)
+                .as("check a single node reads at most %d resources at a time", PARALLELISM)
+                .isPositive()
+                .isLessThanOrEqualTo(PARALLELISM);
+        assertThat(scaledPeak)
+                .as("check 4 nodes read more resources at a time than one, but at most %d each", PARALLELISM)
+                .isGreaterThan(PARALLELISM)
+                .isLessThanOrEqualTo(4 * PARALLELISM);
+    }
+
+    @Test
+    void testStoppedWorkerIsReplaced() throws Exception {
+        var listing = node("listing");
+        var coordinator = WorkCoordinator.start(listing, client(listing), "token", BUFFER_SIZE);
+
+        // This worker never finishes reading the resources it is given
+        var stalled = node("stalled");
+        var received = new CountDownLatch(PARALLELISM);
+        ActorRef stalledWorker = ResourceWorker.start(stalled, client(stalled), coordinator.first(), PARALLELISM, (resource, data) -> {
+            received.countDown();
+            return new CompletableFuture<>();
+        });
+        assertThat(received.await(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .as("check the stalled worker is given resources")
+                .isTrue();
+
+        Map<String, List<String>> reads = new ConcurrentHashMap<>();
+        var worker = node("worker");
+        ResourceWorker.start(worker, client(worker), coordinator.first(), PARALLELISM, recordReads("worker", worker, reads));
+        stalled.stop(stalledWorker);
+        coordinator.second().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertThat(reads)
+                .as("check the stalled worker's resources are read by the other worker")
+                .containsOnlyKeys(RESOURCE_IDS)
+                .allSatisfy((id, readers) -> assertThat(readers).as("check %s is read once", id).containsExactly("worker"));
+    }
+
+    @Test
+    void testTruncatedListingFailsCoordinator() {
+        var listing = node("listing");
+        var coordinator = WorkCoordinator.start(listing, client(listing), "truncated", BUFFER_SIZE);
+        var worker = node("worker");
+        ResourceWorker.start(worker, client(worker), coordinator.first(), PARALLELISM, recordReads("worker", worker, new ConcurrentHashMap<>()));
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check a listing closed before every resource was sent fails the coordinator")
+                .isThrownBy(() -> coordinator.second().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testTruncatedListingIsRestarted() throws Exception {
+        var listing = node("listing");
+        var coordinator = WorkCoordinator.start(listing, client(listing), "flaky", BUFFER_SIZE, SETTINGS);
+        Map<String, List<String>> reads = new ConcurrentHashMap<>();
+        var worker = node("worker");
+        ResourceWorker.start(worker, client(worker), coordinator.first(), PARALLELISM, recordReads("worker", worker, reads));
+        coordinator.second().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertThat(reads)
+                .as("check every resource is read once after the listing is re-opened")
+                .containsOnlyKeys(RESOURCE_IDS)
+                .allSatisfy((id, readers) -> assertThat(readers).as("check %s is read once", id).hasSize(1));
+        assertThat(CONNECTIONS.get("flaky"))
+                .as("check the listing was re-opened once")
+                .hasValue(2);
+    }
+
+    @Test
+    void testMessagesAreSerialisedByWorkProtocolSerializer() throws Exception {
+        var serialization = SerializationExtension.get(node("serialization"));
+        var messages = List.<Object>of(new Request(PARALLELISM), new Done(1L, null), new Done(2L, "test failure"), Finished.getInstance());
+
+        for (Object message : messages) {
+            assertThat(serialization.findSerializerFor(message))
+                    .as("check %s is bound to the work protocol serializer", message)
+                    .isInstanceOf(WorkProtocolSerializer.class);
+            var bytes = serialization.serialize(message).get();
+            assertThat(serialization.deserialize(bytes, serialization.findSerializerFor(message).identifier(),
+                    Serializers.manifestFor(serialization.findSerializerFor(message), message)).get())
+                    .as("check %s is the same once deserialised", message)
+                    .usingRecursiveComparison()
+                    .isEqualTo(message);
+        }
+    }
+
+    @Test
+    void testFailedReadFailsCoordinator() {
+        var listing = node("listing");
+        var coordinator = WorkCoordinator.start(listing, client(listing), "token", BUFFER_SIZE);
+        var worker = node("worker");
+        ResourceWorker.start(worker, client(worker), coordinator.first(), PARALLELISM,
+                (resource, data) -> CompletableFuture.failedFuture(new IllegalStateException("test failure")));
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check a failed read fails the coordinator")
+                .isThrownBy(() -> coordinator.second().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .withCauseInstanceOf(IllegalStateException.class)
+                .withMessageContaining("test failure");
+    }
+}
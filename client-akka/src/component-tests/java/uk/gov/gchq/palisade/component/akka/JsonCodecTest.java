@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.akka.model.DataRequest;
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Checks that the {@link JsonCodec} decodes messages received in several chunks.
+ *
+ * @since 0.5.0
+ */
+class JsonCodecTest {
+
+    private static final int MAX_CHUNK = 7;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testWebSocketMessage() {
+        var message = resourceMessage(0);
+        var text = JsonCodec.writeWebSocketMessage(message);
+
+        assertThat(JsonCodec.readWebSocketMessage(text))
+                .as("check the message is decoded from text")
+                .usingRecursiveComparison()
+                .isEqualTo(message);
+        for (int chunk = 1; chunk <= MAX_CHUNK; chunk++) {
+            var decoded = JsonCodec.readWebSocketMessage(split(ByteString.fromString(text), chunk));
+            assertThat(decoded)
+                    .as("check the message is decoded from bytes in chunks of %d", chunk)
+                    .usingRecursiveComparison()
+                    .isEqualTo(message);
+            assertThat(decoded.getBodyObject(LeafResource.class).getId())
+                    .as("check the message body is decoded")
+                    .isEqualTo("file:/data/0");
+        }
+    }
+
+    @Test
+    void testPalisadeResponse() {
+        var bytes = ByteString.fromString("{\"token\":\"test-token\"}");
+
+        assertThat(JsonCodec.readPalisadeResponse(split(bytes, 3)).getToken())
+                .as("check the response is decoded from bytes in chunks")
+                .isEqualTo("test-token");
+    }
+
+    @Test
+    void testDataRequest() throws Exception {
+        var bytes = JsonCodec.writeDataRequest(DataRequest.Builder.create()
+                .withToken("test-token")
+                .withLeafResourceId("file:/data/0"));
+        var json = MAPPER.readTree(bytes.toArray());
+
+        assertThat(json.get("token").asText())
+                .as("check the token is encoded")
+                .isEqualTo("test-token");
+        assertThat(json.get("leafResourceId").asText())
+                .as("check the resource id is encoded")
+                .isEqualTo("file:/data/0");
+    }
+
+    @Test
+    void testInvalid() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .as("check invalid json is rejected")
+                .isThrownBy(() -> JsonCodec.readWebSocketMessage(ByteString.fromString("{\"type\":")));
+    }
+
+    private static WebSocketMessage resourceMessage(final int i) {
+        return WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .withHeader("token", "test-token").noHeaders()
+                .withBody(new FileResource()
+                        .id("file:/data/" + i)
+                        .type("type")
+                        .serialisedFormat("format")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")));
+    }
+
+    private static ByteString split(final ByteString data, final int chunk) {
+        // Concatenating the slices keeps them as separate buffers within the ByteString
+        var result = ByteString.emptyByteString();
+        for (int i = 0; i < data.size(); i += chunk) {
+            result = result.concat(data.slice(i, Math.min(i + chunk, data.size())));
+        }
+        return result;
+    }
+}
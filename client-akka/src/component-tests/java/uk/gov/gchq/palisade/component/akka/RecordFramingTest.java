@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.scaladsl.Framing.FramingException;
+import akka.util.ByteString;
+import akka.util.ByteStringBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.akka.RecordFraming;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Runs each of the {@link RecordFraming} flows over data split into chunks at
+ * every possible boundary, and frames a large resource from many chunks.
+ *
+ * @since 0.5.0
+ */
+class RecordFramingTest {
+
+    private static final int RECORDS = 50;
+    private static final int MAX_LENGTH = 1024;
+    private static final int MAX_CHUNK = 7;
+    private static final int LARGE_BYTES = 64 * 1024 * 1024;
+    private static final int LARGE_CHUNK = 64 * 1024;
+    private static final long TIMEOUT_SECONDS = 60L;
+    private static final ByteString SYNC = ByteString.fromString("0123456789abcdef");
+
+    private static ActorSystem system;
+    private static Materializer materializer;
+
+    @BeforeAll
+    static void setupAll() {
+        system = ActorSystem.create("record-framing");
+        materializer = Materializer.createMaterializer(system);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        system.terminate();
+    }
+
+    @Test
+    void testLines() throws Exception {
+        var records = records();
+        var data = ByteString.fromString(records.stream()
+                .map(ByteString::utf8String)
+                .collect(Collectors.joining("\n")));
+
+        for (int chunk = 1; chunk <= MAX_CHUNK; chunk++) {
+            assertThat(frame(data, chunk, RecordFraming.lines(MAX_LENGTH)))
+                    .as("check lines are framed from chunks of %d bytes", chunk)
+                    .isEqualTo(records);
+        }
+    }
+
+    @Test
+    void testLengthPrefixed() throws Exception {
+        var records = records();
+        var builder = new ByteStringBuilder();
+        records.forEach(record -> builder.putInt(record.size(), ByteOrder.BIG_ENDIAN).append(record));
+
+        for (int chunk = 1; chunk <= MAX_CHUNK; chunk++) {
+            assertThat(frame(builder.result(), chunk, RecordFraming.lengthPrefixed(MAX_LENGTH)))
+                    .as("check length-prefixed records are framed from chunks of %d bytes", chunk)
+                    .isEqualTo(records);
+        }
+    }
+
+    @Test
+    void testAvroBlocks() throws Exception {
+        var blocks = records();
+        var data = avro(blocks, SYNC);
+
+        for (int chunk = 1; chunk <= MAX_CHUNK; chunk++) {
+            assertThat(frame(data, chunk, RecordFraming.avroBlocks(MAX_LENGTH)))
+                    .as("check Avro blocks are framed from chunks of %d bytes", chunk)
+                    .isEqualTo(blocks);
+        }
+        assertThat(frame(avro(List.of(), SYNC), 1, RecordFraming.avroBlocks(MAX_LENGTH)))
+                .as("check an Avro container with only a header has no blocks")
+                .isEmpty();
+    }
+
+    @Test
+    void testAvroMalformed() {
+        var data = avro(records(), SYNC);
+        var badSync = data.take(data.size() - 1).concat(ByteString.fromString("x"));
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check a truncated Avro container fails")
+                .isThrownBy(() -> frame(data.take(data.size() - 1), MAX_CHUNK, RecordFraming.avroBlocks(MAX_LENGTH)))
+                .withCauseInstanceOf(FramingException.class);
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check an Avro block without its sync marker fails")
+                .isThrownBy(() -> frame(badSync, MAX_CHUNK, RecordFraming.avroBlocks(MAX_LENGTH)))
+                .withCauseInstanceOf(FramingException.class);
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check an Avro block longer than the maximum fails")
+                .isThrownBy(() -> frame(data, MAX_CHUNK, RecordFraming.avroBlocks(1)))
+                .withCauseInstanceOf(FramingException.class);
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check data which is not an Avro container fails")
+                .isThrownBy(() -> frame(ByteString.fromString("not avro"), MAX_CHUNK, RecordFraming.avroBlocks(MAX_LENGTH)))
+                .withCauseInstanceOf(FramingException.class);
+    }
+
+    @Test
+    void testForFormat() {
+        assertThat(RecordFraming.forFormat("text/csv; charset=UTF-8", MAX_LENGTH))
+                .as("check line-delimited formats are framed")
+                .isPresent();
+        assertThat(RecordFraming.forFormat("avro", MAX_LENGTH))
+                .as("check Avro formats are framed")
+                .isPresent();
+        assertThat(RecordFraming.forFormat(RecordFraming.LENGTH_PREFIXED, MAX_LENGTH))
+                .as("check length-prefixed formats are framed")
+                .isPresent();
+        assertThat(RecordFraming.forFormat("application/octet-stream", MAX_LENGTH))
+                .as("check unknown formats are not framed")
+                .isEmpty();
+        assertThat(RecordFraming.forFormat(null, MAX_LENGTH))
+                .as("check resources without a format are not framed")
+                .isEmpty();
+    }
+
+    @Test
+    void testLargeResource() throws Exception {
+        var line = ByteString.fromString("x".repeat(99) + "\n");
+        var builder = new ByteStringBuilder();
+        while (builder.length() < LARGE_CHUNK) {
+            builder.append(line);
+        }
+        var chunk = builder.result();
+        var chunks = LARGE_BYTES / chunk.size();
+        var expected = (long) chunks * chunk.size() / line.size();
+
+        assertThat(count(chunk, chunks))
+                .as("check every line is framed")
+                .isEqualTo(expected);
+    }
+
+    private static long count(final ByteString chunk, final int chunks) throws Exception {
+        return Source.repeat(chunk)
+                .take(chunks)
+                .via(RecordFraming.lines(MAX_LENGTH))
+                .runWith(Sink.fold(0L, (count, record) -> count + 1), materializer)
+                .toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static List<ByteString> frame(final ByteString data, final int chunk, final Flow<ByteString, ByteString, NotUsed> framing) throws Exception {
+        return Source.from(split(data, chunk))
+                .via(framing)
+                .runWith(Sink.seq(), materializer)
+                .toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static List<ByteString> split(final ByteString data, final int chunk) {
+        var chunks = new ArrayList<ByteString>();
+        for (int i = 0; i < data.size(); i += chunk) {
+            chunks.add(data.slice(i, Math.min(i + chunk, data.size())));
+        }
+        return chunks;
+    }
+
+    /*
+     * Records of varying lengths, some long enough to need multi-byte varints
+     */
+    private static List<ByteString> records() {
+        return IntStream.range(0, RECORDS)
+                .mapToObj(i -> ByteString.fromString(i + ":" + "r".repeat(i * 3)))
+                .collect(Collectors.toList());
+    }
+
+    private static ByteString avro(final List<ByteString> blocks, final ByteString sync) {
+        var builder = new ByteStringBuilder()
+                .append(ByteString.fromArray(new byte[]{'O', 'b', 'j', 1}));
+        // A metadata map of one block of two entries, then an empty block
+        writeLong(builder, 2);
+        writeBytes(builder, ByteString.fromString("avro.schema"));
+        writeBytes(builder, ByteString.fromString("\"string\""));
+        writeBytes(builder, ByteString.fromString("avro.codec"));
+        writeBytes(builder, ByteString.fromString("null"));
+        writeLong(builder, 0);
+        builder.append(sync);
+        for (ByteString block : blocks) {
+            writeLong(builder, 1);
+            writeBytes(builder, block);
+            builder.append(sync);
+        }
+        return builder.result();
+    }
+
+    private static void writeBytes(final ByteStringBuilder builder, final ByteString bytes) {
+        writeLong(builder, bytes.size());
+        builder.append(bytes);
+    }
+
+    private static void writeLong(final ByteStringBuilder builder, final long value) {
+        var zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            builder.putByte((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        builder.putByte((byte) zigzag);
+    }
+}
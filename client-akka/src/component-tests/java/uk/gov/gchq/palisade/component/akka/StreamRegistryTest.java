@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.component.akka;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.akka.monitor.StreamHandle;
+import uk.gov.gchq.palisade.client.akka.monitor.StreamRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Runs streams instrumented by a {@link StreamRegistry}, checking their
+ * statistics and that they can be found and stopped through the registry.
+ *
+ * @since 0.5.0
+ */
+class StreamRegistryTest {
+
+    private static final int ELEMENTS = 100;
+    private static final ByteString ELEMENT = ByteString.fromString("0123456789");
+    private static final long TIMEOUT_SECONDS = 10L;
+
+    private static ActorSystem system;
+    private static Materializer materializer;
+
+    @BeforeAll
+    static void setupAll() {
+        system = ActorSystem.create("stream-registry");
+        materializer = Materializer.createMaterializer(system);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        system.terminate();
+    }
+
+    @Test
+    void testStats() throws Exception {
+        var registry = new StreamRegistry();
+        var run = Source.repeat(ELEMENT)
+                .take(ELEMENTS)
+                .viaMat(registry.<ByteString>instrument("finite", ByteString::size), Keep.right())
+                .toMat(Sink.ignore(), Keep.both())
+                .run(materializer);
+        run.second().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        var stats = run.first().getStats();
+        stats.getCompletion().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertThat(stats.getElements())
+                .as("check every element is counted")
+                .isEqualTo(ELEMENTS);
+        assertThat(stats.getBytes())
+                .as("check the size of every element is counted")
+                .isEqualTo((long) ELEMENTS * ELEMENT.size());
+        assertThat(stats.getElementsPerSecond())
+                .as("check the element rate is recorded")
+                .isPositive();
+        assertThat(stats.getTimeToFirstElement())
+                .as("check the time to the first element is recorded")
+                .isPresent();
+        assertThat(stats.isRunning())
+                .as("check the stream is no longer running")
+                .isFalse();
+        assertThat(registry.getInFlight())
+                .as("check the stream is removed from the registry once it stops")
+                .isZero();
+    }
+
+    @Test
+    void testShutdown() throws Exception {
+        var registry = new StreamRegistry();
+        var done = Source.repeat(ELEMENT)
+                .throttle(ELEMENTS, Duration.ofSeconds(1))
+                .via(registry.<ByteString>instrument("slow", ByteString::size))
+                .runWith(Sink.ignore(), materializer);
+        var handle = awaitRunning(registry);
+
+        assertThat(handle.getName())
+                .as("check the stream is registered under its name")
+                .isEqualTo("slow");
+        assertThat(registry.shutdown("slow"))
+                .as("check the stream is shut down by name")
+                .isEqualTo(1);
+        done.toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        handle.getStats().getCompletion().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(registry.getInFlight())
+                .as("check the stream is removed from the registry once shut down")
+                .isZero();
+    }
+
+    @Test
+    void testAbort() throws Exception {
+        var registry = new StreamRegistry();
+        var done = Source.repeat(ELEMENT)
+                .throttle(ELEMENTS, Duration.ofSeconds(1))
+                .via(registry.<ByteString>instrument("aborted", ByteString::size))
+                .runWith(Sink.ignore(), materializer);
+        var handle = awaitRunning(registry);
+        var cause = new IllegalStateException("aborted by test");
+        handle.abort(cause);
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check the stream fails with the abort cause")
+                .isThrownBy(() -> done.toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .withCause(cause);
+        assertThatExceptionOfType(ExecutionException.class)
+                .as("check the stats record the failure")
+                .isThrownBy(() -> handle.getStats().getCompletion().toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .withCause(cause);
+    }
+
+    private static StreamHandle awaitRunning(final StreamRegistry registry) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            var running = registry.getStreams().values().stream()
+                    .filter(handle -> handle.getStats().getElements() > 0)
+                    .findFirst();
+            if (running.isPresent()) {
+                return running.get();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Stream did not start");
+    }
+}
@@ -18,44 +18,69 @@ package uk.gov.gchq.palisade.client.akka;
 
 import akka.NotUsed;
 import akka.actor.ActorSystem;
+import akka.event.LoggingAdapter;
 import akka.http.javadsl.Http;
 import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpEntity;
 import akka.http.javadsl.model.HttpRequest;
 import akka.http.javadsl.model.HttpResponse;
 import akka.http.javadsl.model.ws.Message;
 import akka.http.javadsl.model.ws.WebSocketRequest;
+import akka.http.javadsl.settings.ConnectionPoolSettings;
 import akka.http.scaladsl.model.ws.TextMessage.Strict;
+import akka.japi.Pair;
+import akka.stream.ActorAttributes;
 import akka.stream.Materializer;
+import akka.stream.RestartSettings;
+import akka.stream.SourceShape;
 import akka.stream.javadsl.AsPublisher;
-import akka.stream.javadsl.BroadcastHub;
 import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.GraphDSL;
 import akka.stream.javadsl.Keep;
-import akka.stream.javadsl.MergeHub;
+import akka.stream.javadsl.RestartSource;
 import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import akka.stream.javadsl.StreamConverters;
 import akka.util.ByteString;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.reactivestreams.FlowAdapters;
+import scala.util.Try;
 
 import uk.gov.gchq.palisade.client.akka.model.DataRequest;
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
 import uk.gov.gchq.palisade.client.akka.model.MessageType;
 import uk.gov.gchq.palisade.client.akka.model.PalisadeRequest;
 import uk.gov.gchq.palisade.client.akka.model.PalisadeResponse;
 import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+import uk.gov.gchq.palisade.client.akka.monitor.StreamRegistry;
 import uk.gov.gchq.palisade.resource.LeafResource;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
 
 /**
  * Implementation of the client interface that also exposes some akka-specific data-types such as {@link Source}s.
  */
-public class AkkaClient implements Client {
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+public class AkkaClient implements Client, AsyncClient {
+    /**
+     * The dispatcher used by the blocking {@link #read} adapter, configured in {@code reference.conf}
+     */
+    public static final String BLOCKING_DISPATCHER = "palisade.client.akka.blocking-dispatcher";
+
+    /**
+     * The number of CTS messages kept outstanding on the Filtered Resource Service websocket, configured in {@code reference.conf}
+     */
+    public static final String CTS_CREDITS = "palisade.client.akka.cts-credits";
+
+    // Marks the websocket being closed by the server, compared by identity and otherwise treated as COMPLETE
+    private static final WebSocketMessage CLOSED = WebSocketMessage.Builder.create().withType(MessageType.COMPLETE).noHeaders().noBody();
 
     /**
      * Specify URL schemes based on whether SSL/TLS encryption should be used over-the-wire.
@@ -88,6 +113,10 @@ public class AkkaClient implements Client {
     private final SSLMode sslMode;
     private final Materializer materializer;
     private final Http http;
+    private final ConnectionPoolSettings poolSettings;
+    private final LoggingAdapter log;
+    private final StreamRegistry registry = new StreamRegistry();
+    private final int ctsCredits;
 
     /**
      * Constructor used to create the AkkaClient
@@ -99,12 +128,47 @@ public class AkkaClient implements Client {
      * @param sslMode             whether the client should connect using SSL or not
      */
     public AkkaClient(final String palisadeUrl, final String filteredResourceUrl, final Map<String, String> dataUrlMap, final ActorSystem actorSystem, final SSLMode sslMode) {
+        this(palisadeUrl, filteredResourceUrl, dataUrlMap, actorSystem, sslMode, Map.of(), 1);
+    }
+
+    /**
+     * Constructor used to create the AkkaClient with a connection pool of a given size for each Data Service.
+     * Pools are shared by every request to the same host, and are configured by host alone, so two Data Services
+     * on the same host but different ports share a setting.
+     *
+     * @param palisadeUrl         the location of the Palisade Service
+     * @param filteredResourceUrl the location of the Filtered Resource Service
+     * @param dataUrlMap          lookup map from the names of Data Services to their locations
+     * @param actorSystem         the akka Actor System bean
+     * @param sslMode             whether the client should connect using SSL or not
+     * @param dataPoolSizes       lookup map from the names of Data Services to the maximum number of connections to each,
+     *                            any not given using the {@code akka.http.host-connection-pool} configuration
+     * @param pipeliningLimit     the maximum number of requests sent on a connection before the first response is received,
+     *                            greater than one only if the Data Services support HTTP pipelining
+     */
+    public AkkaClient(final String palisadeUrl, final String filteredResourceUrl, final Map<String, String> dataUrlMap, final ActorSystem actorSystem, final SSLMode sslMode,
+                      final Map<String, Integer> dataPoolSizes, final int pipeliningLimit) {
         this.palisadeUrl = palisadeUrl;
         this.filteredResourceUrl = filteredResourceUrl;
         this.dataUrlMap = dataUrlMap;
         this.sslMode = sslMode;
         this.materializer = Materializer.createMaterializer(actorSystem);
         this.http = Http.get(actorSystem);
+        this.log = actorSystem.log();
+        this.ctsCredits = actorSystem.settings().config().getInt(CTS_CREDITS);
+
+        var defaults = ConnectionPoolSettings.create(actorSystem).withPipeliningLimit(pipeliningLimit);
+        var settings = defaults;
+        for (Map.Entry<String, Integer> poolSize : dataPoolSizes.entrySet()) {
+            var dataUrl = dataUrlMap.getOrDefault(poolSize.getKey(), poolSize.getKey());
+            var host = URI.create(String.format("%s://%s", sslMode.getHttpScheme(), dataUrl)).getHost();
+            // Akka requires the open request limit to be a power of two, and enough to fill every connection
+            var openRequests = Math.max(defaults.getMaxOpenRequests(), poolSize.getValue() * pipeliningLimit);
+            settings = settings.appendHostOverride(host, defaults
+                    .withMaxConnections(poolSize.getValue())
+                    .withMaxOpenRequests(Integer.highestOneBit(openRequests - 1) << 1));
+        }
+        this.poolSettings = settings;
     }
 
     /**
@@ -119,72 +183,95 @@ public class AkkaClient implements Client {
     public CompletionStage<String> register(final String userId, final String resourceId, final Map<String, String> context) {
         return http
                 .singleRequest(HttpRequest.POST(String.format("%s://%s/api/registerDataRequest", sslMode.getHttpScheme(), palisadeUrl))
-                        .withEntity(ContentTypes.APPLICATION_JSON, serialize(
+                        .withEntity(ContentTypes.APPLICATION_JSON, JsonCodec.writePalisadeRequest(
                                 PalisadeRequest.Builder.create()
                                         .withUserId(userId)
                                         .withResourceId(resourceId)
                                         .withContext(context)
-                        )))
-                .thenApply(this::readHttpMessage)
+                        )), http.defaultClientHttpsContext(), poolSettings, log)
+                .thenCompose(this::readHttpMessage)
                 .thenApply(PalisadeResponse::getToken);
     }
 
     /**
-     * By taking the uuid token, this method deserializes the message from the websocket, and if completed, returns the processed LeafResource to the user
+     * By taking the uuid token, this method deserializes the message from the websocket, and if completed, returns the processed LeafResource to the user.
+     * If the websocket fails or is closed before the Filtered Resource Service has sent every resource, the source fails rather than
+     * completing with only some of them.
      *
      * @param token uuid of the request
      * @return a processed LeafResource that has been processed by the Palisade Service
      */
     public Source<LeafResource, CompletionStage<NotUsed>> fetchSource(final String token) {
-        // Send out CTS messages after each RESOURCE
-        WebSocketMessage cts = WebSocketMessage.Builder.create().withType(MessageType.CTS).noHeaders().noBody();
-
-        // Map inbound messages to outbound CTS until COMPLETE is seen
-        var exposeSinkAndSource = Flow.<WebSocketMessage>create()
-                // Merge ws upstream with our decoupled upstream - prefer our source of messages, complete when both ws and ours are complete
-                .mergePreferredMat(MergeHub.of(WebSocketMessage.class), true, false, Keep.right())
-                // Broadcast to both ws downstream and our downstream
-                .alsoToMat(BroadcastHub.of(WebSocketMessage.class), Keep.both());
-
-        // Ser/Des for messages to/from the websocket
-        var clientFlow = Flow.<Message>create()
-                .map(msg -> AkkaClient.readWsMessage(msg, materializer))
-                // Expose source and sink to this stage in materialization
-                .viaMat(exposeSinkAndSource, Keep.right())
-                // Take until COMPLETE message is seen
-                .takeWhile(wsMessage -> wsMessage.getType() != MessageType.COMPLETE)
-                // Handle how to 'echo back' a message
+        return monitor("fetch:" + token, resource -> 0L, fetchMessages(token)
                 .map((WebSocketMessage wsMessage) -> {
-                    switch (wsMessage.getType()) {
-                        case RESOURCE:
-                        case ERROR:
-                            return cts;
-                        default:
-                            return wsMessage;
+                    if (wsMessage == CLOSED) {
+                        throw new IOException("Filtered Resource Service closed the websocket for " + token + " before completing");
                     }
+                    return wsMessage;
                 })
-                .map(AkkaClient::writeWsMessage);
-
-        // Make the request using the ser/des flow linked to the oscillator
-        var wsResponse = http.singleWebSocketRequest(
-                WebSocketRequest.create(String.format("%s://%s/resource/%s", sslMode.getWsScheme(), filteredResourceUrl, token)),
-                clientFlow,
-                materializer);
-
-        Sink<WebSocketMessage, NotUsed> upstreamSink = wsResponse.second().first();
-        Source<WebSocketMessage, NotUsed> downstreamSource = wsResponse.second().second();
-
-        // Once the wsUpgrade request completes
-        return Source.completionStageSource(wsResponse.first()
-                // Initialize connection with a single CTS message
-                .thenRun(() -> Source.single(cts).runWith(upstreamSink, materializer))
-                // Return the connected Source
-                .thenApply(ignored -> downstreamSource))
                 // Take until COMPLETE message is seen
                 .takeWhile(wsMessage -> wsMessage.getType() != MessageType.COMPLETE)
                 // Extract LeafResource from message object
                 .filter(wsMessage -> wsMessage.getType() == MessageType.RESOURCE)
-                .map(msg -> msg.getBodyObject(LeafResource.class));
+                .map(msg -> msg.getBodyObject(LeafResource.class)));
+    }
+
+    /**
+     * As {@link #fetchSource(String)}, but if the websocket fails or is closed before the Filtered Resource Service has sent every resource,
+     * it is re-opened for the same token after a backoff, as given by the restart settings. Resources the service sends again after
+     * re-opening are not emitted twice: if the service replays the resources from the start, as many as have already been emitted are skipped,
+     * otherwise the service is taken to be resuming from where it left off. If the websocket is still failing or closing early after the
+     * maximum number of restarts, the source fails.
+     *
+     * @param token    uuid of the request
+     * @param settings the backoff between re-opening the websocket and the maximum number of times it is re-opened
+     * @return a processed LeafResource that has been processed by the Palisade Service
+     */
+    public Source<LeafResource, NotUsed> fetchSource(final String token, final RestartSettings settings) {
+        return monitor("fetch:" + token, resource -> 0L, Source.lazySource(() -> {
+            // Per materialization, so shared by every websocket opened for this stream
+            var resume = new ResumeFilter(log);
+            var closed = new AtomicBoolean();
+            // Markers for each websocket being opened, and for running out of restarts, compared by identity
+            var opened = WebSocketMessage.Builder.create().withType(MessageType.CTS).noHeaders().noBody();
+            var ended = WebSocketMessage.Builder.create().withType(MessageType.CTS).noHeaders().noBody();
+            // Closing before COMPLETE completes (rather than fails) each attempt, as a failure may overtake and lose the resources before it
+            return RestartSource.withBackoff(settings, () -> Source.single(opened).concat(fetchMessages(token)))
+                    .concat(Source.single(ended))
+                    .map((WebSocketMessage wsMessage) -> {
+                        if (wsMessage == ended && closed.get()) {
+                            throw new IOException("Filtered Resource Service closed the websocket for " + token + " before completing");
+                        }
+                        if (wsMessage == opened) {
+                            resume.resume();
+                        }
+                        closed.set(wsMessage == CLOSED);
+                        return wsMessage;
+                    })
+                    // Take until COMPLETE message is seen, but not the CLOSED marker
+                    .takeWhile(wsMessage -> wsMessage == CLOSED || wsMessage.getType() != MessageType.COMPLETE)
+                    .filter(wsMessage -> wsMessage.getType() == MessageType.RESOURCE)
+                    .map(msg -> msg.getBodyObject(LeafResource.class))
+                    .filter(resume::accept);
+        }).mapMaterializedValue(ignored -> NotUsed.notUsed()));
+    }
+
+    /*
+     * Opens the websocket for the token when materialized, returning every message received up to and including COMPLETE, or the CLOSED
+     * marker if the websocket is closed first. After COMPLETE the source does not complete, and must be cancelled by taking up to COMPLETE.
+     */
+    private Source<WebSocketMessage, CompletionStage<NotUsed>> fetchMessages(final String token) {
+        var wsFlow = http.webSocketClientFlow(WebSocketRequest.create(String.format("%s://%s/resource/%s", sslMode.getWsScheme(), filteredResourceUrl, token)));
+
+        // A cycle from the oscillator's CTS messages, through the websocket, back to the oscillator
+        return Source.fromGraph(GraphDSL.create(wsFlow, (builder, ws) -> {
+            var oscillator = builder.add(new CtsOscillator(ctsCredits, CLOSED));
+            var encode = builder.add(Flow.<WebSocketMessage>create().map(AkkaClient::writeWsMessage));
+            // Messages must be read in order, as a streamed message must be consumed before the next arrives
+            var decode = builder.add(Flow.<Message>create().mapAsync(1, msg -> AkkaClient.readWsMessage(msg, materializer)));
+            builder.from(oscillator.out0()).via(encode).via(ws).via(decode).toInlet(oscillator.in());
+            return SourceShape.of(oscillator.out1());
+        })).mapMaterializedValue(upgrade -> upgrade.thenApply(ignored -> NotUsed.notUsed()));
     }
 
     /**
@@ -205,26 +292,187 @@ public class AkkaClient implements Client {
 
     /**
      * This method connects to the data service to read the leafResource from the original request, linked by the uuid token
+     * If the data service responds with an error status, the source fails rather than emitting the body of the error.
      *
      * @param token    the token returned from the palisade-service by the {@link #register} method.
      * @param resource that the user wants to read
      * @return a stream of bytes representing the contents of the resource
      */
     public Source<ByteString, CompletionStage<NotUsed>> readSource(final String token, final LeafResource resource) {
+        return monitor("read:" + resource.getId(), ByteString::size, Source.completionStageSource(readData(token, resource)));
+    }
+
+    /**
+     * Reads the resource as with {@link #readSource}, split into records by the {@link RecordFraming} flow for its serialised format.
+     *
+     * @param token     the token returned from the palisade-service by the {@link #register} method.
+     * @param resource  that the user wants to read
+     * @param maxLength the maximum length of a record in bytes
+     * @return a stream of the records of the resource, each as the bytes of its serialised form
+     * @throws IllegalArgumentException if there is no framing for the serialised format of the resource
+     */
+    public Source<ByteString, CompletionStage<NotUsed>> readRecords(final String token, final LeafResource resource, final int maxLength) {
+        Flow<ByteString, ByteString, NotUsed> framing = RecordFraming.forFormat(resource.getSerialisedFormat(), maxLength)
+                .orElseThrow(() -> new IllegalArgumentException("No record framing for serialised format " + resource.getSerialisedFormat()));
+        return readSource(token, resource).via(framing);
+    }
+
+    /**
+     * Fetches every resource for the token and reads them from their data services, with up to {@code parallelism} requests in flight.
+     * As {@link #readAll(String, int, int)} with no further limit on the requests to each data service.
+     *
+     * @param token       the token returned from the palisade-service by the {@link #register} method.
+     * @param parallelism the maximum number of requests to the data services in flight at once
+     * @return a source of resources, each with its contents
+     */
+    public Source<Pair<LeafResource, Source<ByteString, NotUsed>>, NotUsed> readAll(final String token, final int parallelism) {
+        return readAll(token, parallelism, parallelism);
+    }
+
+    /**
+     * Fetches every resource for the token and reads them from their data services, with up to {@code parallelism} requests in flight,
+     * and up to {@code perServiceParallelism} of them to any one data service (by the connection detail of the resource). A request which
+     * would go over the limit for its data service waits without holding up the requests to other data services, though it does take one
+     * of the {@code parallelism} places while it waits. Each resource is emitted with its contents as soon as the data service responds,
+     * which may not be the order the resources were fetched. The number of connections to each data service is further limited by its
+     * connection pool, and {@code perServiceParallelism} should not exceed the number of open requests each pool allows. The contents of
+     * each resource must be consumed promptly, or the connection is closed.
+     *
+     * @param token                 the token returned from the palisade-service by the {@link #register} method.
+     * @param parallelism           the maximum number of requests to the data services in flight at once
+     * @param perServiceParallelism the maximum number of requests to each data service in flight at once
+     * @return a source of resources, each with its contents
+     */
+    public Source<Pair<LeafResource, Source<ByteString, NotUsed>>, NotUsed> readAll(final String token, final int parallelism, final int perServiceParallelism) {
+        var limiter = new ServiceLimiter(perServiceParallelism);
+        return fetchSource(token)
+                .mapMaterializedValue(ignored -> NotUsed.notUsed())
+                .mapAsyncUnordered(parallelism, (LeafResource resource) -> {
+                    var service = resource.getConnectionDetail().createConnection();
+                    return limiter.acquire(service)
+                            .thenCompose(ignored -> readData(token, resource))
+                            // The request is done once the data service responds
+                            .whenComplete((data, error) -> limiter.release(service))
+                            .thenApply(data -> Pair.create(resource, data));
+                });
+    }
+
+    /**
+     * Fetches every resource for the token and reads them from their data services, with up to {@code parallelism} resources read at once.
+     * As {@link #readAllUnordered(String, int, int)} with no further limit on the resources read from each data service.
+     *
+     * @param token       the token returned from the palisade-service by the {@link #register} method.
+     * @param parallelism the maximum number of resources read at once
+     * @return a source of chunks of data, each with its resource
+     */
+    public Source<Pair<LeafResource, ByteString>, NotUsed> readAllUnordered(final String token, final int parallelism) {
+        return readAllUnordered(token, parallelism, parallelism);
+    }
+
+    /**
+     * Fetches every resource for the token and reads them from their data services, with up to {@code parallelism} resources read at once,
+     * and up to {@code perServiceParallelism} of them from any one data service (by the connection detail of the resource). A resource which
+     * would go over the limit for its data service waits without holding up the resources of other data services, though it does take one
+     * of the {@code parallelism} places while it waits. The contents of the resources are merged into a single source as they arrive, each
+     * chunk paired with the resource it belongs to, so chunks of different resources are interleaved but the chunks of each resource are in
+     * order.
+     *
+     * @param token                 the token returned from the palisade-service by the {@link #register} method.
+     * @param parallelism           the maximum number of resources read at once
+     * @param perServiceParallelism the maximum number of resources read from each data service at once
+     * @return a source of chunks of data, each with its resource
+     */
+    public Source<Pair<LeafResource, ByteString>, NotUsed> readAllUnordered(final String token, final int parallelism, final int perServiceParallelism) {
+        var limiter = new ServiceLimiter(perServiceParallelism);
+        return fetchSource(token)
+                .mapMaterializedValue(ignored -> NotUsed.notUsed())
+                .flatMapMerge(parallelism, (LeafResource resource) -> {
+                    var service = resource.getConnectionDetail().createConnection();
+                    var acquired = limiter.acquire(service);
+                    return Source.completionStage(acquired)
+                            .flatMapConcat(ignored -> readSource(token, resource)
+                                    .map(bytes -> Pair.create(resource, bytes)))
+                            // The resource is done once its contents end, or it is cancelled, releasing only once it has been let through
+                            .watchTermination((mat, done) -> {
+                                done.whenComplete((ignored, error) -> acquired.thenRun(() -> limiter.release(service)));
+                                return mat;
+                            });
+                });
+    }
+
+    /**
+     * Returns a flow which reads each resource from its data service through the connection pool for that data service's host,
+     * rather than making a separate request for each. Responses are emitted as they arrive, which may not be the order
+     * the resources were received, each paired with its resource. The contents of each response must be consumed (or
+     * cancelled) for its connection to be reused. If a resource cannot be read, because the request failed or the data service
+     * responded with an error status, its contents are a failed source, and the other resources are still read.
+     *
+     * @param token the token returned from the palisade-service by the {@link #register} method.
+     * @return a flow from resources to their contents
+     */
+    public Flow<LeafResource, Pair<LeafResource, Source<ByteString, NotUsed>>, NotUsed> readFlow(final String token) {
+        return Flow.<LeafResource>create()
+                .map(resource -> Pair.create(readRequest(token, resource), resource))
+                .via(http.<LeafResource>superPool(poolSettings, log))
+                .map((Pair<Try<HttpResponse>, LeafResource> response) -> Pair.create(response.second(), response.first().isSuccess()
+                        ? dataBytes(response.first().get(), response.second())
+                        : Source.failed(response.first().failed().get())));
+    }
+
+    /**
+     * Instruments the source, so that each time it is run it is listed in the {@link #getRegistry() registry} with its live statistics and
+     * a kill switch until it stops. The sources returned by {@link #fetchSource} and {@link #readSource} are already instrumented.
+     *
+     * @param name   the name of the stream in the registry
+     * @param size   the size in bytes of each element, for the byte statistics
+     * @param source the source to instrument
+     * @param <T>    the type of element
+     * @param <M>    the type of materialized value
+     * @return the instrumented source, with the same materialized value
+     */
+    public <T, M> Source<T, M> monitor(final String name, final ToLongFunction<? super T> size, final Source<T, M> source) {
+        return source.viaMat(registry.<T>instrument(name, size), Keep.left());
+    }
+
+    /**
+     * Returns the registry of running streams, through which they may be monitored and stopped
+     *
+     * @return the registry of the streams of this client
+     */
+    public StreamRegistry getRegistry() {
+        return registry;
+    }
+
+    private CompletionStage<Source<ByteString, NotUsed>> readData(final String token, final LeafResource resource) {
+        return http.singleRequest(readRequest(token, resource), http.defaultClientHttpsContext(), poolSettings, log)
+                .thenApply(response -> dataBytes(response, resource));
+    }
+
+    /*
+     * Returns the contents of the resource, or a failed source if the data service responded with an error status, in which case the
+     * entity is discarded so that the connection can be reused
+     */
+    private Source<ByteString, NotUsed> dataBytes(final HttpResponse response, final LeafResource resource) {
+        if (response.status().isFailure()) {
+            response.discardEntityBytes(materializer);
+            return Source.failed(new IOException(String.format("Data Service responded %s reading %s", response.status(), resource.getId())));
+        }
+        return response.entity().getDataBytes()
+                .mapMaterializedValue(ignored -> NotUsed.notUsed());
+    }
+
+    private HttpRequest readRequest(final String token, final LeafResource resource) {
         String createConn = resource.getConnectionDetail().createConnection();
         String dataUrl = dataUrlMap.getOrDefault(createConn, createConn);
-        return Source.completionStageSource(http.singleRequest(
-                HttpRequest.POST(String.format("%s://%s/read/chunked", sslMode.getHttpScheme(), dataUrl))
-                        .withEntity(ContentTypes.APPLICATION_JSON, serialize(DataRequest.Builder.create()
-                                .withToken(token)
-                                .withLeafResourceId(resource.getId()))
-                        ))
-                .thenApply(response -> response.entity().getDataBytes()
-                        .mapMaterializedValue(ignored -> NotUsed.notUsed())));
+        return HttpRequest.POST(String.format("%s://%s/read/chunked", sslMode.getHttpScheme(), dataUrl))
+                .withEntity(ContentTypes.APPLICATION_JSON, JsonCodec.writeDataRequest(DataRequest.Builder.create()
+                        .withToken(token)
+                        .withLeafResourceId(resource.getId())));
     }
 
     /**
-     * Converts an akka ByteString source to java a stdlib InputStream
+     * Converts an akka ByteString source to java a stdlib InputStream.
+     * The adapter runs on the bounded {@value #BLOCKING_DISPATCHER} dispatcher rather than the default dispatcher.
      *
      * @param token    the token returned from the palisade-service by the {@link #register(String, String, Map)} method.
      * @param resource a resource returned by the filtered-resource-service that the client wishes to read.
@@ -233,44 +481,60 @@ public class AkkaClient implements Client {
     public InputStream read(final String token, final LeafResource resource) {
         // Convert akka ByteString source to java stdlib InputStream
         return readSource(token, resource)
-                .runWith(StreamConverters.asInputStream(), materializer);
+                .runWith(StreamConverters.asInputStream()
+                        .withAttributes(ActorAttributes.dispatcher(BLOCKING_DISPATCHER)), materializer);
     }
 
-
-    private PalisadeResponse readHttpMessage(final HttpResponse message) {
-        // Akka will sometimes convert a StrictMessage to a StreamedMessage, so we have to handle both cases here
-        StringBuilder builder = message.entity().getDataBytes()
-                .map(ByteString::utf8String)
-                .runFold(new StringBuilder(), StringBuilder::append, materializer)
-                .toCompletableFuture().join();
-        return deserialize(builder.toString(), PalisadeResponse.class);
+    /**
+     * Converts an akka ByteString source to a java stdlib Publisher of the buffers backing each ByteString, without copying them.
+     *
+     * @param token    the token returned from the palisade-service by the {@link #register(String, String, Map)} method.
+     * @param resource a resource returned by the filtered-resource-service that the client wishes to read.
+     * @return a java stdlib Publisher, once the data-service has responded
+     */
+    public CompletionStage<Publisher<ByteBuffer>> readAsync(final String token, final LeafResource resource) {
+        return readData(token, resource)
+                .thenApply(data -> FlowAdapters.toFlowPublisher(monitor("read:" + resource.getId(), ByteString::size, data)
+                        .mapConcat(ByteString::getByteBuffers)
+                        .runWith(Sink.asPublisher(AsPublisher.WITHOUT_FANOUT), materializer)));
     }
 
-    private static WebSocketMessage readWsMessage(final Message message, final Materializer materializer) {
-        // Akka will sometimes convert a StrictMessage to a StreamedMessage, so we have to handle both cases here
-        StringBuilder builder = message.asTextMessage().getStreamedText()
-                .runFold(new StringBuilder(), StringBuilder::append, materializer)
-                .toCompletableFuture().join();
-        return deserialize(builder.toString(), WebSocketMessage.class);
-    }
 
-    private static Message writeWsMessage(final WebSocketMessage message) {
-        return new Strict(serialize(message));
+    private CompletionStage<PalisadeResponse> readHttpMessage(final HttpResponse message) {
+        var entity = message.entity();
+        if (entity.isStrict()) {
+            // The whole body has already been received, so there is no need to run a stream for it
+            return CompletableFuture.completedFuture(JsonCodec.readPalisadeResponse(((HttpEntity.Strict) entity).getData()));
+        }
+        // Join the chunks without copying them, then decode the bytes directly
+        return entity.getDataBytes()
+                .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                .thenApply(JsonCodec::readPalisadeResponse);
     }
 
-    private static <T> T deserialize(final String json, final Class<T> clazz) {
-        try {
-            return MAPPER.readValue(json, clazz);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Failed to write message", e);
+    private static CompletionStage<WebSocketMessage> readWsMessage(final Message message, final Materializer materializer) {
+        if (!message.isText()) {
+            // Binary frames are decoded directly from their bytes
+            var binaryMessage = message.asBinaryMessage();
+            if (binaryMessage.isStrict()) {
+                return CompletableFuture.completedFuture(JsonCodec.readWebSocketMessage(binaryMessage.getStrictData()));
+            }
+            return binaryMessage.getStreamedData()
+                    .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                    .thenApply(JsonCodec::readWebSocketMessage);
+        }
+        var textMessage = message.asTextMessage();
+        if (textMessage.isStrict()) {
+            // Most frames arrive whole, so avoid materialising a stream for them
+            return CompletableFuture.completedFuture(JsonCodec.readWebSocketMessage(textMessage.getStrictText()));
         }
+        // Akka will sometimes convert a StrictMessage to a StreamedMessage, so we have to handle both cases here
+        return textMessage.getStreamedText()
+                .runFold(new StringBuilder(), StringBuilder::append, materializer)
+                .thenApply(builder -> JsonCodec.readWebSocketMessage(builder.toString()));
     }
 
-    private static String serialize(final Object o) {
-        try {
-            return MAPPER.writeValueAsString(o);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Failed to write message", e);
-        }
+    private static Message writeWsMessage(final WebSocketMessage message) {
+        return new Strict(JsonCodec.writeWebSocketMessage(message));
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.stream.Attributes;
+import akka.stream.FlowShape;
+import akka.stream.Inlet;
+import akka.stream.Outlet;
+import akka.stream.scaladsl.Framing.FramingException;
+import akka.stream.stage.AbstractInHandler;
+import akka.stream.stage.AbstractOutHandler;
+import akka.stream.stage.GraphStage;
+import akka.stream.stage.GraphStageLogic;
+import akka.util.ByteString;
+
+/**
+ * Splits an Avro object container file into the data of its blocks.
+ * The container is a header (magic, a metadata map and a 16-byte sync marker) followed by blocks, each of which is a record count and byte
+ * length written as zig-zag varints, then the data, then the sync marker again. Incoming chunks are concatenated without copying and each
+ * block is emitted as a slice of them once it has arrived in full.
+ */
+final class AvroBlockFraming extends GraphStage<FlowShape<ByteString, ByteString>> {
+    private static final ByteString MAGIC = ByteString.fromArray(new byte[]{'O', 'b', 'j', 1});
+    private static final int SYNC_LENGTH = 16;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_MORE = 0x80;
+    private static final int LONG_BITS = 64;
+
+    private final Inlet<ByteString> in = Inlet.create("AvroBlockFraming.in");
+    private final Outlet<ByteString> out = Outlet.create("AvroBlockFraming.out");
+    private final FlowShape<ByteString, ByteString> shape = FlowShape.of(in, out);
+    private final int maxLength;
+
+    AvroBlockFraming(final int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public FlowShape<ByteString, ByteString> shape() {
+        return shape;
+    }
+
+    @Override
+    public GraphStageLogic createLogic(final Attributes inheritedAttributes) {
+        return new Logic();
+    }
+
+    private final class Logic extends GraphStageLogic {
+        private ByteString buffer = ByteString.emptyByteString();
+        // Null until the header has been read
+        private ByteString sync;
+        // The value of the varint most recently read
+        private long value;
+
+        Logic() {
+            super(shape);
+            setHandler(in, new AbstractInHandler() {
+                @Override
+                public void onPush() {
+                    buffer = buffer.concat(grab(in));
+                    emitOrPull();
+                }
+
+                @Override
+                public void onUpstreamFinish() {
+                    if (buffer.isEmpty()) {
+                        completeStage();
+                    } else if (isAvailable(out)) {
+                        emitOrPull();
+                    }
+                }
+            });
+            setHandler(out, new AbstractOutHandler() {
+                @Override
+                public void onPull() {
+                    emitOrPull();
+                }
+            });
+        }
+
+        private void emitOrPull() {
+            if (sync == null && !readHeader()) {
+                pullOrFail();
+                return;
+            }
+            var block = readBlock();
+            if (block != null) {
+                push(out, block);
+            } else {
+                pullOrFail();
+            }
+        }
+
+        private void pullOrFail() {
+            if (!isClosed(in)) {
+                pull(in);
+            } else if (buffer.isEmpty()) {
+                completeStage();
+            } else {
+                failStage(new FramingException("Avro container ended part way through " + (sync == null ? "its header" : "a block")));
+            }
+        }
+
+        /*
+         * Reads and drops the header if it has arrived in full, returning whether it has
+         */
+        private boolean readHeader() {
+            if (buffer.size() < MAGIC.size()) {
+                return false;
+            }
+            if (!buffer.slice(0, MAGIC.size()).equals(MAGIC)) {
+                throw new FramingException("Data is not an Avro object container");
+            }
+            var pos = readMetadata(MAGIC.size());
+            if (pos < 0 || pos + SYNC_LENGTH > buffer.size()) {
+                checkLength(buffer.size());
+                return false;
+            }
+            sync = buffer.slice(pos, pos + SYNC_LENGTH).compact();
+            buffer = buffer.drop(pos + SYNC_LENGTH);
+            return true;
+        }
+
+        /*
+         * Skips the metadata map, returning the position after it or -1 if it has not arrived in full
+         */
+        private int readMetadata(final int start) {
+            var pos = readLong(start);
+            while (pos >= 0 && value != 0) {
+                var count = value;
+                if (count < 0) {
+                    // A negative count is followed by the size of the entries in bytes
+                    count = -count;
+                    pos = readLong(pos);
+                }
+                for (long i = 0; i < count * 2 && pos >= 0; i++) {
+                    pos = readBytes(pos);
+                }
+                if (pos >= 0) {
+                    pos = readLong(pos);
+                }
+            }
+            return pos;
+        }
+
+        /*
+         * Returns the data of the next block and drops it from the buffer, or null if it has not arrived in full
+         */
+        private ByteString readBlock() {
+            var pos = readLong(0);
+            if (pos < 0) {
+                return null;
+            }
+            pos = readLong(pos);
+            if (pos < 0) {
+                return null;
+            }
+            checkLength(value);
+            var end = pos + (int) value;
+            if (end + SYNC_LENGTH > buffer.size()) {
+                return null;
+            }
+            if (!buffer.slice(end, end + SYNC_LENGTH).equals(sync)) {
+                throw new FramingException("Avro block is not followed by the sync marker");
+            }
+            var block = buffer.slice(pos, end);
+            buffer = buffer.drop(end + SYNC_LENGTH);
+            return block;
+        }
+
+        private int readBytes(final int start) {
+            var pos = readLong(start);
+            if (pos < 0) {
+                return pos;
+            }
+            checkLength(value);
+            return pos + value > buffer.size() ? -1 : pos + (int) value;
+        }
+
+        /*
+         * Reads a zig-zag varint into value, returning the position after it or -1 if it has not arrived in full
+         */
+        private int readLong(final int start) {
+            var pos = start;
+            long raw = 0;
+            var shift = 0;
+            while (true) {
+                if (pos >= buffer.size()) {
+                    return -1;
+                }
+                var next = buffer.apply(pos++);
+                raw |= (long) (next & VARINT_MASK) << shift;
+                if ((next & VARINT_MORE) == 0) {
+                    value = (raw >>> 1) ^ -(raw & 1);
+                    return pos;
+                }
+                shift += VARINT_BITS;
+                if (shift >= LONG_BITS) {
+                    throw new FramingException("Malformed Avro long");
+                }
+            }
+        }
+
+        private void checkLength(final long length) {
+            if (length < 0 || length > maxLength) {
+                throw new FramingException(String.format("Avro length %d is outside [0, %d]", length, maxLength));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.stream.Attributes;
+import akka.stream.FanOutShape2;
+import akka.stream.Inlet;
+import akka.stream.Outlet;
+import akka.stream.stage.AbstractInHandler;
+import akka.stream.stage.AbstractOutHandler;
+import akka.stream.stage.GraphStage;
+import akka.stream.stage.GraphStageLogic;
+
+import uk.gov.gchq.palisade.client.akka.model.MessageType;
+import uk.gov.gchq.palisade.client.akka.model.WebSocketMessage;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Drives the Filtered Resource Service websocket protocol, in which each CTS sent is answered by one RESOURCE, ERROR or COMPLETE.
+ * Up to a fixed number of credits are kept outstanding, so several messages are in flight on the link at once. A CTS is only sent while
+ * the messages already requested, plus those received but not yet pulled downstream, are fewer than the credits, so the number requested
+ * follows downstream demand and the buffer is bounded by the credits.
+ * <p>
+ * The inlet receives messages from the websocket, the first outlet sends CTS messages to the websocket, and the second outlet emits
+ * every RESOURCE and ERROR, then COMPLETE. If the websocket is closed before COMPLETE, the provided marker is emitted in its place.
+ * The stage completes after emitting the marker, but after COMPLETE it waits to be cancelled from downstream, so that a restarting
+ * source does not see the attempt complete, and open another websocket, while COMPLETE is still waiting to be pulled.
+ */
+final class CtsOscillator extends GraphStage<FanOutShape2<WebSocketMessage, WebSocketMessage, WebSocketMessage>> {
+    private static final WebSocketMessage CTS = WebSocketMessage.Builder.create().withType(MessageType.CTS).noHeaders().noBody();
+
+    private final Inlet<WebSocketMessage> fromServer = Inlet.create("CtsOscillator.fromServer");
+    private final Outlet<WebSocketMessage> toServer = Outlet.create("CtsOscillator.toServer");
+    private final Outlet<WebSocketMessage> out = Outlet.create("CtsOscillator.out");
+    private final FanOutShape2<WebSocketMessage, WebSocketMessage, WebSocketMessage> shape = new FanOutShape2<>(fromServer, toServer, out);
+    private final int credits;
+    private final WebSocketMessage closed;
+
+    CtsOscillator(final int credits, final WebSocketMessage closed) {
+        this.credits = credits;
+        this.closed = closed;
+    }
+
+    @Override
+    public FanOutShape2<WebSocketMessage, WebSocketMessage, WebSocketMessage> shape() {
+        return shape;
+    }
+
+    @Override
+    public GraphStageLogic createLogic(final Attributes inheritedAttributes) {
+        return new Logic();
+    }
+
+    private final class Logic extends GraphStageLogic {
+        // Received but not yet pulled downstream
+        private final Deque<WebSocketMessage> buffer = new ArrayDeque<>();
+        // CTS sent but not yet answered
+        private int requested;
+        // COMPLETE (or the closed marker) has been received
+        private boolean finished;
+
+        Logic() {
+            super(shape);
+            setHandler(fromServer, new AbstractInHandler() {
+                @Override
+                public void onPush() {
+                    var message = grab(fromServer);
+                    switch (message.getType()) {
+                        case RESOURCE:
+                        case ERROR:
+                            requested--;
+                            buffer.add(message);
+                            break;
+                        case COMPLETE:
+                            finished = true;
+                            buffer.add(message);
+                            break;
+                        default:
+                            // PONG and anything else unrequested is ignored
+                            break;
+                    }
+                    emit();
+                    if (!finished) {
+                        pull(fromServer);
+                    }
+                }
+
+                @Override
+                public void onUpstreamFinish() {
+                    if (!finished) {
+                        finished = true;
+                        buffer.add(closed);
+                    }
+                    emit();
+                }
+            });
+            setHandler(toServer, new AbstractOutHandler() {
+                @Override
+                public void onPull() {
+                    request();
+                }
+
+                @Override
+                public void onDownstreamFinish(final Throwable cause) {
+                    // The websocket may stop accepting messages before it has sent all it has, so keep reading until it completes
+                }
+            });
+            setHandler(out, new AbstractOutHandler() {
+                @Override
+                public void onPull() {
+                    emit();
+                }
+            });
+        }
+
+        @Override
+        public void preStart() {
+            pull(fromServer);
+        }
+
+        private void emit() {
+            if (isAvailable(out) && !buffer.isEmpty()) {
+                var message = buffer.poll();
+                push(out, message);
+                if (message == closed) {
+                    completeStage();
+                    return;
+                }
+            }
+            request();
+        }
+
+        private void request() {
+            if (!finished && isAvailable(toServer) && requested + buffer.size() < credits) {
+                requested++;
+                push(toServer, CTS);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.NotUsed;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Framing;
+import akka.stream.javadsl.FramingTruncation;
+import akka.util.ByteString;
+
+import java.nio.ByteOrder;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reusable flows which split the contents of a resource, as read from a data-service in chunks split at arbitrary network boundaries,
+ * into records. Each record is a slice of the chunks it spans, so no bytes are copied or decoded on the way through.
+ * A flow fails with a {@link akka.stream.scaladsl.Framing.FramingException} if a record is longer than the given maximum or the data is malformed.
+ */
+public final class RecordFraming {
+
+    /**
+     * Media type of resources written as a sequence of records, each preceded by its length as a 4-byte big-endian int.
+     */
+    public static final String LENGTH_PREFIXED = "application/x-length-prefixed";
+
+    private static final Set<String> LINE_TYPES = Set.of(
+            "text/plain",
+            "text/csv",
+            "text/tab-separated-values",
+            "application/x-ndjson",
+            "application/jsonl",
+            "application/x-jsonlines");
+    private static final Set<String> AVRO_TYPES = Set.of(
+            "avro",
+            "avro/binary",
+            "application/avro",
+            "application/x-avro");
+    private static final ByteString NEWLINE = ByteString.fromString("\n");
+    private static final int LENGTH_FIELD = 4;
+
+    private RecordFraming() {
+        // Hide public constructor for utility class
+    }
+
+    /**
+     * Returns the flow which frames records of the provided serialised format
+     *
+     * @param serialisedFormat the serialised format of the resource, e.g. {@code text/csv; charset=UTF-8}
+     * @param maxLength        the maximum length of a record (or Avro block) in bytes
+     * @return the flow, or empty if the format is not one of the line-delimited, length-prefixed or Avro formats
+     */
+    public static Optional<Flow<ByteString, ByteString, NotUsed>> forFormat(final String serialisedFormat, final int maxLength) {
+        if (serialisedFormat == null) {
+            return Optional.empty();
+        }
+        var end = serialisedFormat.indexOf(';');
+        var mediaType = (end < 0 ? serialisedFormat : serialisedFormat.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+        if (LINE_TYPES.contains(mediaType)) {
+            return Optional.of(lines(maxLength));
+        }
+        if (AVRO_TYPES.contains(mediaType)) {
+            return Optional.of(avroBlocks(maxLength));
+        }
+        if (LENGTH_PREFIXED.equals(mediaType)) {
+            return Optional.of(lengthPrefixed(maxLength));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a flow which splits the data at each newline, emitting each line without its terminator.
+     * A final line without a newline is still emitted.
+     *
+     * @param maxLength the maximum length of a line in bytes
+     * @return a flow from chunks of data to lines
+     */
+    public static Flow<ByteString, ByteString, NotUsed> lines(final int maxLength) {
+        return Framing.delimiter(NEWLINE, maxLength, FramingTruncation.ALLOW);
+    }
+
+    /**
+     * Returns a flow which splits the data into records each preceded by its length as a 4-byte big-endian int, emitting each record
+     * without its length.
+     *
+     * @param maxLength the maximum length of a record in bytes
+     * @return a flow from chunks of data to records
+     */
+    public static Flow<ByteString, ByteString, NotUsed> lengthPrefixed(final int maxLength) {
+        return Framing.lengthField(LENGTH_FIELD, 0, maxLength + LENGTH_FIELD, ByteOrder.BIG_ENDIAN)
+                .map(frame -> frame.drop(LENGTH_FIELD));
+    }
+
+    /**
+     * Returns a flow which splits an Avro object container file into its data blocks, emitting the serialised (and possibly compressed)
+     * records of each block. The file header is checked and skipped, as is the sync marker after each block.
+     *
+     * @param maxLength the maximum length of the header or a block in bytes
+     * @return a flow from chunks of data to Avro blocks
+     */
+    public static Flow<ByteString, ByteString, NotUsed> avroBlocks(final int maxLength) {
+        return Flow.fromGraph(new AvroBlockFraming(maxLength));
+    }
+}
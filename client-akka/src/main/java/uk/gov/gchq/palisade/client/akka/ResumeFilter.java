@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.event.LoggingAdapter;
+
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+/**
+ * Filters out the resources already emitted once the websocket to the Filtered Resource Service has been re-opened for the same token.
+ * Only the number of resources emitted and the ids of the first and last of them are kept. When the first resource received after re-opening
+ * is the first ever emitted, the service is taken to be replaying from the start and that many resources are skipped. Otherwise the service
+ * is taken to be resuming from where it left off, and nothing is skipped.
+ */
+final class ResumeFilter {
+    private final LoggingAdapter log;
+    private long emitted;
+    private String first;
+    private String last;
+    private boolean resuming;
+    private long skipping;
+
+    ResumeFilter(final LoggingAdapter log) {
+        this.log = log;
+    }
+
+    /**
+     * Marks that the websocket has been (re-)opened, so the next resource starts a new, possibly replayed, stream
+     */
+    synchronized void resume() {
+        resuming = emitted > 0;
+        skipping = 0;
+    }
+
+    /**
+     * Returns whether the resource should be emitted, false if it is a replay of one already emitted
+     *
+     * @param resource the resource received
+     * @return true if the resource has not been emitted before
+     */
+    synchronized boolean accept(final LeafResource resource) {
+        var id = resource.getId();
+        if (resuming) {
+            resuming = false;
+            skipping = id.equals(first) ? emitted : 0;
+            log.debug("Resumed resources after {}, skipping {} replayed resources", emitted, skipping);
+        }
+        if (skipping > 0) {
+            skipping--;
+            if (skipping == 0 && !id.equals(last)) {
+                log.warning("Replayed resources did not match the {} already emitted", emitted);
+            }
+            return false;
+        }
+        if (first == null) {
+            first = id;
+        }
+        last = id;
+        emitted++;
+        return true;
+    }
+}
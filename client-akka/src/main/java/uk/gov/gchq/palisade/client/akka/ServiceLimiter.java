@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka;
+
+import akka.NotUsed;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Limits the number of resources read at once from each Data Service, without blocking. A read which would go over the limit for its
+ * service waits, in the order asked for, until another read from the same service is released. Reads from other services are not held up.
+ */
+final class ServiceLimiter {
+    private final int permits;
+    private final Map<String, Limit> limits = new HashMap<>();
+
+    ServiceLimiter(final int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("perServiceParallelism must be positive: " + permits);
+        }
+        this.permits = permits;
+    }
+
+    /**
+     * Returns a stage which completes once a read from the service may start, which must then be {@link #release released} once done
+     *
+     * @param service the connection of the Data Service to read from
+     * @return a stage completed once the read may start
+     */
+    synchronized CompletionStage<NotUsed> acquire(final String service) {
+        var limit = limits.computeIfAbsent(service, ignored -> new Limit());
+        if (limit.reading < permits) {
+            limit.reading++;
+            return CompletableFuture.completedFuture(NotUsed.notUsed());
+        }
+        var waiting = new CompletableFuture<NotUsed>();
+        limit.waiting.add(waiting);
+        return waiting;
+    }
+
+    /**
+     * Marks a read from the service as done, starting the next read waiting for the service if there is one
+     *
+     * @param service the connection of the Data Service read from
+     */
+    void release(final String service) {
+        CompletableFuture<NotUsed> next;
+        synchronized (this) {
+            var limit = limits.get(service);
+            next = limit.waiting.poll();
+            if (next == null) {
+                limit.reading--;
+            }
+        }
+        // Completed outside the lock, as the next read starts on this thread
+        if (next != null) {
+            next.complete(NotUsed.notUsed());
+        }
+    }
+
+    private static final class Limit {
+        private final Queue<CompletableFuture<NotUsed>> waiting = new ArrayDeque<>();
+        private int reading;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.distributed;
+
+import akka.NotUsed;
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorRefFactory;
+import akka.actor.Props;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Done;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Finished;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Request;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Work;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+
+/**
+ * Pulls resources from a {@link WorkCoordinator} and reads each of them on this node with {@link AkkaClient#readSource}, handing the
+ * data to a consumer. At most {@code parallelism} resources are read at once, and the worker only requests another resource from
+ * the coordinator when the consumer has finished with one, so a slow worker is never sent more than it can read.
+ * The worker stops once the coordinator reports every resource has been read.
+ */
+public final class ResourceWorker extends AbstractActor {
+    private final AkkaClient client;
+    private final ActorRef coordinator;
+    private final int parallelism;
+    private final BiFunction<LeafResource, Source<ByteString, NotUsed>, CompletionStage<?>> consumer;
+
+    private ResourceWorker(final AkkaClient client, final ActorRef coordinator, final int parallelism,
+                           final BiFunction<LeafResource, Source<ByteString, NotUsed>, CompletionStage<?>> consumer) {
+        this.client = client;
+        this.coordinator = coordinator;
+        this.parallelism = parallelism;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Starts a worker, which immediately requests resources from the coordinator.
+     *
+     * @param factory     the actor system or context in which to start the worker
+     * @param client      the client used to read the resources
+     * @param coordinator the coordinator listing the resources for a token
+     * @param parallelism the number of resources to read at once
+     * @param consumer    run with each resource and its data, returning a stage which completes once the data has been consumed
+     * @return the worker
+     */
+    public static ActorRef start(final ActorRefFactory factory, final AkkaClient client, final ActorRef coordinator, final int parallelism,
+                                 final BiFunction<LeafResource, Source<ByteString, NotUsed>, CompletionStage<?>> consumer) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        return factory.actorOf(Props.create(ResourceWorker.class, () -> new ResourceWorker(client, coordinator, parallelism, consumer)));
+    }
+
+    @Override
+    public void preStart() {
+        coordinator.tell(new Request(parallelism), getSelf());
+    }
+
+    @Override
+    public Receive createReceive() {
+        return receiveBuilder()
+                .match(Work.class, this::onWork)
+                .match(Finished.class, finished -> getContext().stop(getSelf()))
+                .build();
+    }
+
+    private void onWork(final Work work) {
+        var self = getSelf();
+        var resource = work.getResource();
+        CompletionStage<?> consumed;
+        try {
+            consumed = consumer.apply(resource, client.readSource(work.getToken(), resource)
+                    .mapMaterializedValue(ignored -> NotUsed.notUsed()));
+        } catch (RuntimeException e) {
+            coordinator.tell(new Done(work.getId(), String.valueOf(e)), self);
+            return;
+        }
+        // Report back from whichever thread completes the stage, as telling an actor is thread-safe
+        consumed.whenComplete((ignored, error) -> coordinator.tell(new Done(work.getId(), error == null ? null : String.valueOf(error)), self));
+    }
+}
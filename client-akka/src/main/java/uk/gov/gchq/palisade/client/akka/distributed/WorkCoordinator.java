@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.distributed;
+
+import akka.Done;
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorRefFactory;
+import akka.actor.NoSerializationVerificationNeeded;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.japi.Pair;
+import akka.stream.Materializer;
+import akka.stream.RestartSettings;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+
+import uk.gov.gchq.palisade.client.akka.AkkaClient;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Finished;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Request;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Work;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Runs the {@link AkkaClient#fetchSource(String)} listing for a token on this node and hands each resource to one of any number
+ * of {@link ResourceWorker}s, which may be on other nodes of a cluster, as they pull work with {@link Request}s.
+ * At most {@code bufferSize} listed resources are held waiting for a worker, beyond which the listing is backpressured, so
+ * the Filtered Resource Service is only asked for resources as quickly as the workers together read them.
+ * The resources held by a worker which terminates before reporting them {@link WorkProtocol.Done} are handed to another worker.
+ * If the listing's websocket fails or is closed before every resource has been listed, the coordinator fails, unless it was started
+ * with {@link RestartSettings} with which to re-open it.
+ */
+public final class WorkCoordinator extends AbstractActor {
+    private final Source<LeafResource, ?> listing;
+    private final String token;
+    private final int bufferSize;
+    private final CompletableFuture<Done> completion;
+
+    private final Deque<Work> pending = new ArrayDeque<>();
+    private final Map<Long, Pair<ActorRef, Work>> inFlight = new HashMap<>();
+    // The number of further resources each worker has asked for, in the order they registered
+    private final Map<ActorRef, Integer> demand = new LinkedHashMap<>();
+    private ActorRef unacknowledged;
+    private boolean listed;
+    private long nextId;
+
+    private WorkCoordinator(final Source<LeafResource, ?> listing, final String token, final int bufferSize, final CompletableFuture<Done> completion) {
+        this.listing = listing;
+        this.token = token;
+        this.bufferSize = bufferSize;
+        this.completion = completion;
+    }
+
+    /**
+     * Starts a coordinator for the token, which begins listing its resources immediately.
+     *
+     * @param factory    the actor system or context in which to start the coordinator
+     * @param client     the client used to list the resources
+     * @param token      the token returned from the palisade-service by {@link AkkaClient#register}
+     * @param bufferSize the number of listed resources to hold waiting for a worker
+     * @return the coordinator, to which workers send their requests, and a stage which completes once every resource has been read
+     */
+    public static Pair<ActorRef, CompletionStage<Done>> start(final ActorRefFactory factory, final AkkaClient client, final String token, final int bufferSize) {
+        return start(factory, client.fetchSource(token), token, bufferSize);
+    }
+
+    /**
+     * As {@link #start(ActorRefFactory, AkkaClient, String, int)}, but the listing's websocket is re-opened with a backoff if it fails
+     * or is closed before every resource has been listed, as by {@link AkkaClient#fetchSource(String, RestartSettings)}.
+     *
+     * @param factory    the actor system or context in which to start the coordinator
+     * @param client     the client used to list the resources
+     * @param token      the token returned from the palisade-service by {@link AkkaClient#register}
+     * @param bufferSize the number of listed resources to hold waiting for a worker
+     * @param settings   the backoff between re-opening the websocket and the maximum number of times it is re-opened
+     * @return the coordinator, to which workers send their requests, and a stage which completes once every resource has been read
+     */
+    public static Pair<ActorRef, CompletionStage<Done>> start(final ActorRefFactory factory, final AkkaClient client, final String token, final int bufferSize,
+                                                              final RestartSettings settings) {
+        return start(factory, client.fetchSource(token, settings), token, bufferSize);
+    }
+
+    private static Pair<ActorRef, CompletionStage<Done>> start(final ActorRefFactory factory, final Source<LeafResource, ?> listing, final String token,
+                                                               final int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        var completion = new CompletableFuture<Done>();
+        var coordinator = factory.actorOf(Props.create(WorkCoordinator.class, () -> new WorkCoordinator(listing, token, bufferSize, completion)));
+        return Pair.create(coordinator, completion);
+    }
+
+    @Override
+    public void preStart() {
+        listing.map(Listed::new)
+                .runWith(Sink.actorRefWithBackpressure(getSelf(), StreamMessage.INIT, StreamMessage.ACK, StreamMessage.COMPLETE, ListingFailed::new),
+                        Materializer.matFromSystem(getContext().getSystem()));
+    }
+
+    @Override
+    public void postStop() {
+        // No-op if every resource was read
+        completion.completeExceptionally(new IllegalStateException("Coordinator for token " + token + " stopped before every resource was read"));
+    }
+
+    @Override
+    public Receive createReceive() {
+        return receiveBuilder()
+                .matchEquals(StreamMessage.INIT, init -> onStreamMessage())
+                .match(Listed.class, listed -> onResource(listed.resource))
+                .matchEquals(StreamMessage.COMPLETE, complete -> onListed())
+                .match(ListingFailed.class, failed -> fail(failed.cause))
+                .match(Request.class, this::onRequest)
+                .match(WorkProtocol.Done.class, this::onDone)
+                .match(Terminated.class, this::onTerminated)
+                .build();
+    }
+
+    private void onResource(final LeafResource resource) {
+        pending.addLast(new Work(nextId++, token, resource));
+        onStreamMessage();
+    }
+
+    private void onStreamMessage() {
+        // The listing stream waits for an acknowledgement before sending each resource
+        unacknowledged = getSender();
+        dispatch();
+    }
+
+    private void onListed() {
+        listed = true;
+        dispatch();
+    }
+
+    private void onRequest(final Request request) {
+        var worker = getSender();
+        if (!demand.containsKey(worker)) {
+            getContext().watch(worker);
+        }
+        demand.merge(worker, request.getCount(), Integer::sum);
+        dispatch();
+    }
+
+    private void onDone(final WorkProtocol.Done done) {
+        inFlight.remove(done.getId());
+        var failure = done.getFailure();
+        if (failure.isPresent()) {
+            fail(new IllegalStateException("Failed to read resource for token " + token + ": " + failure.get()));
+        } else {
+            demand.merge(getSender(), 1, Integer::sum);
+            dispatch();
+        }
+    }
+
+    private void onTerminated(final Terminated terminated) {
+        var worker = terminated.getActor();
+        demand.remove(worker);
+        // Hand the worker's unfinished resources to the others, ahead of any not yet started
+        inFlight.values().removeIf(assigned -> {
+            if (assigned.first().equals(worker)) {
+                pending.addFirst(assigned.second());
+                return true;
+            }
+            return false;
+        });
+        dispatch();
+    }
+
+    private void dispatch() {
+        var workers = demand.entrySet().iterator();
+        while (!pending.isEmpty() && workers.hasNext()) {
+            var entry = workers.next();
+            var worker = entry.getKey();
+            int count = entry.getValue();
+            for (; count > 0 && !pending.isEmpty(); count--) {
+                var work = pending.removeFirst();
+                inFlight.put(work.getId(), Pair.create(worker, work));
+                worker.tell(work, getSelf());
+            }
+            entry.setValue(count);
+        }
+        if (unacknowledged != null && pending.size() < bufferSize) {
+            unacknowledged.tell(StreamMessage.ACK, getSelf());
+            unacknowledged = null;
+        }
+        if (listed && pending.isEmpty() && inFlight.isEmpty()) {
+            demand.keySet().forEach(worker -> worker.tell(Finished.getInstance(), getSelf()));
+            completion.complete(Done.getInstance());
+            getContext().stop(getSelf());
+        }
+    }
+
+    private void fail(final Throwable cause) {
+        demand.keySet().forEach(worker -> worker.tell(Finished.getInstance(), getSelf()));
+        completion.completeExceptionally(cause);
+        getContext().stop(getSelf());
+    }
+
+    /*
+     * Local messages from (and to) the listing stream, which never leave this node and so are not serialised
+     */
+    private enum StreamMessage implements NoSerializationVerificationNeeded {
+        INIT, ACK, COMPLETE
+    }
+
+    private static final class Listed implements NoSerializationVerificationNeeded {
+        private final LeafResource resource;
+
+        private Listed(final LeafResource resource) {
+            this.resource = resource;
+        }
+    }
+
+    private static final class ListingFailed implements NoSerializationVerificationNeeded {
+        private final Throwable cause;
+
+        private ListingFailed(final Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
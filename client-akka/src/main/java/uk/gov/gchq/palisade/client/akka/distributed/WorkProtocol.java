@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.distributed;
+
+import uk.gov.gchq.palisade.Generated;
+import uk.gov.gchq.palisade.client.akka.model.JsonCodec;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * The messages passed between a {@link WorkCoordinator} and its {@link ResourceWorker}s.
+ * Workers pull work by requesting a number of resources, and each resource is sent to exactly one worker, which reports
+ * when it has finished reading it. Every message is a {@link Message}, bound in {@code reference.conf} to the
+ * {@link WorkProtocolSerializer}, and resources are carried in their serialised JSON form, as they are on the Filtered
+ * Resource Service websocket, so that workers may be on any node of a cluster.
+ */
+public final class WorkProtocol {
+
+    private WorkProtocol() {
+        // Static message container
+    }
+
+    /**
+     * Marks the messages of the protocol, which are serialised by the {@link WorkProtocolSerializer} rather than by Java
+     * serialization, which Akka does not allow by default.
+     */
+    public interface Message {
+    }
+
+    /**
+     * Sent by a worker to the coordinator to request more resources.
+     * A worker is registered, and watched by the coordinator, on its first request.
+     */
+    public static final class Request implements Message {
+
+        private final int count;
+
+        /**
+         * Request a number of resources
+         *
+         * @param count the number of further resources the worker can read at once
+         */
+        public Request(final int count) {
+            this.count = count;
+        }
+
+        /**
+         * Gets the count of resources requested
+         *
+         * @return the number of resources
+         */
+        @Generated
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        @Generated
+        public String toString() {
+            return new StringJoiner(", ", Request.class.getSimpleName() + "[", "]")
+                    .add("count=" + count)
+                    .toString();
+        }
+    }
+
+    /**
+     * Sent by the coordinator to a worker with a resource to read.
+     */
+    public static final class Work implements Message {
+
+        private final long id;
+        private final String token;
+        private final String serialisedResource;
+
+        Work(final long id, final String token, final LeafResource resource) {
+            this(id, token, JsonCodec.writeBody(resource));
+        }
+
+        Work(final long id, final String token, final String serialisedResource) {
+            this.id = id;
+            this.token = token;
+            this.serialisedResource = serialisedResource;
+        }
+
+        /**
+         * Gets the id of this work, unique for the coordinator
+         *
+         * @return the id
+         */
+        @Generated
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Gets the token for which to read the resource
+         *
+         * @return the token
+         */
+        @Generated
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * Gets the resource to read
+         *
+         * @return the resource, deserialised from the message
+         */
+        public LeafResource getResource() {
+            return JsonCodec.readBody(serialisedResource, LeafResource.class);
+        }
+
+        String getSerialisedResource() {
+            return serialisedResource;
+        }
+
+        @Override
+        @Generated
+        public String toString() {
+            return new StringJoiner(", ", Work.class.getSimpleName() + "[", "]")
+                    .add("id=" + id)
+                    .add("token='" + token + "'")
+                    .toString();
+        }
+    }
+
+    /**
+     * Sent by a worker to the coordinator once it has finished reading a resource, successfully or otherwise.
+     * A worker implicitly requests one more resource when reporting a success.
+     */
+    public static final class Done implements Message {
+
+        private final long id;
+        private final String failure;
+
+        /**
+         * Report a resource has been read
+         *
+         * @param id      the id of the {@link Work}
+         * @param failure the message of the error reading the resource, or null if it was read successfully
+         */
+        public Done(final long id, final String failure) {
+            this.id = id;
+            this.failure = failure;
+        }
+
+        /**
+         * Gets the id of the work which has been done
+         *
+         * @return the id
+         */
+        @Generated
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Gets the error reading the resource, if there was one
+         *
+         * @return the message of the error, or empty if the resource was read successfully
+         */
+        @Generated
+        public Optional<String> getFailure() {
+            return Optional.ofNullable(failure);
+        }
+
+        @Override
+        @Generated
+        public String toString() {
+            return new StringJoiner(", ", Done.class.getSimpleName() + "[", "]")
+                    .add("id=" + id)
+                    .add("failure='" + failure + "'")
+                    .toString();
+        }
+    }
+
+    /**
+     * Sent by the coordinator to every worker once every resource for the token has been read, after which the workers stop.
+     */
+    public static final class Finished implements Message {
+        private static final Finished INSTANCE = new Finished();
+
+        private Finished() {
+        }
+
+        /**
+         * Gets the finished message
+         *
+         * @return the single instance of the message
+         */
+        public static Finished getInstance() {
+            return INSTANCE;
+        }
+    }
+}
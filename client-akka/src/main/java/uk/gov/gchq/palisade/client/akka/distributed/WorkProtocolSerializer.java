@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka.distributed;
+
+import akka.serialization.SerializerWithStringManifest;
+
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Done;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Finished;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Request;
+import uk.gov.gchq.palisade.client.akka.distributed.WorkProtocol.Work;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serialises the {@link WorkProtocol} messages for sending between the nodes of a cluster, bound to every
+ * {@link WorkProtocol.Message} in {@code reference.conf}. Each message is written as its fields in order, with the kind of
+ * message as the manifest, and the resource of a {@link Work} as the JSON it already holds.
+ */
+public final class WorkProtocolSerializer extends SerializerWithStringManifest {
+
+    /**
+     * The identifier of the serializer, unique among the serializers of an actor system
+     */
+    public static final int IDENTIFIER = 1_730_011;
+
+    private static final String REQUEST = "R";
+    private static final String WORK = "W";
+    private static final String DONE = "D";
+    private static final String FINISHED = "F";
+
+    @Override
+    public int identifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public String manifest(final Object message) {
+        if (message instanceof Request) {
+            return REQUEST;
+        }
+        if (message instanceof Work) {
+            return WORK;
+        }
+        if (message instanceof Done) {
+            return DONE;
+        }
+        if (message instanceof Finished) {
+            return FINISHED;
+        }
+        throw new IllegalArgumentException("Not a work protocol message: " + message.getClass().getName());
+    }
+
+    @Override
+    public byte[] toBinary(final Object message) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            if (message instanceof Request) {
+                out.writeInt(((Request) message).getCount());
+            } else if (message instanceof Work) {
+                var work = (Work) message;
+                out.writeLong(work.getId());
+                writeString(out, work.getToken());
+                writeString(out, work.getSerialisedResource());
+            } else if (message instanceof Done) {
+                var done = (Done) message;
+                out.writeLong(done.getId());
+                out.writeBoolean(done.getFailure().isPresent());
+                if (done.getFailure().isPresent()) {
+                    writeString(out, done.getFailure().get());
+                }
+            } else if (!(message instanceof Finished)) {
+                throw new IllegalArgumentException("Not a work protocol message: " + message.getClass().getName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialise " + message, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object fromBinary(final byte[] bytes, final String manifest) throws NotSerializableException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            switch (manifest) {
+                case REQUEST:
+                    return new Request(in.readInt());
+                case WORK:
+                    return new Work(in.readLong(), readString(in), readString(in));
+                case DONE:
+                    return new Done(in.readLong(), in.readBoolean() ? readString(in) : null);
+                case FINISHED:
+                    return Finished.getInstance();
+                default:
+                    throw new NotSerializableException("Unknown work protocol manifest: " + manifest);
+            }
+        } catch (NotSerializableException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialise work protocol message " + manifest, e);
+        }
+    }
+
+    // Resources may be longer than DataOutput.writeUTF allows, so strings are written with an int length
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        var bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.akka.model;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JSON codec shared by every message the Akka client sends or receives: Palisade Service registrations,
+ * Filtered Resource Service websocket messages and their bodies, and Data Service requests.
+ * A single {@link ObjectMapper} is configured once, and the {@link ObjectReader}s and {@link ObjectWriter}s for each
+ * message type are built up-front, so no per-call type resolution is done.
+ * Bytes received from the server are decoded directly from the {@link ByteString}, rather than first being copied into a {@link String}.
+ */
+public final class JsonCodec {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectReader WEB_SOCKET_MESSAGE_READER = MAPPER.readerFor(WebSocketMessage.class);
+    private static final ObjectReader PALISADE_RESPONSE_READER = MAPPER.readerFor(PalisadeResponse.class);
+    private static final ObjectWriter WEB_SOCKET_MESSAGE_WRITER = MAPPER.writerFor(WebSocketMessage.class);
+    private static final ObjectWriter PALISADE_REQUEST_WRITER = MAPPER.writerFor(PalisadeRequest.class);
+    private static final ObjectWriter DATA_REQUEST_WRITER = MAPPER.writerFor(DataRequest.class);
+    // Websocket message bodies may be of any type, so their readers are built on first use
+    private static final Map<Class<?>, ObjectReader> BODY_READERS = new ConcurrentHashMap<>();
+
+    private JsonCodec() {
+        // Static utility class
+    }
+
+    /**
+     * Decode a message from the Filtered Resource Service websocket
+     *
+     * @param json the message text
+     * @return the decoded message
+     */
+    public static WebSocketMessage readWebSocketMessage(final String json) {
+        try {
+            return WEB_SOCKET_MESSAGE_READER.readValue(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read websocket message", e);
+        }
+    }
+
+    /**
+     * Decode a message from the Filtered Resource Service websocket
+     *
+     * @param bytes the UTF-8 encoded message
+     * @return the decoded message
+     */
+    public static WebSocketMessage readWebSocketMessage(final ByteString bytes) {
+        return read(WEB_SOCKET_MESSAGE_READER, bytes);
+    }
+
+    /**
+     * Decode a response from the Palisade Service
+     *
+     * @param bytes the UTF-8 encoded response entity
+     * @return the decoded response
+     */
+    public static PalisadeResponse readPalisadeResponse(final ByteString bytes) {
+        return read(PALISADE_RESPONSE_READER, bytes);
+    }
+
+    /**
+     * Encode a message for the Filtered Resource Service websocket
+     *
+     * @param message the message to encode
+     * @return the message text
+     */
+    public static String writeWebSocketMessage(final WebSocketMessage message) {
+        try {
+            return WEB_SOCKET_MESSAGE_WRITER.writeValueAsString(message);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to write websocket message", e);
+        }
+    }
+
+    /**
+     * Encode a registration request for the Palisade Service
+     *
+     * @param request the request to encode
+     * @return the UTF-8 encoded request
+     */
+    public static ByteString writePalisadeRequest(final PalisadeRequest request) {
+        return write(PALISADE_REQUEST_WRITER, request);
+    }
+
+    /**
+     * Encode a read request for the Data Service
+     *
+     * @param request the request to encode
+     * @return the UTF-8 encoded request
+     */
+    public static ByteString writeDataRequest(final DataRequest request) {
+        return write(DATA_REQUEST_WRITER, request);
+    }
+
+    /**
+     * Decode the body of a websocket message
+     *
+     * @param <T>   the type of the body
+     * @param body  the serialised body
+     * @param clazz the class of the body
+     * @return the decoded body
+     */
+    public static <T> T readBody(final String body, final Class<T> clazz) {
+        try {
+            return BODY_READERS.computeIfAbsent(clazz, MAPPER::readerFor).readValue(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to deserialize message body as class " + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * Encode the body of a websocket message
+     *
+     * @param body the body to encode
+     * @return the serialised body
+     */
+    public static String writeBody(final Object body) {
+        try {
+            return MAPPER.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to serialize message body", e);
+        }
+    }
+
+    private static <T> T read(final ObjectReader reader, final ByteString bytes) {
+        // Read through the ByteString's own buffers, which are not copied even if it is made of several chunks
+        try (var input = bytes.isCompact()
+                ? new ByteBufferBackedInputStream(bytes.asByteBuffer())
+                : bytes.iterator().asInputStream()) {
+            return reader.readValue(input);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read message", e);
+        }
+    }
+
+    private static ByteString write(final ObjectWriter writer, final Object value) {
+        try {
+            // The array is owned by the new ByteString alone, so need not be copied
+            return ByteString.fromArrayUnsafe(writer.writeValueAsBytes(value));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to write message", e);
+        }
+    }
+}
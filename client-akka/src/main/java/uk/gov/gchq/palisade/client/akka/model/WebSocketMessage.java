@@ -19,8 +19,6 @@ package uk.gov.gchq.palisade.client.akka.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import uk.gov.gchq.palisade.Generated;
 
@@ -36,8 +34,6 @@ import java.util.StringJoiner;
  * used in a subsequent request to the data-service to see the resources.
  */
 public final class WebSocketMessage {
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-
     private final MessageType type;
     private final Map<String, String> headers;
     private final String body;
@@ -92,11 +88,7 @@ public final class WebSocketMessage {
      */
     @JsonIgnore
     public <T> T getBodyObject(final Class<T> clazz) {
-        try {
-            return MAPPER.readValue(body, clazz);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Failed to deserialize message body as class " + clazz.getName(), e);
-        }
+        return JsonCodec.readBody(body, clazz);
     }
 
     /**
@@ -184,11 +176,7 @@ public final class WebSocketMessage {
              * @return class {@link WebSocketMessage} for the completed class from the builder.
              */
             default WebSocketMessage withBody(Object body) {
-                try {
-                    return withSerialisedBody(MAPPER.writeValueAsString(body));
-                } catch (JsonProcessingException e) {
-                    throw new IllegalArgumentException("Failed to serialize message body", e);
-                }
+                return withSerialisedBody(JsonCodec.writeBody(body));
             }
 
             /**
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.monitor;
+
+import akka.stream.Attributes;
+import akka.stream.FlowShape;
+import akka.stream.Inlet;
+import akka.stream.Outlet;
+import akka.stream.stage.AbstractInHandler;
+import akka.stream.stage.AbstractOutHandler;
+import akka.stream.stage.GraphStageLogic;
+import akka.stream.stage.GraphStageWithMaterializedValue;
+import scala.Tuple2;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Passes elements straight through, recording each in the {@link StreamStats} it materialises.
+ *
+ * @param <T> the type of element
+ */
+final class InstrumentedStage<T> extends GraphStageWithMaterializedValue<FlowShape<T, T>, StreamStats> {
+    private final Inlet<T> in = Inlet.create("InstrumentedStage.in");
+    private final Outlet<T> out = Outlet.create("InstrumentedStage.out");
+    private final FlowShape<T, T> shape = FlowShape.of(in, out);
+    private final ToLongFunction<? super T> size;
+
+    InstrumentedStage(final ToLongFunction<? super T> size) {
+        this.size = size;
+    }
+
+    @Override
+    public FlowShape<T, T> shape() {
+        return shape;
+    }
+
+    @Override
+    public Tuple2<GraphStageLogic, StreamStats> createLogicAndMaterializedValue(final Attributes inheritedAttributes) {
+        var stats = new StreamStats();
+        var logic = new GraphStageLogic(shape) {
+            {
+                setHandler(in, new AbstractInHandler() {
+                    @Override
+                    public void onPush() {
+                        var element = grab(in);
+                        stats.element(size.applyAsLong(element));
+                        push(out, element);
+                    }
+
+                    @Override
+                    public void onUpstreamFailure(final Throwable cause) {
+                        stats.failed(cause);
+                        failStage(cause);
+                    }
+                });
+                setHandler(out, new AbstractOutHandler() {
+                    @Override
+                    public void onPull() {
+                        pull(in);
+                    }
+                });
+            }
+
+            @Override
+            public void preStart() {
+                stats.started();
+            }
+
+            @Override
+            public void postStop() {
+                // Completion, cancellation or (if not already recorded) failure
+                stats.stopped();
+            }
+        };
+        return new Tuple2<>(logic, stats);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.monitor;
+
+import akka.stream.UniqueKillSwitch;
+
+/**
+ * The statistics and kill switch of a single run of an instrumented stream.
+ */
+public final class StreamHandle {
+    private final String name;
+    private final StreamStats stats;
+    private final UniqueKillSwitch killSwitch;
+
+    StreamHandle(final String name, final StreamStats stats, final UniqueKillSwitch killSwitch) {
+        this.name = name;
+        this.stats = stats;
+        this.killSwitch = killSwitch;
+    }
+
+    /**
+     * Returns the name the stream was instrumented with, not necessarily unique
+     *
+     * @return the name of the stream
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the live statistics of the stream
+     *
+     * @return the statistics
+     */
+    public StreamStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Completes the stream downstream of the instrumented stage and cancels it upstream
+     */
+    public void shutdown() {
+        killSwitch.shutdown();
+    }
+
+    /**
+     * Fails the stream downstream of the instrumented stage with the provided cause and cancels it upstream
+     *
+     * @param cause the reason the stream was aborted
+     */
+    public void abort(final Throwable cause) {
+        killSwitch.abort(cause);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StreamHandle[name=%s, stats=%s]", name, stats);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.monitor;
+
+import akka.stream.KillSwitches;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Keep;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A registry of running instrumented streams, from which they can be monitored and stopped.
+ * Each run of an instrumented stream is registered under a unique id when it is materialised, and removed once it stops.
+ */
+public final class StreamRegistry {
+    private final Map<String, StreamHandle> streams = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * Returns a flow which passes elements straight through, registering each run in this registry with its statistics and a kill switch.
+     *
+     * @param <T>  the type of element
+     * @param name the name of the stream, to which a unique suffix is added for its id
+     * @param size the size in bytes of each element, for the byte statistics
+     * @return an instrumented flow which materialises the handle of the stream
+     */
+    public <T> Flow<T, T, StreamHandle> instrument(final String name, final ToLongFunction<? super T> size) {
+        return Flow.<T>create()
+                .viaMat(KillSwitches.single(), Keep.right())
+                .viaMat(Flow.fromGraph(new InstrumentedStage<T>(size)), Keep.both())
+                .mapMaterializedValue(pair -> register(new StreamHandle(name, pair.second(), pair.first())));
+    }
+
+    private StreamHandle register(final StreamHandle handle) {
+        var id = handle.getName() + "#" + nextId.incrementAndGet();
+        streams.put(id, handle);
+        handle.getStats().getCompletion().whenComplete((done, failure) -> streams.remove(id));
+        return handle;
+    }
+
+    /**
+     * Returns the running streams, by their unique ids
+     *
+     * @return a snapshot of the registered streams
+     */
+    public Map<String, StreamHandle> getStreams() {
+        // Streams which have stopped but not yet been removed are left out
+        return streams.entrySet().stream()
+                .filter(entry -> !entry.getValue().getStats().isStopped())
+                .collect(Collectors.toUnmodifiableMap(Entry::getKey, Entry::getValue));
+    }
+
+    /**
+     * Returns the running stream registered with the provided id
+     *
+     * @param id the unique id of the stream
+     * @return the stream, or empty if there is no such stream or it has stopped
+     */
+    public Optional<StreamHandle> get(final String id) {
+        return Optional.ofNullable(streams.get(id))
+                .filter(handle -> !handle.getStats().isStopped());
+    }
+
+    /**
+     * Returns the number of streams which have been materialised and not yet stopped
+     *
+     * @return the number of streams in flight
+     */
+    public int getInFlight() {
+        return getStreams().size();
+    }
+
+    /**
+     * Shuts down every running stream whose name starts with the provided prefix
+     *
+     * @param prefix the prefix of the names of the streams, or empty for all
+     * @return the number of streams shut down
+     */
+    public int shutdown(final String prefix) {
+        var count = 0;
+        for (StreamHandle handle : getStreams().values()) {
+            if (handle.getName().startsWith(prefix)) {
+                handle.shutdown();
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.palisade.client.akka.monitor;
+
+import akka.Done;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of the elements passing through an instrumented stream, safe to read from any thread while the stream runs.
+ * Rates are averaged from when the stream started until it stopped, or until now if it is still running.
+ */
+public final class StreamStats {
+    private static final long NOT_YET = -1L;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong elements = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final CompletableFuture<Done> completion = new CompletableFuture<>();
+    private volatile long startNanos = NOT_YET;
+    private volatile long firstElementNanos = NOT_YET;
+    private volatile long stopNanos = NOT_YET;
+
+    StreamStats() {
+        // Created by the instrumented stage
+    }
+
+    void started() {
+        startNanos = System.nanoTime();
+    }
+
+    void element(final long size) {
+        if (firstElementNanos == NOT_YET) {
+            firstElementNanos = System.nanoTime();
+        }
+        elements.incrementAndGet();
+        bytes.addAndGet(size);
+    }
+
+    void failed(final Throwable cause) {
+        stop();
+        completion.completeExceptionally(cause);
+    }
+
+    void stopped() {
+        stop();
+        completion.complete(Done.done());
+    }
+
+    boolean isStopped() {
+        return stopNanos != NOT_YET;
+    }
+
+    private void stop() {
+        if (stopNanos == NOT_YET) {
+            stopNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the number of elements which have passed through the stream
+     *
+     * @return the number of elements
+     */
+    public long getElements() {
+        return elements.get();
+    }
+
+    /**
+     * Returns the total size of the elements which have passed through the stream, zero for streams of elements which have no size
+     *
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the average rate at which elements have passed through the stream
+     *
+     * @return the number of elements per second
+     */
+    public double getElementsPerSecond() {
+        return perSecond(getElements());
+    }
+
+    /**
+     * Returns the average rate at which bytes have passed through the stream
+     *
+     * @return the number of bytes per second
+     */
+    public double getBytesPerSecond() {
+        return perSecond(getBytes());
+    }
+
+    /**
+     * Returns the time from the stream starting until the first element passed through it
+     *
+     * @return the time to the first element, or empty if none has yet
+     */
+    public Optional<Duration> getTimeToFirstElement() {
+        var start = startNanos;
+        var first = firstElementNanos;
+        return first == NOT_YET ? Optional.empty() : Optional.of(Duration.ofNanos(first - start));
+    }
+
+    /**
+     * Returns whether the stream has started and not yet completed, failed or been cancelled
+     *
+     * @return true if the stream is running
+     */
+    public boolean isRunning() {
+        return startNanos != NOT_YET && stopNanos == NOT_YET;
+    }
+
+    /**
+     * Returns a stage which completes when the stream stops, exceptionally if it failed
+     *
+     * @return the completion of the stream
+     */
+    public CompletionStage<Done> getCompletion() {
+        return completion;
+    }
+
+    private double perSecond(final long count) {
+        var start = startNanos;
+        if (start == NOT_YET) {
+            return 0;
+        }
+        var stop = stopNanos;
+        var elapsed = (stop == NOT_YET ? System.nanoTime() : stop) - start;
+        return elapsed <= 0 ? 0 : count * NANOS_PER_SECOND / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StreamStats[elements=%d, bytes=%d, elementsPerSecond=%.1f, bytesPerSecond=%.1f, timeToFirstElement=%s, running=%s]",
+                getElements(), getBytes(), getElementsPerSecond(), getBytesPerSecond(), getTimeToFirstElement().orElse(null), isRunning());
+    }
+}
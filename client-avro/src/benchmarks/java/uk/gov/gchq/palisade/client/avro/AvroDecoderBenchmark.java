@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading an Avro container file with a new record per row (as most
+ * consumers of {@code Download#getInputStream} do today) against the
+ * {@link AvroDecoder}, with and without a projection. Each operation is one
+ * record, so the throughput is in records per second and the gc profiler's
+ * {@code gc.alloc.rate.norm} is the bytes allocated per record.
+ * <p>
+ * Run with {@code mvn -pl client-avro -Pbenchmarks verify}.
+ *
+ * @since 0.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AvroDecoderBenchmark {
+
+    private static final int RECORDS = 100_000;
+    private static final String FORMAT = "avro/binary";
+    private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Employee\",\"fields\":["
+            + "{\"name\":\"uid\",\"type\":\"long\"},"
+            + "{\"name\":\"name\",\"type\":\"string\"},"
+            + "{\"name\":\"department\",\"type\":\"string\"},"
+            + "{\"name\":\"address\",\"type\":\"string\"},"
+            + "{\"name\":\"salary\",\"type\":\"double\"},"
+            + "{\"name\":\"manager\",\"type\":[\"null\",\"long\"]}]}");
+
+    private byte[] file;
+    private AvroDecoder decoder;
+    private AvroDecoder projectingDecoder;
+
+    /**
+     * Writes the file read by every benchmark
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var writer = new DataFileWriter<GenericRecord>(new GenericDatumWriter<>(SCHEMA))) {
+            writer.create(SCHEMA, output);
+            for (long uid = 0; uid < RECORDS; uid++) {
+                var record = new GenericData.Record(SCHEMA);
+                record.put("uid", uid);
+                record.put("name", "employee-" + uid);
+                record.put("department", "department-" + (uid % 10));
+                record.put("address", uid + " Palisade Street, London");
+                record.put("salary", 25_000.0 + uid);
+                record.put("manager", uid == 0 ? null : 0L);
+                writer.append(record);
+            }
+        }
+        file = output.toByteArray();
+        decoder = new AvroDecoder();
+        projectingDecoder = new AvroDecoder(List.of("uid", "salary"));
+    }
+
+    /**
+     * A new record for every row
+     *
+     * @param blackhole consumes the records
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void newRecordPerRow(final Blackhole blackhole) throws IOException {
+        try (var stream = new DataFileStream<GenericRecord>(new ByteArrayInputStream(file), new GenericDatumReader<>())) {
+            while (stream.hasNext()) {
+                blackhole.consume(stream.next());
+            }
+        }
+    }
+
+    /**
+     * One record reused for every row
+     *
+     * @param blackhole consumes the records
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void reusedRecord(final Blackhole blackhole) throws IOException {
+        read(decoder, blackhole);
+    }
+
+    /**
+     * One record reused for every row, decoding only two of the fields
+     *
+     * @param blackhole consumes the records
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void projectedRecord(final Blackhole blackhole) throws IOException {
+        read(projectingDecoder, blackhole);
+    }
+
+    private void read(final AvroDecoder avroDecoder, final Blackhole blackhole) throws IOException {
+        try (var reader = avroDecoder.open(new ByteArrayInputStream(file), FORMAT)) {
+            for (var record = reader.read(null); record != null; record = reader.read(record)) {
+                blackhole.consume(record);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+
+import uk.gov.gchq.palisade.client.java.Download;
+import uk.gov.gchq.palisade.client.java.record.RecordDecoder;
+import uk.gov.gchq.palisade.client.java.record.RecordDecoders;
+import uk.gov.gchq.palisade.client.java.record.RecordReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
+
+/**
+ * Decodes Avro object container files into {@link GenericRecord}s as they are
+ * downloaded. A record passed back to the reader is reused for the next one, so
+ * with {@link #forEachReusing(Download, Consumer)} a whole resource is read into
+ * the same instance rather than one per row. Streams of records, such as from
+ * {@link Download#records()}, never pass records back, so each is a new instance.
+ * <p>
+ * A decoder may be given a projection, the names of the top-level fields to
+ * read. The projected schema is used as the Avro reader schema, so the other
+ * fields are skipped over in the input rather than decoded. The writer schema
+ * of every resource of the same type is expected to be the same, so the
+ * (projected) schemas are cached by resource type and shared, letting Avro
+ * reuse its resolution of one against the other rather than rebuilding it for
+ * every resource.
+ * <p>
+ * This decoder is registered with the {@link java.util.ServiceLoader}, so it is
+ * chosen by {@link Download#records()} for resources with an Avro serialised
+ * format.
+ *
+ * @since 0.5.0
+ */
+public class AvroDecoder implements RecordDecoder<GenericRecord> {
+
+    private static final Set<String> MEDIA_TYPES = Set.of("avro", "avro/binary", "application/avro", "application/x-avro");
+
+    private final Set<String> fields;
+
+    /*
+     * Writer schema and the reader schema projected from it, by resource type
+     */
+    private final Map<String, Schema[]> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a new decoder which reads every field
+     */
+    public AvroDecoder() {
+        this(Set.of());
+    }
+
+    /**
+     * Returns a new decoder which reads only the named top-level fields
+     *
+     * @param fields the names of the fields to read, or empty for every field
+     */
+    public AvroDecoder(final Collection<String> fields) {
+        this.fields = Set.copyOf(fields);
+    }
+
+    @Override
+    public boolean supports(final String serialisedFormat) {
+        return MEDIA_TYPES.contains(RecordDecoders.mediaType(serialisedFormat));
+    }
+
+    @Override
+    public RecordReader<GenericRecord> open(final InputStream input, final String serialisedFormat) throws IOException {
+        // without the resource, the format is the best key available
+        return newReader(input, String.valueOf(serialisedFormat));
+    }
+
+    /**
+     * Returns a stream of the records of the provided download, sharing schemas
+     * with other downloads of the same resource type. The stream should be closed
+     * once finished with.
+     *
+     * @param download the download to read
+     * @return a stream of records
+     */
+    public Stream<GenericRecord> records(final Download download) {
+        return download.records(forType(download));
+    }
+
+    /**
+     * Reads every record of the provided download into a single reused
+     * {@code GenericRecord}, passing it to {@code action} for each row and sharing
+     * schemas with other downloads of the same resource type. The action must not
+     * keep the record once it has returned.
+     *
+     * @param download the download to read
+     * @param action   the action run with each record
+     */
+    public void forEachReusing(final Download download, final Consumer<? super GenericRecord> action) {
+        download.forEachReusing(forType(download), action);
+    }
+
+    private RecordDecoder<GenericRecord> forType(final Download download) {
+        var type = String.valueOf(download.getResource().getType());
+        return (final InputStream input, final String serialisedFormat) -> newReader(input, type);
+    }
+
+    private RecordReader<GenericRecord> newReader(final InputStream input, final String type) throws IOException {
+        var stream = new DataFileStream<>(input, new CachingDatumReader(type));
+        return new RecordReader<>() {
+            @Override
+            public GenericRecord read(final GenericRecord reuse) throws IOException {
+                return stream.hasNext() ? stream.next(reuse) : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                stream.close();
+            }
+        };
+    }
+
+    /**
+     * Returns the reader schema used for resources with the provided writer
+     * schema, which keeps only the projected fields
+     *
+     * @param writer the schema the resource was written with
+     * @return the schema to read the resource with
+     */
+    Schema project(final Schema writer) {
+        if (fields.isEmpty()) {
+            return writer;
+        }
+        checkArgument(writer.getType() == Schema.Type.RECORD, "Cannot project fields of a %s schema", writer.getType());
+        var projected = writer.getFields().stream()
+                .filter(field -> fields.contains(field.name()))
+                .map(field -> new Field(field, field.schema()))
+                .collect(Collectors.toList());
+        checkArgument(projected.size() == fields.size(), "Projected fields %s are not all in schema %s", fields, writer.getFullName());
+        return Schema.createRecord(writer.getName(), writer.getDoc(), writer.getNamespace(), writer.isError(), projected);
+    }
+
+    /*
+     * Swaps the schema read from each file's header for the cached instance of an
+     * equal schema, so that Avro's resolver cache (keyed on schema identity) is hit
+     */
+    private final class CachingDatumReader extends GenericDatumReader<GenericRecord> {
+
+        private final String type;
+
+        private CachingDatumReader(final String type) {
+            this.type = type;
+        }
+
+        @Override
+        public void setSchema(final Schema writer) {
+            var cached = schemas.compute(type, (key, previous) -> previous != null && previous[0].equals(writer)
+                    ? previous
+                    : new Schema[]{writer, project(writer)});
+            super.setSchema(cached[0]);
+            setExpected(cached[1]);
+        }
+
+    }
+
+}
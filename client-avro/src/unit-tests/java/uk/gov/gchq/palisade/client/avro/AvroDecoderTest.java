@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.Download;
+import uk.gov.gchq.palisade.client.java.record.RecordDecoders;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvroDecoderTest {
+
+    private static final String FORMAT = "avro/binary";
+    private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Employee\",\"fields\":["
+            + "{\"name\":\"uid\",\"type\":\"long\"},"
+            + "{\"name\":\"name\",\"type\":\"string\"},"
+            + "{\"name\":\"manager\",\"type\":[\"null\",\"string\"]}]}");
+    private static final int COUNT = 100;
+
+    private static byte[] write() throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var writer = new DataFileWriter<GenericRecord>(new GenericDatumWriter<>(SCHEMA))) {
+            writer.create(SCHEMA, output);
+            for (long uid = 0; uid < COUNT; uid++) {
+                var record = new GenericData.Record(SCHEMA);
+                record.put("uid", uid);
+                record.put("name", "employee-" + uid);
+                record.put("manager", uid == 0 ? null : "employee-0");
+                writer.append(record);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static Download download(final byte[] bytes) {
+        var resource = new FileResource()
+                .id("file:/data/employee.avro")
+                .type("Employee")
+                .serialisedFormat(FORMAT);
+        return new Download() {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(bytes);
+            }
+
+            @Override
+            public LeafResource getResource() {
+                return resource;
+            }
+        };
+    }
+
+    @Test
+    void testRecordsAreReused() throws Exception {
+        try (var reader = new AvroDecoder().open(new ByteArrayInputStream(write()), FORMAT)) {
+            var first = reader.read(null);
+            assertThat(first.get("uid")).as("check first record").isEqualTo(0L);
+
+            var second = reader.read(first);
+            assertThat(second).as("check record is reused").isSameAs(first);
+            assertThat(second.get("uid")).as("check second record").isEqualTo(1L);
+
+            var count = 2;
+            for (var record = reader.read(second); record != null; record = reader.read(record)) {
+                count++;
+            }
+            assertThat(count).as("check every record is read").isEqualTo(COUNT);
+        }
+    }
+
+    @Test
+    void testStreamedRecordsAreNew() throws Exception {
+        try (var records = download(write()).records()) {
+            var collected = records
+                    .map(GenericRecord.class::cast)
+                    .collect(Collectors.toList());
+            assertThat(collected)
+                    .as("check every record is a new instance")
+                    .hasSize(COUNT)
+                    .extracting(record -> record.get("uid"))
+                    .doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void testForEachReusing() throws Exception {
+        var seen = new ArrayList<GenericRecord>();
+        var uids = new ArrayList<Long>();
+        new AvroDecoder().forEachReusing(download(write()), record -> {
+            seen.add(record);
+            uids.add((Long) record.get("uid"));
+        });
+        assertThat(uids).as("check every record is read").hasSize(COUNT).isSorted();
+        assertThat(seen).as("check a single record is reused").allMatch(record -> record == seen.get(0));
+    }
+
+    @Test
+    void testProjection() throws Exception {
+        try (var records = new AvroDecoder(List.of("uid")).records(download(write()))) {
+            var uids = records
+                    .peek(record -> assertThat(record.getSchema().getFields()).as("check only projected field is read").hasSize(1))
+                    .map(record -> (Long) record.get("uid"))
+                    .collect(Collectors.toList());
+            assertThat(uids).as("check projected values").hasSize(COUNT).isSorted();
+        }
+    }
+
+    @Test
+    void testSchemaIsCachedByType() throws Exception {
+        var decoder = new AvroDecoder(List.of("name"));
+        var bytes = write();
+        Schema first;
+        Schema second;
+        try (var records = decoder.records(download(bytes))) {
+            first = records.findFirst().orElseThrow().getSchema();
+        }
+        try (var records = decoder.records(download(bytes))) {
+            second = records.findFirst().orElseThrow().getSchema();
+        }
+        assertThat(second).as("check schema is shared by resources of the same type").isSameAs(first);
+    }
+
+    @Test
+    void testDecoderIsRegistered() throws Exception {
+        assertThat(RecordDecoders.forFormat(FORMAT))
+                .as("check decoder is found by serialised format")
+                .containsInstanceOf(AvroDecoder.class);
+
+        try (var records = download(write()).records()) {
+            assertThat(records.count()).as("check records are decoded").isEqualTo(COUNT);
+        }
+    }
+
+}
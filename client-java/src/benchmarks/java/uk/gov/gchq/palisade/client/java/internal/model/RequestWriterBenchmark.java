@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing the request bodies sent for each download and registration
+ * with a shared {@code ObjectMapper} (as before) against the
+ * {@link RequestWriter}. Each operation is one request body, so the gc
+ * profiler's {@code gc.alloc.rate.norm} is the bytes allocated per request.
+ * <p>
+ * Run with {@code mvn -pl client-java -Pbenchmarks verify}.
+ *
+ * @since 0.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class RequestWriterBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter objectWriter;
+    private DataRequest dataRequest;
+    private PalisadeRequest palisadeRequest;
+
+    /**
+     * Creates the requests written by every benchmark
+     */
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new Jdk8Module());
+        objectWriter = objectMapper.writerFor(DataRequest.class);
+        dataRequest = DataRequest.Builder.create()
+                .withToken("7c2d8d3e-0f27-4d1c-a5a6-4d3b7d9a1e42")
+                .withLeafResourceId("file:/data/local-data-store/employee_file0.avro");
+        palisadeRequest = PalisadeRequest.Builder.create()
+                .withUserId("Alice")
+                .withResourceId("file:/data/local-data-store/")
+                .withContext(Map.of("purpose", "SALARY"));
+    }
+
+    /**
+     * A {@code DataRequest} written by the {@code ObjectMapper}
+     *
+     * @return the request body
+     * @throws JsonProcessingException if the request cannot be written
+     */
+    @Benchmark
+    public byte[] dataRequestObjectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dataRequest);
+    }
+
+    /**
+     * A {@code DataRequest} written by a pre-built {@code ObjectWriter}
+     *
+     * @return the request body
+     * @throws JsonProcessingException if the request cannot be written
+     */
+    @Benchmark
+    public byte[] dataRequestObjectWriter() throws JsonProcessingException {
+        return objectWriter.writeValueAsBytes(dataRequest);
+    }
+
+    /**
+     * A {@code DataRequest} written by the {@code RequestWriter}
+     *
+     * @return the request body
+     */
+    @Benchmark
+    public byte[] dataRequestRequestWriter() {
+        return RequestWriter.write(dataRequest);
+    }
+
+    /**
+     * A {@code PalisadeRequest} written by the {@code ObjectMapper}
+     *
+     * @return the request body
+     * @throws JsonProcessingException if the request cannot be written
+     */
+    @Benchmark
+    public byte[] palisadeRequestObjectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(palisadeRequest);
+    }
+
+    /**
+     * A {@code PalisadeRequest} written by the {@code RequestWriter}
+     *
+     * @return the request body
+     */
+    @Benchmark
+    public byte[] palisadeRequestRequestWriter() {
+        return RequestWriter.write(palisadeRequest);
+    }
+
+}
@@ -23,19 +23,26 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
 import uk.gov.gchq.palisade.client.java.internal.download.Downloader;
 import uk.gov.gchq.palisade.client.java.internal.download.DownloaderException;
+import uk.gov.gchq.palisade.client.java.internal.download.StandardCodec;
+import uk.gov.gchq.palisade.resource.LeafResource;
 import uk.gov.gchq.palisade.resource.impl.FileResource;
 import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
 
 import javax.inject.Inject;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.nio.channels.Channels;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static uk.gov.gchq.palisade.client.java.testing.ClientTestData.FILE_NAME_0;
+import static uk.gov.gchq.palisade.client.java.testing.ClientTestData.FILE_NAME_1;
 import static uk.gov.gchq.palisade.client.java.testing.ClientTestData.TOKEN;
 
 @MicronautTest
@@ -43,6 +50,7 @@ class DownloaderTest {
 
     private static final String BASE_URL = "http://localhost:%d/cluster/data/"; // needs port added before use
     private static final String ENDPOINT = "read/chunked";
+    private static final String BATCH_ENDPOINT = "read/batch";
 
     private static ObjectMapper objectMapper;
 
@@ -65,6 +73,7 @@ class DownloaderTest {
                 .httpClient(HttpClient.newHttpClient())
                 .objectMapper(objectMapper)
                 .path(ENDPOINT)
+                .batchPath(BATCH_ENDPOINT)
                 .putServiceNameMap("data-service", uri));
     }
 
@@ -86,6 +95,141 @@ class DownloaderTest {
                     .as("check downloaded input stream")
                     .hasSameContentAs(expected);
         }
+
+        var length = FILE_NAME_0.createStream().readAllBytes().length;
+        assertThat(download.getBytesDelivered())
+                .as("check every byte is counted as delivered")
+                .isEqualTo(length);
+        assertThat(download.getBytesReceived())
+                .as("check an uncompressed body is received as delivered")
+                .isEqualTo(length);
+    }
+
+    @Test
+    void testSuccessfulBufferedDownload() throws Exception {
+        var resource = new FileResource()
+                .id(FILE_NAME_0.asString())
+                .connectionDetail(new SimpleConnectionDetail().serviceName("data-service"));
+
+        var download = downloader.fetch(TOKEN, resource);
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+
+        var output = new ByteArrayOutputStream();
+        try (var buffers = download.buffers(pool); var channel = Channels.newChannel(output)) {
+            var iterator = buffers.iterator();
+            while (iterator.hasNext()) {
+                try (var leased = iterator.next()) {
+                    channel.write(leased.buffer());
+                }
+            }
+        }
+
+        var expected = FILE_NAME_0.createStream().readAllBytes();
+        assertThat(output.toByteArray())
+                .as("check the buffers hold the downloaded bytes in order")
+                .isEqualTo(expected);
+        assertThat(download.getBytesReceived())
+                .as("check the buffered bytes are counted as received and delivered")
+                .isEqualTo(download.getBytesDelivered())
+                .isEqualTo(expected.length);
+        assertThat(pool.getLeasedCount())
+                .as("check all buffers were released")
+                .isZero();
+    }
+
+    @Test
+    void testSuccessfulCompressedDownload() throws Exception {
+        var compressingDownloader = Downloader.createDownloader(b -> b
+                .httpClient(HttpClient.newHttpClient())
+                .objectMapper(objectMapper)
+                .path(ENDPOINT)
+                .batchPath(BATCH_ENDPOINT)
+                .putServiceNameMap("data-service", uri)
+                .addCodecs(StandardCodec.values()));
+
+        var resource = new FileResource()
+                .id(FILE_NAME_0.asString())
+                .connectionDetail(new SimpleConnectionDetail().serviceName("data-service"));
+
+        var download = compressingDownloader.fetch(TOKEN, resource);
+
+        // whether or not the server chose to compress the body, the stream must be
+        // the same as the original
+
+        try (var actual = download.getInputStream();
+             var expected = FILE_NAME_0.createStream()
+        ) {
+            assertThat(actual)
+                    .as("check downloaded input stream")
+                    .hasSameContentAs(expected);
+        }
+
+        assertThat(download.getBytesDelivered())
+                .as("check every decoded byte is counted as delivered")
+                .isEqualTo(FILE_NAME_0.createStream().readAllBytes().length);
+        assertThat(download.getBytesReceived())
+                .as("check the bytes received are counted")
+                .isPositive();
+    }
+
+    @Test
+    void testSuccessfulBatchDownload() throws Exception {
+        var resources = List.<LeafResource>of(
+                new FileResource()
+                        .id(FILE_NAME_0.asString())
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")),
+                new FileResource()
+                        .id(FILE_NAME_1.asString())
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")));
+
+        try (var downloads = downloader.fetch(TOKEN, resources)) {
+            var iterator = downloads.iterator();
+            for (var name : List.of(FILE_NAME_0, FILE_NAME_1)) {
+                var download = iterator.next();
+                assertThat(download.getResource().getId())
+                        .as("check downloads are returned in order")
+                        .isEqualTo(name.asString());
+                try (var actual = download.getInputStream();
+                     var expected = name.createStream()
+                ) {
+                    assertThat(actual)
+                            .as("check downloaded input stream of %s", name.asString())
+                            .hasSameContentAs(expected);
+                }
+                assertThat(download.getBytesDelivered())
+                        .as("check the bytes of %s are counted", name.asString())
+                        .isEqualTo(download.getBytesReceived())
+                        .isEqualTo(name.createStream().readAllBytes().length);
+            }
+            assertThat(iterator.hasNext())
+                    .as("check there is one download per resource")
+                    .isFalse();
+        }
+    }
+
+    @Test
+    void testBatchDownloadWithFailedResource() {
+        var resources = List.<LeafResource>of(
+                new FileResource()
+                        .id("bad-resource-id")
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")),
+                new FileResource()
+                        .id(FILE_NAME_0.asString())
+                        .connectionDetail(new SimpleConnectionDetail().serviceName("data-service")));
+
+        try (var downloads = downloader.fetch(TOKEN, resources)) {
+            var iterator = downloads.iterator();
+
+            var failed = iterator.next();
+            assertThatExceptionOfType(DownloaderException.class)
+                    .as("check failed resource throws when read")
+                    .isThrownBy(failed::getInputStream)
+                    .matches(ex -> ex.getStatusCode() == 500, "statuscode 500");
+
+            assertThat(iterator.next().getResource().getId())
+                    .as("check the following resource is still returned")
+                    .isEqualTo(FILE_NAME_0.asString());
+        }
     }
 
     @Test
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.component.java;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.ClientException;
+import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+import uk.gov.gchq.palisade.client.java.internal.resource.WebSocketClient;
+
+import javax.inject.Inject;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests that a lost websocket is re-opened without repeating messages, and that
+ * a message which cannot be decoded fails the stream without reconnecting
+ *
+ * @since 0.5.0
+ */
+@MicronautTest
+class ResourceClientReconnectTest {
+
+    @Inject
+    EmbeddedServer embeddedServer;
+
+    private WebSocketClient connect(final String token) {
+        return WebSocketClient
+                .createResourceClient(b -> b
+                        .httpClient(HttpClient.newHttpClient())
+                        .token(token)
+                        .uri(URI.create("ws://localhost:" + embeddedServer.getPort() + "/cluster/unreliable/resource/%25t"))
+                        .objectMapper(new ObjectMapper().registerModule(new Jdk8Module()))
+                        .reconnectAttempts(2)
+                        .reconnectBackoff(Duration.ofMillis(10)))
+                .connect();
+    }
+
+    private static List<WebSocketMessage> readAll(final WebSocketClient client) {
+        var messages = new ArrayList<WebSocketMessage>();
+        WebSocketMessage message;
+        do {
+            message = client.poll(10, TimeUnit.SECONDS);
+            if (message != null) {
+                messages.add(message);
+            }
+        } while (message != null && message.getType() != MessageType.COMPLETE);
+        return messages;
+    }
+
+    @Test
+    void testReconnectsWithoutRepeating() {
+        var messages = readAll(connect(UnreliableWsEndpoint.DROP_TOKEN));
+
+        assertThat(UnreliableWsEndpoint.getConnections(UnreliableWsEndpoint.DROP_TOKEN))
+                .as("check the websocket was re-opened once it was closed")
+                .isEqualTo(2);
+        assertThat(messages)
+                .as("check each message is received once and the stream completes")
+                .extracting(WebSocketMessage::getType)
+                .containsExactly(MessageType.RESOURCE, MessageType.RESOURCE, MessageType.RESOURCE, MessageType.COMPLETE);
+        assertThat(messages.subList(0, UnreliableWsEndpoint.RESOURCES.size()))
+                .as("check the replayed resource was suppressed")
+                .extracting(message -> message.getBodyObject(Map.class).get("id"))
+                .containsExactlyElementsOf(UnreliableWsEndpoint.RESOURCES);
+    }
+
+    @Test
+    void testUndecodableMessageIsTerminal() {
+        var client = connect(UnreliableWsEndpoint.BAD_TOKEN);
+
+        assertThatExceptionOfType(ClientException.class)
+                .as("check a message which cannot be decoded fails the stream")
+                .isThrownBy(() -> client.poll(10, TimeUnit.SECONDS));
+        assertThat(UnreliableWsEndpoint.getConnections(UnreliableWsEndpoint.BAD_TOKEN))
+                .as("check the websocket was not re-opened to be sent the same message again")
+                .isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.component.java;
+
+import io.micronaut.websocket.CloseReason;
+import io.micronaut.websocket.WebSocketSession;
+import io.micronaut.websocket.annotation.OnMessage;
+import io.micronaut.websocket.annotation.OnOpen;
+import io.micronaut.websocket.annotation.ServerWebSocket;
+
+import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
+import uk.gov.gchq.palisade.client.java.internal.model.Token;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test websocket endpoint which misbehaves according to its token. For
+ * {@link #DROP_TOKEN} the first connection is closed after the first resource,
+ * and the next replays the stream from the start. For {@link #BAD_TOKEN} the
+ * first message is not valid JSON.
+ *
+ * @since 0.5.0
+ */
+@ServerWebSocket("/cluster/unreliable/resource/{token}")
+public class UnreliableWsEndpoint {
+
+    static final String DROP_TOKEN = "drop-token";
+    static final String BAD_TOKEN = "bad-token";
+    static final List<String> RESOURCES = List.of("resource-0", "resource-1", "resource-2");
+
+    private static final String MESSAGES_KEY = "messages";
+    private static final String SENT_KEY = "sent";
+    private static final Map<String, AtomicInteger> CONNECTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the number of times a websocket has been opened for the token
+     *
+     * @param token the token
+     * @return the number of connections
+     */
+    static int getConnections(final String token) {
+        return CONNECTIONS.computeIfAbsent(token, k -> new AtomicInteger()).get();
+    }
+
+    /**
+     * Called when the websocket is opened
+     *
+     * @param token   The token which is passed in as a path variable
+     * @param session The web socket session
+     */
+    @OnOpen
+    public void onOpen(final String token, final WebSocketSession session) {
+        var connection = CONNECTIONS.computeIfAbsent(token, k -> new AtomicInteger()).incrementAndGet();
+        session.put(MESSAGES_KEY, RESOURCES.stream()
+                .map(id -> WebSocketMessage.Builder.create()
+                        .withType(MessageType.RESOURCE)
+                        .withHeader(Token.HEADER, token).noHeaders()
+                        .withBody(Map.of("id", id)))
+                .iterator());
+        // only the first connection for the token to drop is closed part way
+        session.put(SENT_KEY, DROP_TOKEN.equals(token) && connection == 1 ? 0 : Integer.MIN_VALUE);
+    }
+
+    /**
+     * Called when a new message arrives
+     *
+     * @param token   The token which is passed in as a path variable
+     * @param inmsg   The incoming message
+     * @param session The web socket session
+     */
+    @OnMessage
+    @SuppressWarnings("unchecked")
+    public void onMessage(final String token, final WebSocketMessage inmsg, final WebSocketSession session) {
+        if (inmsg.getType() != MessageType.CTS) {
+            return;
+        }
+        if (BAD_TOKEN.equals(token)) {
+            session.sendSync("not a message");
+            return;
+        }
+        var sent = session.get(SENT_KEY, Integer.class).orElseThrow();
+        if (sent == 1) {
+            session.close(CloseReason.GOING_AWAY);
+            return;
+        }
+        session.put(SENT_KEY, sent + 1);
+        var messages = (Iterator<WebSocketMessage>) session.get(MESSAGES_KEY, Iterator.class).orElseThrow();
+        if (messages.hasNext()) {
+            session.sendSync(messages.next());
+        } else {
+            session.sendSync(WebSocketMessage.Builder.create()
+                    .withType(MessageType.COMPLETE)
+                    .withHeader(Token.HEADER, token).noHeaders()
+                    .noBody());
+        }
+    }
+
+}
@@ -25,11 +25,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.palisade.client.java.ClientManager;
+import uk.gov.gchq.palisade.client.java.Download;
 import uk.gov.gchq.palisade.client.java.QueryItem.ItemType;
 import uk.gov.gchq.palisade.client.java.QueryResponse;
+import uk.gov.gchq.palisade.client.java.ResourceKey;
+import uk.gov.gchq.palisade.client.java.nio.PalisadeFileSystemProvider;
 
 import javax.inject.Inject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -138,4 +150,156 @@ class FullTest {
 
         disposable.dispose();
     }
+
+    /**
+     * Register a request with the Palisade Service, then fetch and download every resource in parallel using a
+     * {@code java.util.stream.Stream}.
+     *
+     * @throws Exception if no resources are returned, or the download fails
+     */
+    @Test
+    void testWithParallelStream() throws Exception {
+
+        var session = ClientManager.openSession(String.format("pal://localhost:%d/cluster?userid=alice", embeddedServer.getPort()));
+        var query = session.createQuery("resource_id");
+        var response = query.execute().get();
+
+        var expectedCollection = Map.of(
+                FILE_NAME_0.asString(), FILE_NAME_0.createStream().readAllBytes(),
+                FILE_NAME_1.asString(), FILE_NAME_1.createStream().readAllBytes()
+        );
+
+        try (var downloads = response.fetchAll((final Download download) -> {
+            try (var actual = download.getInputStream()) {
+                return Map.entry(download.getResource().getId(), actual.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, 2)) {
+            var actualCollection = downloads.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+            assertThat(actualCollection)
+                    .as("check every resource was downloaded")
+                    .containsOnlyKeys(expectedCollection.keySet());
+            expectedCollection.forEach((id, expected) -> assertThat(actualCollection.get(id))
+                    .as("check stream download of %s", id)
+                    .isEqualTo(expected));
+        }
+    }
+
+    /**
+     * Register a request with the Palisade Service, fetch resources from the Filtered-Resource Service, and download
+     * from the Data Service into direct buffers leased from the session's pool.
+     *
+     * @throws Exception if no resources are returned, or the download fails
+     */
+    @Test
+    void testWithBuffers() throws Exception {
+
+        var session = ClientManager.openSession(String.format("pal://localhost:%d/cluster?userid=alice", embeddedServer.getPort()));
+        var response = session.createQuery("resource_id").execute().get();
+        var pool = session.getBufferPool();
+
+        var expectedCollection = Map.of(
+                FILE_NAME_0.asString(), FILE_NAME_0.createStream().readAllBytes(),
+                FILE_NAME_1.asString(), FILE_NAME_1.createStream().readAllBytes()
+        );
+
+        try (var items = response.toStream(false)) {
+            items.filter(item -> item.getType().equals(ItemType.RESOURCE)).forEach(item -> {
+                var actual = new ByteArrayOutputStream();
+                try (var buffers = session.fetch(item).buffers(pool)) {
+                    buffers.forEach(leased -> {
+                        try (leased) {
+                            var buffer = leased.buffer();
+                            var bytes = new byte[buffer.remaining()];
+                            buffer.get(bytes);
+                            actual.writeBytes(bytes);
+                        }
+                    });
+                }
+                assertThat(actual.toByteArray())
+                        .as("check buffered download of %s", item.asResource().getId())
+                        .isEqualTo(expectedCollection.get(item.asResource().getId()));
+            });
+        }
+
+        assertThat(pool.getLeasedCount())
+                .as("check every buffer was returned to the pool")
+                .isZero();
+        assertThat(pool.getAllocatedCount())
+                .as("check buffers were reused across downloads")
+                .isEqualTo(1);
+    }
+
+    /**
+     * Register a request with the Palisade Service, then fetch resources from the Filtered-Resource Service grouped by
+     * the data service holding them, and download each group from the Data Service as a batch.
+     *
+     * @throws Exception if no resources are returned, or the download fails
+     */
+    @Test
+    void testWithGroups() throws Exception {
+
+        var session = ClientManager.openSession(String.format("pal://localhost:%d/cluster?userid=alice", embeddedServer.getPort()));
+        var response = session.createQuery("resource_id").execute().get();
+
+        var groups = Flowable.fromPublisher(FlowAdapters.toPublisher(response.groupBy(ResourceKey.DATA_SERVICE, 10, 100, Duration.ofSeconds(30))))
+                .toList()
+                .blockingGet();
+
+        assertThat(groups)
+                .as("check resources on the same data service are emitted as one group")
+                .hasSize(1);
+        assertThat(groups.get(0).getItems())
+                .as("check the group holds every resource")
+                .extracting(item -> item.asResource().getId())
+                .containsExactly(FILE_NAME_0.asString(), FILE_NAME_1.asString());
+
+        try (var downloads = session.fetchBatch(groups.get(0).getItems())) {
+            assertThat(downloads.map(download -> download.getResource().getId()))
+                    .as("check the group is downloaded as a batch")
+                    .containsExactlyInAnyOrder(FILE_NAME_0.asString(), FILE_NAME_1.asString());
+        }
+    }
+
+    /**
+     * Register a request with the Palisade Service through a {@code FileSystem}, list the resources from the
+     * Filtered-Resource Service as files, and read them from the Data Service through seekable channels.
+     *
+     * @throws Exception if no resources are returned, or the download fails
+     */
+    @Test
+    void testWithFileSystem() throws Exception {
+
+        var uri = URI.create(String.format("pal://localhost:%d/cluster?userid=alice", embeddedServer.getPort()));
+
+        try (var fileSystem = FileSystems.newFileSystem(uri, Map.of(PalisadeFileSystemProvider.RESOURCE, "resource_id"))) {
+            try (var files = Files.list(fileSystem.getPath("/"))) {
+                assertThat(files.map(path -> path.getFileName().toString()).collect(Collectors.toList()))
+                        .as("check every resource is listed")
+                        .containsExactlyInAnyOrder(FILE_NAME_0.asString(), FILE_NAME_1.asString());
+            }
+
+            var expected = FILE_NAME_0.createStream().readAllBytes();
+            try (var channel = Files.newByteChannel(fileSystem.getPath(FILE_NAME_0.asString()))) {
+                assertThat(channel.size()).as("check file size").isEqualTo(expected.length);
+
+                // read the second half first, then seek back for the first
+                var buffer = ByteBuffer.allocate(expected.length);
+                channel.position(expected.length / 2);
+                buffer.position(expected.length / 2);
+                channel.read(buffer);
+                channel.position(0);
+                buffer.flip();
+                buffer.limit(expected.length / 2);
+                channel.read(buffer);
+                assertThat(buffer.array()).as("check random access download").isEqualTo(expected);
+            }
+
+            assertThat(Paths.get(fileSystem.getPath(FILE_NAME_1.asString()).toUri()))
+                    .as("check path can be found from its URI")
+                    .isEqualTo(fileSystem.getPath("/" + FILE_NAME_1.asString()));
+        }
+    }
 }
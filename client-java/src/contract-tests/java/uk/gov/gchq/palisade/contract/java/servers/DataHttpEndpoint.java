@@ -28,9 +28,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import uk.gov.gchq.palisade.client.java.internal.model.BatchDataRequest;
 import uk.gov.gchq.palisade.client.java.internal.model.DataRequest;
 import uk.gov.gchq.palisade.client.java.testing.ClientTestData.Name;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * A controller containing our test endpoints
  */
@@ -38,6 +46,9 @@ import uk.gov.gchq.palisade.client.java.testing.ClientTestData.Name;
 public class DataHttpEndpoint {
 
     private static final Logger LOG = LoggerFactory.getLogger(DataHttpEndpoint.class);
+    private static final int CHUNK_SIZE = 8192;
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_ERROR = 500;
 
     /**
      * Returns an http response containing an inputstream
@@ -88,4 +99,71 @@ public class DataHttpEndpoint {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns an http response containing a frame for each of the requested
+     * resources, as a stand-in for a Data Service supporting batched reads. See
+     * {@code BatchResponse} in the client for the framing.
+     *
+     * @param request The request
+     * @return an http response containing the framed resources
+     * @throws IOException if a resource cannot be read
+     */
+    @Post("/read/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public HttpResponse<byte[]> getBatch(@Body final BatchDataRequest request) throws IOException {
+
+        try {
+
+            // set up MDC
+            MDC.put("server", "DT-SVC");
+
+            LOG.debug("RCVD: body: {}", request);
+
+            var body = new ByteArrayOutputStream();
+            var out = new DataOutputStream(body);
+
+            for (String leafResourceId : request.getLeafResourceIds()) {
+                var id = leafResourceId.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(id.length);
+                out.write(id);
+
+                Name nameTuple;
+                try {
+                    nameTuple = Name.from(leafResourceId);
+                } catch (IllegalArgumentException e) {
+                    out.writeShort(STATUS_ERROR);
+                    writeChunks(out, new ByteArrayInputStream(e.getMessage().getBytes(StandardCharsets.UTF_8)));
+                    continue;
+                }
+
+                LOG.debug("LOAD: Created stream of {} bytes for {}", nameTuple.getBytes(), nameTuple.getName());
+
+                out.writeShort(STATUS_OK);
+                try (var is = nameTuple.createStream()) {
+                    writeChunks(out, is);
+                }
+            }
+
+            LOG.debug("RETN: {} frames", request.getLeafResourceIds().size());
+
+            return HttpResponse
+                    .ok(body.toByteArray())
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM_TYPE);
+
+        } finally {
+            MDC.remove("server");
+        }
+    }
+
+    private static void writeChunks(final DataOutputStream out, final InputStream is) throws IOException {
+        var chunk = new byte[CHUNK_SIZE];
+        int read;
+        while ((read = is.read(chunk)) > 0) {
+            out.writeInt(read);
+            out.write(chunk, 0, read);
+        }
+        out.writeInt(0);
+    }
+
+}
@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import uk.gov.gchq.palisade.client.java.internal.dft.DefaultClient;
 import uk.gov.gchq.palisade.client.java.util.Checks;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -54,6 +55,18 @@ public final class ClientManager {
     private static final Object LOCK_FOR_INIT_CLIENTS = new Object();
     private static volatile boolean clientsInitialized;
 
+    private static final String SESSION_IDLE_PROPERTY = "palisade.session.idle";
+    private static final long DEFAULT_SESSION_IDLE_SECONDS = 60L;
+
+    /**
+     * The sessions opened by {@link #openSession(String)}, shared between equal
+     * URLs. A shared session with no open handles is closed after the number of
+     * seconds given by the palisade.session.idle system property.
+     */
+    private static final SessionPool SESSIONS = new SessionPool(
+            url -> getClient(url).connect(url),
+            Duration.ofSeconds(Long.getLong(SESSION_IDLE_PROPERTY, DEFAULT_SESSION_IDLE_SECONDS)));
+
     static {
         // add the default client to the palisade.clients system property, appending it
         // if it is already set
@@ -85,6 +98,10 @@ public final class ClientManager {
 
     /**
      * Attempts to establish a session to the given Palisade cluster {@code url}.
+     * Sessions opened for equal URLs share a single underlying session, and so
+     * share its connections, which makes opening a session for a URL which is
+     * already in use almost free. The returned session should be closed once
+     * finished with.
      *
      * @param uri a palisade URL of the form pal://clusteraddr?additional=params
      * @return a session for the provided {@code url}
@@ -98,8 +115,7 @@ public final class ClientManager {
 
         ensureClientsInitialized();
 
-        var client = getClient(uri);
-        return client.connect(uri);
+        return SESSIONS.open(uri);
     }
 
     /**
@@ -15,7 +15,15 @@
  */
 package uk.gov.gchq.palisade.client.java;
 
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
+import uk.gov.gchq.palisade.client.java.buffer.LeasedBuffer;
+import uk.gov.gchq.palisade.client.java.record.RecordDecoder;
+import uk.gov.gchq.palisade.client.java.record.RecordDecoders;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
 import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Represents a download that has been fetched. No data is transferred until
@@ -33,4 +41,90 @@ public interface Download {
      */
     InputStream getInputStream();
 
+    /**
+     * Returns the resource which has been downloaded
+     *
+     * @return the leaf resource
+     */
+    LeafResource getResource();
+
+    /**
+     * Returns the number of bytes of this download received from the Data Service
+     * so far. If the Data Service compressed the body, this is the number of
+     * compressed bytes, otherwise it is the same as {@link #getBytesDelivered()}.
+     *
+     * @return the number of bytes received, or -1 if the download does not count
+     * them
+     */
+    default long getBytesReceived() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of (decompressed) bytes of this download delivered to
+     * the caller so far
+     *
+     * @return the number of bytes delivered, or -1 if the download does not count
+     * them
+     */
+    default long getBytesDelivered() {
+        return -1;
+    }
+
+    /**
+     * Returns a stream of the records in this download, read by the provided
+     * {@code decoder}. The records are decoded as the stream is consumed, each as a
+     * new instance, and the stream should be closed once finished with.
+     *
+     * @param <T>     the type of record
+     * @param decoder the decoder used to read the records
+     * @return a stream of records
+     */
+    default <T> Stream<T> records(final RecordDecoder<T> decoder) {
+        return RecordDecoders.stream(decoder, getInputStream(), getResource().getSerialisedFormat());
+    }
+
+    /**
+     * Reads every record in this download with the provided {@code decoder},
+     * passing each to {@code action}. Unlike {@link #records(RecordDecoder)}, each
+     * record is passed back to the decoder for reuse, so the action must not keep
+     * a record once it has returned.
+     *
+     * @param <T>     the type of record
+     * @param decoder the decoder used to read the records
+     * @param action  the action run with each record
+     * @see RecordDecoders#forEachReusing(RecordDecoder, InputStream, String, Consumer)
+     */
+    default <T> void forEachReusing(final RecordDecoder<T> decoder, final Consumer<? super T> action) {
+        RecordDecoders.forEachReusing(decoder, getInputStream(), getResource().getSerialisedFormat(), action);
+    }
+
+    /**
+     * Returns a stream of the records in this download, read by the decoder
+     * chosen from the resource's serialised format
+     *
+     * @return a stream of records
+     * @throws ClientException if there is no decoder for the serialised format
+     * @see RecordDecoders#forFormat(String)
+     */
+    default Stream<?> records() {
+        var format = getResource().getSerialisedFormat();
+        return records(RecordDecoders.forFormat(format)
+                .orElseThrow(() -> new ClientException(String.format("No record decoder found for serialised format '%s'", format))));
+    }
+
+    /**
+     * Returns a stream of direct buffers, leased from the provided pool, holding
+     * the bytes of this download in order. Each buffer is ready to be read from
+     * and must be released once finished with, so that it can be reused by the
+     * next. The stream should be closed once finished with.
+     *
+     * @param pool the pool to lease buffers from, such as the session's
+     *             {@link Session#getBufferPool()}
+     * @return a stream of leased buffers
+     */
+    default Stream<LeasedBuffer> buffers(final BufferPool pool) {
+        return pool.read(getInputStream());
+    }
+
 }
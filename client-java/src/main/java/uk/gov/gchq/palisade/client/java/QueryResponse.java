@@ -15,7 +15,13 @@
  */
 package uk.gov.gchq.palisade.client.java;
 
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.Flow.Publisher;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * A QueryResponse represents the response after executing a query to Palisade
@@ -34,4 +40,61 @@ public interface QueryResponse {
      */
     Publisher<QueryItem> stream();
 
+    /**
+     * Returns a {@code java.util.stream.Stream} of the messages from palisade.
+     * Messages are received in the background and buffered ahead of the consumer.
+     * A parallel stream hands off batches of the messages received so far to the
+     * common {@code ForkJoinPool}. The stream should be closed if it is not
+     * consumed to the end, so that the connection to palisade is closed.
+     *
+     * @param parallel true for a parallel stream, false for a sequential one
+     * @return a stream of the messages from palisade
+     */
+    Stream<QueryItem> toStream(boolean parallel);
+
+    /**
+     * Returns a parallel stream of the results of fetching each resource from
+     * palisade and applying the provided {@code processor} to its download. At
+     * most {@code maxInFlight} downloads are processed at any one time. Any error
+     * messages from palisade are logged and skipped.
+     *
+     * @param <R>         the type of result
+     * @param processor   the function applied to each download
+     * @param maxInFlight the maximum number of downloads processed at once
+     * @return a stream of results
+     */
+    <R> Stream<R> fetchAll(Function<? super Download, ? extends R> processor, int maxInFlight);
+
+    /**
+     * Returns a publisher that, once subscribed to, will emit the resources from
+     * palisade in groups sharing the same key, such as a {@link ResourceKey}. A
+     * group is emitted as soon as it holds {@code maxSize} resources, or its first
+     * resource has waited {@code maxWait}, so that work can start on each group
+     * without waiting for the whole listing. At most {@code maxBuffered} resources
+     * are held across all groups, beyond which the oldest group is emitted early.
+     * Any groups left when the listing ends are emitted in the order they were
+     * started. Any error messages from palisade are logged and skipped.
+     *
+     * @param <K>         the type of key
+     * @param key         the function returning the key of a resource
+     * @param maxSize     the largest number of resources in a group
+     * @param maxBuffered the largest number of resources held across all groups
+     * @param maxWait     the longest a resource is held before its group is emitted
+     * @return a publisher of groups of resources
+     */
+    <K> Publisher<ResourceGroup<K>> groupBy(Function<? super LeafResource, ? extends K> key, int maxSize, int maxBuffered, Duration maxWait);
+
+    /**
+     * Returns a publisher that, once subscribed to, will emit the resources from
+     * palisade in batches of up to {@code maxSize}, in the order they were
+     * received. A batch is emitted as soon as it is full, or its first resource
+     * has waited {@code maxWait}. Any error messages from palisade are logged and
+     * skipped.
+     *
+     * @param maxSize the largest number of resources in a batch
+     * @param maxWait the longest a resource is held before its batch is emitted
+     * @return a publisher of batches of resources
+     */
+    Publisher<List<QueryItem>> window(int maxSize, Duration maxWait);
+
 }
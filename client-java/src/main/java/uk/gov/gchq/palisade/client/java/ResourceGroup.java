@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java;
+
+import java.util.List;
+
+/**
+ * A ResourceGroup is a batch of resources returned for a query which share the
+ * same key, as emitted by {@link QueryResponse#groupBy(java.util.function.Function,
+ * int, int, java.time.Duration)}
+ *
+ * @param <K> the type of key
+ * @since 0.5.0
+ */
+public interface ResourceGroup<K> {
+
+    /**
+     * Returns the key shared by every resource in this group
+     *
+     * @return the key of this group
+     */
+    K getKey();
+
+    /**
+     * Returns the resources in this group, in the order in which they were
+     * received
+     *
+     * @return the resources in this group
+     */
+    List<QueryItem> getItems();
+
+}
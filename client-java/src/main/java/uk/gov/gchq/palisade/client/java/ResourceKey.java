@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java;
+
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.util.function.Function;
+
+/**
+ * The standard ways of grouping the resources returned for a query, for use with
+ * {@link QueryResponse#groupBy(Function, int, int, java.time.Duration)}
+ *
+ * @since 0.5.0
+ */
+public enum ResourceKey implements Function<LeafResource, String> {
+
+    /**
+     * Groups resources by the name of the data service holding them, as given by
+     * their connection detail
+     */
+    DATA_SERVICE {
+        @Override
+        public String apply(final LeafResource resource) {
+            return resource.getConnectionDetail().createConnection();
+        }
+    },
+
+    /**
+     * Groups resources by the id of their parent, such as the directory holding
+     * them
+     */
+    PARENT {
+        @Override
+        public String apply(final LeafResource resource) {
+            var parent = resource.getParent();
+            if (parent != null) {
+                return parent.getId();
+            }
+            // the parent was not sent, so take it from the id instead
+            var id = resource.getId();
+            return id.substring(0, id.lastIndexOf('/') + 1);
+        }
+    },
+
+    /**
+     * Groups resources by their type
+     */
+    TYPE {
+        @Override
+        public String apply(final LeafResource resource) {
+            return resource.getType();
+        }
+    },
+
+    /**
+     * Groups resources by the format in which they are serialised
+     */
+    SERIALISED_FORMAT {
+        @Override
+        public String apply(final LeafResource resource) {
+            return resource.getSerialisedFormat();
+        }
+    }
+
+}
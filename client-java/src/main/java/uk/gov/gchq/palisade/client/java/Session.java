@@ -15,14 +15,18 @@
  */
 package uk.gov.gchq.palisade.client.java;
 
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
+
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * A session represents a connection to palisade
  *
  * @since 0.5.0
  */
-public interface Session {
+public interface Session extends AutoCloseable {
 
     /**
      * Returns a new query
@@ -51,4 +55,36 @@ public interface Session {
      */
     Download fetch(QueryItem queryItem);
 
+    /**
+     * Returns a stream of downloads of the provided resources. Resources with the
+     * same token and Data Service are fetched in a single batched request, rather
+     * than one request each. Each download must be read before the next is taken
+     * from the stream, and the stream should be closed once finished with.
+     *
+     * @param queryItems {@link QueryItem}s with type {@link QueryItem.ItemType#RESOURCE}, representing the resources to download
+     * @return a stream of downloads, one per resource
+     */
+    Stream<Download> fetchBatch(List<QueryItem> queryItems);
+
+    /**
+     * Returns the pool of buffers used to read downloads with
+     * {@link Download#buffers(BufferPool)}, whose metrics show the buffers leased
+     * and any which were leaked
+     *
+     * @return the buffer pool for this session
+     */
+    default BufferPool getBufferPool() {
+        return BufferPool.getDefault();
+    }
+
+    /**
+     * Closes this session, after which it may no longer be used. Sessions opened
+     * with {@link ClientManager#openSession(String)} for the same URL share their
+     * connections, which are only closed once every such session has been closed
+     * and they have been idle for a while. Closing a session more than once has
+     * no effect.
+     */
+    @Override
+    void close();
+
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
+import uk.gov.gchq.palisade.client.java.internal.dft.DefaultSession;
+
+import java.lang.ref.Cleaner;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * A reference-counted pool of the sessions opened by the {@code ClientManager},
+ * keyed by URL. Every session opened for the same URL is a handle on a single
+ * shared session, and so shares its http client, object mapper and caches.
+ * Once every handle on a shared session has been closed (or garbage collected)
+ * and it has then been idle for the idle timeout, it is evicted and closed.
+ *
+ * @since 0.5.0
+ */
+final class SessionPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionPool.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Function<String, Session> connector;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Shared> sessions = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Returns a new empty pool
+     *
+     * @param connector   opens a new shared session for a URL
+     * @param idleTimeout the time for which a session with no open handles is
+     *                    kept before being closed
+     */
+    SessionPool(final Function<String, Session> connector, final Duration idleTimeout) {
+        this(connector, idleTimeout, System::nanoTime);
+    }
+
+    SessionPool(final Function<String, Session> connector, final Duration idleTimeout, final LongSupplier nanoClock) {
+        this.connector = connector;
+        this.idleNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns a new handle on the shared session for the provided URL, opening
+     * the shared session if there is none
+     *
+     * @param url the URL of the session
+     * @return a new session handle, which should be closed once finished with
+     */
+    synchronized Session open(final String url) {
+        evictIdle();
+        var shared = sessions.get(url);
+        if (shared == null) {
+            shared = new Shared(connector.apply(url));
+            sessions.put(url, shared);
+            LOGGER.debug("Opened shared session for {}", url);
+        }
+        shared.references++;
+        var release = new Release(this, shared);
+        var handle = handle(shared.session, release);
+        CLEANER.register(handle, release);
+        return handle;
+    }
+
+    /*
+     * A default session makes handles of its own type, so that they can still be
+     * used wherever a default session is expected
+     */
+    private static Session handle(final Session session, final Runnable release) {
+        if (session instanceof DefaultSession) {
+            return ((DefaultSession) session).newHandle(release);
+        }
+        return new PooledSession(session, release);
+    }
+
+    /**
+     * Returns the number of shared sessions held by the pool
+     *
+     * @return the number of shared sessions
+     */
+    synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Closes every shared session which has had no open handles for at least the
+     * idle timeout
+     */
+    synchronized void evictIdle() {
+        var now = nanoClock.getAsLong();
+        var iterator = sessions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var shared = entry.getValue();
+            if (shared.references == 0 && now - shared.idleSince >= idleNanos) {
+                iterator.remove();
+                LOGGER.debug("Closing idle shared session for {}", entry.getKey());
+                shared.session.close();
+            }
+        }
+    }
+
+    private synchronized void release(final Shared shared) {
+        shared.references--;
+        if (shared.references == 0) {
+            shared.idleSince = nanoClock.getAsLong();
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    var thread = new Thread(runnable, "palisade-session-pool");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            scheduler.schedule(this::evictIdle, idleNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /*
+     * A session shared by every handle opened for the same URL
+     */
+    private static final class Shared {
+
+        private final Session session;
+        private int references;
+        private long idleSince;
+
+        private Shared(final Session session) {
+            this.session = session;
+        }
+
+    }
+
+    /*
+     * Releases a handle's reference, either when it is closed or once it has been
+     * garbage collected, whichever is first. This must not refer to the handle, or
+     * it would never become unreachable.
+     */
+    private static final class Release implements Runnable {
+
+        private final SessionPool pool;
+        private final Shared shared;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Release(final SessionPool pool, final Shared shared) {
+            this.pool = pool;
+            this.shared = shared;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                pool.release(shared);
+            }
+        }
+
+    }
+
+    /**
+     * A handle on a shared session, which may no longer be used once closed
+     */
+    static final class PooledSession implements Session {
+
+        private final Session session;
+        private final Runnable release;
+        private volatile boolean closed;
+
+        private PooledSession(final Session session, final Runnable release) {
+            this.session = session;
+            this.release = release;
+        }
+
+        /**
+         * Returns the shared session this is a handle on
+         *
+         * @return the shared session
+         */
+        Session getSession() {
+            checkOpen();
+            return session;
+        }
+
+        @Override
+        public Query createQuery(final String queryString, final Map<String, String> properties) {
+            return getSession().createQuery(queryString, properties);
+        }
+
+        @Override
+        public Download fetch(final QueryItem queryItem) {
+            return getSession().fetch(queryItem);
+        }
+
+        @Override
+        public Stream<Download> fetchBatch(final List<QueryItem> queryItems) {
+            return getSession().fetchBatch(queryItems);
+        }
+
+        @Override
+        public BufferPool getBufferPool() {
+            return getSession().getBufferPool();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            // a reference is released at most once, so closing again does nothing
+            release.run();
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new ClientException("Session has been closed");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
+
+/**
+ * A pool of direct {@code ByteBuffer}s which are leased out and returned once
+ * released, so that the memory holding the bytes read from a download is reused
+ * rather than allocated again for every block. A response body is best read
+ * through {@link #subscriber()}, which copies each chunk received once into the
+ * leased buffers. Each lease is still a small object
+ * of its own, registered with a {@code Cleaner} so that leaks can be counted, so
+ * reading is not entirely free of garbage. Buffers are held in size classes of
+ * powers of two, from {@link #MIN_BUFFER_SIZE} to {@link #MAX_BUFFER_SIZE}. A
+ * lease of a larger buffer is allocated as asked for and is not returned to the
+ * pool. The pool holds at most a fixed number of bytes of released buffers,
+ * beyond which released buffers are dropped.
+ * <p>
+ * A lease which becomes unreachable without being released is counted as
+ * leaked. Its buffer is not returned to the pool, as it may still be in use.
+ *
+ * @since 0.5.0
+ */
+public final class BufferPool {
+
+    /**
+     * The capacity of the smallest buffer held by the pool
+     */
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    /**
+     * The capacity of the largest buffer held by the pool
+     */
+    public static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The default maximum number of bytes of released buffers held by a pool
+     */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    // the capacity of the buffers leased to read a stream
+    static final int READ_SIZE = 64 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferPool.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int INT_BITS = 32;
+    private static final int MIN_SHIFT = INT_BITS - 1 - Integer.numberOfLeadingZeros(MIN_BUFFER_SIZE);
+
+    private final long maxPooledBytes;
+    private final List<Deque<ByteBuffer>> sizeClasses = new ArrayList<>();
+
+    private final AtomicLong pooledCount = new AtomicLong();
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong leasedCount = new AtomicLong();
+    private final AtomicLong leasedBytes = new AtomicLong();
+    private final AtomicLong allocatedCount = new AtomicLong();
+    private final AtomicLong leakedCount = new AtomicLong();
+
+    /**
+     * Returns a new empty pool
+     *
+     * @param maxPooledBytes the maximum number of bytes of released buffers held
+     *                       by the pool
+     */
+    public BufferPool(final long maxPooledBytes) {
+        checkArgument(maxPooledBytes >= 0, "Maximum pooled bytes must not be negative: %s", maxPooledBytes);
+        this.maxPooledBytes = maxPooledBytes;
+        for (int size = MIN_BUFFER_SIZE; size <= MAX_BUFFER_SIZE; size <<= 1) {
+            sizeClasses.add(new ConcurrentLinkedDeque<>());
+        }
+    }
+
+    /**
+     * Returns the pool shared by sessions which do not create their own
+     *
+     * @return the default pool
+     */
+    public static BufferPool getDefault() {
+        return DefaultPool.INSTANCE;
+    }
+
+    /**
+     * Leases a cleared buffer with at least the provided capacity, which must be
+     * released once finished with
+     *
+     * @param capacity the minimum capacity of the buffer
+     * @return the leased buffer
+     */
+    public LeasedBuffer lease(final int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive: %s", capacity);
+        var sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = null;
+        if (sizeClass >= 0) {
+            buffer = sizeClasses.get(sizeClass).pollFirst();
+            if (buffer != null) {
+                pooledCount.decrementAndGet();
+                pooledBytes.addAndGet(-buffer.capacity());
+                buffer.clear();
+            }
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(sizeClass >= 0 ? MIN_BUFFER_SIZE << sizeClass : capacity);
+            allocatedCount.incrementAndGet();
+        }
+        leasedCount.incrementAndGet();
+        leasedBytes.addAndGet(buffer.capacity());
+        return new LeasedBuffer(this, buffer, CLEANER);
+    }
+
+    /**
+     * Returns a subscriber to a response body whose body is a stream of leased
+     * buffers holding the bytes of the response, in order. Each chunk of the
+     * body is copied once into the buffers, as it is received, with no
+     * {@code InputStream} in between. Each buffer is flipped ready to be read,
+     * and is full unless it is the last. The chunks are only requested as the
+     * stream is consumed, and each buffer must be released by the consumer.
+     * Closing the stream cancels the subscription to the body. If the body
+     * fails, the stream throws an {@code UncheckedIOException}.
+     *
+     * @return a subscriber to a response body
+     */
+    public HttpResponse.BodySubscriber<Stream<LeasedBuffer>> subscriber() {
+        return new LeasingSubscriber(this, READ_SIZE);
+    }
+
+    /**
+     * Returns a stream of leased buffers holding the bytes read from the provided
+     * input, in order. Each buffer is flipped ready to be read, and is full unless
+     * it is the last. A buffer is only leased as the stream is consumed, and each
+     * must be released by the consumer. Closing the stream closes the input.
+     * <p>
+     * An {@code InputStream} can only read into an array, so the bytes are copied
+     * through the channel adapter's own small array into each buffer, on top of
+     * any copying done by the input itself, so a response body is better read
+     * through {@link #subscriber()}.
+     *
+     * @param input the input to read
+     * @return a stream of leased buffers
+     */
+    public Stream<LeasedBuffer> read(final InputStream input) {
+        var channel = Channels.newChannel(input);
+        var spliterator = new Spliterators.AbstractSpliterator<LeasedBuffer>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean ended;
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super LeasedBuffer> action) {
+                if (ended) {
+                    return false;
+                }
+                var leased = lease(READ_SIZE);
+                var buffer = leased.buffer();
+                try {
+                    while (buffer.hasRemaining() && !ended) {
+                        ended = channel.read(buffer) < 0;
+                    }
+                } catch (IOException e) {
+                    leased.release();
+                    throw new UncheckedIOException(e);
+                }
+                if (buffer.position() == 0) {
+                    leased.release();
+                    return false;
+                }
+                buffer.flip();
+                action.accept(leased);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /*
+     * Returns the index of the smallest size class holding buffers of at least
+     * the provided capacity, or -1 if the capacity is larger than any class
+     */
+    private static int sizeClass(final int capacity) {
+        if (capacity > MAX_BUFFER_SIZE) {
+            return -1;
+        }
+        var size = Math.max(capacity, MIN_BUFFER_SIZE);
+        return INT_BITS - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    void release(final ByteBuffer buffer) {
+        var capacity = buffer.capacity();
+        leasedCount.decrementAndGet();
+        leasedBytes.addAndGet(-capacity);
+        // larger buffers were allocated as asked for, rather than for a size class
+        if (capacity > MAX_BUFFER_SIZE) {
+            return;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        pooledCount.incrementAndGet();
+        sizeClasses.get(sizeClass(capacity)).offerFirst(buffer);
+    }
+
+    void leaked(final int capacity) {
+        leasedCount.decrementAndGet();
+        leasedBytes.addAndGet(-capacity);
+        leakedCount.incrementAndGet();
+        LOGGER.warn("A leased buffer of {} bytes was garbage collected without being released", capacity);
+    }
+
+    /**
+     * Returns the maximum number of bytes of released buffers held by the pool
+     *
+     * @return the maximum number of bytes held by the pool
+     */
+    public long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    /**
+     * Returns the number of released buffers held by the pool
+     *
+     * @return the number of buffers held by the pool
+     */
+    public long getPooledCount() {
+        return pooledCount.get();
+    }
+
+    /**
+     * Returns the total capacity of the released buffers held by the pool
+     *
+     * @return the number of bytes held by the pool
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Returns the number of buffers leased and not yet released (or leaked)
+     *
+     * @return the number of buffers leased
+     */
+    public long getLeasedCount() {
+        return leasedCount.get();
+    }
+
+    /**
+     * Returns the total capacity of the buffers leased and not yet released (or
+     * leaked)
+     *
+     * @return the number of bytes leased
+     */
+    public long getLeasedBytes() {
+        return leasedBytes.get();
+    }
+
+    /**
+     * Returns the number of buffers allocated, as no released buffer of the size
+     * asked for was held by the pool
+     *
+     * @return the number of buffers allocated
+     */
+    public long getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    /**
+     * Returns the number of leases which were garbage collected without being
+     * released
+     *
+     * @return the number of leaked buffers
+     */
+    public long getLeakedCount() {
+        return leakedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BufferPool[pooled=%d (%d bytes), leased=%d (%d bytes), allocated=%d, leaked=%d]",
+                getPooledCount(), getPooledBytes(), getLeasedCount(), getLeasedBytes(), getAllocatedCount(), getLeakedCount());
+    }
+
+    /*
+     * Created when first asked for
+     */
+    private static final class DefaultPool {
+        private static final BufferPool INSTANCE = new BufferPool(DEFAULT_MAX_POOLED_BYTES);
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.buffer;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A direct {@code ByteBuffer} leased from a {@link BufferPool}. The buffer is
+ * returned to the pool when the lease is released (or closed), after which it
+ * must no longer be used, and so no reference to it should be kept.
+ *
+ * @since 0.5.0
+ */
+public final class LeasedBuffer implements AutoCloseable {
+
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final Lease lease;
+    private final Cleanable cleanable;
+
+    LeasedBuffer(final BufferPool pool, final ByteBuffer buffer, final Cleaner cleaner) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.lease = new Lease(pool, buffer.capacity());
+        this.cleanable = cleaner.register(this, lease);
+    }
+
+    /**
+     * Returns the leased buffer
+     *
+     * @return the leased buffer
+     * @throws IllegalStateException if the lease has been released
+     */
+    public ByteBuffer buffer() {
+        if (lease.isReleased()) {
+            throw new IllegalStateException("Buffer has already been released");
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool. Releasing a lease more than once has no
+     * effect.
+     */
+    public void release() {
+        if (lease.release()) {
+            pool.release(buffer);
+            // the lease is released, so the cleaning action does nothing but deregister
+            cleanable.clean();
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    /*
+     * Counts the lease as leaked if it is garbage collected before being
+     * released. This must not refer to the LeasedBuffer, or it would never become
+     * unreachable.
+     */
+    private static final class Lease implements Runnable {
+
+        private final BufferPool pool;
+        private final int capacity;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(final BufferPool pool, final int capacity) {
+            this.pool = pool;
+            this.capacity = capacity;
+        }
+
+        private boolean release() {
+            return released.compareAndSet(false, true);
+        }
+
+        private boolean isReleased() {
+            return released.get();
+        }
+
+        @Override
+        public void run() {
+            if (release()) {
+                pool.leaked(capacity);
+            }
+        }
+
+    }
+
+}
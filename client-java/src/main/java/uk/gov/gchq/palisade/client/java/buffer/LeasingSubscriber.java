@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.buffer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Subscribes to the chunks of a response body as they are received, copying
+ * each once into buffers leased from a {@link BufferPool}. The body is a stream
+ * of leased buffers which is available straight away, and the chunks are only
+ * requested (one list at a time) as the stream is consumed, so the body is
+ * never held in memory. Closing the stream cancels the subscription.
+ *
+ * @since 0.5.0
+ */
+final class LeasingSubscriber implements BodySubscriber<Stream<LeasedBuffer>> {
+
+    // marks the end of the body, compared by identity so it can never be mistaken for a chunk
+    private static final List<ByteBuffer> END = Collections.unmodifiableList(new ArrayList<>());
+
+    private final BufferPool pool;
+    private final int bufferSize;
+    private final CompletableFuture<Subscription> subscription = new CompletableFuture<>();
+    private final BlockingQueue<List<ByteBuffer>> received = new LinkedBlockingQueue<>();
+    private final Stream<LeasedBuffer> body;
+
+    private volatile Throwable error;
+
+    LeasingSubscriber(final BufferPool pool, final int bufferSize) {
+        this.pool = pool;
+        this.bufferSize = bufferSize;
+        this.body = StreamSupport.stream(new Chunks(), false)
+                .onClose(() -> subscription.thenAccept(Subscription::cancel));
+    }
+
+    @Override
+    public CompletionStage<Stream<LeasedBuffer>> getBody() {
+        return CompletableFuture.completedFuture(body);
+    }
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {
+        if (!this.subscription.complete(subscription)) {
+            subscription.cancel();
+        }
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> item) {
+        received.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        error = throwable;
+        received.add(END);
+    }
+
+    @Override
+    public void onComplete() {
+        received.add(END);
+    }
+
+    /*
+     * Fills each leased buffer from the chunks received, requesting the next
+     * list of chunks only once the last has been copied
+     */
+    private final class Chunks extends Spliterators.AbstractSpliterator<LeasedBuffer> {
+
+        private Iterator<ByteBuffer> chunks = Collections.emptyIterator();
+        private ByteBuffer chunk;
+        private boolean ended;
+
+        private Chunks() {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super LeasedBuffer> action) {
+            if (ended) {
+                return false;
+            }
+            var leased = pool.lease(bufferSize);
+            var buffer = leased.buffer();
+            try {
+                while (buffer.hasRemaining() && nextChunk()) {
+                    var length = Math.min(buffer.remaining(), chunk.remaining());
+                    buffer.put(chunk.slice().limit(length));
+                    chunk.position(chunk.position() + length);
+                }
+            } catch (RuntimeException e) {
+                leased.release();
+                throw e;
+            }
+            if (buffer.position() == 0) {
+                leased.release();
+                return false;
+            }
+            buffer.flip();
+            action.accept(leased);
+            return true;
+        }
+
+        /*
+         * Returns whether there is a chunk with bytes left to copy, waiting for
+         * the next list of chunks if needed
+         */
+        private boolean nextChunk() {
+            while (chunk == null || !chunk.hasRemaining()) {
+                if (ended) {
+                    return false;
+                }
+                if (chunks.hasNext()) {
+                    chunk = chunks.next();
+                } else {
+                    chunks = take().iterator();
+                }
+            }
+            return true;
+        }
+
+        private List<ByteBuffer> take() {
+            try {
+                subscription.join().request(1);
+                var item = received.take();
+                if (item == END) {
+                    ended = true;
+                    if (error != null) {
+                        throw new UncheckedIOException(error instanceof IOException ? (IOException) error : new IOException(error));
+                    }
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                subscription.thenAccept(Subscription::cancel);
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the response body"));
+            }
+        }
+
+    }
+
+}
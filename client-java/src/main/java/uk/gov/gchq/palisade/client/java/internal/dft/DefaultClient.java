@@ -75,7 +75,14 @@ public class DefaultClient implements Client {
         // load the default configuration and merge in overrides
         var configuration = Configuration.create(url);
 
-        return new DefaultSession(configuration);
+        var session = new DefaultSession(configuration);
+
+        // optionally start opening connections to the cluster in the background
+        if (Boolean.TRUE.equals(configuration.<Boolean>get(Configuration.WARMUP_ENABLED))) {
+            session.warmUp();
+        }
+
+        return session;
     }
 
     /**
@@ -27,7 +27,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
-import static uk.gov.gchq.palisade.client.java.internal.request.PalisadeService.createPalisadeService;
 import static uk.gov.gchq.palisade.client.java.util.Checks.checkNotNull;
 
 /**
@@ -58,19 +57,16 @@ public class DefaultQuery implements Query {
 
     @Override
     public CompletableFuture<QueryResponse> execute() {
-        var palisadeService = createPalisadeService(b -> b
-                .httpClient(session.getHttpClient())
-                .objectMapper(session.getObjectMapper())
-                .uri(session.getConfiguration().get(Configuration.PALISADE_URI)));
-
         var palisadeRequest = PalisadeRequest.Builder.create()
                 .withUserId(session.getConfiguration().get(Configuration.USER_ID))
                 .withResourceId(queryString)
                 .withContext(context);
 
         LOGGER.debug("Executing query: {}", palisadeRequest);
-        return palisadeService
-                .submitAsync(palisadeRequest)
+        var palisadeService = session.getPalisadeService();
+        return session.getRegistrationCache()
+                .map(cache -> cache.get(palisadeRequest, palisadeService::submitAsync))
+                .orElseGet(() -> palisadeService.submitAsync(palisadeRequest))
                 .thenApply(response -> new DefaultQueryResponse(session, response));
 
     }
@@ -15,24 +15,40 @@
  */
 package uk.gov.gchq.palisade.client.java.internal.dft;
 
-import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Emitter;
 import io.reactivex.rxjava3.core.Flowable;
-import io.reactivex.rxjava3.core.FlowableEmitter;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.reactivestreams.FlowAdapters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.palisade.client.java.ClientException;
+import uk.gov.gchq.palisade.client.java.Download;
 import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.QueryItem.ItemType;
 import uk.gov.gchq.palisade.client.java.QueryResponse;
+import uk.gov.gchq.palisade.client.java.ResourceGroup;
 import uk.gov.gchq.palisade.client.java.internal.impl.Configuration;
 import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
 import uk.gov.gchq.palisade.client.java.internal.model.PalisadeResponse;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+import uk.gov.gchq.palisade.client.java.internal.resource.MessageBuffer;
 import uk.gov.gchq.palisade.client.java.internal.resource.WebSocketClient;
+import uk.gov.gchq.palisade.resource.LeafResource;
 
-import java.net.http.HttpClient;
-import java.net.http.HttpClient.Version;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
 
 /**
  * Default implementation for the "dft" subname
@@ -42,6 +58,9 @@ import java.util.concurrent.TimeUnit;
 public class DefaultQueryResponse implements QueryResponse {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultQueryResponse.class);
+    private static final int STREAM_BUFFER_SIZE = 1024;
+    private static final int STREAM_BATCH_SIZE = 256;
+    private static final int TICKS_PER_WAIT = 4;
 
     private final DefaultSession session;
     private final PalisadeResponse palisadeResponse;
@@ -64,61 +83,200 @@ public class DefaultQueryResponse implements QueryResponse {
 
     @Override
     public Publisher<QueryItem> stream() {
+        return FlowAdapters.toFlowPublisher(flowable()); // return a Java Flow Publisher.
+    }
 
-        // our flowable must wrap the websocket client
-
-        var flowable = Flowable.create((final FlowableEmitter<DefaultQueryItem> emitter) -> {
+    @Override
+    public Stream<QueryItem> toStream(final boolean parallel) {
+        // the websocket is polled on its own thread so that the stream's consumers are never blocked by it
+        var publisher = FlowAdapters.toFlowPublisher(flowable().subscribeOn(Schedulers.io()));
+        var spliterator = new PublisherSpliterator<>(publisher, STREAM_BUFFER_SIZE, STREAM_BATCH_SIZE);
+        return StreamSupport.stream(spliterator, parallel).onClose(spliterator::cancel);
+    }
 
-            LOGGER.debug("Creating stream...");
+    @Override
+    public <R> Stream<R> fetchAll(final Function<? super Download, ? extends R> processor, final int maxInFlight) {
+        var permits = new Semaphore(maxInFlight);
+        return toStream(true)
+                .filter(DefaultQueryResponse::isResource)
+                .map((final QueryItem item) -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        return processor.apply(session.fetch(item));
+                    } finally {
+                        permits.release();
+                    }
+                });
+    }
 
-            /*
-             * Must use a new client here for the websocket connection. If we use the one
-             * from the session, the websocket listener hangs.
-             */
+    @Override
+    public <K> Publisher<ResourceGroup<K>> groupBy(final Function<? super LeafResource, ? extends K> key, final int maxSize,
+            final int maxBuffered, final Duration maxWait) {
+        checkArgument(maxSize > 0, "Maximum group size must be positive: %s", maxSize);
+        checkArgument(maxBuffered >= maxSize, "Maximum buffered must be at least the group size: %s", maxBuffered);
+        checkArgument(!maxWait.isNegative() && !maxWait.isZero(), "Maximum wait must be positive: %s", maxWait);
+        return FlowAdapters.toFlowPublisher(grouped(() -> new ResourceGrouper<>(key, maxSize, maxBuffered, maxWait), maxWait));
+    }
 
-            var httpClientBuilder = HttpClient.newBuilder();
-            if (Boolean.FALSE.equals(session.getConfiguration().<Boolean>get(Configuration.HTTP2_ENABLED))) {
-                httpClientBuilder.version(Version.HTTP_1_1);
-            }
-            var httpClient = httpClientBuilder.build();
+    @Override
+    public Publisher<List<QueryItem>> window(final int maxSize, final Duration maxWait) {
+        checkArgument(maxSize > 0, "Maximum window size must be positive: %s", maxSize);
+        checkArgument(!maxWait.isNegative() && !maxWait.isZero(), "Maximum wait must be positive: %s", maxWait);
+        return FlowAdapters.toFlowPublisher(grouped(() -> new ResourceGrouper<>(resource -> Boolean.TRUE, maxSize, maxSize, maxWait), maxWait)
+                .map(ResourceGroup::getItems));
+    }
 
-            var configuration = session.getConfiguration();
+    /*
+     * Feeds the resources, interleaved with ticks of a clock so that groups are
+     * emitted on time even when no resources are arriving, through a new grouper
+     * for each subscriber. Ticks are dropped rather than queued when the
+     * subscriber is behind, as the next one will do just as well.
+     */
+    private <K> Flowable<ResourceGroup<K>> grouped(final Supplier<ResourceGrouper<K>> grouperFactory, final Duration maxWait) {
+        var tickMillis = Math.max(1L, maxWait.toMillis() / TICKS_PER_WAIT);
+        return Flowable.defer(() -> {
+            var grouper = grouperFactory.get();
+            return flowable()
+                    .filter(DefaultQueryResponse::isResource)
+                    .publish((final Flowable<QueryItem> items) -> Flowable.merge(
+                            items.map(Optional::of),
+                            Flowable.interval(tickMillis, tickMillis, TimeUnit.MILLISECONDS)
+                                    .onBackpressureDrop()
+                                    .map(tick -> Optional.<QueryItem>empty())
+                                    .takeUntil(items.ignoreElements().toFlowable())))
+                    .concatMapIterable(grouper::accept)
+                    .concatWith(Flowable.defer(() -> Flowable.fromIterable(grouper.drain())));
+        });
+    }
 
-            var webSocketClient = WebSocketClient.createResourceClient(b -> b
-                    .httpClient(httpClient)
-                    .objectMapper(session.getObjectMapper())
-                    .token(palisadeResponse.getToken())
-                    .uri(configuration.get(Configuration.FILTERED_RESOURCE_URI)));
+    private static boolean isResource(final QueryItem item) {
+        if (item.getType() == ItemType.ERROR) {
+            LOGGER.warn("Skipping error from palisade: {}", item.asError());
+            return false;
+        }
+        return true;
+    }
 
-            webSocketClient.connect();
+    private Flowable<QueryItem> flowable() {
 
-            LOGGER.debug("Connected to websocket");
+        // our flowable must wrap the websocket client, whose messages are buffered
+        // (spilling to disk if need be) until the subscriber asks for them
 
-            var timeout = session.getConfiguration().<Long>get(Configuration.POLL_SECONDS);
-            var loop = true;
+        var timeout = session.getConfiguration().<Long>get(Configuration.POLL_SECONDS);
 
-            do {
-                var wsm = webSocketClient.poll(timeout, TimeUnit.SECONDS);
-                if (wsm != null) {
-                    if (wsm.getType() == MessageType.COMPLETE) {
-                        // we're done, so signal complete and set flag to get out
+        return Flowable.using(
+                this::openBuffer,
+                (final Connection connection) -> Flowable.generate((final Emitter<QueryItem> emitter) -> {
+                    var buffer = connection.buffer;
+                    WebSocketMessage wsm;
+                    do {
+                        wsm = buffer.poll(timeout, TimeUnit.SECONDS);
+                    } while (wsm == null && !buffer.isClosed());
+                    if (wsm == null || wsm.getType() == MessageType.COMPLETE) {
+                        // we're done (or cancelled, in which case this is ignored)
                         emitter.onComplete();
-                        loop = false;
                         LOGGER.debug("emitter.complete");
                     } else {
+                        if (wsm.getType() == MessageType.ERROR) {
+                            // the token may have expired, so it must not be handed out again
+                            session.invalidateToken(palisadeResponse.getToken());
+                        }
                         emitter.onNext(new DefaultQueryItem(wsm));
                     }
+                }),
+                Connection::close)
+                .doOnError(e -> session.invalidateToken(palisadeResponse.getToken()));
+    }
+
+    /*
+     * Connects to the websocket and starts copying its messages into a new buffer,
+     * until either the last message has been received or the connection is closed
+     */
+    private Connection openBuffer() {
+
+        LOGGER.debug("Creating stream...");
+
+        /*
+         * Must use a new client here for the websocket connection. If we use the one
+         * from the session, the websocket listener hangs.
+         */
+
+        var httpClient = session.newHttpClient();
+
+        var configuration = session.getConfiguration();
+
+        var webSocketClient = WebSocketClient.createResourceClient(b -> b
+                .httpClient(httpClient)
+                .objectMapper(session.getObjectMapper())
+                .token(palisadeResponse.getToken())
+                .uri(configuration.get(Configuration.FILTERED_RESOURCE_URI))
+                .reconnectAttempts(configuration.<Integer>get(Configuration.RECONNECT_ATTEMPTS))
+                .reconnectBackoff(Duration.ofMillis(configuration.<Long>get(Configuration.RECONNECT_BACKOFF_MILLIS))));
+
+        webSocketClient.connect();
+        session.register(webSocketClient);
+
+        LOGGER.debug("Connected to websocket");
+
+        var buffer = new MessageBuffer(configuration.<Long>get(Configuration.BUFFER_BYTES));
+        var timeout = configuration.<Long>get(Configuration.POLL_SECONDS);
+
+        var reader = Schedulers.io().scheduleDirect(() -> {
+            var loop = true;
+            do {
+                WebSocketMessage wsm;
+                try {
+                    wsm = webSocketClient.poll(timeout, TimeUnit.SECONDS);
+                } catch (ClientException e) {
+                    // the websocket was lost for good, so the subscriber must be told
+                    buffer.fail(e);
+                    break;
                 }
-                if (emitter.isCancelled()) {
+                if (wsm != null) {
+                    buffer.put(wsm);
+                    loop = wsm.getType() != MessageType.COMPLETE;
+                }
+                if (buffer.isClosed()) {
                     // we're cancelled, so set flag to get out
                     loop = false;
-                    LOGGER.debug("emitter.cancelled");
+                    LOGGER.debug("buffer.closed");
                 }
             } while (loop);
+            LOGGER.debug("Buffered {} messages, {} spilled to disk", buffer.getPutCount(), buffer.getSpilledCount());
+        });
+
+        return new Connection(session, webSocketClient, buffer, reader);
+    }
+
+    /*
+     * The websocket, the buffer its messages are copied into and the task copying
+     * them. Closing it (when the stream completes or is cancelled) stops all three,
+     * rather than leaving the task waiting on a websocket nobody is reading.
+     */
+    private static final class Connection {
+
+        private final DefaultSession session;
+        private final WebSocketClient webSocketClient;
+        private final MessageBuffer buffer;
+        private final Disposable reader;
+
+        private Connection(final DefaultSession session, final WebSocketClient webSocketClient, final MessageBuffer buffer,
+                final Disposable reader) {
+            this.session = session;
+            this.webSocketClient = webSocketClient;
+            this.buffer = buffer;
+            this.reader = reader;
+        }
 
-        }, BackpressureStrategy.BUFFER);
+        private void close() {
+            buffer.close();
+            webSocketClient.cancel();
+            session.unregister(webSocketClient);
+            // interrupts the task if it is still waiting on the websocket
+            reader.dispose();
+            LOGGER.debug("connection.closed");
+        }
 
-        return FlowAdapters.toFlowPublisher(flowable); // return a Java Flow Publisher.
     }
 
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.ResourceGroup;
+
+import java.util.List;
+
+/**
+ * Default implementation of a {@link ResourceGroup}
+ *
+ * @param <K> the type of key
+ * @since 0.5.0
+ */
+public class DefaultResourceGroup<K> implements ResourceGroup<K> {
+
+    private final K key;
+    private final List<QueryItem> items;
+
+    /**
+     * Returns a new group with the provided key and resources
+     *
+     * @param key   the key shared by the resources
+     * @param items the resources in the group
+     */
+    public DefaultResourceGroup(final K key, final List<QueryItem> items) {
+        this.key = key;
+        this.items = items;
+    }
+
+    @Override
+    public K getKey() {
+        return key;
+    }
+
+    @Override
+    public List<QueryItem> getItems() {
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceGroup[key=" + key + ", items=" + items.size() + "]";
+    }
+
+}
@@ -18,28 +18,77 @@ package uk.gov.gchq.palisade.client.java.internal.dft;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.palisade.client.java.ClientException;
 import uk.gov.gchq.palisade.client.java.Download;
 import uk.gov.gchq.palisade.client.java.QueryItem;
 import uk.gov.gchq.palisade.client.java.Session;
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
+import uk.gov.gchq.palisade.client.java.internal.download.ContentCodec;
 import uk.gov.gchq.palisade.client.java.internal.download.Downloader;
+import uk.gov.gchq.palisade.client.java.internal.download.DownloaderException;
+import uk.gov.gchq.palisade.client.java.internal.download.StandardCodec;
 import uk.gov.gchq.palisade.client.java.internal.impl.Configuration;
+import uk.gov.gchq.palisade.client.java.internal.request.PalisadeService;
+import uk.gov.gchq.palisade.client.java.internal.resource.WebSocketClient;
+import uk.gov.gchq.palisade.resource.LeafResource;
 
+import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+import static uk.gov.gchq.palisade.client.java.internal.download.Downloader.createDownloader;
+import static uk.gov.gchq.palisade.client.java.internal.request.PalisadeService.createPalisadeService;
 import static uk.gov.gchq.palisade.client.java.util.Checks.checkNotNull;
 
 /**
- * A session for the "dft" subname
+ * A session for the "dft" subname. A session owns the threads of its http
+ * clients and the websockets of its open queries, which are released when it is
+ * closed. Handles made with {@link #newHandle(Runnable)} share all of these with
+ * the session they were made from, and closing one releases only the handle.
  *
  * @since 0.5.0
  */
 public class DefaultSession implements Session {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultSession.class);
+    private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(10);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
     private final Configuration configuration;
 
+    /*
+     * Runs the work of every http client created for this session, so that their
+     * threads can be stopped when it is closed
+     */
+    private final ExecutorService executor;
+
+    /*
+     * The websockets of queries which are still being read
+     */
+    private final Set<WebSocketClient> webSocketClients;
+
     /*
      * Once created, an HttpClient instance is immutable, thus automatically
      * thread-safe, and multiple requests can be sent with it
@@ -51,6 +100,31 @@ public class DefaultSession implements Session {
      */
     private final ObjectMapper objectMapper;
 
+    /*
+     * Both services are thread safe and only depend on the session configuration,
+     * so they are created once and shared by every query and download
+     */
+    private final PalisadeService palisadeService;
+    private final Downloader downloader;
+
+    /*
+     * Tokens for repeated identical queries, if enabled
+     */
+    private final RegistrationCache registrationCache;
+
+    /*
+     * Direct buffers leased to read downloads, shared by every download
+     */
+    private final BufferPool bufferPool;
+
+    /*
+     * The session this is a handle on and the action releasing it, or null if this
+     * is not a handle
+     */
+    private final DefaultSession shared;
+    private final Runnable release;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     /**
      * Returns a new instance of {@code DefaultSession} with the provided
      * {@code configuration}
@@ -61,34 +135,225 @@ public class DefaultSession implements Session {
 
         this.configuration = configuration;
 
-        var httpClientBuilder = HttpClient.newBuilder();
-        if (Boolean.FALSE.equals(configuration.<Boolean>get(Configuration.HTTP2_ENABLED))) {
-            httpClientBuilder.version(Version.HTTP_1_1);
-        }
-        this.httpClient = httpClientBuilder.build();
+        this.executor = Executors.newCachedThreadPool((final Runnable runnable) -> {
+            var thread = new Thread(runnable, "palisade-session-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.webSocketClients = ConcurrentHashMap.newKeySet();
+
+        this.httpClient = newHttpClient();
 
         this.objectMapper = new ObjectMapper()
                 .registerModule(new Jdk8Module())
                 .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+        this.palisadeService = createPalisadeService(b -> b
+                .httpClient(httpClient)
+                .objectMapper(objectMapper)
+                .uri(configuration.get(Configuration.PALISADE_URI)));
+
+        this.downloader = createDownloader(b -> b
+                .httpClient(httpClient)
+                .objectMapper(objectMapper)
+                .path(configuration.get(Configuration.DATA_PATH))
+                .batchPath(configuration.get(Configuration.DATA_BATCH_PATH))
+                .serviceNameMap(configuration.get(Configuration.DATA_SERVICE_MAP))
+                .codecs(codecs(configuration)));
+
+        var cacheTtl = configuration.<Long>get(Configuration.CACHE_TTL_SECONDS);
+        this.registrationCache = cacheTtl > 0
+                ? new RegistrationCache(Duration.ofSeconds(cacheTtl), configuration.<Integer>get(Configuration.CACHE_SIZE))
+                : null;
+
+        this.bufferPool = new BufferPool(configuration.<Long>get(Configuration.POOL_BYTES));
+
+        this.shared = null;
+        this.release = null;
+    }
+
+    private DefaultSession(final DefaultSession shared, final Runnable release) {
+        this.configuration = shared.configuration;
+        this.executor = shared.executor;
+        this.webSocketClients = shared.webSocketClients;
+        this.httpClient = shared.httpClient;
+        this.objectMapper = shared.objectMapper;
+        this.palisadeService = shared.palisadeService;
+        this.downloader = shared.downloader;
+        this.registrationCache = shared.registrationCache;
+        this.bufferPool = shared.bufferPool;
+        this.shared = shared;
+        this.release = release;
+    }
+
+    /**
+     * Returns a new handle on this session, which shares everything this session
+     * holds. Closing the handle runs the provided action once, rather than closing
+     * this session.
+     *
+     * @param release the action run when the handle is first closed
+     * @return a new handle on this session
+     */
+    public DefaultSession newHandle(final Runnable release) {
+        return new DefaultSession(this, checkNotNull(release, "Missing release action"));
+    }
+
+    /*
+     * Any codecs registered on the classpath (e.g. zstd) followed by those the JDK
+     * supports, or none if compression was not asked for
+     */
+    private static List<ContentCodec> codecs(final Configuration configuration) {
+        var codecs = new ArrayList<ContentCodec>();
+        if (Boolean.TRUE.equals(configuration.<Boolean>get(Configuration.COMPRESSION_ENABLED))) {
+            ServiceLoader.load(ContentCodec.class).forEach(codecs::add);
+            codecs.addAll(List.of(StandardCodec.values()));
+        }
+        return codecs;
     }
 
     @SuppressWarnings("java:S1774")
     @Override
     public DefaultQuery createQuery(final String queryString, final Map<String, String> properties) {
+        checkOpen();
         checkNotNull(queryString, "Missing query");
         return new DefaultQuery(this, queryString, properties != null ? properties : Map.of());
     }
 
     @Override
     public Download fetch(final QueryItem queryItem) {
+        checkOpen();
         var token = checkNotNull(queryItem.getToken(), "Missing token");
         var resource = checkNotNull(queryItem.asResource(), "Missing resource");
-        var downloader = Downloader.createDownloader(b -> b
-                .httpClient(getHttpClient())
-                .objectMapper(getObjectMapper())
-                .path(configuration.get(Configuration.DATA_PATH))
-                .serviceNameMap(configuration.get(Configuration.DATA_SERVICE_MAP)));
-        return downloader.fetch(token, resource);
+        try {
+            return downloader.fetch(token, resource);
+        } catch (DownloaderException e) {
+            invalidateToken(token);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Download> fetchBatch(final List<QueryItem> queryItems) {
+        checkOpen();
+        // group by token and data-service, keeping the order each group is first seen in
+        Map<List<String>, List<LeafResource>> batches = new LinkedHashMap<>();
+        for (QueryItem queryItem : queryItems) {
+            var token = checkNotNull(queryItem.getToken(), "Missing token");
+            var resource = checkNotNull(queryItem.asResource(), "Missing resource");
+            batches.computeIfAbsent(List.of(token, resource.getConnectionDetail().createConnection()), k -> new ArrayList<>())
+                    .add(resource);
+        }
+        return batches.entrySet().stream()
+                .flatMap(batch -> fetch(batch.getKey().get(0), batch.getValue()));
+    }
+
+    private Stream<Download> fetch(final String token, final List<LeafResource> resources) {
+        try {
+            return downloader.fetch(token, resources);
+        } catch (DownloaderException e) {
+            invalidateToken(token);
+            throw e;
+        }
+    }
+
+    @Override
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Returns the registration cache for this session, which is present only if
+     * {@link Configuration#CACHE_TTL_SECONDS} is greater than zero
+     *
+     * @return the registration cache for this session
+     */
+    Optional<RegistrationCache> getRegistrationCache() {
+        return Optional.ofNullable(registrationCache);
+    }
+
+    /**
+     * Removes the provided token from the registration cache (if enabled), so that
+     * the next identical query is registered with the Palisade Service again
+     *
+     * @param token the token which has expired or failed
+     */
+    public void invalidateToken(final String token) {
+        if (registrationCache != null) {
+            registrationCache.invalidate(token);
+        }
+    }
+
+    /**
+     * Pre-opens connections to the Palisade Service, the Filtered Resource Service
+     * and every configured Data Service. A single {@code HEAD} request is sent to
+     * the root of each distinct host so that DNS resolution, the TCP connection
+     * and (if SSL is enabled) the TLS handshake have all been paid for before the
+     * first query is made. Idle connections are then kept alive in the pool of the
+     * shared {@code HttpClient}.
+     * <p>
+     * Warm-up is best-effort, any failure is logged and ignored.
+     *
+     * @return a future which completes once all warm-up requests have finished
+     */
+    public CompletableFuture<Void> warmUp() {
+        var requests = warmUpUris().stream()
+                .map(this::warmUp)
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(requests);
+    }
+
+    private CompletableFuture<Void> warmUp(final URI uri) {
+        LOGGER.debug("Warming up connection to {}", uri);
+        var httpRequest = HttpRequest.newBuilder(uri)
+                .setHeader("User-Agent", "Palisade Java Client")
+                .method("HEAD", BodyPublishers.noBody())
+                .timeout(WARM_UP_TIMEOUT)
+                .build();
+        return httpClient
+                .sendAsync(httpRequest, BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        LOGGER.debug("Failed to warm up connection to {}", uri, error);
+                    } else {
+                        LOGGER.debug("Warmed up connection to {} with status {}", uri, response.statusCode());
+                    }
+                    return null;
+                });
+    }
+
+    /*
+     * The distinct http(s) roots of every service this session may talk to. The
+     * filtered-resource-service is reached over a websocket, which is upgraded
+     * from an http(s) connection to the same host.
+     */
+    private Set<URI> warmUpUris() {
+        var scheme = Boolean.TRUE.equals(configuration.<Boolean>get(Configuration.SSL_ENABLED)) ? "https" : "http";
+        var uris = new LinkedHashSet<URI>();
+        uris.add(configuration.get(Configuration.PALISADE_URI));
+        uris.add(configuration.get(Configuration.FILTERED_RESOURCE_URI));
+        uris.addAll(configuration.<Map<String, URI>>get(Configuration.DATA_SERVICE_MAP).values());
+        var roots = new LinkedHashSet<URI>();
+        for (URI uri : uris) {
+            var root = uri.getScheme().startsWith("ws")
+                    ? URI.create(scheme + "://" + uri.getRawAuthority() + "/")
+                    : uri.resolve("/");
+            roots.add(root);
+        }
+        return roots;
+    }
+
+    /**
+     * Returns a new {@code HttpClient} configured for this session
+     *
+     * @return a new {@code HttpClient} configured for this session
+     */
+    public HttpClient newHttpClient() {
+        var httpClientBuilder = HttpClient.newBuilder().executor(executor);
+        if (Boolean.FALSE.equals(configuration.<Boolean>get(Configuration.HTTP2_ENABLED))) {
+            httpClientBuilder.version(Version.HTTP_1_1);
+        }
+        return httpClientBuilder.build();
     }
 
     /**
@@ -100,6 +365,15 @@ public class DefaultSession implements Session {
         return this.httpClient;
     }
 
+    /**
+     * Returns the shared {@code PalisadeService} for this session
+     *
+     * @return the shared {@code PalisadeService} for this session
+     */
+    public PalisadeService getPalisadeService() {
+        return this.palisadeService;
+    }
+
     /**
      * Returns the configuration for this session
      *
@@ -118,4 +392,59 @@ public class DefaultSession implements Session {
         return this.objectMapper;
     }
 
+    /**
+     * Tracks the websocket of a query being read, so that it is cancelled if the
+     * session is closed first
+     *
+     * @param webSocketClient the websocket client of the query
+     */
+    void register(final WebSocketClient webSocketClient) {
+        webSocketClients.add(webSocketClient);
+    }
+
+    /**
+     * Stops tracking the websocket of a query once it is no longer being read
+     *
+     * @param webSocketClient the websocket client of the query
+     */
+    void unregister(final WebSocketClient webSocketClient) {
+        webSocketClients.remove(webSocketClient);
+    }
+
+    /**
+     * Returns true if this session, or the session this is a handle on, has been
+     * closed
+     *
+     * @return true if closed
+     */
+    public boolean isClosed() {
+        return closed.get() || (shared != null && shared.isClosed());
+    }
+
+    /**
+     * Closes this session, cancelling the websockets of any queries still being
+     * read and stopping the threads of its http clients. Closing a handle only
+     * releases the handle.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (release != null) {
+            release.run();
+            return;
+        }
+        webSocketClients.forEach(WebSocketClient::cancel);
+        webSocketClients.clear();
+        executor.shutdownNow();
+        LOGGER.debug("Session closed");
+    }
+
+    private void checkOpen() {
+        if (isClosed()) {
+            throw new ClientException("Session has been closed");
+        }
+    }
+
 }
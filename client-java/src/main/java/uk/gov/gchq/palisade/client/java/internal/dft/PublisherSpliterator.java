@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import uk.gov.gchq.palisade.client.java.ClientException;
+
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Spliterator} over the items emitted by a {@code Publisher}. Up to
+ * {@code bufferSize} items are requested ahead of the consumer and buffered. When
+ * split, whatever has already been buffered (waiting for at least one item) is
+ * handed off as a batch, so a parallel stream starts working on items as soon as
+ * they arrive rather than once a fixed size batch has filled.
+ * <p>
+ * The publisher is subscribed to when the first item is asked for, and the
+ * subscription is cancelled by {@link #cancel()}, which should be called when the
+ * stream is closed.
+ *
+ * @param <T> the type of item
+ * @since 0.5.0
+ */
+final class PublisherSpliterator<T> implements Spliterator<T>, Subscriber<T> {
+
+    private static final Object COMPLETE = new Object();
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+
+    private final Publisher<T> publisher;
+    private final int bufferSize;
+    private final int batchSize;
+    private final BlockingQueue<Object> queue;
+
+    private volatile Subscription subscription;
+    private boolean subscribed;
+    private volatile boolean cancelled;
+    private int consumed;
+    private Object terminal;
+
+    /**
+     * Returns a new spliterator over the items emitted by the provided publisher
+     *
+     * @param publisher  the publisher of items
+     * @param bufferSize the maximum number of items requested ahead of the
+     *                   consumer
+     * @param batchSize  the maximum number of items handed off by a split
+     */
+    PublisherSpliterator(final Publisher<T> publisher, final int bufferSize, final int batchSize) {
+        this.publisher = publisher;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        // room for every requested item plus the terminal signal
+        this.queue = new ArrayBlockingQueue<>(bufferSize + 1);
+    }
+
+    @Override
+    public void onSubscribe(final Subscription newSubscription) {
+        this.subscription = newSubscription;
+        newSubscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(final T item) {
+        queue.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        queue.add(new Failure(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        queue.add(COMPLETE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        var next = next();
+        if (next == COMPLETE) {
+            return false;
+        }
+        action.accept((T) next);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        var next = next();
+        if (next == COMPLETE) {
+            return null;
+        }
+        var batch = new ArrayList<>();
+        batch.add(next);
+        while (batch.size() < batchSize) {
+            var buffered = queue.poll();
+            if (buffered == null) {
+                break;
+            }
+            if (isTerminal(buffered)) {
+                // reported by the next call to this spliterator
+                terminal = buffered;
+                break;
+            }
+            batch.add(buffered);
+            consumed();
+        }
+        return Spliterators.spliterator(batch.toArray(), CHARACTERISTICS);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /**
+     * Cancels the subscription to the publisher, if there is one
+     */
+    void cancel() {
+        cancelled = true;
+        var current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /*
+     * Returns the next item, or COMPLETE, waiting for one to be published if need
+     * be. An error from the publisher is thrown once all items before it have been
+     * returned.
+     */
+    private Object next() {
+        if (terminal == null) {
+            if (cancelled) {
+                terminal = COMPLETE;
+            } else {
+                subscribe();
+                var next = take();
+                if (!isTerminal(next)) {
+                    consumed();
+                    return next;
+                }
+                terminal = next;
+            }
+        }
+        if (terminal instanceof Failure) {
+            throw new ClientException("Failed to stream query items", ((Failure) terminal).cause);
+        }
+        return COMPLETE;
+    }
+
+    private void subscribe() {
+        if (!subscribed) {
+            subscribed = true;
+            publisher.subscribe(this);
+        }
+    }
+
+    private Object take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new ClientException("Interrupted while waiting for query items", e);
+        }
+    }
+
+    /*
+     * Requests more items once half of the buffer has been consumed, so that the
+     * number buffered plus the number outstanding never exceeds the buffer size
+     */
+    private void consumed() {
+        consumed++;
+        if (consumed >= Math.max(bufferSize / 2, 1)) {
+            subscription.request(consumed);
+            consumed = 0;
+        }
+    }
+
+    private static boolean isTerminal(final Object item) {
+        return item == COMPLETE || item instanceof Failure;
+    }
+
+    private static final class Failure {
+
+        private final Throwable cause;
+
+        private Failure(final Throwable cause) {
+            this.cause = cause;
+        }
+
+    }
+
+}
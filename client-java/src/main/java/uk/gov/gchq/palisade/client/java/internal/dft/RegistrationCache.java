@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.palisade.client.java.internal.model.PalisadeRequest;
+import uk.gov.gchq.palisade.client.java.internal.model.PalisadeResponse;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the tokens returned by the Palisade Service, keyed on the request which
+ * registered them, so that identical requests within the time-to-live reuse the
+ * same token. Identical requests made while one is still in flight share its
+ * future rather than each being sent. The least recently used entries are evicted
+ * once the size bound is reached. A failed registration is never cached, and a
+ * token which is later reported as failed can be {@link #invalidate(String)
+ * invalidated}.
+ *
+ * @since 0.5.0
+ */
+final class RegistrationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationCache.class);
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<List<Object>, Entry> entries;
+
+    /**
+     * Returns a new cache with the provided time-to-live and size bound
+     *
+     * @param ttl     how long a token is reused for after it is registered
+     * @param maxSize the maximum number of tokens cached
+     */
+    RegistrationCache(final Duration ttl, final int maxSize) {
+        this(ttl, maxSize, System::nanoTime);
+    }
+
+    /**
+     * Returns a new cache with the provided time-to-live, size bound and clock
+     *
+     * @param ttl       how long a token is reused for after it is registered
+     * @param maxSize   the maximum number of tokens cached
+     * @param nanoClock the source of the current time in nanoseconds
+     */
+    RegistrationCache(final Duration ttl, final int maxSize, final LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(maxSize, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<List<Object>, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the (possibly still in flight) registration for the provided
+     * request, calling {@code register} only if there is no live cached entry
+     *
+     * @param request  the request to register
+     * @param register the function which sends the request to the Palisade Service
+     * @return a future of the response to the request
+     */
+    synchronized CompletableFuture<PalisadeResponse> get(
+            final PalisadeRequest request,
+            final Function<PalisadeRequest, CompletableFuture<PalisadeResponse>> register) {
+
+        var key = key(request);
+        var entry = entries.get(key);
+        if (entry != null && entry.expiresAt - nanoClock.getAsLong() > 0) {
+            LOGGER.debug("Reusing registration for: {}", request);
+            return entry.future.copy();
+        }
+
+        var future = register.apply(request);
+        var newEntry = new Entry(future);
+        entries.put(key, newEntry);
+        future.whenComplete((response, error) -> completed(key, newEntry, error));
+        return future.copy();
+    }
+
+    /**
+     * Removes any cached registration which returned the provided token
+     *
+     * @param token the token which is no longer valid
+     */
+    synchronized void invalidate(final String token) {
+        var removed = entries.values().removeIf(entry -> entry.future.isDone()
+                && !entry.future.isCompletedExceptionally()
+                && token.equals(entry.future.join().getToken()));
+        if (removed) {
+            LOGGER.debug("Invalidated registration for token: {}", token);
+        }
+    }
+
+    /**
+     * Returns the number of registrations cached, including those in flight
+     *
+     * @return the number of registrations cached
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void completed(final List<Object> key, final Entry entry, final Throwable error) {
+        if (error != null) {
+            entries.remove(key, entry);
+        } else {
+            entry.expiresAt = nanoClock.getAsLong() + ttlNanos;
+        }
+    }
+
+    /*
+     * The context is copied into a sorted map so that the key does not depend on
+     * the type or iteration order of the map the caller supplied
+     */
+    private static List<Object> key(final PalisadeRequest request) {
+        return List.of(request.getUserId(), request.getResourceId(), new TreeMap<>(request.getContext()));
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<PalisadeResponse> future;
+
+        // in flight registrations do not expire
+        private long expiresAt = Long.MAX_VALUE;
+
+        private Entry(final CompletableFuture<PalisadeResponse> future) {
+            this.future = future;
+        }
+
+    }
+
+}
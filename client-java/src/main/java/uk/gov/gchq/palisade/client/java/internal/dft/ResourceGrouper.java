@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.ResourceGroup;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the resources returned for a query into groups by key, emitting each
+ * group once it holds {@code maxSize} resources or once its first resource has
+ * waited {@code maxWait}. At most {@code maxBuffered} resources are held across
+ * all open groups; beyond that the group opened first is emitted early. Groups
+ * still open when the stream ends are emitted in the order they were opened, so
+ * for a given order of resources the groups emitted are always the same.
+ * <p>
+ * A grouper is not thread safe and is fed one event at a time: either a resource,
+ * or an empty tick which only checks for groups which have waited too long.
+ *
+ * @param <K> the type of key
+ * @since 0.5.0
+ */
+final class ResourceGrouper<K> {
+
+    private final Function<? super LeafResource, ? extends K> key;
+    private final int maxSize;
+    private final int maxBuffered;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoClock;
+
+    // in the order the groups were opened, which is also the order of their deadlines
+    private final Map<K, Pending> open = new LinkedHashMap<>();
+    private int buffered;
+
+    /**
+     * Returns a new grouper using the system clock
+     *
+     * @param key         the function returning the key of a resource
+     * @param maxSize     the number of resources at which a group is emitted
+     * @param maxBuffered the maximum number of resources held across all groups
+     * @param maxWait     the longest a resource is held before its group is emitted
+     */
+    ResourceGrouper(final Function<? super LeafResource, ? extends K> key, final int maxSize, final int maxBuffered, final Duration maxWait) {
+        this(key, maxSize, maxBuffered, maxWait, System::nanoTime);
+    }
+
+    /**
+     * Returns a new grouper using the provided clock
+     *
+     * @param key         the function returning the key of a resource
+     * @param maxSize     the number of resources at which a group is emitted
+     * @param maxBuffered the maximum number of resources held across all groups
+     * @param maxWait     the longest a resource is held before its group is emitted
+     * @param nanoClock   the source of the current time in nanoseconds
+     */
+    ResourceGrouper(final Function<? super LeafResource, ? extends K> key, final int maxSize, final int maxBuffered,
+            final Duration maxWait, final LongSupplier nanoClock) {
+        this.key = key;
+        this.maxSize = maxSize;
+        this.maxBuffered = maxBuffered;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Adds the resource, if any, and returns the groups which are now ready
+     *
+     * @param event a resource, or empty for a tick of the clock
+     * @return the groups ready to be emitted, in order
+     */
+    List<ResourceGroup<K>> accept(final Optional<QueryItem> event) {
+        var ready = new ArrayList<ResourceGroup<K>>();
+        var now = nanoClock.getAsLong();
+        event.ifPresent(item -> add(item, now, ready));
+        Iterator<Pending> it = open.values().iterator();
+        while (it.hasNext()) {
+            var pending = it.next();
+            if (now - pending.deadline < 0) {
+                break;
+            }
+            it.remove();
+            ready.add(emit(pending));
+        }
+        return ready;
+    }
+
+    /**
+     * Returns every group still open, in the order they were opened, for when
+     * the stream has ended
+     *
+     * @return the remaining groups
+     */
+    List<ResourceGroup<K>> drain() {
+        var ready = new ArrayList<ResourceGroup<K>>(open.size());
+        open.values().forEach(pending -> ready.add(emit(pending)));
+        open.clear();
+        return ready;
+    }
+
+    /**
+     * Returns the number of resources held in open groups
+     *
+     * @return the number of resources held
+     */
+    int getBuffered() {
+        return buffered;
+    }
+
+    private void add(final QueryItem item, final long now, final List<ResourceGroup<K>> ready) {
+        K itemKey = key.apply(item.asResource());
+        var pending = open.computeIfAbsent(itemKey, k -> new Pending(k, now + maxWaitNanos));
+        pending.items.add(item);
+        buffered++;
+        if (pending.items.size() >= maxSize) {
+            open.remove(itemKey);
+            ready.add(emit(pending));
+        }
+        while (buffered > maxBuffered) {
+            var eldest = open.values().iterator().next();
+            open.remove(eldest.key);
+            ready.add(emit(eldest));
+        }
+    }
+
+    private ResourceGroup<K> emit(final Pending pending) {
+        buffered -= pending.items.size();
+        return new DefaultResourceGroup<>(pending.key, List.copyOf(pending.items));
+    }
+
+    private final class Pending {
+        private final K key;
+        private final long deadline;
+        private final List<QueryItem> items = new ArrayList<>();
+
+        private Pending(final K key, final long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+
+}
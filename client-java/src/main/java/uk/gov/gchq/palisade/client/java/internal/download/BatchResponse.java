@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.download;
+
+import uk.gov.gchq.palisade.client.java.Download;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits the body of a batched Data Service response into a {@link Download} per
+ * resource. The body is a sequence of frames, one per resource, each of which is
+ * laid out as:
+ * <pre>
+ *   frame  = id-length:int32  id:UTF-8  status:uint16  chunk*  end
+ *   chunk  = length:int32 (greater than zero)  bytes
+ *   end    = int32 zero
+ * </pre>
+ * with all integers big-endian. A status of 200 means the chunks hold the
+ * resource's data, any other status means they hold a UTF-8 error message.
+ * Chunking lets the server stream each resource without knowing its length
+ * up-front.
+ * <p>
+ * Frames are read in order from the one stream, so a download must be read (or
+ * abandoned) before the next is asked for. Asking for the next download skips
+ * whatever is left of the previous one.
+ *
+ * @since 0.5.0
+ */
+final class BatchResponse implements Iterator<Download>, Closeable {
+
+    private static final int STATUS_OK = 200;
+    private static final int BYTE_BITS = 8;
+    private static final int INT_BYTES = 4;
+
+    private final DataInputStream input;
+    private final Map<String, LeafResource> resources;
+
+    private FrameInputStream current;
+    private Download next;
+    private boolean finished;
+
+    /**
+     * Returns a new {@code BatchResponse} reading frames from the provided body
+     *
+     * @param body      the (decoded) response body
+     * @param resources the requested resources, keyed by id
+     */
+    BatchResponse(final InputStream body, final Map<String, LeafResource> resources) {
+        this.input = new DataInputStream(body);
+        this.resources = resources;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readFrame();
+            } catch (IOException e) {
+                close();
+                throw new DownloaderException("Failed to read batched response from DataService", e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Download next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var download = next;
+        next = null;
+        return download;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        try {
+            input.close();
+        } catch (IOException e) {
+            // nothing more can be read either way
+        }
+    }
+
+    private Download readFrame() throws IOException {
+        if (current != null) {
+            current.skipRemaining();
+            current = null;
+        }
+
+        // a clean end of stream is only allowed between frames
+        var first = input.read();
+        if (first < 0) {
+            close();
+            return null;
+        }
+        var idLength = first << (BYTE_BITS * (INT_BYTES - 1));
+        for (int i = INT_BYTES - 2; i >= 0; i--) {
+            idLength |= input.readUnsignedByte() << (BYTE_BITS * i);
+        }
+        if (idLength < 0) {
+            throw new IOException("Negative resource id length in batched response");
+        }
+        var idBytes = new byte[idLength];
+        input.readFully(idBytes);
+        var id = new String(idBytes, StandardCharsets.UTF_8);
+        var status = input.readUnsignedShort();
+
+        var resource = resources.get(id);
+        if (resource == null) {
+            throw new IOException(String.format("Unexpected resource '%s' in batched response", id));
+        }
+
+        current = new FrameInputStream();
+        if (status != STATUS_OK) {
+            var message = new String(current.readAllBytes(), StandardCharsets.UTF_8);
+            return new FailedDownload(resource, new DownloaderException(String.format("Failed to read '%s': %s", id, message), status));
+        }
+        return new FrameDownload(resource, new CountingInputStream(current));
+    }
+
+    /*
+     * Reads the chunks of the current frame, ending at the zero length chunk
+     */
+    private final class FrameInputStream extends InputStream {
+
+        private int remaining;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            remaining--;
+            return input.readUnsignedByte();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            var read = input.read(b, off, Math.min(len, remaining));
+            if (read < 0) {
+                throw new EOFException("Batched response ended part way through a frame");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return ended ? 0 : Math.min(remaining, input.available());
+        }
+
+        @Override
+        public void close() {
+            // the rest of the frame is skipped when the next frame is read
+        }
+
+        private boolean nextChunk() throws IOException {
+            while (remaining == 0 && !ended) {
+                remaining = input.readInt();
+                if (remaining < 0) {
+                    throw new IOException("Negative chunk length in batched response");
+                }
+                ended = remaining == 0;
+            }
+            return !ended;
+        }
+
+        private void skipRemaining() throws IOException {
+            while (nextChunk()) {
+                var skipped = input.skip(remaining);
+                if (skipped <= 0) {
+                    // skip may not make progress, so fall back to reading a byte
+                    if (input.read() < 0) {
+                        throw new EOFException("Batched response ended part way through a frame");
+                    }
+                    skipped = 1;
+                }
+                remaining -= (int) skipped;
+            }
+        }
+
+    }
+
+    /*
+     * The bytes of a frame are counted once the whole batch has been decoded, so
+     * the bytes received and delivered are the same
+     */
+    private static final class FrameDownload implements Download {
+
+        private final LeafResource resource;
+        private final CountingInputStream inputStream;
+
+        private FrameDownload(final LeafResource resource, final CountingInputStream inputStream) {
+            this.resource = resource;
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public LeafResource getResource() {
+            return resource;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return inputStream.getCount();
+        }
+
+        @Override
+        public long getBytesDelivered() {
+            return inputStream.getCount();
+        }
+
+    }
+
+    private static final class FailedDownload implements Download {
+
+        private final LeafResource resource;
+        private final DownloaderException error;
+
+        private FailedDownload(final LeafResource resource, final DownloaderException error) {
+            this.resource = resource;
+            this.error = error;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            throw error;
+        }
+
+        @Override
+        public LeafResource getResource() {
+            return resource;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesDelivered() {
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A codec which can decode a Data Service response body sent with a given HTTP
+ * {@code Content-Encoding}. Codecs other than the {@link StandardCodec}s (e.g.
+ * zstd) may be added by registering an implementation with the
+ * {@link java.util.ServiceLoader}.
+ *
+ * @since 0.5.0
+ */
+public interface ContentCodec {
+
+    /**
+     * Returns the content-coding token for this codec as used in the
+     * {@code Accept-Encoding} and {@code Content-Encoding} headers
+     *
+     * @return the content-coding token, e.g. {@code gzip}
+     */
+    String getEncoding();
+
+    /**
+     * Returns a stream which decodes the provided encoded stream as it is read
+     *
+     * @param encoded the stream of encoded bytes as received from the server
+     * @return a stream of decoded bytes
+     * @throws IOException if the stream cannot be decoded
+     */
+    InputStream decode(InputStream encoded) throws IOException;
+
+}
@@ -15,10 +15,24 @@
  */
 package uk.gov.gchq.palisade.client.java.internal.download;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import uk.gov.gchq.palisade.client.java.Download;
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
+import uk.gov.gchq.palisade.client.java.buffer.LeasedBuffer;
+import uk.gov.gchq.palisade.resource.LeafResource;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * A download is returned after a request is received from Data Service. This
@@ -29,7 +43,16 @@ import java.net.http.HttpResponse;
  */
 public class DownloadImpl implements Download {
 
-    private final HttpResponse<InputStream> response;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownloadImpl.class);
+
+    private final HttpResponse<Flow.Publisher<List<ByteBuffer>>> response;
+    private final ContentCodec codec;
+    private final LeafResource resource;
+
+    private CountingInputStream wire;
+    private CountingInputStream delivered;
+    private InputStream inputStream;
+    private AtomicLong buffered;
 
     /**
      * Create and returns a new {@code DownloadImpl} with the provided
@@ -37,13 +60,128 @@ public class DownloadImpl implements Download {
      *
      * @param response from the Data Service
      */
-    public DownloadImpl(final HttpResponse<InputStream> response) {
+    public DownloadImpl(final HttpResponse<Flow.Publisher<List<ByteBuffer>>> response) {
+        this(response, null, null);
+    }
+
+    /**
+     * Create and returns a new {@code DownloadImpl} with the provided
+     * {@code HttpResponse} returned from the data service, whose body was sent
+     * with the content-coding handled by the provided {@code codec}.
+     *
+     * @param response from the Data Service
+     * @param codec    the codec used to decode the response body, or null if the
+     *                 body was not encoded
+     * @param resource the resource which was requested
+     */
+    public DownloadImpl(final HttpResponse<Flow.Publisher<List<ByteBuffer>>> response, final ContentCodec codec, final LeafResource resource) {
         this.response = response;
+        this.codec = codec;
+        this.resource = resource;
+    }
+
+    @Override
+    public LeafResource getResource() {
+        return resource;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the body was compressed by the Data Service, it is decompressed as it is
+     * read. Decoding is deferred until this method is first called so that no
+     * bytes are read on the thread which made the request. The same stream is
+     * returned by every call, counting the bytes received and delivered.
+     *
+     * @throws IllegalStateException if the body is already being read by
+     *                               {@link #buffers(BufferPool)}
+     */
+    @Override
+    public synchronized InputStream getInputStream() {
+        if (inputStream == null) {
+            if (buffered != null) {
+                throw new IllegalStateException("The body of this download is already being read as buffers");
+            }
+            var subscriber = BodySubscribers.ofInputStream();
+            response.body().subscribe(subscriber);
+            // an input stream subscriber's body is available as soon as it has subscribed
+            wire = new CountingInputStream(subscriber.getBody().toCompletableFuture().join());
+            if (codec == null) {
+                // the body is delivered as received, so the one count serves for both
+                delivered = wire;
+            } else {
+                try {
+                    delivered = new CountingInputStream(codec.decode(wire));
+                } catch (IOException e) {
+                    throw new DownloaderException(String.format("Failed to decode '%s' response body", codec.getEncoding()), e);
+                }
+            }
+            var encoding = codec == null ? "identity" : codec.getEncoding();
+            inputStream = new FilterInputStream(delivered) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    LOGGER.debug("Download closed: {} bytes received with encoding '{}', {} bytes delivered",
+                            getBytesReceived(), encoding, getBytesDelivered());
+                }
+            };
+        }
+        return inputStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the body was not compressed, and has not already been read through
+     * {@link #getInputStream()}, the chunks of the body are copied once, as they
+     * are received, straight into the leased buffers. Otherwise the buffers are
+     * read from the decompressed input stream.
+     *
+     * @throws IllegalStateException if the body is already being read as buffers
+     */
+    @Override
+    public synchronized Stream<LeasedBuffer> buffers(final BufferPool pool) {
+        if (buffered != null) {
+            throw new IllegalStateException("The body of this download is already being read as buffers");
+        }
+        if (codec != null || inputStream != null) {
+            return Download.super.buffers(pool);
+        }
+        var subscriber = pool.subscriber();
+        response.body().subscribe(subscriber);
+        var count = new AtomicLong();
+        buffered = count;
+        return subscriber.getBody().toCompletableFuture().join()
+                .peek(leased -> count.addAndGet(leased.buffer().remaining()))
+                .onClose(() -> LOGGER.debug("Download closed: {} bytes received with encoding 'identity', {} bytes delivered", count.get(), count.get()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nothing is received until {@link #getInputStream()} or
+     * {@link #buffers(BufferPool)} is first called.
+     */
+    @Override
+    public synchronized long getBytesReceived() {
+        if (buffered != null) {
+            return buffered.get();
+        }
+        return wire != null ? wire.getCount() : 0;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nothing is delivered until {@link #getInputStream()} or
+     * {@link #buffers(BufferPool)} is first called.
+     */
     @Override
-    public InputStream getInputStream() {
-        return response.body();
+    public synchronized long getBytesDelivered() {
+        if (buffered != null) {
+            return buffered.get();
+        }
+        return delivered != null ? delivered.getCount() : 0;
     }
 
 }
@@ -20,9 +20,12 @@ import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.palisade.client.java.Download;
 import uk.gov.gchq.palisade.client.java.QueryResponse;
 import uk.gov.gchq.palisade.client.java.internal.impl.ConfigurationException;
+import uk.gov.gchq.palisade.client.java.internal.model.BatchDataRequest;
 import uk.gov.gchq.palisade.client.java.internal.model.DataRequest;
+import uk.gov.gchq.palisade.client.java.internal.model.RequestWriter;
 import uk.gov.gchq.palisade.client.java.util.ImmutableStyle;
 import uk.gov.gchq.palisade.client.java.util.Util;
 import uk.gov.gchq.palisade.resource.LeafResource;
@@ -34,10 +37,25 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
 import static uk.gov.gchq.palisade.client.java.util.Checks.checkNotNull;
 
 /**
@@ -91,6 +109,23 @@ public final class Downloader {
          */
         String getPath();
 
+        /**
+         * Returns the path portion of the URL for batched requests
+         *
+         * @return the path portion of the URL that should be used when fetching many
+         * resources from the Data Service in a single call
+         */
+        String getBatchPath();
+
+        /**
+         * Returns the codecs for the content-codings which should be requested from
+         * the Data Service. If empty, no {@code Accept-Encoding} header is sent and
+         * the response body is always read as-is.
+         *
+         * @return the codecs for the content-codings which should be requested
+         */
+        List<ContentCodec> getCodecs();
+
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Downloader.class);
@@ -100,6 +135,22 @@ public final class Downloader {
 
     private final DownloaderSetup setup;
 
+    /*
+     * Resolved data-service read endpoints, keyed by the connection detail of the
+     * resource. These only depend on the (immutable) setup so are computed once
+     * per service rather than once per download.
+     */
+    private final Map<String, URI> serviceUris = new ConcurrentHashMap<>();
+    private final Map<String, URI> batchServiceUris = new ConcurrentHashMap<>();
+
+    /*
+     * Request builder holding the headers common to every request. Each request
+     * is built from a copy of this template.
+     */
+    private final HttpRequest.Builder requestTemplate = HttpRequest.newBuilder()
+            .setHeader("User-Agent", "Palisade Java Client")
+            .header("Content-Type", "application/json");
+
     /**
      * Returns a new {@code Downloader}
      *
@@ -107,6 +158,13 @@ public final class Downloader {
      */
     private Downloader(final DownloaderSetup setup) {
         this.setup = checkNotNull(setup, "missing setup");
+        if (!setup.getCodecs().isEmpty()) {
+            var acceptEncoding = setup.getCodecs().stream()
+                    .map(ContentCodec::getEncoding)
+                    .distinct()
+                    .collect(Collectors.joining(", "));
+            this.requestTemplate.header("Accept-Encoding", acceptEncoding);
+        }
     }
 
     /**
@@ -139,20 +197,21 @@ public final class Downloader {
         // create the url which is made up of the base url which is provided as part of
         // the resource returned from the Filtered Resource Service and the endpoint
         var serviceName = resource.getConnectionDetail().createConnection();
-        var baseUri = setup.getServiceNameMap().getOrDefault(serviceName, URI.create(serviceName));
-        var uri = Util.createUri(baseUri.toString(), getPath());
+        URI uri = null;
 
         try {
-            var requestBody = getObjectMapper()
-                    .writeValueAsString(DataRequest.Builder.create()
-                            .withToken(token)
-                            .withLeafResourceId(resource.getId()));
+            uri = serviceUris.computeIfAbsent(serviceName, this::resolveUri);
 
-            HttpResponse<InputStream> httpResponse;
-            httpResponse = sendRequest(requestBody, uri);
+            var requestBody = RequestWriter.write(DataRequest.Builder.create()
+                    .withToken(token)
+                    .withLeafResourceId(resource.getId()));
+
+            // the body is left as the chunks received, so that it can be read without an input stream
+            var httpResponse = sendRequest(requestBody, uri, BodyHandlers.ofPublisher());
             var statusCode = httpResponse.statusCode();
 
             if (statusCode != HTTP_STATUS_OK) {
+                discard(httpResponse.body());
                 String msg;
                 if (statusCode == HTTP_STATUS_NOT_FOUND) {
                     msg = String.format("DataService '%s' not found", uri);
@@ -162,12 +221,12 @@ public final class Downloader {
                 throw new DownloaderException(msg, statusCode);
             }
 
-            return new DownloadImpl(httpResponse);
+            return new DownloadImpl(httpResponse, getCodec(httpResponse, Downloader::discard), resource);
 
         } catch (DownloaderException e) {
             throw e;
         } catch (IllegalArgumentException e) {
-            throw new ConfigurationException(String.format("DataService connectionDetail '%s' was invalid, it may not be resolved in config", baseUri), e);
+            throw new ConfigurationException(String.format("DataService connectionDetail '%s' was invalid, it may not be resolved in config", serviceName), e);
         } catch (Exception e) {
             throw new DownloaderException("Caught unknown exception: " + e.getMessage(), e);
         } finally {
@@ -176,19 +235,134 @@ public final class Downloader {
 
     }
 
-    private HttpResponse<InputStream> sendRequest(final String requestBody, final URI uri) {
+    /**
+     * Fetches many resources, all served by the same Data Service, in a single
+     * request. The response is split into a download per resource, which are
+     * returned in the order the Data Service sends them. Each download must be
+     * read before the next is taken from the stream, and the stream should be
+     * closed once finished with.
+     *
+     * @param token     The token from the {@link QueryResponse}
+     * @param resources The resources to fetch
+     * @return a stream of downloads, one per resource
+     * @throws DownloaderException if any error occurs
+     */
+    @SuppressWarnings("java:S2221")
+    public Stream<Download> fetch(final String token, final List<LeafResource> resources) {
+
+        checkArgument(!resources.isEmpty(), "No resources to fetch");
+        var serviceName = resources.get(0).getConnectionDetail().createConnection();
+        for (LeafResource resource : resources) {
+            checkArgument(serviceName.equals(resource.getConnectionDetail().createConnection()),
+                    "Resources in a batch must all be served by DataService '%s'", serviceName);
+        }
+
+        LOGGER.debug("Batch download of {} resources started", resources.size());
+
+        URI uri = null;
+
+        try {
+            uri = batchServiceUris.computeIfAbsent(serviceName, name -> resolveUri(name, getBatchPath()));
+
+            Map<String, LeafResource> resourceMap = new HashMap<>();
+            List<String> leafResourceIds = new ArrayList<>(resources.size());
+            for (LeafResource resource : resources) {
+                resourceMap.put(resource.getId(), resource);
+                leafResourceIds.add(resource.getId());
+            }
+
+            var requestBody = RequestWriter.write(BatchDataRequest.Builder.create()
+                    .withToken(token)
+                    .withLeafResourceIds(leafResourceIds));
+
+            var httpResponse = sendRequest(requestBody, uri, BodyHandlers.ofInputStream());
+            var statusCode = httpResponse.statusCode();
+
+            if (statusCode != HTTP_STATUS_OK) {
+                closeQuietly(httpResponse.body());
+                String msg;
+                if (statusCode == HTTP_STATUS_NOT_FOUND) {
+                    msg = String.format("DataService batch endpoint '%s' not found", uri);
+                } else {
+                    msg = String.format("Batch request to DataService '%s' failed", uri);
+                }
+                throw new DownloaderException(msg, statusCode);
+            }
+
+            // the whole body is decoded before it is split into frames
+            var codec = getCodec(httpResponse, Downloader::closeQuietly);
+            var body = codec == null ? httpResponse.body() : codec.decode(httpResponse.body());
+            var batch = new BatchResponse(body, resourceMap);
+
+            // frames may be missing if the server fails part way, so the size is not known
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batch, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> {
+                        batch.close();
+                        LOGGER.debug("Batch download of {} resources ended", resources.size());
+                    });
+
+        } catch (DownloaderException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(String.format("DataService connectionDetail '%s' was invalid, it may not be resolved in config", serviceName), e);
+        } catch (Exception e) {
+            throw new DownloaderException("Caught unknown exception: " + e.getMessage(), e);
+        }
+
+    }
+
+    private <T> ContentCodec getCodec(final HttpResponse<T> httpResponse, final Consumer<T> discard) {
+        var contentEncoding = httpResponse.headers().firstValue("Content-Encoding")
+                .map(String::trim)
+                .filter(encoding -> !encoding.isEmpty() && !encoding.equalsIgnoreCase("identity"));
+        if (contentEncoding.isEmpty()) {
+            return null;
+        }
+        var encoding = contentEncoding.get();
+        LOGGER.debug("Response body has content-encoding '{}'", encoding);
+        var codec = setup.getCodecs().stream()
+                .filter(c -> c.getEncoding().equalsIgnoreCase(encoding))
+                .findFirst();
+        if (codec.isEmpty()) {
+            discard.accept(httpResponse.body());
+            throw new DownloaderException(String.format("Unsupported content-encoding '%s' from DataService", encoding), httpResponse.statusCode());
+        }
+        return codec.get();
+    }
+
+    private static void discard(final Flow.Publisher<List<ByteBuffer>> body) {
+        body.subscribe(BodySubscribers.discarding());
+    }
+
+    private static void closeQuietly(final InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close response body", e);
+        }
+    }
+
+    private URI resolveUri(final String serviceName) {
+        return resolveUri(serviceName, getPath());
+    }
+
+    private URI resolveUri(final String serviceName, final String path) {
+        var baseUri = setup.getServiceNameMap().getOrDefault(serviceName, URI.create(serviceName));
+        return Util.createUri(baseUri.toString(), path);
+    }
+
+    private <T> HttpResponse<T> sendRequest(final byte[] requestBody, final URI uri, final BodyHandler<T> bodyHandler) {
 
         LOGGER.debug("Preparing to send request to {}", uri);
 
-        var httpRequest = HttpRequest.newBuilder(uri)
-                .setHeader("User-Agent", "Palisade Java Client")
-                .header("Content-Type", "application/json")
-                .POST(BodyPublishers.ofString(requestBody))
+        var httpRequest = requestTemplate.copy()
+                .uri(uri)
+                .POST(BodyPublishers.ofByteArray(requestBody))
                 .build();
 
         try {
             LOGGER.debug("Sending...");
-            var httpResponse = getHttpClient().send(httpRequest, BodyHandlers.ofInputStream());
+            var httpResponse = getHttpClient().send(httpRequest, bodyHandler);
             LOGGER.debug("Got http status: {}", httpResponse.statusCode());
             return httpResponse;
         } catch (IOException | InterruptedException e1) {
@@ -202,12 +376,12 @@ public final class Downloader {
         return setup.getHttpClient();
     }
 
-    private ObjectMapper getObjectMapper() {
-        return setup.getObjectMapper();
-    }
-
     private String getPath() {
         return setup.getPath();
     }
 
+    private String getBatchPath() {
+        return setup.getBatchPath();
+    }
+
 }
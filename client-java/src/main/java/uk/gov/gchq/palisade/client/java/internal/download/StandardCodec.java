@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The content codings supported by the JDK
+ *
+ * @since 0.5.0
+ */
+public enum StandardCodec implements ContentCodec {
+
+    GZIP("gzip") {
+        @Override
+        public InputStream decode(final InputStream encoded) throws IOException {
+            return new GZIPInputStream(encoded, BUFFER_SIZE);
+        }
+    },
+
+    // HTTP 'deflate' is a zlib wrapped stream, which is what InflaterInputStream expects by default
+    DEFLATE("deflate") {
+        @Override
+        public InputStream decode(final InputStream encoded) {
+            return new InflaterInputStream(encoded);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String encoding;
+
+    StandardCodec(final String encoding) {
+        this.encoding = encoding;
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+}
@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.palisade.Generated;
+import uk.gov.gchq.palisade.client.java.buffer.BufferPool;
 import uk.gov.gchq.palisade.client.java.util.Util;
 
 import java.net.URI;
@@ -81,12 +82,76 @@ public class Configuration {
      */
     public static final String POLL_SECONDS = "poll";
 
+    /**
+     * Whether to pre-open connections to the palisade, filtered-resource and data services when a session is opened.
+     * <p>
+     * Optional, default 'false'
+     */
+    public static final String WARMUP_ENABLED = "warmup";
+
+    /**
+     * Whether to ask the data-service to compress resource data (gzip/deflate, or any codec added via the ServiceLoader).
+     * <p>
+     * Optional, default 'false'
+     */
+    public static final String COMPRESSION_ENABLED = "compression";
+
+    /**
+     * Approximate number of bytes of filtered-resource-service messages to hold in memory before spilling to disk.
+     * <p>
+     * Optional, default '16777216' (16MiB)
+     */
+    public static final String BUFFER_BYTES = "buffer";
+
+    /**
+     * Time in seconds for which the token returned for a query is reused by identical queries in the same session, zero to disable.
+     * <p>
+     * Optional, default '0'
+     */
+    public static final String CACHE_TTL_SECONDS = "cache.ttl";
+
+    /**
+     * Maximum number of tokens held by the registration cache, when it is enabled.
+     * <p>
+     * Optional, default '1000'
+     */
+    public static final String CACHE_SIZE = "cache.size";
+
+    /**
+     * Maximum number of bytes of released download buffers held by the session's buffer pool.
+     * <p>
+     * Optional, default '67108864' (64MiB)
+     */
+    public static final String POOL_BYTES = "pool.bytes";
+
+    /**
+     * Number of times in a row a lost filtered-resource-service websocket is re-opened before the query fails.
+     * <p>
+     * Optional, default '5'
+     */
+    public static final String RECONNECT_ATTEMPTS = "reconnect.attempts";
+
+    /**
+     * Time in milliseconds before the first attempt to re-open a lost websocket, doubling (with jitter) for each further attempt.
+     * <p>
+     * Optional, default '500'
+     */
+    public static final String RECONNECT_BACKOFF_MILLIS = "reconnect.backoff";
+
     // Allowed user-configurable properties and readers for them (from String to T)
-    protected static final Map<String, StringProperty<?>> WHITELIST_PROPERTIES = Map.of(
-            USER_ID, String::new,
-            SSL_ENABLED, Boolean::valueOf,
-            HTTP2_ENABLED, Boolean::valueOf,
-            POLL_SECONDS, Long::valueOf
+    protected static final Map<String, StringProperty<?>> WHITELIST_PROPERTIES = Map.ofEntries(
+            Map.entry(USER_ID, String::new),
+            Map.entry(SSL_ENABLED, Boolean::valueOf),
+            Map.entry(HTTP2_ENABLED, Boolean::valueOf),
+            Map.entry(POLL_SECONDS, Long::valueOf),
+            Map.entry(WARMUP_ENABLED, Boolean::valueOf),
+            Map.entry(COMPRESSION_ENABLED, Boolean::valueOf),
+            Map.entry(BUFFER_BYTES, Long::valueOf),
+            Map.entry(CACHE_TTL_SECONDS, Long::valueOf),
+            Map.entry(CACHE_SIZE, Integer::valueOf),
+            Map.entry(POOL_BYTES, Long::valueOf),
+            Map.entry(RECONNECT_ATTEMPTS, Integer::valueOf),
+            Map.entry(RECONNECT_BACKOFF_MILLIS, Long::valueOf)
     );
 
     // Static keys which are not permitted to be configurable
@@ -108,6 +173,12 @@ public class Configuration {
      * Static, default '/read/chunked'
      */
     public static final String DATA_PATH = "data.path";
+    /**
+     * Relative path from data-service URI as returned by a resource's connection-detail to data-service batched read endpoint.
+     * <p>
+     * Static, default '/read/batch'
+     */
+    public static final String DATA_BATCH_PATH = "data.batch-path";
     /**
      * Map from service-names to URIs
      * <p>
@@ -116,15 +187,24 @@ public class Configuration {
     public static final String DATA_SERVICE_MAP = "data.service-map";
 
     // Defaults for above static and configurable keys
-    protected static final Map<String, Object> DEFAULT_PROPERTIES = Map.of(
+    protected static final Map<String, Object> DEFAULT_PROPERTIES = Map.ofEntries(
             // Static
-            PALISADE_PATH, "/palisade/api/registerDataRequest",
-            FILTERED_RESOURCE_PATH, "/filteredResource/resource/" + TOKEN_PARAM,
-            DATA_PATH, "/read/chunked",
+            Map.entry(PALISADE_PATH, "/palisade/api/registerDataRequest"),
+            Map.entry(FILTERED_RESOURCE_PATH, "/filteredResource/resource/" + TOKEN_PARAM),
+            Map.entry(DATA_PATH, "/read/chunked"),
+            Map.entry(DATA_BATCH_PATH, "/read/batch"),
             // Configurable defaults
-            SSL_ENABLED, Boolean.FALSE,
-            HTTP2_ENABLED, Boolean.FALSE,
-            POLL_SECONDS, 3600L
+            Map.entry(SSL_ENABLED, Boolean.FALSE),
+            Map.entry(HTTP2_ENABLED, Boolean.FALSE),
+            Map.entry(POLL_SECONDS, 3600L),
+            Map.entry(WARMUP_ENABLED, Boolean.FALSE),
+            Map.entry(COMPRESSION_ENABLED, Boolean.FALSE),
+            Map.entry(BUFFER_BYTES, 16L * 1024 * 1024),
+            Map.entry(CACHE_TTL_SECONDS, 0L),
+            Map.entry(CACHE_SIZE, 1000),
+            Map.entry(POOL_BYTES, BufferPool.DEFAULT_MAX_POOLED_BYTES),
+            Map.entry(RECONNECT_ATTEMPTS, 5),
+            Map.entry(RECONNECT_BACKOFF_MILLIS, 500L)
     );
 
     // Required and derived keys for connection properties
@@ -166,8 +246,11 @@ public class Configuration {
      */
     @SuppressWarnings("unchecked")
     public <T> T get(final String key) {
-        return (T) Optional.ofNullable(this.properties.get(key))
-                .orElseThrow(() -> new ConfigurationException(String.format("Missing value for key '%s'", key)));
+        var value = this.properties.get(key);
+        if (value == null) {
+            throw new ConfigurationException(String.format("Missing value for key '%s'", key));
+        }
+        return (T) value;
     }
 
     /**
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import uk.gov.gchq.palisade.Generated;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * The {@link BatchDataRequest} is the input for the data-service when reading many resources for the same token
+ * in a single request. The response is a sequence of length-prefixed frames, one per resource.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+public final class BatchDataRequest {
+
+    private final String token;  // Unique identifier for the client's request
+    private final List<String> leafResourceIds;  // Leaf Resource IDs that are being asked to access
+
+    @JsonCreator
+    private BatchDataRequest(
+            final @JsonProperty("token") String token,
+            final @JsonProperty("leafResourceIds") List<String> leafResourceIds) {
+
+        this.token = Optional.ofNullable(token)
+                .orElseThrow(() -> new IllegalArgumentException("token cannot be null"));
+        this.leafResourceIds = List.copyOf(Optional.ofNullable(leafResourceIds)
+                .orElseThrow(() -> new IllegalArgumentException("leafResourceIds cannot be null")));
+    }
+
+    @Generated
+    public String getToken() {
+        return token;
+    }
+
+    @Generated
+    public List<String> getLeafResourceIds() {
+        return leafResourceIds;
+    }
+
+    /**
+     * Builder class for the creation of instances of the BatchDataRequest.
+     * This is a variant of the Fluent Builder which will use Java Objects or JsonNodes equivalents for the components in the build.
+     */
+    public static class Builder {
+        /**
+         * Starter method for the Builder class.
+         * This method is called to start the process of creating the BatchDataRequest class.
+         *
+         * @return interface {@link IToken} for the next step in the build.
+         */
+        public static IToken create() {
+            return token -> leafResourceIds ->
+                    new BatchDataRequest(token, leafResourceIds);
+        }
+
+        /**
+         * Adds the token to the message
+         */
+        public interface IToken {
+            /**
+             * Adds the token to the request
+             *
+             * @param token the client's unique token
+             * @return interface {@link ILeafResourceIds} for the next step in the build.
+             */
+            ILeafResourceIds withToken(String token);
+        }
+
+        /**
+         * Adds the leaf resource ids to the message
+         */
+        public interface ILeafResourceIds {
+            /**
+             * Adds the leaf resource ids to the request
+             *
+             * @param leafResourceIds resource IDs for the request, in the order they should be returned.
+             * @return the completed BatchDataRequest object
+             */
+            BatchDataRequest withLeafResourceIds(List<String> leafResourceIds);
+        }
+
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", BatchDataRequest.class.getSimpleName() + "[", "]")
+                .add("token='" + token + "'")
+                .add("leafResourceIds=" + leafResourceIds)
+                .toString();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Writes the small, fixed-shape request bodies sent to the Palisade Service and
+ * the Data Service straight to UTF-8 JSON bytes. The output is identical to that
+ * produced by Jackson for the same objects, but is written in two passes (measure
+ * then fill) so that the only allocation is the returned array.
+ *
+ * @since 0.5.0
+ */
+public final class RequestWriter {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.UTF_8);
+    private static final int CONTROL_LIMIT = 0x20;
+    private static final int ONE_BYTE_LIMIT = 0x80;
+    private static final int TWO_BYTE_LIMIT = 0x800;
+    private static final int UNICODE_ESCAPE_LENGTH = 6;
+    private static final int SHORT_ESCAPE_LENGTH = 2;
+    private static final int THREE_BYTES = 3;
+
+    private static final byte[] DATA_TOKEN = "{\"token\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA_LEAF_RESOURCE_ID = ",\"leafResourceId\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_LEAF_RESOURCE_IDS = ",\"leafResourceIds\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PALISADE_USER_ID = "{\"userId\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PALISADE_RESOURCE_ID = ",\"resourceId\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PALISADE_CONTEXT = ",\"context\":{".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] bytes;
+    private int position;
+
+    private RequestWriter(final int length) {
+        this.bytes = new byte[length];
+    }
+
+    /**
+     * Returns the JSON serialised form of the provided {@code DataRequest}
+     *
+     * @param request the request to serialise
+     * @return the UTF-8 encoded JSON bytes
+     */
+    public static byte[] write(final DataRequest request) {
+        var token = request.getToken();
+        var leafResourceId = request.getLeafResourceId();
+        var length = DATA_TOKEN.length + measure(token)
+                + DATA_LEAF_RESOURCE_ID.length + measure(leafResourceId)
+                + 1;
+        return new RequestWriter(length)
+                .raw(DATA_TOKEN).string(token)
+                .raw(DATA_LEAF_RESOURCE_ID).string(leafResourceId)
+                .raw('}')
+                .bytes;
+    }
+
+    /**
+     * Returns the JSON serialised form of the provided {@code BatchDataRequest}
+     *
+     * @param request the request to serialise
+     * @return the UTF-8 encoded JSON bytes
+     */
+    public static byte[] write(final BatchDataRequest request) {
+        var token = request.getToken();
+        var leafResourceIds = request.getLeafResourceIds();
+        var length = DATA_TOKEN.length + measure(token)
+                + BATCH_LEAF_RESOURCE_IDS.length + 2;
+        for (String leafResourceId : leafResourceIds) {
+            // id and a comma (one too many, trimmed below)
+            length += measure(leafResourceId) + 1;
+        }
+        if (!leafResourceIds.isEmpty()) {
+            length--;
+        }
+
+        var writer = new RequestWriter(length)
+                .raw(DATA_TOKEN).string(token)
+                .raw(BATCH_LEAF_RESOURCE_IDS);
+        var first = true;
+        for (String leafResourceId : leafResourceIds) {
+            if (!first) {
+                writer.raw(',');
+            }
+            writer.string(leafResourceId);
+            first = false;
+        }
+        return writer.raw(']').raw('}').bytes;
+    }
+
+    /**
+     * Returns the JSON serialised form of the provided {@code PalisadeRequest}
+     *
+     * @param request the request to serialise
+     * @return the UTF-8 encoded JSON bytes
+     */
+    public static byte[] write(final PalisadeRequest request) {
+        var userId = request.getUserId();
+        var resourceId = request.getResourceId();
+        Map<String, String> context = request.getContext();
+        var length = PALISADE_USER_ID.length + measure(userId)
+                + PALISADE_RESOURCE_ID.length + measure(resourceId)
+                + PALISADE_CONTEXT.length + 2;
+        for (Entry<String, String> entry : context.entrySet()) {
+            // key, colon and a comma (one too many, trimmed below)
+            length += measure(entry.getKey()) + 1 + measure(entry.getValue()) + 1;
+        }
+        if (!context.isEmpty()) {
+            length--;
+        }
+
+        var writer = new RequestWriter(length)
+                .raw(PALISADE_USER_ID).string(userId)
+                .raw(PALISADE_RESOURCE_ID).string(resourceId)
+                .raw(PALISADE_CONTEXT);
+        var first = true;
+        for (Entry<String, String> entry : context.entrySet()) {
+            if (!first) {
+                writer.raw(',');
+            }
+            writer.string(entry.getKey()).raw(':').string(entry.getValue());
+            first = false;
+        }
+        return writer.raw('}').raw('}').bytes;
+    }
+
+    /*
+     * Returns the number of bytes needed to write the provided string as a quoted
+     * JSON string (or as a null literal)
+     */
+    private static int measure(final String string) {
+        if (string == null) {
+            return NULL.length;
+        }
+        var length = 2;
+        for (int i = 0; i < string.length(); i++) {
+            char ch = string.charAt(i);
+            if (ch < ONE_BYTE_LIMIT) {
+                length += escapeLength(ch);
+            } else if (ch < TWO_BYTE_LIMIT) {
+                length += 2;
+            } else if (Character.isSurrogate(ch)) {
+                length += UNICODE_ESCAPE_LENGTH;
+            } else {
+                length += THREE_BYTES;
+            }
+        }
+        return length;
+    }
+
+    private static int escapeLength(final char ch) {
+        if (ch == '"' || ch == '\\') {
+            return SHORT_ESCAPE_LENGTH;
+        }
+        if (ch < CONTROL_LIMIT) {
+            return shortEscape(ch) != 0 ? SHORT_ESCAPE_LENGTH : UNICODE_ESCAPE_LENGTH;
+        }
+        return 1;
+    }
+
+    private static char shortEscape(final char ch) {
+        switch (ch) {
+            case '\b':
+                return 'b';
+            case '\t':
+                return 't';
+            case '\n':
+                return 'n';
+            case '\f':
+                return 'f';
+            case '\r':
+                return 'r';
+            default:
+                return 0;
+        }
+    }
+
+    private RequestWriter raw(final byte[] raw) {
+        System.arraycopy(raw, 0, bytes, position, raw.length);
+        position += raw.length;
+        return this;
+    }
+
+    private RequestWriter raw(final char ch) {
+        bytes[position++] = (byte) ch;
+        return this;
+    }
+
+    private RequestWriter string(final String string) {
+        if (string == null) {
+            return raw(NULL);
+        }
+        raw('"');
+        for (int i = 0; i < string.length(); i++) {
+            char ch = string.charAt(i);
+            if (ch < ONE_BYTE_LIMIT) {
+                escaped(ch);
+            } else if (ch < TWO_BYTE_LIMIT) {
+                bytes[position++] = (byte) (0xC0 | (ch >> 6));
+                bytes[position++] = (byte) (0x80 | (ch & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                // as with Jackson, characters outside the BMP are written as escaped surrogate pairs
+                unicodeEscape(ch);
+            } else {
+                bytes[position++] = (byte) (0xE0 | (ch >> 12));
+                bytes[position++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (ch & 0x3F));
+            }
+        }
+        return raw('"');
+    }
+
+    private void escaped(final char ch) {
+        if (ch == '"' || ch == '\\') {
+            raw('\\').raw(ch);
+        } else if (ch < CONTROL_LIMIT) {
+            char escape = shortEscape(ch);
+            if (escape != 0) {
+                raw('\\').raw(escape);
+            } else {
+                unicodeEscape(ch);
+            }
+        } else {
+            raw(ch);
+        }
+    }
+
+    private void unicodeEscape(final char ch) {
+        raw('\\').raw('u');
+        bytes[position++] = HEX[(ch >> 12) & 0xF];
+        bytes[position++] = HEX[(ch >> 8) & 0xF];
+        bytes[position++] = HEX[(ch >> 4) & 0xF];
+        bytes[position++] = HEX[ch & 0xF];
+    }
+
+}
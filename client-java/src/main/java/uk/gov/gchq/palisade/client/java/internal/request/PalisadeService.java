@@ -17,6 +17,7 @@ package uk.gov.gchq.palisade.client.java.internal.request;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import uk.gov.gchq.palisade.client.java.ClientException;
 import uk.gov.gchq.palisade.client.java.internal.model.PalisadeRequest;
 import uk.gov.gchq.palisade.client.java.internal.model.PalisadeResponse;
+import uk.gov.gchq.palisade.client.java.internal.model.RequestWriter;
 import uk.gov.gchq.palisade.client.java.util.ImmutableStyle;
 
 import java.net.URI;
@@ -94,6 +96,12 @@ public final class PalisadeService {
 
     private final PalisadeServiceSetup setup;
 
+    /*
+     * Derived from the (immutable) setup once, rather than on every request
+     */
+    private final ObjectReader responseReader;
+    private final HttpRequest.Builder requestTemplate;
+
     /**
      * Creates a new Palisade service
      *
@@ -101,6 +109,9 @@ public final class PalisadeService {
      */
     private PalisadeService(final PalisadeServiceSetup setup) {
         this.setup = checkNotNull(setup);
+        this.responseReader = setup.getObjectMapper().readerFor(PalisadeResponse.class);
+        this.requestTemplate = HttpRequest.newBuilder(setup.getUri())
+                .setHeader("Content-Type", "application/json");
     }
 
     /**
@@ -135,16 +146,13 @@ public final class PalisadeService {
 
         checkNotNull(palisadeRequest);
 
-        var uri = getUri();
-        var jsonBody = toJson(palisadeRequest);
-        var bodyPublisher = BodyPublishers.ofString(jsonBody);
+        var bodyPublisher = BodyPublishers.ofByteArray(RequestWriter.write(palisadeRequest));
 
-        LOGGER.debug("SEND: To: [{}], Body: [{}]", uri, palisadeRequest);
+        LOGGER.debug("SEND: To: [{}], Body: [{}]", getUri(), palisadeRequest);
 
         var httpClient = getHttpClient();
 
-        var httpRequest = HttpRequest.newBuilder(uri)
-                .setHeader("Content-Type", "application/json")
+        var httpRequest = requestTemplate.copy()
                 .POST(bodyPublisher)
                 .build();
 
@@ -182,19 +190,10 @@ public final class PalisadeService {
         return response;
     }
 
-    // placed in a method to be use fluently as a method reference
-    private String toJson(final Object object) {
-        try {
-            return objectMapper().writeValueAsString(object);
-        } catch (JsonProcessingException cause) {
-            throw new ClientException("Failed to serialise request: " + object.toString(), cause);
-        }
-    }
-
     // placed in a method to be use fluently as a method reference
     private PalisadeResponse toResponse(final String string) {
         try {
-            return objectMapper().readValue(string, PalisadeResponse.class);
+            return responseReader.readValue(string);
         } catch (JsonProcessingException cause) {
             throw new ClientException("Failed to deserialise request: " + string, cause);
         }
@@ -204,10 +203,6 @@ public final class PalisadeService {
         return this.setup;
     }
 
-    private ObjectMapper objectMapper() {
-        return getSetup().getObjectMapper();
-    }
-
     private HttpClient getHttpClient() {
         return getSetup().getHttpClient();
     }
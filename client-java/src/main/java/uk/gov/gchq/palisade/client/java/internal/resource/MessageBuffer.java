@@ -0,0 +1,421 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.resource;
+
+import uk.gov.gchq.palisade.client.java.ClientException;
+import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A first-in-first-out buffer of websocket messages with a bounded memory budget.
+ * Messages are held on the heap until their estimated size exceeds the budget,
+ * after which they are encoded and spilled to a memory-mapped segment file. Once
+ * anything has been spilled, all later messages are spilled too (so that order is
+ * kept) until the file has been read back to the end. Each region of the file is
+ * mapped once and its segment is handed back for reuse as soon as it has been
+ * read, so the file only grows as large as the most that has been waiting to be
+ * read at any one time. Once the buffer is closed, the segments are left for the
+ * garbage collector to unmap.
+ *
+ * @since 0.5.0
+ */
+public class MessageBuffer implements Closeable {
+
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MESSAGE_OVERHEAD = 64;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_MORE = 0x80;
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final long memoryBudget;
+    private final int segmentSize;
+    private final Path directory;
+
+    private final Deque<WebSocketMessage> memory = new ArrayDeque<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Deque<MappedByteBuffer> free = new ArrayDeque<>();
+    private final List<MappedByteBuffer> mapped = new ArrayList<>();
+    private FileChannel channel;
+    private long firstSegment;
+    private long memoryUsed;
+    private long spilled;
+    private long totalSpilled;
+    private long totalPut;
+    private long writePosition;
+    private long readPosition;
+    private boolean closed;
+    private ClientException failure;
+
+    /**
+     * Returns a new buffer which spills to the default temporary directory once
+     * {@code memoryBudget} bytes of messages are held
+     *
+     * @param memoryBudget the approximate number of bytes of messages to hold on
+     *                     the heap
+     */
+    public MessageBuffer(final long memoryBudget) {
+        this(memoryBudget, SEGMENT_SIZE, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Returns a new buffer which spills to segments of {@code segmentSize} bytes
+     * in a file created in {@code directory}
+     *
+     * @param memoryBudget the approximate number of bytes of messages to hold on
+     *                     the heap
+     * @param segmentSize  the size of each memory-mapped segment of the file
+     * @param directory    the directory in which to create the file
+     */
+    MessageBuffer(final long memoryBudget, final int segmentSize, final Path directory) {
+        this.memoryBudget = memoryBudget;
+        this.segmentSize = segmentSize;
+        this.directory = directory;
+    }
+
+    /**
+     * Adds a message to the end of the buffer. Messages added after the buffer
+     * has been closed are discarded.
+     *
+     * @param message the message to add
+     * @throws ClientException if the message could not be spilled to disk
+     */
+    public synchronized void put(final WebSocketMessage message) {
+        if (closed) {
+            return;
+        }
+        totalPut++;
+        var size = estimateSize(message);
+        if (spilled == 0 && (memory.isEmpty() || memoryUsed + size <= memoryBudget)) {
+            memory.add(message);
+            memoryUsed += size;
+        } else {
+            spill(message);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Retrieves and removes the message at the head of the buffer, waiting up to
+     * the specified wait time if necessary for a message to become available
+     *
+     * @param timeout how long to wait before giving up, in units of {@code unit}
+     * @param unit    a {@code TimeUnit} determining how to interpret the
+     *                {@code timeout} parameter
+     * @return the next message, or {@code null} if the specified waiting time
+     * elapses, or the buffer is closed, before a message is available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ClientException      if the buffer has been failed and every message
+     *                              added before then has been retrieved
+     */
+    public synchronized WebSocketMessage poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (memory.isEmpty() && spilled == 0) {
+            if (failure != null && !closed) {
+                throw failure;
+            }
+            var remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (closed || remaining <= 0) {
+                return null;
+            }
+            wait(remaining);
+        }
+        if (!memory.isEmpty()) {
+            var message = memory.poll();
+            memoryUsed -= estimateSize(message);
+            return message;
+        }
+        var message = readSpilled();
+        spilled--;
+        if (spilled == 0) {
+            // everything has been read back, so start the file again from the beginning
+            free.addAll(segments);
+            segments.clear();
+            firstSegment = 0;
+            writePosition = 0;
+            readPosition = 0;
+        } else {
+            reclaim();
+        }
+        return message;
+    }
+
+    /**
+     * Marks that no more messages will be added because the source of them has
+     * failed. Once the messages already added have been retrieved,
+     * {@link #poll(long, TimeUnit)} throws the provided exception.
+     *
+     * @param cause the reason the source failed
+     */
+    public synchronized void fail(final ClientException cause) {
+        failure = cause;
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of messages held in the buffer, in memory or on disk
+     *
+     * @return the number of messages held
+     */
+    public synchronized long size() {
+        return memory.size() + spilled;
+    }
+
+    /**
+     * Returns the estimated number of bytes of messages held on the heap
+     *
+     * @return the estimated number of bytes held on the heap
+     */
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * Returns the total number of messages that have been added
+     *
+     * @return the number of messages added
+     */
+    public synchronized long getPutCount() {
+        return totalPut;
+    }
+
+    /**
+     * Returns true if this buffer has been closed
+     *
+     * @return true if closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the total number of messages that have been spilled to disk
+     *
+     * @return the number of messages spilled
+     */
+    public synchronized long getSpilledCount() {
+        return totalSpilled;
+    }
+
+    /**
+     * Discards any buffered messages and deletes the spill file. Any thread
+     * waiting in {@link #poll(long, TimeUnit)} is woken and returns null.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        memory.clear();
+        memoryUsed = 0;
+        spilled = 0;
+        segments.clear();
+        free.clear();
+        // dropping the mappings leaves them to be unmapped once they are collected
+        mapped.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the file is deleted on close, so there is nothing more that can be done
+            }
+            channel = null;
+        }
+        notifyAll();
+    }
+
+    private static long estimateSize(final WebSocketMessage message) {
+        long size = MESSAGE_OVERHEAD;
+        for (Entry<String, String> header : message.getHeaders().entrySet()) {
+            size += MESSAGE_OVERHEAD + 2L * (header.getKey().length() + header.getValue().length());
+        }
+        var body = message.getBody();
+        return body == null ? size : size + 2L * body.length();
+    }
+
+    /*
+     * Each message is encoded as its type ordinal, the number of headers, each
+     * header key and value and then the body. Strings are written as a varint
+     * length followed by their UTF-8 bytes, the body's length being offset by one
+     * so that zero can mark a null body.
+     */
+    private void spill(final WebSocketMessage message) {
+        writeVarInt(message.getType().ordinal());
+        var headers = message.getHeaders();
+        writeVarInt(headers.size());
+        for (Entry<String, String> header : headers.entrySet()) {
+            writeString(header.getKey());
+            writeString(header.getValue());
+        }
+        var body = message.getBody();
+        if (body == null) {
+            writeVarInt(0);
+        } else {
+            var bytes = body.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes);
+        }
+        spilled++;
+        totalSpilled++;
+    }
+
+    private WebSocketMessage readSpilled() {
+        var type = TYPES[readVarInt()];
+        var headerCount = readVarInt();
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(readString(), readString());
+        }
+        var bodyLength = readVarInt();
+        String body = null;
+        if (bodyLength > 0) {
+            body = new String(readBytes(bodyLength - 1), StandardCharsets.UTF_8);
+        }
+        return WebSocketMessage.Builder.create()
+                .withType(type)
+                .withHeaders(headers)
+                .withSerialisedBody(body);
+    }
+
+    private void writeString(final String string) {
+        var bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private String readString() {
+        return new String(readBytes(readVarInt()), StandardCharsets.UTF_8);
+    }
+
+    private void writeVarInt(final int value) {
+        var remaining = value;
+        while ((remaining & ~VARINT_MASK) != 0) {
+            writeByte((remaining & VARINT_MASK) | VARINT_MORE);
+            remaining >>>= VARINT_BITS;
+        }
+        writeByte(remaining);
+    }
+
+    private int readVarInt() {
+        var value = 0;
+        var shift = 0;
+        int b;
+        do {
+            b = segment(readPosition).get(offset(readPosition));
+            readPosition++;
+            value |= (b & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        } while ((b & VARINT_MORE) != 0);
+        return value;
+    }
+
+    private void writeByte(final int value) {
+        segment(writePosition).put(offset(writePosition), (byte) value);
+        writePosition++;
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        var written = 0;
+        while (written < bytes.length) {
+            var offset = offset(writePosition);
+            var length = Math.min(bytes.length - written, segmentSize - offset);
+            segment(writePosition).duplicate().position(offset).put(bytes, written, length);
+            written += length;
+            writePosition += length;
+        }
+    }
+
+    private byte[] readBytes(final int length) {
+        var bytes = new byte[length];
+        var read = 0;
+        while (read < length) {
+            var offset = offset(readPosition);
+            var chunk = Math.min(length - read, segmentSize - offset);
+            segment(readPosition).duplicate().position(offset).get(bytes, read, chunk);
+            read += chunk;
+            readPosition += chunk;
+        }
+        return bytes;
+    }
+
+    private int offset(final long position) {
+        return (int) (position % segmentSize);
+    }
+
+    /*
+     * Returns the segment containing the provided position in the stream of
+     * spilled bytes, reusing a segment that has already been read if there is one
+     * and otherwise creating the file and mapping a new segment at its end
+     */
+    private MappedByteBuffer segment(final long position) {
+        var index = (int) (position / segmentSize - firstSegment);
+        try {
+            if (channel == null) {
+                var file = Files.createTempFile(directory, "palisade-", ".buffer");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            while (segments.size() <= index) {
+                if (free.isEmpty()) {
+                    mapped.add(channel.map(MapMode.READ_WRITE, (long) mapped.size() * segmentSize, segmentSize));
+                    free.add(mapped.get(mapped.size() - 1));
+                }
+                segments.add(free.poll());
+            }
+        } catch (IOException e) {
+            throw new ClientException("Failed to spill websocket messages to disk", e);
+        }
+        return segments.get(index);
+    }
+
+    /*
+     * Hands back every segment before the one holding the read position, as
+     * nothing more will be read from them
+     */
+    private void reclaim() {
+        while (readPosition / segmentSize > firstSegment) {
+            free.add(segments.remove(0));
+            firstSegment++;
+        }
+    }
+
+    /**
+     * Returns the number of segments of the spill file that have been mapped,
+     * which bounds the size of the file
+     *
+     * @return the number of segments mapped
+     */
+    synchronized int getMappedCount() {
+        return mapped.size();
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+
+import java.util.Objects;
+
+/**
+ * Tracks the messages delivered from a Filtered Resource Service stream so that,
+ * once the websocket has been re-opened for the same token, the messages already
+ * delivered are not delivered again. Only the number of messages delivered and
+ * the first and last of them are kept, rather than every message. When the first
+ * message received after re-opening is the first message ever delivered, the
+ * service is taken to be replaying the stream from the start and that many
+ * messages are skipped. Otherwise the service is taken to be resuming from where
+ * it left off, and nothing is skipped.
+ *
+ * @since 0.5.0
+ */
+final class ResumeTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumeTracker.class);
+
+    private long delivered;
+    private String first;
+    private String last;
+    private boolean resuming;
+    private long skipping;
+
+    /**
+     * Marks that the websocket has been re-opened, so the next message starts a
+     * new (possibly replayed) stream
+     */
+    synchronized void resume() {
+        resuming = delivered > 0;
+        skipping = 0;
+    }
+
+    /**
+     * Returns true if the provided message has not been delivered before and
+     * should be, false if it is a replay of one already delivered
+     *
+     * @param message the message received
+     * @return true if the message should be delivered
+     */
+    synchronized boolean accept(final WebSocketMessage message) {
+        if (message.getType() == MessageType.COMPLETE) {
+            return true;
+        }
+        var key = key(message);
+        if (resuming) {
+            resuming = false;
+            skipping = key.equals(first) ? delivered : 0;
+            LOGGER.debug("Resumed stream after {} messages, skipping {} replayed messages", delivered, skipping);
+        }
+        if (skipping > 0) {
+            skipping--;
+            if (skipping == 0 && !key.equals(last)) {
+                LOGGER.warn("Replayed stream did not match the messages already delivered after {} messages", delivered);
+            }
+            return false;
+        }
+        if (first == null) {
+            first = key;
+        }
+        last = key;
+        delivered++;
+        return true;
+    }
+
+    /**
+     * Returns the number of messages delivered
+     *
+     * @return the number of messages delivered
+     */
+    synchronized long getDelivered() {
+        return delivered;
+    }
+
+    private static String key(final WebSocketMessage message) {
+        return message.getType() + ":" + Objects.toString(message.getBody(), "");
+    }
+
+}
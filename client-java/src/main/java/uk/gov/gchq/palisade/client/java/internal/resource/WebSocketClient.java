@@ -20,6 +20,7 @@ import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.palisade.client.java.ClientException;
 import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
 import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
 import uk.gov.gchq.palisade.client.java.util.Checks;
@@ -28,8 +29,11 @@ import uk.gov.gchq.palisade.client.java.util.ImmutableStyle;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
+import java.time.Duration;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.UnaryOperator;
 
@@ -90,15 +94,50 @@ public class WebSocketClient {
          */
         HttpClient getHttpClient();
 
+        /**
+         * Returns the number of times in a row the websocket is re-opened after it
+         * is lost, before the stream is failed. Defaults to 5.
+         *
+         * @return the maximum number of reconnection attempts
+         */
+        @Value.Default
+        default int getReconnectAttempts() {
+            return DEFAULT_RECONNECT_ATTEMPTS;
+        }
+
+        /**
+         * Returns the delay before the first reconnection attempt, which doubles
+         * for each further attempt. Defaults to 500ms.
+         *
+         * @return the initial reconnection delay
+         */
+        @Value.Default
+        default Duration getReconnectBackoff() {
+            return DEFAULT_RECONNECT_BACKOFF;
+        }
+
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketClient.class);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final int DEFAULT_RECONNECT_ATTEMPTS = 5;
+    private static final Duration DEFAULT_RECONNECT_BACKOFF = Duration.ofMillis(500);
+
+    // put on the queue once the websocket has been lost for good, to wake the poller
+    private static final WebSocketMessage LOST = WebSocketMessage.Builder.create()
+            .withType(MessageType.ERROR)
+            .noHeaders()
+            .noBody();
 
     private final ResourceClientSetup setup;
     private final BlockingQueue<WebSocketMessage> next = new LinkedBlockingQueue<>(1);
+    private final ResumeTracker tracker = new ResumeTracker();
 
     private WebSocket webSocket;
-
+    private int attempts;
+    private boolean completed;
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
 
     /**
      * A {@code ResourceClient} manages the passing of messages to/from a websocket
@@ -129,19 +168,48 @@ public class WebSocketClient {
      * @param unit    a {@code TimeUnit} determining how to interpret the
      *                {@code timeout} parameter
      * @return the the next message, or {@code null} if the specified waiting time
-     * elapses before a message is available
+     * elapses, or the client is cancelled, before a message is available
+     * @throws ClientException if the websocket was lost and could not be re-opened
      */
     public WebSocketMessage poll(final long timeout, final TimeUnit unit) {
         try {
-            return next.poll(timeout, unit);
+            var message = next.poll(timeout, unit);
+            if (message == LOST) {
+                throw new ClientException("Lost connection to the Filtered Resource Service", failure);
+            }
+            return message;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            if (cancelled) {
+                return null;
+            }
             throw new IllegalStateException("Thread interrupted while taking next message from queue");
         }
     }
 
     /**
-     * Connect to the server and start communications
+     * Stops listening for messages, aborting the websocket without waiting for the
+     * stream to complete and discarding any message not yet taken. A poller that
+     * is interrupted once the client has been cancelled returns {@code null}.
+     */
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            completed = true;
+            if (webSocket != null) {
+                webSocket.abort();
+                webSocket = null;
+            }
+        }
+        // release the listener if it is blocked on a message nobody will take
+        next.clear();
+    }
+
+    /**
+     * Connect to the server and start communications. If the websocket is later
+     * lost before the stream is complete, it is re-opened for the same token after
+     * a jittered, exponentially increasing delay, and any messages the server
+     * replays are not emitted again.
      *
      * @return this for fluent usage
      */
@@ -150,30 +218,50 @@ public class WebSocketClient {
         // as soon as a client subscribes, the connection to the filtered resource
         // service should be instantiated and messages should start to be emitted
 
+        LOGGER.debug("Connecting to websocket at: {}", getUri());
+
+        var ws = open().join();
+        synchronized (this) {
+            this.webSocket = ws;
+        }
+
+        LOGGER.debug("WebSocket created to handle token: {}", getToken());
+
+        return this;
+
+    }
+
+    private CompletableFuture<WebSocket> open() {
+
         // note that %t has been encoded as %25t in the URI
 
         var replacedUri = URI.create(getUri().toString().replace("%25t", getToken()));
 
-        LOGGER.debug("Connecting to websocket at: {}", getUri());
-
-        this.webSocket = getHttpClient()
+        return getHttpClient()
                 .newWebSocketBuilder()
                 .buildAsync(replacedUri, createResourceClientListener(b -> b
                         .eventsHandler(this::put)
+                        .disconnectHandler(this::disconnected)
+                        .failureHandler(this::failed)
                         .objectMapper(getObjectMapper())
-                        .token(getToken())))
-                .join();
-
-        LOGGER.debug("WebSocket created to handle token: {}", getToken());
-
-        return this;
-
+                        .token(getToken())));
     }
 
     private void put(final WebSocketMessage msg) {
         LOGGER.trace("Emitted : {}", msg);
+        if (cancelled) {
+            return;
+        }
+        if (!tracker.accept(msg)) {
+            LOGGER.trace("Suppressed replayed message : {}", msg);
+            return;
+        }
         try {
             next.put(msg); // block if the last message has not been taken
+            synchronized (this) {
+                // a message got through, so the connection is healthy again
+                attempts = 0;
+            }
             if (msg.getType() == MessageType.COMPLETE) {
                 close();
             }
@@ -183,9 +271,104 @@ public class WebSocketClient {
         }
     }
 
-    private void close() {
+    /*
+     * Called when the websocket fails or is closed by the server, either of which
+     * is expected once the stream is complete
+     */
+    private void disconnected(final Throwable error) {
+        long delay;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            if (webSocket != null) {
+                webSocket.abort();
+                webSocket = null;
+            }
+            if (attempts >= setup.getReconnectAttempts()) {
+                LOGGER.warn("WebSocket for token {} lost after {} reconnection attempts", getToken(), attempts);
+                completed = true;
+                failure = error;
+                lost();
+                return;
+            }
+            delay = backoffMillis(attempts, setup.getReconnectBackoff(), ThreadLocalRandom.current().nextDouble());
+            attempts++;
+            LOGGER.debug("WebSocket for token {} lost after {} messages, reconnecting in {}ms (attempt {})",
+                    getToken(), tracker.getDelivered(), delay, attempts, error);
+        }
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::reconnect);
+    }
+
+    /*
+     * Called when a message could not be decoded, which reconnecting would only
+     * replay, so the stream is failed straight away
+     */
+    private void failed(final Throwable error) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            failure = error;
+            if (webSocket != null) {
+                webSocket.abort();
+                webSocket = null;
+            }
+        }
+        LOGGER.warn("WebSocket for token {} failed after {} messages", getToken(), tracker.getDelivered(), error);
+        lost();
+    }
+
+    private void reconnect() {
+        tracker.resume();
+        open().whenComplete((final WebSocket ws, final Throwable error) -> {
+            if (error != null) {
+                disconnected(error);
+                return;
+            }
+            synchronized (this) {
+                if (completed) {
+                    ws.abort();
+                } else {
+                    webSocket = ws;
+                }
+            }
+        });
+    }
+
+    private void lost() {
+        // the poller may still be taking the last message, so wait for it off this thread
+        CompletableFuture.runAsync(() -> {
+            try {
+                next.put(LOST);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    /**
+     * Returns the delay before a reconnection attempt, being a random time between
+     * half and all of the backoff, which doubles with each attempt up to a maximum
+     *
+     * @param attempt the number of attempts already made
+     * @param backoff the backoff before the first attempt
+     * @param jitter  a random number in the range [0, 1)
+     * @return the delay in milliseconds
+     */
+    static long backoffMillis(final int attempt, final Duration backoff, final double jitter) {
+        var ceiling = backoff.toMillis() << Math.min(attempt, Integer.SIZE - 2);
+        if (ceiling <= 0 || ceiling > MAX_BACKOFF.toMillis()) {
+            ceiling = MAX_BACKOFF.toMillis();
+        }
+        return ceiling / 2 + (long) (jitter * (ceiling / 2));
+    }
+
+    private synchronized void close() {
+        completed = true;
         if (webSocket != null) {
-            this.webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+            this.webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
             LOGGER.debug("--> CLOSE request sent");
             this.webSocket = null;
         }
@@ -86,6 +86,23 @@ public class WebSocketListener implements Listener {
          */
         Consumer<WebSocketMessage> getEventsHandler();
 
+        /**
+         * Returns the consumer that will be told if the web socket fails or is
+         * closed by the server
+         *
+         * @return the consumer that will handle the web socket being lost
+         */
+        Consumer<Throwable> getDisconnectHandler();
+
+        /**
+         * Returns the consumer that will be told if a message from the server
+         * could not be decoded, after which no more messages are handled
+         *
+         * @return the consumer that will handle a message that could not be
+         * decoded
+         */
+        Consumer<Throwable> getFailureHandler();
+
     }
 
 
@@ -93,6 +110,8 @@ public class WebSocketListener implements Listener {
 
     private final ObjectMapper objectMapper;
     private final Consumer<WebSocketMessage> handler;
+    private final Consumer<Throwable> disconnectHandler;
+    private final Consumer<Throwable> failureHandler;
     private final Map<WebSocket, StringBuilder> buffer = new HashMap<>();
     private final String token;
 
@@ -106,6 +125,8 @@ public class WebSocketListener implements Listener {
         Checks.checkNotNull(setup);
         this.token = setup.getToken();
         this.handler = setup.getEventsHandler();
+        this.disconnectHandler = setup.getDisconnectHandler();
+        this.failureHandler = setup.getFailureHandler();
         this.objectMapper = setup.getObjectMapper();
     }
 
@@ -122,7 +143,15 @@ public class WebSocketListener implements Listener {
 
     @Override
     public void onError(final WebSocket ws, final Throwable error) {
-        LOGGER.error("An error occurred while processing the websocket stream:", error);
+        LOGGER.warn("An error occurred while processing the websocket stream:", error);
+        disconnectHandler.accept(error);
+    }
+
+    @Override
+    public CompletionStage<?> onClose(final WebSocket ws, final int statusCode, final String reason) {
+        LOGGER.debug("CLOSE: {} {}", statusCode, reason);
+        disconnectHandler.accept(new IOException(String.format("WebSocket closed by server: %d %s", statusCode, reason)));
+        return null;
     }
 
     @Override
@@ -149,7 +178,8 @@ public class WebSocketListener implements Listener {
             try {
                 wsMsg = objectMapper.readValue(text, WebSocketMessage.class);
             } catch (JsonProcessingException e) {
-                onError(ws, e);
+                // the server would send the same message again, so this is not a transport error to reconnect after
+                failureHandler.accept(e);
                 return null;
             }
 
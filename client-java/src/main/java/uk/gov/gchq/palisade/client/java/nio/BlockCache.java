@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of fixed size blocks of resource data, shared by
+ * every channel opened on a {@link PalisadeFileSystem}. Blocks are keyed on the
+ * resource id and the block index within the resource. The last block of a
+ * resource may be shorter than the block size. The cache is bounded by the
+ * total number of bytes held, rather than by the number of blocks.
+ *
+ * @since 0.5.0
+ */
+final class BlockCache {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int blockSize;
+    private final long capacity;
+    private final Map<List<Object>, byte[]> blocks = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    private long used;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Returns a new empty cache
+     *
+     * @param blockSize the size of each (but the last) block of a resource
+     * @param capacity  the maximum number of bytes held by the cache
+     */
+    BlockCache(final int blockSize, final long capacity) {
+        this.blockSize = blockSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the size of each (but the last) block of a resource
+     *
+     * @return the size of each (but the last) block of a resource
+     */
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the cached block of the provided resource, or null if it is not
+     * cached
+     *
+     * @param id    the resource id
+     * @param index the index of the block within the resource
+     * @return the cached block, or null
+     */
+    synchronized byte[] get(final String id, final long index) {
+        var block = blocks.get(List.of(id, index));
+        if (block != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return block;
+    }
+
+    /**
+     * Adds the provided block to the cache, evicting the least recently used
+     * blocks until it fits
+     *
+     * @param id    the resource id
+     * @param index the index of the block within the resource
+     * @param block the data of the block
+     */
+    synchronized void put(final String id, final long index, final byte[] block) {
+        var previous = blocks.put(List.of(id, index), block);
+        used += block.length - (previous != null ? previous.length : 0);
+        var eldest = blocks.values().iterator();
+        while (used > capacity && eldest.hasNext()) {
+            used -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes every block from the cache
+     */
+    synchronized void clear() {
+        blocks.clear();
+        used = 0;
+    }
+
+    /**
+     * Returns the number of bytes currently cached
+     *
+     * @return the number of bytes currently cached
+     */
+    synchronized long getBytesUsed() {
+        return used;
+    }
+
+    /**
+     * Returns the number of requests for a block which were served from the cache
+     *
+     * @return the number of cache hits
+     */
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of requests for a block which were not in the cache
+     *
+     * @return the number of cache misses
+     */
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.function.LongConsumer;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
+
+/**
+ * A read-only {@link SeekableByteChannel} over a single resource. The Data
+ * Service only serves a resource as a stream from its start, so data is read
+ * from the stream a whole block at a time into the shared {@link BlockCache}
+ * and served from there. A forward seek reads ahead through the stream, caching
+ * every block it passes, so that a later backward seek to any of them does not
+ * download the resource again. The stream is only reopened for a block which is
+ * behind the stream and has been evicted from the cache.
+ * <p>
+ * The size of a resource is not known until the end of its stream has been
+ * reached, so asking for it reads (and caches) the rest of the resource.
+ *
+ * @since 0.5.0
+ */
+final class BlockChannel implements SeekableByteChannel {
+
+    /**
+     * Opens a new stream of the resource from its start
+     */
+    @FunctionalInterface
+    interface StreamOpener {
+
+        /**
+         * Returns a new stream of the resource from its start
+         *
+         * @return a new stream of the resource
+         * @throws IOException if the resource cannot be downloaded
+         */
+        InputStream open() throws IOException;
+
+    }
+
+    private final String id;
+    private final BlockCache cache;
+    private final int blockSize;
+    private final StreamOpener opener;
+    private final LongConsumer sizeListener;
+
+    private InputStream stream;
+    private long streamBlock;
+    private long position;
+    private long size;
+    private boolean open = true;
+
+    /**
+     * Returns a new channel over the provided resource
+     *
+     * @param id           the resource id, used as the cache key
+     * @param cache        the cache shared by the file system
+     * @param opener       opens a new stream of the resource from its start
+     * @param size         the size of the resource if already known, otherwise -1
+     * @param sizeListener told the size of the resource once its end has been read
+     */
+    BlockChannel(final String id, final BlockCache cache, final StreamOpener opener, final long size, final LongConsumer sizeListener) {
+        this.id = id;
+        this.cache = cache;
+        this.blockSize = cache.getBlockSize();
+        this.opener = opener;
+        this.size = size;
+        this.sizeListener = sizeListener;
+    }
+
+    @Override
+    public synchronized int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        var total = 0;
+        while (dst.hasRemaining()) {
+            var block = block(position / blockSize);
+            var offset = (int) (position % blockSize);
+            if (block == null || offset >= block.length) {
+                break;
+            }
+            var length = Math.min(dst.remaining(), block.length - offset);
+            dst.put(block, offset, length);
+            position += length;
+            total += length;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        checkArgument(newPosition >= 0, "Position cannot be negative: %s", newPosition);
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        while (size < 0) {
+            advance();
+        }
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long newSize) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        open = false;
+        closeStream();
+    }
+
+    /*
+     * Returns the block at the provided index, from the cache if possible, or null
+     * if it is past the end of the resource
+     */
+    private byte[] block(final long index) throws IOException {
+        if (size >= 0 && index * blockSize >= size) {
+            return null;
+        }
+        var cached = cache.get(id, index);
+        if (cached != null) {
+            return cached;
+        }
+        if (stream != null && index < streamBlock) {
+            // the block has been evicted, so start again
+            closeStream();
+        }
+        while (true) {
+            var current = streamBlock;
+            var block = advance();
+            if (current == index) {
+                return block.length > 0 ? block : null;
+            }
+            if (stream == null) {
+                // reached the end before the block
+                return null;
+            }
+        }
+    }
+
+    /*
+     * Reads and caches the next block from the stream, opening it if need be. A
+     * short block marks the end of the resource, at which point the stream is
+     * closed and the size is known.
+     */
+    private byte[] advance() throws IOException {
+        if (stream == null) {
+            stream = opener.open();
+        }
+        var block = stream.readNBytes(blockSize);
+        var index = streamBlock++;
+        if (block.length > 0) {
+            cache.put(id, index, block);
+        }
+        if (block.length < blockSize) {
+            size = index * blockSize + block.length;
+            sizeListener.accept(size);
+            closeStream();
+        }
+        return block;
+    }
+
+    private void closeStream() throws IOException {
+        if (stream != null) {
+            try {
+                stream.close();
+            } finally {
+                stream = null;
+                streamBlock = 0;
+            }
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+}
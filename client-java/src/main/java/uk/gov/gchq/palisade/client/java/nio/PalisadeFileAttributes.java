@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * The basic attributes of a file or directory in a {@link PalisadeFileSystem}.
+ * Palisade does not report times for resources, so these are all the epoch.
+ * The size of a file is only worked out when asked for, as it may mean reading
+ * the file to its end.
+ *
+ * @since 0.5.0
+ */
+final class PalisadeFileAttributes implements BasicFileAttributes {
+
+    /**
+     * The names of the attributes of the "basic" view
+     */
+    static final List<String> NAMES = List.of("lastModifiedTime", "lastAccessTime", "creationTime", "size",
+            "isRegularFile", "isDirectory", "isSymbolicLink", "isOther", "fileKey");
+
+    private static final FileTime EPOCH = FileTime.fromMillis(0);
+
+    private final PalisadeFileSystem fileSystem;
+    private final PalisadePath path;
+    private final String resourceId;
+
+    /**
+     * Returns the attributes of the provided file or directory
+     *
+     * @param fileSystem the file system containing the path
+     * @param path       the path of the file or directory
+     * @param resourceId the id of the resource if a file, otherwise null
+     */
+    PalisadeFileAttributes(final PalisadeFileSystem fileSystem, final PalisadePath path, final String resourceId) {
+        this.fileSystem = fileSystem;
+        this.path = path;
+        this.resourceId = resourceId;
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return EPOCH;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return EPOCH;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return EPOCH;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return resourceId != null;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return resourceId == null;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return false;
+    }
+
+    @Override
+    public boolean isOther() {
+        return false;
+    }
+
+    @Override
+    public long size() {
+        if (resourceId == null) {
+            return 0;
+        }
+        try {
+            return fileSystem.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Object fileKey() {
+        return resourceId;
+    }
+
+    /**
+     * Returns the value of the named attribute of the "basic" view
+     *
+     * @param name the name of the attribute
+     * @return the value of the attribute
+     * @throws IllegalArgumentException if the attribute is not known
+     */
+    Object get(final String name) {
+        switch (name) {
+            case "lastModifiedTime":
+                return lastModifiedTime();
+            case "lastAccessTime":
+                return lastAccessTime();
+            case "creationTime":
+                return creationTime();
+            case "size":
+                return size();
+            case "isRegularFile":
+                return isRegularFile();
+            case "isDirectory":
+                return isDirectory();
+            case "isSymbolicLink":
+                return isSymbolicLink();
+            case "isOther":
+                return isOther();
+            case "fileKey":
+                return fileKey();
+            default:
+                throw new IllegalArgumentException("Unknown attribute: " + name);
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.QueryItem.ItemType;
+import uk.gov.gchq.palisade.client.java.Session;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A read-only file system over the resources returned for a single Palisade
+ * query. The directory tree is built from the query's {@link QueryItem}s, each
+ * resource id being placed at its path (e.g. {@code file:/data/employee.avro}
+ * at {@code /data/employee.avro}). Files are read through a {@link BlockChannel}
+ * whose data is downloaded with the session and held in a {@link BlockCache}
+ * shared by every file.
+ *
+ * @since 0.5.0
+ */
+final class PalisadeFileSystem extends FileSystem {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PalisadeFileSystem.class);
+    private static final String SEPARATOR = "/";
+
+    private final PalisadeFileSystemProvider provider;
+    private final URI spec;
+    private final Session session;
+    private final BlockCache cache;
+    private final PalisadePath root;
+    private final Map<PalisadePath, QueryItem> files = new HashMap<>();
+    private final Map<PalisadePath, Set<PalisadePath>> directories = new HashMap<>();
+    private final Map<PalisadePath, Long> sizes = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    /**
+     * Returns a new file system over the provided query items
+     *
+     * @param provider the provider which created this file system
+     * @param spec     the cluster URI identifying this file system
+     * @param session  the session used to download resources
+     * @param items    the items returned for the query, which are consumed
+     * @param cache    the cache of resource data
+     */
+    PalisadeFileSystem(final PalisadeFileSystemProvider provider, final URI spec, final Session session,
+                       final Stream<QueryItem> items, final BlockCache cache) {
+        this.provider = provider;
+        this.spec = spec;
+        this.session = session;
+        this.cache = cache;
+        this.root = PalisadePath.of(this, SEPARATOR);
+        this.directories.put(root, new TreeSet<>());
+        items.forEach(this::add);
+        LOGGER.debug("Created file system {} with {} files", spec, files.size());
+    }
+
+    private void add(final QueryItem item) {
+        if (item.getType() == ItemType.ERROR) {
+            LOGGER.warn("Skipping error from palisade: {}", item.asError());
+            return;
+        }
+        var path = pathOf(item.asResource().getId());
+        if (path.getNameCount() == 0 || directories.containsKey(path) || hasFileAncestor(path)) {
+            LOGGER.warn("Skipping resource whose path clashes with another: {}", item.asResource().getId());
+            return;
+        }
+        files.put(path, item);
+        var child = path;
+        var parent = (PalisadePath) child.getParent();
+        while (parent != null) {
+            directories.computeIfAbsent(parent, k -> new TreeSet<>()).add(child);
+            child = parent;
+            parent = (PalisadePath) child.getParent();
+        }
+    }
+
+    private boolean hasFileAncestor(final PalisadePath path) {
+        for (var parent = path.getParent(); parent != null; parent = parent.getParent()) {
+            if (files.containsKey(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * The path part of the resource id if it is a URI with one, such as
+     * file:/data/employee.avro, otherwise the whole id beneath the root
+     */
+    private PalisadePath pathOf(final String id) {
+        String path;
+        try {
+            var uri = URI.create(id);
+            path = uri.getPath() != null ? uri.getPath() : uri.getSchemeSpecificPart();
+        } catch (IllegalArgumentException e) {
+            path = id;
+        }
+        return (PalisadePath) root.resolve(path).normalize();
+    }
+
+    URI getSpec() {
+        return spec;
+    }
+
+    BlockCache getCache() {
+        return cache;
+    }
+
+    /*
+     * The absolute, normalised form of the provided path, used for lookups
+     */
+    private static PalisadePath key(final PalisadePath path) {
+        return (PalisadePath) path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Returns the query item of the file at the provided path, or null if there
+     * is no such file
+     *
+     * @param path the path of a file
+     * @return the query item of the file, or null
+     */
+    QueryItem getFile(final PalisadePath path) {
+        ensureOpen();
+        return files.get(key(path));
+    }
+
+    /**
+     * Returns whether there is a directory at the provided path
+     *
+     * @param path the path of a directory
+     * @return true if there is a directory at the provided path
+     */
+    boolean isDirectory(final PalisadePath path) {
+        ensureOpen();
+        return directories.containsKey(key(path));
+    }
+
+    /**
+     * Returns the (absolute) paths of the children of the directory at the
+     * provided path, in order
+     *
+     * @param path the path of a directory
+     * @return the paths of the directory's children, or null if it is not a directory
+     */
+    Set<PalisadePath> getChildren(final PalisadePath path) {
+        ensureOpen();
+        return directories.get(key(path));
+    }
+
+    /**
+     * Returns a new channel reading the file at the provided path
+     *
+     * @param path the path of a file
+     * @return a new channel reading the file
+     * @throws IOException if there is no file at the path
+     */
+    BlockChannel newChannel(final PalisadePath path) throws IOException {
+        var item = getFile(path);
+        if (item == null) {
+            if (isDirectory(path)) {
+                throw new FileSystemException(path.toString(), null, "Is a directory");
+            }
+            throw new NoSuchFileException(path.toString());
+        }
+        var key = key(path);
+        return new BlockChannel(item.asResource().getId(), cache,
+                () -> session.fetch(item).getInputStream(),
+                sizes.getOrDefault(key, -1L),
+                size -> sizes.put(key, size));
+    }
+
+    /**
+     * Returns the size of the file at the provided path, reading it to its end if
+     * the size is not yet known
+     *
+     * @param path the path of a file
+     * @return the size of the file
+     * @throws IOException if the file cannot be read
+     */
+    long size(final PalisadePath path) throws IOException {
+        var size = sizes.get(key(path));
+        if (size != null) {
+            return size;
+        }
+        try (var channel = newChannel(path)) {
+            return channel.size();
+        }
+    }
+
+    @Override
+    public PalisadeFileSystemProvider provider() {
+        return provider;
+    }
+
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            provider.remove(spec);
+            cache.clear();
+            session.close();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String getSeparator() {
+        return SEPARATOR;
+    }
+
+    @Override
+    public Iterable<Path> getRootDirectories() {
+        return List.of(root);
+    }
+
+    @Override
+    public Iterable<FileStore> getFileStores() {
+        return List.of();
+    }
+
+    @Override
+    public Set<String> supportedFileAttributeViews() {
+        return Set.of("basic");
+    }
+
+    @Override
+    public Path getPath(final String first, final String... more) {
+        return PalisadePath.of(this, first, more);
+    }
+
+    @Override
+    public PathMatcher getPathMatcher(final String syntaxAndPattern) {
+        // both file systems use the same syntax for glob and regex patterns over unix-style paths
+        var matcher = FileSystems.getDefault().getPathMatcher(syntaxAndPattern);
+        return (final Path path) -> matcher.matches(Path.of(path.toString()));
+    }
+
+    @Override
+    public UserPrincipalLookupService getUserPrincipalLookupService() {
+        throw new UnsupportedOperationException("Palisade file systems do not have user principals");
+    }
+
+    @Override
+    public WatchService newWatchService() {
+        throw new UnsupportedOperationException("Palisade file systems cannot be watched");
+    }
+
+    private void ensureOpen() {
+        if (!open) {
+            throw new ClosedFileSystemException();
+        }
+    }
+
+}
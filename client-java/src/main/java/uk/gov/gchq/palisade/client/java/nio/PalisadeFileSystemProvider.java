@@ -0,0 +1,368 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import uk.gov.gchq.palisade.client.java.ClientManager;
+import uk.gov.gchq.palisade.client.java.QueryResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.DirectoryStream.Filter;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
+
+/**
+ * A read-only {@link FileSystemProvider} for the {@code pal} scheme, giving
+ * {@link Path} and {@link SeekableByteChannel} access to the resources returned
+ * by a Palisade query, for libraries which expect files rather than streams.
+ * <p>
+ * A file system is created with the same URI used to open a session, plus the
+ * query in the environment:
+ * <pre>{@code
+ * var fs = FileSystems.newFileSystem(
+ *         URI.create("pal://localhost:8081/cluster?userid=alice"),
+ *         Map.of(PalisadeFileSystemProvider.RESOURCE, "file:/data/employees"));
+ * try (var files = Files.walk(fs.getPath("/"))) {
+ *     files.filter(Files::isRegularFile).forEach(...);
+ * }
+ * }</pre>
+ * The query is executed once, when the file system is created, and every
+ * resource it returns is placed at the path part of its id. Only one file
+ * system may be open per URI at a time. The path of a file within it is carried
+ * in the fragment of its URI, e.g. {@code pal://localhost:8081/cluster?userid=alice#/data/employees/0.avro}.
+ * <p>
+ * Data is read in blocks into a cache shared by every file in the file system,
+ * so random access (e.g. reading a footer, then seeking back to a row group) is
+ * served from the cache rather than by downloading the resource again.
+ *
+ * @since 0.5.0
+ */
+public class PalisadeFileSystemProvider extends FileSystemProvider {
+
+    /**
+     * The scheme handled by this provider
+     */
+    public static final String SCHEME = "pal";
+
+    /**
+     * Environment key for the resource to query.
+     * <p>
+     * Required
+     */
+    public static final String RESOURCE = "resource";
+
+    /**
+     * Environment key for the context (a {@code Map<String, String>}) sent with the query.
+     * <p>
+     * Optional, default empty
+     */
+    public static final String CONTEXT = "context";
+
+    /**
+     * Environment key for the number of bytes downloaded into the cache at a time.
+     * <p>
+     * Optional, default '1048576' (1MiB)
+     */
+    public static final String BLOCK_SIZE = "block.size";
+
+    /**
+     * Environment key for the maximum number of bytes of resource data cached.
+     * <p>
+     * Optional, default '67108864' (64MiB)
+     */
+    public static final String CACHE_BYTES = "cache.bytes";
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    private static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final String BASIC_VIEW = "basic";
+
+    private final Map<URI, PalisadeFileSystem> fileSystems = new ConcurrentHashMap<>();
+
+    @Override
+    public String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public FileSystem newFileSystem(final URI uri, final Map<String, ?> env) throws IOException {
+        var spec = specOf(uri);
+        Map<String, Object> environment = new HashMap<>(env);
+        var resource = environment.get(RESOURCE);
+        checkArgument(resource != null, "Missing '%s' in the environment", RESOURCE);
+        @SuppressWarnings("unchecked")
+        var context = (Map<String, String>) environment.getOrDefault(CONTEXT, Map.of());
+        var blockSize = Integer.parseInt(String.valueOf(environment.getOrDefault(BLOCK_SIZE, DEFAULT_BLOCK_SIZE)));
+        var cacheBytes = Long.parseLong(String.valueOf(environment.getOrDefault(CACHE_BYTES, DEFAULT_CACHE_BYTES)));
+        checkArgument(blockSize > 0, "Block size must be positive: %s", blockSize);
+        if (fileSystems.containsKey(spec)) {
+            throw new FileSystemAlreadyExistsException(spec.toString());
+        }
+
+        var session = ClientManager.openSession(spec.toString());
+        QueryResponse response;
+        try {
+            response = session.createQuery(resource.toString(), context).execute().join();
+        } catch (CompletionException e) {
+            session.close();
+            throw new IOException("Failed to execute query for " + resource, e.getCause());
+        }
+
+        PalisadeFileSystem fileSystem;
+        try (var items = response.toStream(false)) {
+            fileSystem = new PalisadeFileSystem(this, spec, session, items, new BlockCache(blockSize, cacheBytes));
+        }
+        if (fileSystems.putIfAbsent(spec, fileSystem) != null) {
+            session.close();
+            throw new FileSystemAlreadyExistsException(spec.toString());
+        }
+        return fileSystem;
+    }
+
+    @Override
+    public FileSystem getFileSystem(final URI uri) {
+        var fileSystem = fileSystems.get(specOf(uri));
+        if (fileSystem == null) {
+            throw new FileSystemNotFoundException(uri.toString());
+        }
+        return fileSystem;
+    }
+
+    @Override
+    public Path getPath(final URI uri) {
+        var fragment = uri.getFragment();
+        return getFileSystem(uri).getPath(fragment != null && !fragment.isEmpty() ? fragment : "/");
+    }
+
+    void remove(final URI spec) {
+        fileSystems.remove(spec);
+    }
+
+    /*
+     * The URI of a file system is that of a path within it, less the fragment
+     */
+    private static URI specOf(final URI uri) {
+        checkArgument(SCHEME.equalsIgnoreCase(uri.getScheme()), "URI scheme is not '%s': %s", SCHEME, uri);
+        try {
+            return new URI(uri.getScheme(), uri.getSchemeSpecificPart(), null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URI: " + uri, e);
+        }
+    }
+
+    private static PalisadePath check(final Path path) {
+        if (!(path instanceof PalisadePath)) {
+            throw new ProviderMismatchException("Not a Palisade path: " + path);
+        }
+        return (PalisadePath) path;
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(final Path path, final Set<? extends OpenOption> options,
+                                              final FileAttribute<?>... attrs) throws IOException {
+        if (options.contains(StandardOpenOption.WRITE) || options.contains(StandardOpenOption.APPEND)) {
+            throw new ReadOnlyFileSystemException();
+        }
+        var palisadePath = check(path);
+        return palisadePath.getFileSystem().newChannel(palisadePath);
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(final Path dir, final Filter<? super Path> filter) throws IOException {
+        var palisadePath = check(dir);
+        var children = palisadePath.getFileSystem().getChildren(palisadePath);
+        if (children == null) {
+            if (palisadePath.getFileSystem().getFile(palisadePath) != null) {
+                throw new NotDirectoryException(dir.toString());
+            }
+            throw new NoSuchFileException(dir.toString());
+        }
+        // children are returned relative to the directory as given, as with the default file system
+        var paths = children.stream()
+                .map(child -> dir.resolve(child.getFileName()))
+                .collect(Collectors.toList());
+        return new DirectoryStream<>() {
+            @Override
+            public Iterator<Path> iterator() {
+                return paths.stream()
+                        .filter((final Path entry) -> {
+                            try {
+                                return filter.accept(entry);
+                            } catch (IOException e) {
+                                throw new DirectoryIteratorException(e);
+                            }
+                        })
+                        .iterator();
+            }
+
+            @Override
+            public void close() {
+                // nothing to release, the listing is held in memory
+            }
+        };
+    }
+
+    @Override
+    public void createDirectory(final Path dir, final FileAttribute<?>... attrs) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void delete(final Path path) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void copy(final Path source, final Path target, final CopyOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public void move(final Path source, final Path target, final CopyOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    @Override
+    public boolean isSameFile(final Path path, final Path path2) {
+        return path2 instanceof PalisadePath
+                && check(path).toAbsolutePath().normalize().equals(path2.toAbsolutePath().normalize());
+    }
+
+    @Override
+    public boolean isHidden(final Path path) {
+        return false;
+    }
+
+    @Override
+    public FileStore getFileStore(final Path path) {
+        throw new UnsupportedOperationException("Palisade file systems do not have file stores");
+    }
+
+    @Override
+    public void checkAccess(final Path path, final AccessMode... modes) throws IOException {
+        var attributes = attributesOf(check(path));
+        for (AccessMode mode : modes) {
+            if (mode == AccessMode.WRITE || (mode == AccessMode.EXECUTE && attributes.isRegularFile())) {
+                throw new AccessDeniedException(path.toString());
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V extends FileAttributeView> V getFileAttributeView(final Path path, final Class<V> type, final LinkOption... options) {
+        var palisadePath = check(path);
+        if (type != BasicFileAttributeView.class) {
+            return null;
+        }
+        return (V) new BasicFileAttributeView() {
+            @Override
+            public String name() {
+                return BASIC_VIEW;
+            }
+
+            @Override
+            public BasicFileAttributes readAttributes() throws IOException {
+                return attributesOf(palisadePath);
+            }
+
+            @Override
+            public void setTimes(final FileTime lastModifiedTime, final FileTime lastAccessTime, final FileTime createTime) {
+                throw new ReadOnlyFileSystemException();
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends BasicFileAttributes> A readAttributes(final Path path, final Class<A> type, final LinkOption... options) throws IOException {
+        if (!type.isAssignableFrom(PalisadeFileAttributes.class)) {
+            throw new UnsupportedOperationException("Unsupported attributes: " + type.getName());
+        }
+        return (A) attributesOf(check(path));
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(final Path path, final String attributes, final LinkOption... options) throws IOException {
+        var names = attributes;
+        var colon = attributes.indexOf(':');
+        if (colon >= 0) {
+            var view = attributes.substring(0, colon);
+            if (!view.equals(BASIC_VIEW)) {
+                throw new UnsupportedOperationException("Unsupported attribute view: " + view);
+            }
+            names = attributes.substring(colon + 1);
+        }
+        // attributes are only read if asked for, as the size may mean reading the whole file
+        var fileAttributes = attributesOf(check(path));
+        var selected = new LinkedHashMap<String, Object>();
+        for (String name : names.equals("*") ? PalisadeFileAttributes.NAMES : List.of(names.split(","))) {
+            selected.put(name, fileAttributes.get(name));
+        }
+        return selected;
+    }
+
+    @Override
+    public void setAttribute(final Path path, final String attribute, final Object value, final LinkOption... options) {
+        throw new ReadOnlyFileSystemException();
+    }
+
+    private static PalisadeFileAttributes attributesOf(final PalisadePath path) throws NoSuchFileException {
+        var fileSystem = path.getFileSystem();
+        var item = fileSystem.getFile(path);
+        if (item != null) {
+            return new PalisadeFileAttributes(fileSystem, path, item.asResource().getId());
+        }
+        if (fileSystem.isDirectory(path)) {
+            return new PalisadeFileAttributes(fileSystem, path, null);
+        }
+        throw new NoSuchFileException(path.toString());
+    }
+
+}
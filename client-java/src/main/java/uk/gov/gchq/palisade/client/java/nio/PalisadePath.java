@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchEvent.Modifier;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
+
+/**
+ * A unix-style path within a {@link PalisadeFileSystem}. A path is either
+ * absolute, starting at the root {@code /}, or relative and is held as its
+ * sequence of names. Paths are only resolved against the file system when
+ * they are used, so a path need not exist.
+ *
+ * @since 0.5.0
+ */
+final class PalisadePath implements Path {
+
+    private static final String SEPARATOR = "/";
+
+    private final PalisadeFileSystem fileSystem;
+    private final boolean absolute;
+    private final List<String> names;
+
+    private PalisadePath(final PalisadeFileSystem fileSystem, final boolean absolute, final List<String> names) {
+        this.fileSystem = fileSystem;
+        this.absolute = absolute;
+        this.names = names;
+    }
+
+    /**
+     * Returns the path made by joining the provided strings with the separator
+     *
+     * @param fileSystem the file system owning the path
+     * @param first      the first part of the path
+     * @param more       any further parts of the path
+     * @return a new path
+     */
+    static PalisadePath of(final PalisadeFileSystem fileSystem, final String first, final String... more) {
+        var joined = new StringBuilder(first);
+        for (String part : more) {
+            if (!part.isEmpty()) {
+                joined.append(SEPARATOR).append(part);
+            }
+        }
+        var string = joined.toString();
+        checkArgument(string.indexOf('\0') < 0, "Path cannot contain NUL: %s", string);
+        var names = new ArrayList<String>();
+        for (String name : string.split(SEPARATOR)) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return new PalisadePath(fileSystem, string.startsWith(SEPARATOR), List.copyOf(names));
+    }
+
+    @Override
+    public PalisadeFileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return absolute;
+    }
+
+    @Override
+    public Path getRoot() {
+        return absolute ? new PalisadePath(fileSystem, true, List.of()) : null;
+    }
+
+    @Override
+    public Path getFileName() {
+        return names.isEmpty() ? null : new PalisadePath(fileSystem, false, List.of(names.get(names.size() - 1)));
+    }
+
+    @Override
+    public Path getParent() {
+        if (names.isEmpty() || (names.size() == 1 && !absolute)) {
+            return null;
+        }
+        return new PalisadePath(fileSystem, absolute, names.subList(0, names.size() - 1));
+    }
+
+    @Override
+    public int getNameCount() {
+        return names.size();
+    }
+
+    @Override
+    public Path getName(final int index) {
+        return subpath(index, index + 1);
+    }
+
+    @Override
+    public Path subpath(final int beginIndex, final int endIndex) {
+        if (beginIndex < 0 || endIndex > names.size() || beginIndex >= endIndex) {
+            throw new IllegalArgumentException(String.format("Invalid subpath [%d, %d) of %s", beginIndex, endIndex, this));
+        }
+        return new PalisadePath(fileSystem, false, names.subList(beginIndex, endIndex));
+    }
+
+    @Override
+    public boolean startsWith(final Path other) {
+        if (!(other instanceof PalisadePath)) {
+            return false;
+        }
+        var that = (PalisadePath) other;
+        return that.fileSystem == fileSystem
+                && that.absolute == absolute
+                && that.names.size() <= names.size()
+                && names.subList(0, that.names.size()).equals(that.names);
+    }
+
+    @Override
+    public boolean endsWith(final Path other) {
+        if (!(other instanceof PalisadePath)) {
+            return false;
+        }
+        var that = (PalisadePath) other;
+        if (that.absolute) {
+            return equals(that);
+        }
+        return that.fileSystem == fileSystem
+                && that.names.size() <= names.size()
+                && names.subList(names.size() - that.names.size(), names.size()).equals(that.names);
+    }
+
+    @Override
+    public Path normalize() {
+        Deque<String> normal = new ArrayDeque<>();
+        for (String name : names) {
+            if ("..".equals(name) && !normal.isEmpty() && !"..".equals(normal.peekLast())) {
+                normal.removeLast();
+            } else if ("..".equals(name) && absolute) {
+                // cannot go above the root
+                continue;
+            } else if (!".".equals(name)) {
+                normal.addLast(name);
+            }
+        }
+        return new PalisadePath(fileSystem, absolute, List.copyOf(normal));
+    }
+
+    @Override
+    public Path resolve(final Path other) {
+        var that = check(other);
+        if (that.absolute) {
+            return that;
+        }
+        if (that.names.isEmpty()) {
+            return this;
+        }
+        var joined = new ArrayList<>(names);
+        joined.addAll(that.names);
+        return new PalisadePath(fileSystem, absolute, List.copyOf(joined));
+    }
+
+    @Override
+    public Path resolve(final String other) {
+        return resolve(of(fileSystem, other));
+    }
+
+    @Override
+    public Path relativize(final Path other) {
+        var that = check(other);
+        checkArgument(that.absolute == absolute, "Cannot relativize %s against %s", that, this);
+        var common = 0;
+        while (common < names.size() && common < that.names.size() && names.get(common).equals(that.names.get(common))) {
+            common++;
+        }
+        var relative = new ArrayList<String>();
+        for (int i = common; i < names.size(); i++) {
+            relative.add("..");
+        }
+        relative.addAll(that.names.subList(common, that.names.size()));
+        return new PalisadePath(fileSystem, false, List.copyOf(relative));
+    }
+
+    @Override
+    public URI toUri() {
+        var spec = fileSystem.getSpec();
+        try {
+            return new URI(spec.getScheme(), spec.getSchemeSpecificPart(), toAbsolutePath().toString());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Failed to create URI for " + this, e);
+        }
+    }
+
+    @Override
+    public PalisadePath toAbsolutePath() {
+        // the working directory is always the root
+        return absolute ? this : new PalisadePath(fileSystem, true, names);
+    }
+
+    @Override
+    public Path toRealPath(final LinkOption... options) throws IOException {
+        var real = (PalisadePath) toAbsolutePath().normalize();
+        fileSystem.provider().checkAccess(real);
+        return real;
+    }
+
+    @Override
+    public WatchKey register(final WatchService watcher, final Kind<?>[] events, final Modifier... modifiers) {
+        throw new UnsupportedOperationException("Palisade file systems cannot be watched");
+    }
+
+    @Override
+    public int compareTo(final Path other) {
+        return toString().compareTo(check(other).toString());
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PalisadePath)) {
+            return false;
+        }
+        var that = (PalisadePath) other;
+        return fileSystem == that.fileSystem && absolute == that.absolute && names.equals(that.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{absolute, names});
+    }
+
+    @Override
+    public String toString() {
+        var joined = String.join(SEPARATOR, names);
+        return absolute ? SEPARATOR + joined : joined;
+    }
+
+    private PalisadePath check(final Path other) {
+        if (!(other instanceof PalisadePath) || ((PalisadePath) other).fileSystem != fileSystem) {
+            throw new ProviderMismatchException("Not a path on this file system: " + other);
+        }
+        return (PalisadePath) other;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.record;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Set;
+
+/**
+ * Built-in decoders for line-delimited formats such as plain text, CSV and JSON
+ * lines. Lines are terminated by {@code \n}, {@code \r} or {@code \r\n}, which is
+ * not included in the record, and are decoded using the charset given in the
+ * serialised format (defaulting to UTF-8).
+ *
+ * @since 0.5.0
+ */
+public final class LineDecoder {
+
+    private static final Set<String> MEDIA_TYPES = Set.of(
+            "text/plain",
+            "text/csv",
+            "text/tab-separated-values",
+            "application/x-ndjson",
+            "application/jsonl",
+            "application/x-jsonlines");
+
+    private static final RecordDecoder<String> STRINGS = new RecordDecoder<>() {
+        @Override
+        public boolean supports(final String serialisedFormat) {
+            return LineDecoder.supports(serialisedFormat);
+        }
+
+        @Override
+        public RecordReader<String> open(final InputStream input, final String serialisedFormat) {
+            var lines = lines(input, serialisedFormat);
+            var line = new StringBuilder();
+            return new RecordReader<>() {
+                @Override
+                public String read(final String reuse) throws IOException {
+                    return lines.readLine(line) ? line.toString() : null;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    lines.close();
+                }
+            };
+        }
+    };
+
+    private static final RecordDecoder<StringBuilder> BUILDERS = new RecordDecoder<>() {
+        @Override
+        public boolean supports(final String serialisedFormat) {
+            return LineDecoder.supports(serialisedFormat);
+        }
+
+        @Override
+        public RecordReader<StringBuilder> open(final InputStream input, final String serialisedFormat) {
+            var lines = lines(input, serialisedFormat);
+            return new RecordReader<>() {
+                @Override
+                public StringBuilder read(final StringBuilder reuse) throws IOException {
+                    var line = reuse != null ? reuse : new StringBuilder();
+                    return lines.readLine(line) ? line : null;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    lines.close();
+                }
+            };
+        }
+    };
+
+    private LineDecoder() {
+        // Hide public constructor for utility class
+    }
+
+    /**
+     * Returns a decoder which reads each line as a new {@code String}
+     *
+     * @return a line decoder
+     */
+    public static RecordDecoder<String> strings() {
+        return STRINGS;
+    }
+
+    /**
+     * Returns a decoder which reads each line into a {@code StringBuilder}. When
+     * a previous record is passed back for reuse, the next line is read into it,
+     * so no objects are allocated per line.
+     *
+     * @return a line decoder which supports object reuse
+     */
+    public static RecordDecoder<StringBuilder> builders() {
+        return BUILDERS;
+    }
+
+    /**
+     * Returns true if the provided serialised format is a line-delimited format
+     * handled by these decoders
+     *
+     * @param serialisedFormat the serialised format of the resource
+     * @return true if the format is line-delimited
+     */
+    public static boolean supports(final String serialisedFormat) {
+        return serialisedFormat != null && MEDIA_TYPES.contains(RecordDecoders.mediaType(serialisedFormat));
+    }
+
+    private static LineReader lines(final InputStream input, final String serialisedFormat) {
+        return new LineReader(new InputStreamReader(input, RecordDecoders.charset(serialisedFormat)));
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * An unsynchronised line reader which, unlike {@code BufferedReader}, reads each
+ * line into a caller supplied {@code StringBuilder}
+ *
+ * @since 0.5.0
+ */
+final class LineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+
+    LineReader(final Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next line into the provided builder, replacing its contents
+     *
+     * @param line the builder to read the line into
+     * @return true if a line was read, false at the end of the stream
+     * @throws IOException if the underlying reader fails
+     */
+    boolean readLine(final StringBuilder line) throws IOException {
+        line.setLength(0);
+        var read = false;
+        for (;;) {
+            if (position >= limit && !fill()) {
+                return read;
+            }
+            if (skipLineFeed) {
+                // the second half of a \r\n line terminator
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            var start = position;
+            while (position < limit) {
+                var ch = buffer[position++];
+                if (ch == '\n' || ch == '\r') {
+                    line.append(buffer, start, position - start - 1);
+                    skipLineFeed = ch == '\r';
+                    return true;
+                }
+            }
+            line.append(buffer, start, position - start);
+            read = true;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+        return limit > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
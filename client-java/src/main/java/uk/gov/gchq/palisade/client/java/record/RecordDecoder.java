@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.record;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@code RecordDecoder} turns the stream of bytes of a downloaded resource into
+ * a sequence of records. Decoders other than the built-in {@link LineDecoder}
+ * (e.g. for Avro) may be added by registering an implementation with the
+ * {@link java.util.ServiceLoader}, in which case they will be chosen for any
+ * resource whose serialised format they {@link #supports(String) support}.
+ *
+ * @param <T> the type of record decoded
+ * @since 0.5.0
+ */
+public interface RecordDecoder<T> {
+
+    /**
+     * Returns true if this decoder can read resources with the provided serialised
+     * format. The default implementation supports no formats, so the decoder will
+     * only be used when given explicitly.
+     *
+     * @param serialisedFormat the serialised format of the resource, e.g.
+     *                         {@code text/csv; charset=UTF-8}
+     * @return true if the format is supported
+     */
+    default boolean supports(final String serialisedFormat) {
+        return false;
+    }
+
+    /**
+     * Returns a new reader of records from the provided stream
+     *
+     * @param input            the stream of bytes of the resource
+     * @param serialisedFormat the serialised format of the resource, or null if
+     *                         not known
+     * @return a new record reader
+     * @throws IOException if the stream cannot be read
+     */
+    RecordReader<T> open(InputStream input, String serialisedFormat) throws IOException;
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.record;
+
+import uk.gov.gchq.palisade.client.java.ClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Spliterator;
+import java.util.Spliterators.AbstractSpliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Finds the {@link RecordDecoder} for a serialised format and streams the records
+ * read by a decoder
+ *
+ * @since 0.5.0
+ */
+public final class RecordDecoders {
+
+    private static final String CHARSET = "charset=";
+
+    /*
+     * Those registered on the classpath take precedence over the built-in ones
+     */
+    private static final List<RecordDecoder<?>> DECODERS = loadDecoders();
+
+    private RecordDecoders() {
+        // Hide public constructor for utility class
+    }
+
+    /**
+     * Returns the decoder to use for the provided serialised format
+     *
+     * @param serialisedFormat the serialised format of the resource
+     * @return the decoder, or empty if no decoder supports the format
+     */
+    public static Optional<RecordDecoder<?>> forFormat(final String serialisedFormat) {
+        if (serialisedFormat == null) {
+            return Optional.empty();
+        }
+        return DECODERS.stream()
+                .filter(decoder -> decoder.supports(serialisedFormat))
+                .findFirst();
+    }
+
+    /**
+     * Returns a sequential stream of the records read from {@code input} by the
+     * provided {@code decoder}. Records are never passed back to the decoder for
+     * reuse, so each is a new instance which may be kept, collected or sorted. The
+     * input is read lazily and is closed when the stream is closed.
+     *
+     * @param <T>              the type of record
+     * @param decoder          the decoder
+     * @param input            the stream of bytes of the resource
+     * @param serialisedFormat the serialised format of the resource, or null if
+     *                         not known
+     * @return a stream of records
+     * @throws ClientException if the reader could not be opened
+     */
+    public static <T> Stream<T> stream(final RecordDecoder<T> decoder, final InputStream input, final String serialisedFormat) {
+        RecordReader<T> reader;
+        try {
+            reader = decoder.open(input, serialisedFormat);
+        } catch (IOException e) {
+            closeQuietly(input);
+            throw new ClientException("Failed to open record reader", e);
+        }
+        return StreamSupport.stream(new RecordSpliterator<>(reader), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Reads every record from {@code input} with the provided {@code decoder},
+     * passing each to {@code action}. Each record is passed back to the decoder
+     * once the action returns, so a decoder which supports reuse may overwrite it
+     * with the next record: the action must not keep a record, or anything it
+     * refers to, once it has returned. The input is closed once every record has
+     * been read.
+     *
+     * @param <T>              the type of record
+     * @param decoder          the decoder
+     * @param input            the stream of bytes of the resource
+     * @param serialisedFormat the serialised format of the resource, or null if
+     *                         not known
+     * @param action           the action run with each record
+     * @throws ClientException if the records could not be read
+     */
+    public static <T> void forEachReusing(final RecordDecoder<T> decoder, final InputStream input, final String serialisedFormat,
+                                          final Consumer<? super T> action) {
+        RecordReader<T> reader;
+        try {
+            reader = decoder.open(input, serialisedFormat);
+        } catch (IOException e) {
+            closeQuietly(input);
+            throw new ClientException("Failed to open record reader", e);
+        }
+        try (reader) {
+            for (var record = reader.read(null); record != null; record = reader.read(record)) {
+                action.accept(record);
+            }
+        } catch (IOException e) {
+            throw new ClientException("Failed to read record", e);
+        }
+    }
+
+    /**
+     * Returns the media type of the provided serialised format, without any
+     * parameters and in lower case
+     *
+     * @param serialisedFormat the serialised format, e.g.
+     *                         {@code text/csv; charset=UTF-8}
+     * @return the media type, e.g. {@code text/csv}
+     */
+    public static String mediaType(final String serialisedFormat) {
+        var end = serialisedFormat.indexOf(';');
+        var mediaType = end < 0 ? serialisedFormat : serialisedFormat.substring(0, end);
+        return mediaType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the charset parameter of the provided serialised format
+     *
+     * @param serialisedFormat the serialised format, or null
+     * @return the charset, or UTF-8 if none (or an unknown one) was given
+     */
+    public static Charset charset(final String serialisedFormat) {
+        if (serialisedFormat != null) {
+            for (String parameter : serialisedFormat.split(";")) {
+                var trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, CHARSET, 0, CHARSET.length())) {
+                    try {
+                        return Charset.forName(trimmed.substring(CHARSET.length()).replace("\"", ""));
+                    } catch (IllegalArgumentException e) {
+                        return StandardCharsets.UTF_8;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static List<RecordDecoder<?>> loadDecoders() {
+        var decoders = new ArrayList<RecordDecoder<?>>();
+        ServiceLoader.load(RecordDecoder.class).forEach(decoders::add);
+        decoders.add(LineDecoder.strings());
+        return List.copyOf(decoders);
+    }
+
+    private static void closeQuietly(final InputStream input) {
+        try {
+            input.close();
+        } catch (IOException e) {
+            // ignore, the open failure is reported instead
+        }
+    }
+
+    private static final class RecordSpliterator<T> extends AbstractSpliterator<T> {
+
+        private final RecordReader<T> reader;
+
+        private RecordSpliterator(final RecordReader<T> reader) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            T next;
+            try {
+                next = reader.read(null);
+            } catch (IOException e) {
+                throw new ClientException("Failed to read record", e);
+            }
+            if (next == null) {
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+    }
+
+}
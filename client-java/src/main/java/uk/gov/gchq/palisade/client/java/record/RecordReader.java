@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of a single resource, one at a time. Closing the reader
+ * closes the underlying stream.
+ *
+ * @param <T> the type of record read
+ * @since 0.5.0
+ */
+public interface RecordReader<T> extends Closeable {
+
+    /**
+     * Returns the next record, or null if there are no more. If the decoder
+     * supports object reuse, the contents of {@code reuse} may be overwritten and
+     * it returned as the next record, so the caller must not hold on to a record
+     * once it has been passed back in.
+     *
+     * @param reuse a previously returned record which may be reused, or null
+     * @return the next record, or null at the end of the resource
+     * @throws IOException if the record cannot be read
+     */
+    T read(T reuse) throws IOException;
+
+}
@@ -66,4 +66,17 @@ class ClientManagerTest {
                 .isEqualTo(URI.create("ws://localhost/cluster/filteredResource/resource/%25t"));
 
     }
+
+    @Test
+    void testOpenSessionIsShared() {
+        var serviceUrl = "pal://localhost:1234/shared?userid=alice";
+        try (var first = openSession(serviceUrl); var second = openSession(serviceUrl)) {
+            assertThat(first)
+                    .as("check each open returns a new session")
+                    .isNotSameAs(second);
+            assertThat(((DefaultSession) first).getHttpClient())
+                    .as("check sessions for equal URLs share the same underlying session")
+                    .isSameAs(((DefaultSession) second).getHttpClient());
+        }
+    }
 }
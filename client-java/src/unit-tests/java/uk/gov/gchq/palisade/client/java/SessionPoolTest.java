@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.internal.dft.DefaultClient;
+import uk.gov.gchq.palisade.client.java.internal.dft.DefaultSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class SessionPoolTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> opened = new ArrayList<>();
+    private final List<String> closed = new ArrayList<>();
+    private SessionPool pool;
+
+    @BeforeEach
+    void setup() {
+        pool = new SessionPool(this::connect, Duration.ofSeconds(60), clock::get);
+    }
+
+    private Session connect(final String url) {
+        opened.add(url);
+        return new Session() {
+            @Override
+            public Query createQuery(final String queryString, final Map<String, String> properties) {
+                return null;
+            }
+
+            @Override
+            public Download fetch(final QueryItem queryItem) {
+                return null;
+            }
+
+            @Override
+            public Stream<Download> fetchBatch(final List<QueryItem> queryItems) {
+                return Stream.empty();
+            }
+
+            @Override
+            public void close() {
+                closed.add(url);
+            }
+        };
+    }
+
+    @Test
+    void testEqualUrlsShareSession() {
+        var first = (SessionPool.PooledSession) pool.open("pal://a");
+        var second = (SessionPool.PooledSession) pool.open("pal://a");
+        var other = (SessionPool.PooledSession) pool.open("pal://b");
+
+        assertThat(first.getSession())
+                .as("check equal URLs share a session")
+                .isSameAs(second.getSession());
+        assertThat(other.getSession())
+                .as("check different URLs do not share a session")
+                .isNotSameAs(first.getSession());
+        assertThat(opened)
+                .as("check a session is only connected once per URL")
+                .containsExactly("pal://a", "pal://b");
+    }
+
+    @Test
+    void testIdleSessionIsEvicted() {
+        var first = pool.open("pal://a");
+        var second = pool.open("pal://a");
+        first.close();
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        pool.evictIdle();
+
+        assertThat(closed)
+                .as("check a session with an open handle is not evicted")
+                .isEmpty();
+
+        second.close();
+        clock.addAndGet(Duration.ofSeconds(59).toNanos());
+        pool.evictIdle();
+        assertThat(closed)
+                .as("check a session is not evicted before the idle timeout")
+                .isEmpty();
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        pool.evictIdle();
+        assertThat(closed)
+                .as("check an idle session is closed once evicted")
+                .containsExactly("pal://a");
+        assertThat(pool.size())
+                .as("check an idle session is removed from the pool")
+                .isZero();
+
+        pool.open("pal://a").close();
+        assertThat(opened)
+                .as("check a new session is connected once the old one was evicted")
+                .containsExactly("pal://a", "pal://a");
+    }
+
+    @Test
+    void testEvictedDefaultSessionIsClosed() {
+        var connected = new ArrayList<DefaultSession>();
+        var defaultPool = new SessionPool((final String url) -> {
+            var session = new DefaultClient().connect(url);
+            connected.add(session);
+            return session;
+        }, Duration.ofSeconds(60), clock::get);
+
+        var handle = (DefaultSession) defaultPool.open("pal://localhost:1234/cluster?userid=alice");
+        var shared = connected.get(0);
+        handle.close();
+        assertThat(shared.isClosed())
+                .as("check closing a handle does not close the shared session")
+                .isFalse();
+
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        defaultPool.evictIdle();
+        assertThat(shared.isClosed())
+                .as("check an evicted session is closed")
+                .isTrue();
+        assertThat(shared.getHttpClient().executor())
+                .as("check the threads of the evicted session's http client are stopped")
+                .hasValueSatisfying(executor -> assertThat(((ExecutorService) executor).isShutdown()).isTrue());
+        assertThatExceptionOfType(ClientException.class)
+                .as("check an evicted session cannot be used")
+                .isThrownBy(() -> shared.createQuery("resource_id"));
+    }
+
+    @Test
+    void testReopenedSessionIsKept() {
+        pool.open("pal://a").close();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        var reopened = pool.open("pal://a");
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        pool.evictIdle();
+
+        assertThat(closed)
+                .as("check a session reopened while idle is not evicted")
+                .isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void testCloseIsIdempotent() {
+        var first = pool.open("pal://a");
+        var second = pool.open("pal://a");
+        first.close();
+        first.close();
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        pool.evictIdle();
+
+        assertThat(closed)
+                .as("check closing a handle twice only releases it once")
+                .isEmpty();
+        assertThatExceptionOfType(ClientException.class)
+                .as("check a closed session cannot be used")
+                .isThrownBy(() -> first.createQuery("resource_id"));
+        second.close();
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.SubmissionPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class BufferPoolTest {
+
+    private static final int CHUNK = 10_000;
+
+    @Test
+    void testLeaseRoundsUpToSizeClass() {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        try (var small = pool.lease(1); var medium = pool.lease(5000)) {
+            assertThat(small.buffer().capacity())
+                    .as("check the smallest size class is used for small leases")
+                    .isEqualTo(BufferPool.MIN_BUFFER_SIZE);
+            assertThat(medium.buffer().capacity())
+                    .as("check the capacity is rounded up to the next power of two")
+                    .isEqualTo(8192);
+            assertThat(small.buffer().isDirect())
+                    .as("check leased buffers are direct")
+                    .isTrue();
+            assertThat(pool.getLeasedBytes())
+                    .as("check the leased bytes are counted")
+                    .isEqualTo(BufferPool.MIN_BUFFER_SIZE + 8192L);
+        }
+        assertThat(pool.getLeasedCount())
+                .as("check closing a lease releases it")
+                .isZero();
+    }
+
+    @Test
+    void testReleasedBufferIsReused() {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        var first = pool.lease(100);
+        var buffer = first.buffer();
+        buffer.put((byte) 1);
+        first.release();
+
+        assertThat(pool.getPooledCount())
+                .as("check the released buffer is held by the pool")
+                .isEqualTo(1);
+
+        var second = pool.lease(200);
+        assertThat(second.buffer())
+                .as("check the released buffer is leased again")
+                .isSameAs(buffer);
+        assertThat(second.buffer().position())
+                .as("check the reused buffer is cleared")
+                .isZero();
+        assertThat(pool.getAllocatedCount())
+                .as("check only one buffer was allocated")
+                .isEqualTo(1);
+        second.release();
+    }
+
+    @Test
+    void testReleaseIsIdempotent() {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        var leased = pool.lease(100);
+        leased.release();
+        leased.release();
+
+        assertThat(pool.getPooledCount())
+                .as("check a buffer is only returned once")
+                .isEqualTo(1);
+        assertThat(pool.getLeasedCount())
+                .as("check a lease is only released once")
+                .isZero();
+        assertThatExceptionOfType(IllegalStateException.class)
+                .as("check a released buffer cannot be used")
+                .isThrownBy(leased::buffer);
+    }
+
+    @Test
+    void testPoolIsBounded() {
+        var pool = new BufferPool(BufferPool.MIN_BUFFER_SIZE);
+        var first = pool.lease(1);
+        var second = pool.lease(1);
+        var large = pool.lease(BufferPool.MAX_BUFFER_SIZE + 1);
+        assertThat(large.buffer().capacity())
+                .as("check a lease larger than any size class has the capacity asked for")
+                .isEqualTo(BufferPool.MAX_BUFFER_SIZE + 1);
+        first.release();
+        second.release();
+        large.release();
+
+        assertThat(pool.getPooledBytes())
+                .as("check no more than the maximum bytes are held by the pool")
+                .isEqualTo(BufferPool.MIN_BUFFER_SIZE);
+    }
+
+    @Test
+    void testRead() throws Exception {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        var bytes = new byte[BufferPool.READ_SIZE * 2 + 100];
+        new Random(0).nextBytes(bytes);
+
+        var output = new ByteArrayOutputStream();
+        try (var buffers = pool.read(new ByteArrayInputStream(bytes)); var channel = Channels.newChannel(output)) {
+            var iterator = buffers.iterator();
+            while (iterator.hasNext()) {
+                try (var leased = iterator.next()) {
+                    channel.write(leased.buffer());
+                }
+            }
+        }
+
+        assertThat(output.toByteArray())
+                .as("check the buffers hold the bytes of the input in order")
+                .isEqualTo(bytes);
+        assertThat(pool.getAllocatedCount())
+                .as("check a released buffer is reused for the next read")
+                .isEqualTo(1);
+        assertThat(pool.getLeasedCount())
+                .as("check all buffers were released")
+                .isZero();
+    }
+
+    @Test
+    void testSubscriber() throws Exception {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        var bytes = new byte[BufferPool.READ_SIZE * 2 + 100];
+        new Random(0).nextBytes(bytes);
+
+        var subscriber = pool.subscriber();
+        try (var publisher = new SubmissionPublisher<List<ByteBuffer>>()) {
+            publisher.subscribe(subscriber);
+            // chunks which do not line up with the buffers
+            for (int i = 0; i < bytes.length; i += CHUNK * 2) {
+                publisher.submit(List.of(
+                        ByteBuffer.wrap(bytes, i, Math.min(CHUNK, bytes.length - i)),
+                        ByteBuffer.wrap(bytes, Math.min(i + CHUNK, bytes.length), Math.max(0, Math.min(CHUNK, bytes.length - i - CHUNK)))));
+            }
+        }
+
+        var output = new ByteArrayOutputStream();
+        var sizes = new ArrayList<Integer>();
+        try (var buffers = subscriber.getBody().toCompletableFuture().get(); var channel = Channels.newChannel(output)) {
+            var iterator = buffers.iterator();
+            while (iterator.hasNext()) {
+                try (var leased = iterator.next()) {
+                    sizes.add(leased.buffer().remaining());
+                    channel.write(leased.buffer());
+                }
+            }
+        }
+
+        assertThat(output.toByteArray())
+                .as("check the buffers hold the bytes of the chunks in order")
+                .isEqualTo(bytes);
+        assertThat(sizes)
+                .as("check every buffer but the last is full")
+                .containsExactly(BufferPool.READ_SIZE, BufferPool.READ_SIZE, 100);
+        assertThat(pool.getAllocatedCount())
+                .as("check a released buffer is reused for the next chunks")
+                .isEqualTo(1);
+        assertThat(pool.getLeasedCount())
+                .as("check all buffers were released")
+                .isZero();
+    }
+
+    @Test
+    void testSubscriberFails() throws Exception {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        var subscriber = pool.subscriber();
+        try (var publisher = new SubmissionPublisher<List<ByteBuffer>>()) {
+            publisher.subscribe(subscriber);
+            publisher.closeExceptionally(new IOException("connection reset"));
+        }
+
+        try (var buffers = subscriber.getBody().toCompletableFuture().get()) {
+            assertThatExceptionOfType(UncheckedIOException.class)
+                    .as("check a failed body fails the stream")
+                    .isThrownBy(() -> buffers.forEach(LeasedBuffer::release))
+                    .withMessageContaining("connection reset");
+        }
+        assertThat(pool.getLeasedCount())
+                .as("check the buffer leased for the failed body was released")
+                .isZero();
+    }
+
+    @Test
+    void testLeakIsCounted() throws Exception {
+        var pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_BYTES);
+        leak(pool);
+
+        for (int i = 0; i < 100 && pool.getLeakedCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertThat(pool.getLeakedCount())
+                .as("check an unreleased lease is counted as leaked once collected")
+                .isEqualTo(1);
+        assertThat(pool.getLeasedCount())
+                .as("check a leaked lease is no longer counted as leased")
+                .isZero();
+        assertThat(pool.getPooledCount())
+                .as("check a leaked buffer is not returned to the pool")
+                .isZero();
+    }
+
+    private static void leak(final BufferPool pool) {
+        pool.lease(1).buffer().put((byte) 1);
+    }
+
+}
@@ -47,4 +47,13 @@ class DefaultClientTest {
                 .isInstanceOf(expectedClass);
     }
 
+    @Test
+    void testConnectWithWarmUp() {
+        var client = new DefaultClient();
+        var session = client.connect("pal://localhost:1?userid=alice&warmup=true");
+        assertThat(session)
+                .as("check session is returned without waiting for warm-up")
+                .isInstanceOf(DefaultSession.class);
+    }
+
 }
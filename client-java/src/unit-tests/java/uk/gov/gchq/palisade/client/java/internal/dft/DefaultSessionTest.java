@@ -19,6 +19,8 @@ import org.junit.jupiter.api.Test;
 
 import uk.gov.gchq.palisade.client.java.internal.impl.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class DefaultSessionTest {
@@ -36,4 +38,15 @@ class DefaultSessionTest {
                 .isInstanceOf(expectedClass);
     }
 
+    @Test
+    void testWarmUpIgnoresUnreachableServices() {
+
+        var conf = Configuration.create("pal://localhost:1/cluster?userid=alice&warmup=true");
+        var session = new DefaultSession(conf);
+
+        assertThat(session.warmUp())
+                .as("check warm-up completes normally when the cluster cannot be reached")
+                .succeedsWithin(30, TimeUnit.SECONDS);
+    }
+
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+import uk.gov.gchq.palisade.client.java.ClientException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PublisherSpliteratorTest {
+
+    private static final int COUNT = 100_000;
+
+    private static PublisherSpliterator<Integer> spliterator(final Flowable<Integer> flowable) {
+        return new PublisherSpliterator<>(FlowAdapters.toFlowPublisher(flowable.subscribeOn(Schedulers.io())), 64, 16);
+    }
+
+    @Test
+    void testSequential() {
+        var spliterator = spliterator(Flowable.range(0, COUNT));
+        try (var stream = StreamSupport.stream(spliterator, false).onClose(spliterator::cancel)) {
+            assertThat(stream.collect(Collectors.toList()))
+                    .as("check all items are streamed in order")
+                    .hasSize(COUNT)
+                    .isSorted();
+        }
+    }
+
+    @Test
+    void testParallel() {
+        var spliterator = spliterator(Flowable.range(0, COUNT));
+        try (var stream = StreamSupport.stream(spliterator, true).onClose(spliterator::cancel)) {
+            var sum = stream
+                    .mapToLong(Integer::longValue)
+                    .sum();
+
+            assertThat(sum)
+                    .as("check every item is processed exactly once")
+                    .isEqualTo((long) COUNT * (COUNT - 1) / 2);
+        }
+    }
+
+    @Test
+    void testError() {
+        var spliterator = spliterator(Flowable.range(0, 10)
+                .concatWith(Flowable.error(new IllegalStateException("test error"))));
+        try (var stream = StreamSupport.stream(spliterator, false).onClose(spliterator::cancel)) {
+            assertThatThrownBy(() -> stream.forEach(i -> {
+            }))
+                    .as("check the publisher's error is thrown")
+                    .isInstanceOf(ClientException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void testCloseCancels() {
+        var cancelled = new AtomicBoolean();
+        var spliterator = spliterator(Flowable.range(0, Integer.MAX_VALUE)
+                .doOnCancel(() -> cancelled.set(true)));
+        try (var stream = StreamSupport.stream(spliterator, false).onClose(spliterator::cancel)) {
+            assertThat(stream.limit(10).count())
+                    .as("check a limited number of items are taken")
+                    .isEqualTo(10);
+        }
+        assertThat(cancelled)
+                .as("check the subscription is cancelled when the stream is closed")
+                .isTrue();
+    }
+
+}
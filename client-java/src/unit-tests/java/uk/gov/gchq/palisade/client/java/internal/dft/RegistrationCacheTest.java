@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.internal.model.PalisadeRequest;
+import uk.gov.gchq.palisade.client.java.internal.model.PalisadeResponse;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistrationCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private RegistrationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RegistrationCache(TTL, 2, clock::get);
+    }
+
+    private static PalisadeRequest request(final String resourceId) {
+        return PalisadeRequest.Builder.create()
+                .withUserId("alice")
+                .withResourceId(resourceId)
+                .withContext(Map.of("purpose", "test", "reason", "cache"));
+    }
+
+    private CompletableFuture<PalisadeResponse> register(final PalisadeRequest request) {
+        return CompletableFuture.completedFuture(new PalisadeResponse("token-" + registrations.incrementAndGet()));
+    }
+
+    @Test
+    void testIdenticalRequestsShareToken() {
+        var first = cache.get(request("file:/a"), this::register).join();
+
+        // same request, but with the context in a different order
+        var context = new LinkedHashMap<String, String>();
+        context.put("reason", "cache");
+        context.put("purpose", "test");
+        var reordered = PalisadeRequest.Builder.create()
+                .withUserId("alice")
+                .withResourceId("file:/a")
+                .withContext(context);
+        var second = cache.get(reordered, this::register).join();
+
+        assertThat(second.getToken())
+                .as("check identical request reuses token")
+                .isEqualTo(first.getToken());
+        assertThat(registrations)
+                .as("check palisade was only called once")
+                .hasValue(1);
+
+        var other = cache.get(request("file:/b"), this::register).join();
+        assertThat(other.getToken())
+                .as("check different request is registered separately")
+                .isNotEqualTo(first.getToken());
+    }
+
+    @Test
+    void testConcurrentRequestsAreCoalesced() {
+        var pending = new CompletableFuture<PalisadeResponse>();
+        Function<PalisadeRequest, CompletableFuture<PalisadeResponse>> register = request -> {
+            registrations.incrementAndGet();
+            return pending;
+        };
+
+        var first = cache.get(request("file:/a"), register);
+        var second = cache.get(request("file:/a"), register);
+        assertThat(registrations)
+                .as("check in flight registration is shared")
+                .hasValue(1);
+
+        pending.complete(new PalisadeResponse("token"));
+        assertThat(first.join().getToken())
+                .as("check both callers receive the same token")
+                .isEqualTo(second.join().getToken());
+    }
+
+    @Test
+    void testExpiry() {
+        cache.get(request("file:/a"), this::register).join();
+        clock.addAndGet(TTL.toNanos() - 1);
+        cache.get(request("file:/a"), this::register).join();
+        assertThat(registrations)
+                .as("check token is reused before it expires")
+                .hasValue(1);
+
+        clock.addAndGet(1);
+        var response = cache.get(request("file:/a"), this::register).join();
+        assertThat(response.getToken())
+                .as("check request is registered again once expired")
+                .isEqualTo("token-2");
+    }
+
+    @Test
+    void testSizeBound() {
+        cache.get(request("file:/a"), this::register).join();
+        cache.get(request("file:/b"), this::register).join();
+        // touch a so that b is the least recently used
+        cache.get(request("file:/a"), this::register).join();
+        cache.get(request("file:/c"), this::register).join();
+
+        assertThat(cache.size())
+                .as("check cache is bounded")
+                .isEqualTo(2);
+
+        cache.get(request("file:/a"), this::register).join();
+        assertThat(registrations)
+                .as("check most recently used entry was kept")
+                .hasValue(3);
+        cache.get(request("file:/b"), this::register).join();
+        assertThat(registrations)
+                .as("check least recently used entry was evicted")
+                .hasValue(4);
+    }
+
+    @Test
+    void testFailedRegistrationIsNotCached() {
+        Function<PalisadeRequest, CompletableFuture<PalisadeResponse>> failing = request -> {
+            registrations.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("test"));
+        };
+
+        assertThat(cache.get(request("file:/a"), failing))
+                .as("check failure is returned")
+                .isCompletedExceptionally();
+        assertThat(cache.size())
+                .as("check failure is not cached")
+                .isZero();
+
+        cache.get(request("file:/a"), this::register).join();
+        assertThat(registrations)
+                .as("check request is registered again after a failure")
+                .hasValue(2);
+    }
+
+    @Test
+    void testInvalidate() {
+        var first = cache.get(request("file:/a"), this::register).join();
+        cache.invalidate("unknown");
+        assertThat(cache.size())
+                .as("check unknown token is ignored")
+                .isEqualTo(1);
+
+        cache.invalidate(first.getToken());
+        var second = cache.get(request("file:/a"), this::register).join();
+        assertThat(second.getToken())
+                .as("check invalidated token is not reused")
+                .isNotEqualTo(first.getToken());
+    }
+
+}
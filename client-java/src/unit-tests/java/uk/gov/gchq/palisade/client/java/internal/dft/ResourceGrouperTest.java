@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.dft;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.ResourceGroup;
+import uk.gov.gchq.palisade.client.java.ResourceKey;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceGrouperTest {
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private static Optional<QueryItem> resource(final String id) {
+        var resource = new FileResource().id(id);
+        return Optional.of(new QueryItem() {
+            @Override
+            public ItemType getType() {
+                return ItemType.RESOURCE;
+            }
+
+            @Override
+            public String getToken() {
+                return "token";
+            }
+
+            @Override
+            public String asError() {
+                return null;
+            }
+
+            @Override
+            public LeafResource asResource() {
+                return resource;
+            }
+        });
+    }
+
+    private ResourceGrouper<String> grouper(final int maxSize, final int maxBuffered) {
+        return new ResourceGrouper<>(ResourceKey.PARENT, maxSize, maxBuffered, MAX_WAIT, clock::get);
+    }
+
+    private static List<String> keys(final List<ResourceGroup<String>> groups) {
+        return groups.stream().map(ResourceGroup::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    void testSizeTrigger() {
+        var grouper = grouper(2, 10);
+
+        assertThat(grouper.accept(resource("file:/a/0")))
+                .as("check nothing is emitted before a group is full")
+                .isEmpty();
+        assertThat(grouper.accept(resource("file:/b/0")))
+                .as("check a different key opens a new group")
+                .isEmpty();
+
+        var ready = grouper.accept(resource("file:/a/1"));
+        assertThat(keys(ready))
+                .as("check the full group is emitted")
+                .containsExactly("file:/a/");
+        assertThat(ready.get(0).getItems())
+                .as("check the group holds its resources in order")
+                .extracting(item -> item.asResource().getId())
+                .containsExactly("file:/a/0", "file:/a/1");
+        assertThat(grouper.getBuffered())
+                .as("check only the open group is still buffered")
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testTimeTrigger() {
+        var grouper = grouper(10, 10);
+        grouper.accept(resource("file:/a/0"));
+        clock.addAndGet(MAX_WAIT.toNanos() / 2);
+        grouper.accept(resource("file:/b/0"));
+
+        assertThat(grouper.accept(Optional.empty()))
+                .as("check nothing is emitted before the wait is up")
+                .isEmpty();
+
+        clock.addAndGet(MAX_WAIT.toNanos() / 2);
+        assertThat(keys(grouper.accept(Optional.empty())))
+                .as("check only the group which has waited long enough is emitted")
+                .containsExactly("file:/a/");
+
+        clock.addAndGet(MAX_WAIT.toNanos() / 2);
+        assertThat(keys(grouper.accept(Optional.empty())))
+                .as("check the later group is emitted once it has waited long enough")
+                .containsExactly("file:/b/");
+    }
+
+    @Test
+    void testBufferBound() {
+        var grouper = grouper(10, 3);
+        grouper.accept(resource("file:/a/0"));
+        grouper.accept(resource("file:/b/0"));
+        grouper.accept(resource("file:/b/1"));
+
+        assertThat(keys(grouper.accept(resource("file:/c/0"))))
+                .as("check the oldest group is emitted when the buffer is full")
+                .containsExactly("file:/a/");
+        assertThat(grouper.getBuffered())
+                .as("check the buffer is back within its bound")
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testDrainOrder() {
+        var grouper = grouper(10, 10);
+        grouper.accept(resource("file:/c/0"));
+        grouper.accept(resource("file:/a/0"));
+        grouper.accept(resource("file:/b/0"));
+        grouper.accept(resource("file:/a/1"));
+
+        assertThat(keys(grouper.drain()))
+                .as("check remaining groups are emitted in the order they were opened")
+                .containsExactly("file:/c/", "file:/a/", "file:/b/");
+        assertThat(grouper.getBuffered())
+                .as("check nothing is left buffered")
+                .isZero();
+    }
+
+}
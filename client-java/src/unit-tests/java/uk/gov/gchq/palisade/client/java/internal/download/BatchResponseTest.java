@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.download;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class BatchResponseTest {
+
+    private static final Map<String, LeafResource> RESOURCES = Map.of(
+            "a", new FileResource().id("a"),
+            "b", new FileResource().id("b"),
+            "c", new FileResource().id("c"));
+
+    private static void frame(final DataOutputStream out, final String id, final int status, final byte[]... chunks) throws IOException {
+        var idBytes = id.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(idBytes.length);
+        out.write(idBytes);
+        out.writeShort(status);
+        for (byte[] chunk : chunks) {
+            out.writeInt(chunk.length);
+            out.write(chunk);
+        }
+        out.writeInt(0);
+    }
+
+    private static byte[] bytes(final String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testFramesAreSplitIntoDownloads() throws Exception {
+        var body = new ByteArrayOutputStream();
+        var out = new DataOutputStream(body);
+        frame(out, "a", 200, bytes("hello "), bytes("world"));
+        frame(out, "b", 200);
+        frame(out, "c", 200, bytes("!"));
+
+        try (var response = new BatchResponse(new ByteArrayInputStream(body.toByteArray()), RESOURCES)) {
+            var a = response.next();
+            assertThat(a.getResource().getId()).as("check first resource").isEqualTo("a");
+            assertThat(a.getInputStream()).as("check chunks are joined").hasBinaryContent(bytes("hello world"));
+
+            var b = response.next();
+            assertThat(b.getInputStream()).as("check empty resource").hasBinaryContent(new byte[0]);
+
+            var c = response.next();
+            assertThat(c.getInputStream()).as("check last resource").hasBinaryContent(bytes("!"));
+
+            assertThat(response.hasNext()).as("check there are no more frames").isFalse();
+        }
+    }
+
+    @Test
+    void testUnreadDownloadIsSkipped() throws Exception {
+        var large = new byte[100_000];
+        Arrays.fill(large, (byte) 'x');
+        var body = new ByteArrayOutputStream();
+        var out = new DataOutputStream(body);
+        frame(out, "a", 200, large, large);
+        frame(out, "b", 200, bytes("next"));
+
+        try (var response = new BatchResponse(new ByteArrayInputStream(body.toByteArray()), RESOURCES)) {
+            var a = response.next();
+            assertThat(a.getInputStream().read()).as("check first byte of partially read resource").isEqualTo('x');
+
+            var b = response.next();
+            assertThat(b.getInputStream()).as("check the rest of the previous frame was skipped").hasBinaryContent(bytes("next"));
+        }
+    }
+
+    @Test
+    void testErrorFrame() throws Exception {
+        var body = new ByteArrayOutputStream();
+        var out = new DataOutputStream(body);
+        frame(out, "a", 403, bytes("access denied"));
+
+        try (var response = new BatchResponse(new ByteArrayInputStream(body.toByteArray()), RESOURCES)) {
+            var a = response.next();
+            assertThatExceptionOfType(DownloaderException.class)
+                    .as("check error frame throws when read")
+                    .isThrownBy(a::getInputStream)
+                    .withMessageContaining("access denied")
+                    .matches(ex -> ex.getStatusCode() == 403, "statuscode 403");
+        }
+    }
+
+    @Test
+    void testTruncatedResponse() throws Exception {
+        var body = new ByteArrayOutputStream();
+        var out = new DataOutputStream(body);
+        frame(out, "a", 200, bytes("complete"));
+        frame(out, "b", 200, bytes("truncated"));
+        var truncated = Arrays.copyOf(body.toByteArray(), body.size() - 6);
+
+        try (var response = new BatchResponse(new ByteArrayInputStream(truncated), RESOURCES)) {
+            response.next();
+            var b = response.next();
+            assertThatExceptionOfType(IOException.class)
+                    .as("check a truncated frame fails when read")
+                    .isThrownBy(() -> b.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    void testUnexpectedResource() throws Exception {
+        var body = new ByteArrayOutputStream();
+        frame(new DataOutputStream(body), "z", 200, bytes("?"));
+
+        try (var response = new BatchResponse(new ByteArrayInputStream(body.toByteArray()), RESOURCES)) {
+            assertThatExceptionOfType(DownloaderException.class)
+                    .as("check a frame for a resource which was not requested fails")
+                    .isThrownBy(response::hasNext);
+        }
+    }
+
+    @Test
+    void testNegativeIdLength() throws Exception {
+        var body = new ByteArrayOutputStream();
+        new DataOutputStream(body).writeInt(-1);
+
+        try (var response = new BatchResponse(new ByteArrayInputStream(body.toByteArray()), RESOURCES)) {
+            assertThatExceptionOfType(DownloaderException.class)
+                    .as("check a frame with a negative id length fails")
+                    .isThrownBy(response::hasNext)
+                    .withRootCauseInstanceOf(IOException.class);
+        }
+    }
+
+}
@@ -22,10 +22,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.lenient;
@@ -35,31 +38,42 @@ class DownloadImplTest {
 
     private static final String FILENAME = "cool.html";
     private static final String CONTENT_DISPOSITION = String.format("attachment; filename=\"%s\"", FILENAME);
-    private static final InputStream BODY = new ByteArrayInputStream(new byte[]{'a', 'b', 'c'});
+    private static final byte[] BODY = new byte[]{'a', 'b', 'c'};
 
     private DownloadImpl download;
 
     @SuppressWarnings("resource") // suppress potential resource leak warning
     @BeforeEach
     void setUp(
-            @Mock final HttpResponse<InputStream> response,
+            @Mock final HttpResponse<Flow.Publisher<List<ByteBuffer>>> response,
             @Mock final HttpHeaders headers) throws Exception {
 
         lenient().when(response.headers()).thenReturn(headers);
-        lenient().when(response.body()).thenReturn(BODY);
+        lenient().when(response.body()).thenReturn(DownloadImplTest::publish);
         lenient().when(headers.firstValue("Content-Disposition")).thenReturn(Optional.of(CONTENT_DISPOSITION));
 
         this.download = new DownloadImpl(response);
 
     }
 
+    private static void publish(final Flow.Subscriber<? super List<ByteBuffer>> subscriber) {
+        try (var publisher = new SubmissionPublisher<List<ByteBuffer>>()) {
+            publisher.subscribe(subscriber);
+            publisher.submit(List.of(ByteBuffer.wrap(BODY)));
+        }
+    }
+
     @Test
     void testGetInputStream() throws Exception {
         try (var is = download.getInputStream()) {
             assertThat(is)
                     .as("check input stream")
-                    .isEqualTo(BODY);
+                    .hasSameContentAs(new ByteArrayInputStream(BODY));
         }
+        assertThat(download.getBytesReceived())
+                .as("check an uncompressed body is counted as received")
+                .isEqualTo(download.getBytesDelivered())
+                .isEqualTo(BODY.length);
     }
 
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StandardCodecTest {
+
+    private static final byte[] DATA = "name,age\nalice,30\nbob,40\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testGzip() throws Exception {
+        var encoded = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(encoded)) {
+            os.write(DATA);
+        }
+
+        try (var decoded = StandardCodec.GZIP.decode(new ByteArrayInputStream(encoded.toByteArray()))) {
+            assertThat(decoded)
+                    .as("check gzip stream is decoded")
+                    .hasBinaryContent(DATA);
+        }
+    }
+
+    @Test
+    void testDeflate() throws Exception {
+        var encoded = new ByteArrayOutputStream();
+        try (OutputStream os = new DeflaterOutputStream(encoded)) {
+            os.write(DATA);
+        }
+
+        try (var decoded = StandardCodec.DEFLATE.decode(new ByteArrayInputStream(encoded.toByteArray()))) {
+            assertThat(decoded)
+                    .as("check deflate stream is decoded")
+                    .hasBinaryContent(DATA);
+        }
+    }
+
+    @Test
+    void testCountingInputStream() throws Exception {
+        var encoded = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(encoded)) {
+            os.write(DATA);
+        }
+
+        var wire = new CountingInputStream(new ByteArrayInputStream(encoded.toByteArray()));
+        var delivered = new CountingInputStream(StandardCodec.GZIP.decode(wire));
+        delivered.readAllBytes();
+
+        assertThat(wire.getCount())
+                .as("check all encoded bytes were counted")
+                .isEqualTo(encoded.size());
+        assertThat(delivered.getCount())
+                .as("check all decoded bytes were counted")
+                .isEqualTo(DATA.length);
+    }
+
+}
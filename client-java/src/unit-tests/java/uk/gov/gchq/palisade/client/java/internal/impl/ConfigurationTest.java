@@ -68,6 +68,87 @@ class ConfigurationTest {
                 .isEqualTo("alice");
     }
 
+    @Test
+    void testWarmUp() {
+        assertThat(configuration.<Boolean>get(Configuration.WARMUP_ENABLED))
+                .as("check warm-up is disabled by default")
+                .isFalse();
+
+        var warmConfig = Configuration.create("pal://localhost:8081/cluster?userid=alice&warmup=true");
+        assertThat(warmConfig.<Boolean>get(Configuration.WARMUP_ENABLED))
+                .as("check warm-up from query param")
+                .isTrue();
+    }
+
+    @Test
+    void testCompression() {
+        assertThat(configuration.<Boolean>get(Configuration.COMPRESSION_ENABLED))
+                .as("check compression is disabled by default")
+                .isFalse();
+
+        var compressedConfig = Configuration.create("pal://localhost:8081/cluster?userid=alice&compression=true");
+        assertThat(compressedConfig.<Boolean>get(Configuration.COMPRESSION_ENABLED))
+                .as("check compression from query param")
+                .isTrue();
+    }
+
+    @Test
+    void testBuffer() {
+        assertThat(configuration.<Long>get(Configuration.BUFFER_BYTES))
+                .as("check default buffer size")
+                .isEqualTo(16L * 1024 * 1024);
+
+        var bufferConfig = Configuration.create("pal://localhost:8081/cluster?userid=alice&buffer=1024");
+        assertThat(bufferConfig.<Long>get(Configuration.BUFFER_BYTES))
+                .as("check buffer size from query param")
+                .isEqualTo(1024L);
+    }
+
+    @Test
+    void testCache() {
+        assertThat(configuration.<Long>get(Configuration.CACHE_TTL_SECONDS))
+                .as("check registration cache is disabled by default")
+                .isZero();
+
+        var cacheConfig = Configuration.create("pal://localhost:8081/cluster?userid=alice&cache.ttl=60&cache.size=10");
+        assertThat(cacheConfig.<Long>get(Configuration.CACHE_TTL_SECONDS))
+                .as("check cache ttl from query param")
+                .isEqualTo(60L);
+        assertThat(cacheConfig.<Integer>get(Configuration.CACHE_SIZE))
+                .as("check cache size from query param")
+                .isEqualTo(10);
+    }
+
+    @Test
+    void testPool() {
+        assertThat(configuration.<Long>get(Configuration.POOL_BYTES))
+                .as("check default buffer pool size")
+                .isEqualTo(64L * 1024 * 1024);
+
+        var poolConfig = Configuration.create("pal://localhost:8081/cluster?userid=alice&pool.bytes=0");
+        assertThat(poolConfig.<Long>get(Configuration.POOL_BYTES))
+                .as("check buffer pool size from query param")
+                .isZero();
+    }
+
+    @Test
+    void testReconnect() {
+        assertThat(configuration.<Integer>get(Configuration.RECONNECT_ATTEMPTS))
+                .as("check default reconnection attempts")
+                .isEqualTo(5);
+        assertThat(configuration.<Long>get(Configuration.RECONNECT_BACKOFF_MILLIS))
+                .as("check default reconnection backoff")
+                .isEqualTo(500L);
+
+        var reconnectConfig = Configuration.create("pal://localhost:8081/cluster?userid=alice&reconnect.attempts=0&reconnect.backoff=10");
+        assertThat(reconnectConfig.<Integer>get(Configuration.RECONNECT_ATTEMPTS))
+                .as("check reconnection attempts from query param")
+                .isZero();
+        assertThat(reconnectConfig.<Long>get(Configuration.RECONNECT_BACKOFF_MILLIS))
+                .as("check reconnection backoff from query param")
+                .isEqualTo(10L);
+    }
+
     @Test
     void testInvalidServiceUrl() {
         assertThatExceptionOfType(IllegalArgumentException.class)
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestWriterTest {
+
+    private static ObjectMapper objectMapper;
+
+    @BeforeAll
+    static void setupAll() {
+        objectMapper = new ObjectMapper().registerModule(new Jdk8Module());
+    }
+
+    /**
+     * Returns strings covering plain ASCII, JSON escapes, control characters and
+     * multi-byte UTF-8 sequences
+     *
+     * @return a stream of strings to be serialised
+     */
+    static Stream<String> strings() {
+        return Stream.of(
+                "",
+                "test-request-token",
+                "file:/data/employee_file0.avro",
+                "quote\" backslash\\ slash/",
+                "tab\t newline\n return\r backspace\b formfeed\f",
+                "control\u0000\u0001\u001f",
+                "latin éÿ greek Ω",
+                "cjk 中文 euro €",
+                "emoji 😀");
+    }
+
+    @ParameterizedTest
+    @MethodSource("strings")
+    void testDataRequest(final String value) throws Exception {
+        var request = DataRequest.Builder.create()
+                .withToken(value)
+                .withLeafResourceId(value);
+
+        assertThat(RequestWriter.write(request))
+                .as("check DataRequest is written the same as by Jackson")
+                .isEqualTo(objectMapper.writeValueAsBytes(request));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strings")
+    void testBatchDataRequest(final String value) throws Exception {
+        var request = BatchDataRequest.Builder.create()
+                .withToken(value)
+                .withLeafResourceIds(List.of(value, "file:/data/employee_file1.avro", value));
+
+        assertThat(RequestWriter.write(request))
+                .as("check BatchDataRequest is written the same as by Jackson")
+                .isEqualTo(objectMapper.writeValueAsBytes(request));
+
+        var empty = BatchDataRequest.Builder.create()
+                .withToken(value)
+                .withLeafResourceIds(List.of());
+
+        assertThat(RequestWriter.write(empty))
+                .as("check BatchDataRequest with no resources is written the same as by Jackson")
+                .isEqualTo(objectMapper.writeValueAsBytes(empty));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strings")
+    void testPalisadeRequest(final String value) throws Exception {
+        Map<String, String> context = new LinkedHashMap<>();
+        context.put("purpose", value);
+        context.put(value, "key");
+        var request = PalisadeRequest.Builder.create()
+                .withUserId(value)
+                .withResourceId(value)
+                .withContext(context);
+
+        assertThat(RequestWriter.write(request))
+                .as("check PalisadeRequest is written the same as by Jackson")
+                .isEqualTo(objectMapper.writeValueAsBytes(request));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strings")
+    void testPalisadeRequestEmptyContext(final String value) throws Exception {
+        var request = PalisadeRequest.Builder.create()
+                .withUserId(value)
+                .withResourceId(value)
+                .withContext(Map.of());
+
+        assertThat(RequestWriter.write(request))
+                .as("check PalisadeRequest with no context is written the same as by Jackson")
+                .isEqualTo(objectMapper.writeValueAsBytes(request));
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.resource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
+import uk.gov.gchq.palisade.client.java.internal.model.Token;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageBufferTest {
+
+    private static final String TOKEN = "test-token";
+    private static final int SIMULATED_COUNT = 10_000_000;
+
+    @TempDir
+    Path directory;
+
+    private static WebSocketMessage resource(final long i) {
+        return WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .withHeader(Token.HEADER, TOKEN).noHeaders()
+                .withSerialisedBody("{\"id\":\"file:/data/" + i + "\"}");
+    }
+
+    private static List<WebSocketMessage> drain(final MessageBuffer buffer) throws InterruptedException {
+        var messages = new ArrayList<WebSocketMessage>();
+        WebSocketMessage message;
+        while ((message = buffer.poll(0, TimeUnit.SECONDS)) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    void testInMemory() throws Exception {
+        try (var buffer = new MessageBuffer(1024 * 1024, 64, directory)) {
+            for (int i = 0; i < 10; i++) {
+                buffer.put(resource(i));
+            }
+
+            assertThat(buffer.getSpilledCount())
+                    .as("check nothing is spilled within the memory budget")
+                    .isZero();
+            assertThat(drain(buffer))
+                    .as("check messages are returned in order")
+                    .extracting(WebSocketMessage::getBody)
+                    .containsExactly(resource(0).getBody(), resource(1).getBody(), resource(2).getBody(),
+                            resource(3).getBody(), resource(4).getBody(), resource(5).getBody(), resource(6).getBody(),
+                            resource(7).getBody(), resource(8).getBody(), resource(9).getBody());
+        }
+    }
+
+    @Test
+    void testSpillKeepsOrderAndContent() throws Exception {
+        var messages = List.of(
+                resource(0),
+                resource(1),
+                WebSocketMessage.Builder.create().withType(MessageType.ERROR).noHeaders().withSerialisedBody("\"café € 😀\""),
+                resource(2),
+                WebSocketMessage.Builder.create().withType(MessageType.COMPLETE).withHeader(Token.HEADER, TOKEN).noHeaders().noBody());
+
+        // a tiny budget and segment size so that messages span segments
+        try (var buffer = new MessageBuffer(1, 16, directory)) {
+            messages.forEach(buffer::put);
+
+            assertThat(buffer.getSpilledCount())
+                    .as("check all but the first message were spilled")
+                    .isEqualTo(messages.size() - 1);
+
+            var actual = drain(buffer);
+            assertThat(actual)
+                    .as("check message types are read back in order")
+                    .extracting(WebSocketMessage::getType)
+                    .containsExactly(MessageType.RESOURCE, MessageType.RESOURCE, MessageType.ERROR, MessageType.RESOURCE, MessageType.COMPLETE);
+            assertThat(actual)
+                    .as("check message bodies are read back")
+                    .extracting(WebSocketMessage::getBody)
+                    .containsExactlyElementsOf(messages.stream().map(WebSocketMessage::getBody).collect(Collectors.toList()));
+            assertThat(actual)
+                    .as("check message headers are read back")
+                    .extracting(WebSocketMessage::getHeaders)
+                    .containsExactlyElementsOf(messages.stream().map(WebSocketMessage::getHeaders).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testReturnsToMemoryOnceDrained() throws Exception {
+        try (var buffer = new MessageBuffer(1, 64, directory)) {
+            buffer.put(resource(0));
+            buffer.put(resource(1));
+            assertThat(drain(buffer)).as("check both messages are read").hasSize(2);
+
+            buffer.put(resource(2));
+            assertThat(buffer.getSpilledCount())
+                    .as("check the next message is held in memory")
+                    .isEqualTo(1);
+            assertThat(buffer.poll(0, TimeUnit.SECONDS).getBody())
+                    .as("check the next message is read")
+                    .isEqualTo(resource(2).getBody());
+        }
+    }
+
+    @Test
+    void testReusesSegmentsWhileLagging() throws Exception {
+        var lag = 100;
+        try (var buffer = new MessageBuffer(1, 1024, directory)) {
+            for (int i = 0; i < lag; i++) {
+                buffer.put(resource(i));
+            }
+            // the consumer stays behind, so the file is never read back to the end
+            for (int i = lag; i < lag * 100; i++) {
+                buffer.put(resource(i));
+                assertThat(buffer.poll(0, TimeUnit.SECONDS).getBody())
+                        .as("check message %d is read in order", i - lag)
+                        .isEqualTo(resource(i - lag).getBody());
+            }
+
+            assertThat(buffer.size())
+                    .as("check the consumer is still behind")
+                    .isEqualTo(lag);
+            // each message takes well under 128 bytes on disk, and the segments being
+            // written to and read from may each be only partly full
+            assertThat(buffer.getMappedCount())
+                    .as("check the file only grows to hold what is waiting to be read")
+                    .isLessThanOrEqualTo(lag * 128 / 1024 + 2);
+        }
+    }
+
+    @Test
+    void testCloseWakesPoll() throws Exception {
+        var buffer = new MessageBuffer(1024, 64, directory);
+        var poll = CompletableFuture.supplyAsync(() -> {
+            try {
+                return buffer.poll(1, TimeUnit.HOURS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+        buffer.close();
+
+        assertThat(poll.get(10, TimeUnit.SECONDS))
+                .as("check a waiting poll returns null once closed")
+                .isNull();
+    }
+
+    @Test
+    void testStreamManyMessagesThroughSmallBudget() throws Exception {
+        var budget = 64 * 1024;
+        var maxMemoryUsed = new AtomicLong();
+        try (var buffer = new MessageBuffer(budget, 1024 * 1024, directory)) {
+            var producer = CompletableFuture.runAsync(() -> {
+                for (long i = 0; i < SIMULATED_COUNT; i++) {
+                    buffer.put(resource(i));
+                    maxMemoryUsed.accumulateAndGet(buffer.getMemoryUsed(), Math::max);
+                }
+            });
+
+            for (long i = 0; i < SIMULATED_COUNT; i++) {
+                var message = buffer.poll(1, TimeUnit.MINUTES);
+                assertThat(message).as("check message %d was read", i).isNotNull();
+                if (!message.getBody().equals(resource(i).getBody())) {
+                    assertThat(message.getBody()).as("check message %d is in order", i).isEqualTo(resource(i).getBody());
+                }
+            }
+            producer.get();
+
+            assertThat(buffer.size())
+                    .as("check the buffer is empty")
+                    .isZero();
+            assertThat(buffer.getSpilledCount())
+                    .as("check messages were spilled")
+                    .isPositive();
+            assertThat(maxMemoryUsed.get())
+                    .as("check the memory budget was kept to")
+                    .isLessThanOrEqualTo(budget);
+        }
+    }
+
+}
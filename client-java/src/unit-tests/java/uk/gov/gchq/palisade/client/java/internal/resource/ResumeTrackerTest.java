@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.resource;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.internal.model.MessageType;
+import uk.gov.gchq.palisade.client.java.internal.model.Token;
+import uk.gov.gchq.palisade.client.java.internal.model.WebSocketMessage;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumeTrackerTest {
+
+    private static final String TOKEN = "test-token";
+
+    private static WebSocketMessage resource(final int i) {
+        return WebSocketMessage.Builder.create()
+                .withType(MessageType.RESOURCE)
+                .withHeader(Token.HEADER, TOKEN).noHeaders()
+                .withSerialisedBody("{\"id\":\"file:/data/" + i + "\"}");
+    }
+
+    private static WebSocketMessage complete() {
+        return WebSocketMessage.Builder.create()
+                .withType(MessageType.COMPLETE)
+                .withHeader(Token.HEADER, TOKEN).noHeaders()
+                .noBody();
+    }
+
+    private static long accepted(final ResumeTracker tracker, final int from, final int to) {
+        return IntStream.range(from, to)
+                .mapToObj(ResumeTrackerTest::resource)
+                .filter(tracker::accept)
+                .count();
+    }
+
+    @Test
+    void testReplayFromStart() {
+        var tracker = new ResumeTracker();
+        assertThat(accepted(tracker, 0, 3))
+                .as("check all messages are accepted before a reconnection")
+                .isEqualTo(3);
+
+        tracker.resume();
+
+        assertThat(accepted(tracker, 0, 3))
+                .as("check replayed messages are suppressed")
+                .isZero();
+        assertThat(accepted(tracker, 3, 5))
+                .as("check new messages after the replay are accepted")
+                .isEqualTo(2);
+        assertThat(tracker.getDelivered())
+                .as("check the delivered count")
+                .isEqualTo(5);
+    }
+
+    @Test
+    void testResumeWhereLeftOff() {
+        var tracker = new ResumeTracker();
+        accepted(tracker, 0, 3);
+
+        tracker.resume();
+
+        assertThat(accepted(tracker, 3, 5))
+                .as("check nothing is suppressed when the server resumes where it left off")
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testResumeBeforeAnyDelivered() {
+        var tracker = new ResumeTracker();
+        tracker.resume();
+
+        assertThat(accepted(tracker, 0, 2))
+                .as("check nothing is suppressed when nothing had been delivered")
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testCompleteAlwaysAccepted() {
+        var tracker = new ResumeTracker();
+        accepted(tracker, 0, 3);
+        tracker.resume();
+
+        assertThat(tracker.accept(resource(0)))
+                .as("check the first replayed message is suppressed")
+                .isFalse();
+        assertThat(tracker.accept(complete()))
+                .as("check completion is never suppressed")
+                .isTrue();
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.internal.resource;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketClientTest {
+
+    @Test
+    void testBackoff() {
+        var backoff = Duration.ofMillis(100);
+        assertThat(WebSocketClient.backoffMillis(0, backoff, 0.0))
+                .as("check the shortest first delay is half the backoff")
+                .isEqualTo(50);
+        assertThat(WebSocketClient.backoffMillis(0, backoff, 0.999))
+                .as("check the longest first delay is the backoff")
+                .isBetween(99L, 100L);
+        assertThat(WebSocketClient.backoffMillis(3, backoff, 0.0))
+                .as("check the delay doubles with each attempt")
+                .isEqualTo(400);
+        assertThat(WebSocketClient.backoffMillis(Integer.MAX_VALUE, backoff, 0.999))
+                .as("check the delay is capped")
+                .isBetween(29_000L, 30_000L);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class BlockChannelTest {
+
+    private static final int BLOCK_SIZE = 100;
+    private static final byte[] DATA = new byte[1050];
+
+    static {
+        new Random(0).nextBytes(DATA);
+    }
+
+    private final AtomicInteger opens = new AtomicInteger();
+    private final AtomicLong knownSize = new AtomicLong(-1);
+
+    private BlockChannel channel(final BlockCache cache) {
+        return new BlockChannel("resource", cache, () -> {
+            opens.incrementAndGet();
+            return new ByteArrayInputStream(DATA);
+        }, knownSize.get(), knownSize::set);
+    }
+
+    private static byte[] read(final BlockChannel channel, final long position, final int length) throws Exception {
+        var buffer = ByteBuffer.allocate(length);
+        channel.position(position);
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // keep reading until full or at the end
+        }
+        var bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] expected(final int position, final int length) {
+        var bytes = new byte[Math.max(0, Math.min(length, DATA.length - position))];
+        System.arraycopy(DATA, position, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    @Test
+    void testRandomAccessIsServedFromCache() throws Exception {
+        try (var channel = channel(new BlockCache(BLOCK_SIZE, DATA.length))) {
+            // read the "footer" first, then seek back through the file
+            assertThat(read(channel, 1000, 50)).as("check footer").isEqualTo(expected(1000, 50));
+            assertThat(read(channel, 250, 300)).as("check read spanning blocks").isEqualTo(expected(250, 300));
+            assertThat(read(channel, 0, 10)).as("check start").isEqualTo(expected(0, 10));
+            assertThat(read(channel, 1040, 100)).as("check read past the end is short").isEqualTo(expected(1040, 100));
+
+            assertThat(opens)
+                    .as("check resource was only downloaded once")
+                    .hasValue(1);
+            assertThat(channel.size())
+                    .as("check size")
+                    .isEqualTo(DATA.length);
+            assertThat(knownSize)
+                    .as("check size is reported once known")
+                    .hasValue(DATA.length);
+        }
+    }
+
+    @Test
+    void testEvictedBlocksAreDownloadedAgain() throws Exception {
+        try (var channel = channel(new BlockCache(BLOCK_SIZE, 2 * BLOCK_SIZE))) {
+            assertThat(read(channel, 900, 10)).as("check late read").isEqualTo(expected(900, 10));
+            assertThat(read(channel, 0, 10)).as("check evicted read").isEqualTo(expected(0, 10));
+
+            assertThat(opens)
+                    .as("check resource was downloaded again for an evicted block")
+                    .hasValue(2);
+        }
+    }
+
+    @Test
+    void testEndOfChannel() throws Exception {
+        try (var channel = channel(new BlockCache(BLOCK_SIZE, DATA.length))) {
+            channel.position(DATA.length);
+            assertThat(channel.read(ByteBuffer.allocate(1)))
+                    .as("check end of channel")
+                    .isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void testKnownSizeDoesNotDownload() throws Exception {
+        knownSize.set(DATA.length);
+        try (var channel = channel(new BlockCache(BLOCK_SIZE, DATA.length))) {
+            assertThat(channel.size())
+                    .as("check known size")
+                    .isEqualTo(DATA.length);
+            assertThat(opens)
+                    .as("check resource was not downloaded")
+                    .hasValue(0);
+        }
+    }
+
+    @Test
+    void testClosed() throws Exception {
+        var channel = channel(new BlockCache(BLOCK_SIZE, DATA.length));
+        channel.close();
+        assertThatExceptionOfType(ClosedChannelException.class)
+                .as("check closed channel cannot be read")
+                .isThrownBy(() -> channel.read(ByteBuffer.allocate(1)));
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.nio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.client.java.Download;
+import uk.gov.gchq.palisade.client.java.Query;
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.Session;
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PalisadeFileSystemTest {
+
+    private static final URI SPEC = URI.create("pal://localhost:8081/cluster?userid=alice");
+
+    private PalisadeFileSystem fileSystem;
+
+    private static QueryItem resource(final String id) {
+        var resource = new FileResource().id(id);
+        return new QueryItem() {
+            @Override
+            public ItemType getType() {
+                return ItemType.RESOURCE;
+            }
+
+            @Override
+            public String getToken() {
+                return "token";
+            }
+
+            @Override
+            public String asError() {
+                return null;
+            }
+
+            @Override
+            public LeafResource asResource() {
+                return resource;
+            }
+        };
+    }
+
+    private static final Session SESSION = new Session() {
+        @Override
+        public Query createQuery(final String queryString, final Map<String, String> properties) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Download fetch(final QueryItem queryItem) {
+            return new Download() {
+                @Override
+                public InputStream getInputStream() {
+                    return new ByteArrayInputStream(queryItem.asResource().getId().getBytes(StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public LeafResource getResource() {
+                    return queryItem.asResource();
+                }
+            };
+        }
+
+        @Override
+        public Stream<Download> fetchBatch(final List<QueryItem> queryItems) {
+            return queryItems.stream().map(this::fetch);
+        }
+
+        @Override
+        public void close() {
+            // nothing is held open
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        var items = Stream.of(
+                resource("file:/data/employees/0.avro"),
+                resource("file:/data/employees/1.avro"),
+                resource("file:/data/readme.txt"),
+                resource("test-data_0_1024"));
+        fileSystem = new PalisadeFileSystem(new PalisadeFileSystemProvider(), SPEC, SESSION, items, new BlockCache(4, 1024));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileSystem.close();
+    }
+
+    @Test
+    void testWalk() throws Exception {
+        try (var paths = Files.walk(fileSystem.getPath("/"))) {
+            assertThat(paths.filter(Files::isRegularFile).map(Object::toString).collect(Collectors.toList()))
+                    .as("check every resource is a file")
+                    .containsExactly("/data/employees/0.avro", "/data/employees/1.avro", "/data/readme.txt", "/test-data_0_1024");
+        }
+        assertThat(Files.isDirectory(fileSystem.getPath("/data/employees")))
+                .as("check parent of resource is a directory")
+                .isTrue();
+    }
+
+    @Test
+    void testReadFile() throws Exception {
+        var path = fileSystem.getPath("data", "readme.txt");
+        assertThat(Files.readString(path))
+                .as("check file contents")
+                .isEqualTo("file:/data/readme.txt");
+        assertThat(Files.size(path))
+                .as("check size is known after reading")
+                .isEqualTo("file:/data/readme.txt".length());
+    }
+
+    @Test
+    void testErrors() {
+        assertThatExceptionOfType(NoSuchFileException.class)
+                .as("check missing file")
+                .isThrownBy(() -> Files.newByteChannel(fileSystem.getPath("/data/missing")));
+        assertThatExceptionOfType(NotDirectoryException.class)
+                .as("check file is not a directory")
+                .isThrownBy(() -> Files.list(fileSystem.getPath("/data/readme.txt")));
+        assertThatExceptionOfType(ReadOnlyFileSystemException.class)
+                .as("check file system is read-only")
+                .isThrownBy(() -> Files.delete(fileSystem.getPath("/data/readme.txt")));
+    }
+
+    @Test
+    void testPaths() {
+        var path = fileSystem.getPath("/data/./employees/../employees/0.avro");
+        assertThat(path.normalize())
+                .as("check normalised path")
+                .hasToString("/data/employees/0.avro");
+        assertThat(fileSystem.getPath("/data").relativize(path.normalize()))
+                .as("check relativized path")
+                .hasToString("employees/0.avro");
+        assertThat(path.normalize().getFileName())
+                .as("check file name")
+                .hasToString("0.avro");
+        assertThat(path.normalize().toUri())
+                .as("check path URI carries the path in its fragment")
+                .isEqualTo(URI.create(SPEC + "#/data/employees/0.avro"));
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.java.record;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineDecoderTest {
+
+    private static final String CSV = "text/csv; charset=UTF-8";
+
+    private static ByteArrayInputStream input(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testStrings() {
+        try (var records = RecordDecoders.stream(LineDecoder.strings(), input("a,1\r\nb,2\rc,3\n\nd,4"), CSV)) {
+            assertThat(records.collect(Collectors.toList()))
+                    .as("check all line terminators are handled")
+                    .containsExactly("a,1", "b,2", "c,3", "", "d,4");
+        }
+    }
+
+    @Test
+    void testTrailingNewLine() {
+        try (var records = RecordDecoders.stream(LineDecoder.strings(), input("é\n€\n"), CSV)) {
+            assertThat(records.collect(Collectors.toList()))
+                    .as("check no empty record is read after a final line terminator")
+                    .containsExactly("é", "€");
+        }
+    }
+
+    @Test
+    void testLongLines() {
+        var line = "x".repeat(20_000);
+        try (var records = RecordDecoders.stream(LineDecoder.strings(), input(line + "\r\n" + line), CSV)) {
+            assertThat(records.collect(Collectors.toList()))
+                    .as("check lines longer than the buffer are read whole")
+                    .containsExactly(line, line);
+        }
+    }
+
+    @Test
+    void testBuildersStreamNewRecords() {
+        try (var records = RecordDecoders.stream(LineDecoder.builders(), input("a\nbb\nccc"), CSV)) {
+            var seen = records.collect(Collectors.toList());
+
+            assertThat(seen)
+                    .as("check each line was read into its own builder")
+                    .extracting(StringBuilder::toString)
+                    .containsExactly("a", "bb", "ccc");
+            assertThat(seen)
+                    .as("check no builder was reused")
+                    .doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void testBuildersReuseRecord() {
+        var seen = new ArrayList<List<Object>>();
+        RecordDecoders.forEachReusing(LineDecoder.builders(), input("a\nbb\nccc"), CSV,
+                line -> seen.add(List.of(line, line.toString())));
+
+        assertThat(seen)
+                .as("check each line was read")
+                .extracting(pair -> pair.get(1))
+                .containsExactly("a", "bb", "ccc");
+        assertThat(seen)
+                .as("check the same builder was reused for every line")
+                .extracting(pair -> pair.get(0))
+                .allMatch(builder -> builder == seen.get(0).get(0));
+    }
+
+
+    @Test
+    void testForFormat() {
+        assertThat(RecordDecoders.forFormat("Text/CSV; charset=UTF-8"))
+                .as("check line decoder is chosen for csv")
+                .contains(LineDecoder.strings());
+        assertThat(RecordDecoders.forFormat("application/x-ndjson"))
+                .as("check line decoder is chosen for json lines")
+                .contains(LineDecoder.strings());
+        assertThat(RecordDecoders.forFormat("avro/binary"))
+                .as("check no decoder is found for an unknown format")
+                .isEmpty();
+    }
+
+    @Test
+    void testCharset() {
+        assertThat(RecordDecoders.charset("text/plain; charset=ISO-8859-1"))
+                .as("check charset is taken from the format")
+                .isEqualTo(StandardCharsets.ISO_8859_1);
+        assertThat(RecordDecoders.charset("text/plain"))
+                .as("check charset defaults to UTF-8")
+                .isEqualTo(StandardCharsets.UTF_8);
+    }
+
+}
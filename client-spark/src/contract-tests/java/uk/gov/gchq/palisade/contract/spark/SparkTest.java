@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.contract.spark;
+
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.gchq.palisade.client.java.testing.ClientTestData.FILE_NAME_0;
+import static uk.gov.gchq.palisade.client.java.testing.ClientTestData.FILE_NAME_1;
+
+/**
+ * Reads from the stub Palisade, Filtered-Resource and Data Services through a
+ * local-mode Spark session
+ *
+ * @since 0.5.0
+ */
+@MicronautTest
+class SparkTest {
+
+    private static SparkSession spark;
+
+    @Inject
+    EmbeddedServer embeddedServer;
+
+    @BeforeAll
+    static void setupAll() {
+        spark = SparkSession.builder()
+                .master("local[2]")
+                .appName("palisade-contract-test")
+                .config("spark.ui.enabled", "false")
+                .getOrCreate();
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        spark.stop();
+    }
+
+    @Test
+    void testRead() throws Exception {
+        var rows = spark.read()
+                .format("palisade")
+                .option("uri", String.format("pal://localhost:%d/cluster?userid=alice", embeddedServer.getPort()))
+                .option("resource", "resource_id")
+                .option("context.purpose", "test")
+                .option("resourcesPerPartition", "1")
+                .load()
+                .collectAsList();
+
+        assertThat(rows)
+                .as("check a row is read for each resource")
+                .hasSize(2);
+
+        List<byte[]> contents = rows.stream()
+                .sorted((a, b) -> a.<String>getAs("id").compareTo(b.getAs("id")))
+                .map(row -> row.<byte[]>getAs("content"))
+                .collect(Collectors.toList());
+        try (InputStream expected0 = FILE_NAME_0.createStream(); InputStream expected1 = FILE_NAME_1.createStream()) {
+            assertThat(contents.get(0))
+                    .as("check the content of the first resource")
+                    .isEqualTo(expected0.readAllBytes());
+            assertThat(contents.get(1))
+                    .as("check the content of the second resource")
+                    .isEqualTo(expected1.readAllBytes());
+        }
+    }
+
+    @Test
+    void testReadText() {
+        var rows = spark.read()
+                .format("palisade")
+                .option("uri", String.format("pal://localhost:%d/cluster?userid=alice", embeddedServer.getPort()))
+                .option("resource", "resource_id")
+                .option("mode", "text")
+                .load()
+                .collectAsList();
+
+        assertThat(rows)
+                .as("check each resource (a single line of base64) is read as one row")
+                .hasSize(2)
+                .extracting((Row row) -> row.<String>getAs("value"))
+                .allMatch(value -> !value.isEmpty());
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import org.apache.spark.sql.connector.catalog.Table;
+import org.apache.spark.sql.connector.catalog.TableProvider;
+import org.apache.spark.sql.connector.expressions.Transform;
+import org.apache.spark.sql.sources.DataSourceRegister;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.sql.util.CaseInsensitiveStringMap;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A Spark (DataSource V2) source which reads the resources returned by a
+ * Palisade query directly from the Data Services, using the Java client:
+ * <pre>{@code
+ * var dataset = spark.read()
+ *         .format("palisade")
+ *         .option("uri", "pal://cluster:8081/cluster?userid=alice")
+ *         .option("resource", "file:/data/employees")
+ *         .load();
+ * }</pre>
+ * The query is registered once, on the driver, and its resources are split
+ * into partitions by Data Service. Each executor then downloads the resources
+ * of its partitions itself.
+ * <p>
+ * In {@code binary} mode (the default) there is a row per resource, holding
+ * its id, type, serialised format and content. In {@code text} mode there is a
+ * row per line of each resource, holding its id and the line.
+ *
+ * @since 0.5.0
+ */
+public class PalisadeDataSource implements TableProvider, DataSourceRegister {
+
+    /**
+     * The Palisade URI used to open a session, e.g. {@code pal://cluster:8081/cluster?userid=alice}.
+     * <p>
+     * Required
+     */
+    public static final String URI = "uri";
+
+    /**
+     * The resource to query.
+     * <p>
+     * Required
+     */
+    public static final String RESOURCE = "resource";
+
+    /**
+     * Prefix of the options sent as the query context, e.g. {@code context.purpose}.
+     * <p>
+     * Optional, default none
+     */
+    public static final String CONTEXT_PREFIX = "context.";
+
+    /**
+     * Either {@code binary}, for a row per resource, or {@code text}, for a row per line.
+     * <p>
+     * Optional, default 'binary'
+     */
+    public static final String MODE = "mode";
+
+    /**
+     * The maximum number of resources read by a single partition.
+     * <p>
+     * Optional, default '8'
+     */
+    public static final String RESOURCES_PER_PARTITION = "resourcesPerPartition";
+
+    static final String BINARY_MODE = "binary";
+    static final String TEXT_MODE = "text";
+    static final int DEFAULT_RESOURCES_PER_PARTITION = 8;
+
+    private static final StructType BINARY_SCHEMA = new StructType()
+            .add("id", DataTypes.StringType, false)
+            .add("type", DataTypes.StringType, true)
+            .add("serialisedFormat", DataTypes.StringType, true)
+            .add("content", DataTypes.BinaryType, false);
+
+    private static final StructType TEXT_SCHEMA = new StructType()
+            .add("id", DataTypes.StringType, false)
+            .add("value", DataTypes.StringType, false);
+
+    @Override
+    public String shortName() {
+        return "palisade";
+    }
+
+    @Override
+    public StructType inferSchema(final CaseInsensitiveStringMap options) {
+        return schema(mode(options));
+    }
+
+    @Override
+    public Table getTable(final StructType schema, final Transform[] partitioning, final Map<String, String> properties) {
+        return new PalisadeTable(schema);
+    }
+
+    static String mode(final Map<String, String> options) {
+        var mode = options.getOrDefault(MODE, BINARY_MODE).toLowerCase(Locale.ROOT);
+        if (!mode.equals(BINARY_MODE) && !mode.equals(TEXT_MODE)) {
+            throw new IllegalArgumentException(String.format("Unknown mode '%s', expected '%s' or '%s'", mode, BINARY_MODE, TEXT_MODE));
+        }
+        return mode;
+    }
+
+    static StructType schema(final String mode) {
+        return mode.equals(TEXT_MODE) ? TEXT_SCHEMA : BINARY_SCHEMA;
+    }
+
+}
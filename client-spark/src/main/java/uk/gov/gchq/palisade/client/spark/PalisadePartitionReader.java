@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.catalyst.expressions.GenericInternalRow;
+import org.apache.spark.sql.connector.read.PartitionReader;
+import org.apache.spark.unsafe.types.UTF8String;
+
+import uk.gov.gchq.palisade.client.java.ClientManager;
+import uk.gov.gchq.palisade.client.java.Download;
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.Session;
+import uk.gov.gchq.palisade.client.java.record.LineDecoder;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Downloads the resources of a partition, on an executor, straight from their
+ * Data Service
+ *
+ * @since 0.5.0
+ */
+class PalisadePartitionReader implements PartitionReader<InternalRow> {
+
+    private final Session session;
+    private final String token;
+    private final Iterator<LeafResource> resources;
+    private final boolean text;
+
+    private LeafResource current;
+    private Stream<String> lines;
+    private Iterator<String> lineIterator;
+    private InternalRow row;
+
+    PalisadePartitionReader(final ResourcePartition partition, final boolean text) {
+        // sessions for the same URI share their connections, so tasks on an executor reuse them
+        this.session = ClientManager.openSession(partition.getUri());
+        this.token = partition.getToken();
+        this.resources = partition.getGroup().getResources().iterator();
+        this.text = text;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        return text ? nextLine() : nextResource();
+    }
+
+    private boolean nextResource() throws IOException {
+        if (!resources.hasNext()) {
+            return false;
+        }
+        current = resources.next();
+        byte[] content;
+        try (var input = fetch(current).getInputStream()) {
+            content = input.readAllBytes();
+        }
+        row = new GenericInternalRow(new Object[]{
+                UTF8String.fromString(current.getId()),
+                UTF8String.fromString(current.getType()),
+                UTF8String.fromString(current.getSerialisedFormat()),
+                content});
+        return true;
+    }
+
+    private boolean nextLine() {
+        while (lineIterator == null || !lineIterator.hasNext()) {
+            closeLines();
+            if (!resources.hasNext()) {
+                return false;
+            }
+            current = resources.next();
+            lines = fetch(current).records(LineDecoder.strings());
+            lineIterator = lines.iterator();
+        }
+        row = new GenericInternalRow(new Object[]{
+                UTF8String.fromString(current.getId()),
+                UTF8String.fromString(lineIterator.next())});
+        return true;
+    }
+
+    private Download fetch(final LeafResource resource) {
+        return session.fetch(new ResourceItem(token, resource));
+    }
+
+    @Override
+    public InternalRow get() {
+        return row;
+    }
+
+    @Override
+    public void close() {
+        closeLines();
+        session.close();
+    }
+
+    private void closeLines() {
+        if (lines != null) {
+            lines.close();
+            lines = null;
+            lineIterator = null;
+        }
+    }
+
+    /*
+     * A resource returned by the query, as planned on the driver
+     */
+    private static final class ResourceItem implements QueryItem {
+
+        private final String token;
+        private final LeafResource resource;
+
+        private ResourceItem(final String token, final LeafResource resource) {
+            this.token = token;
+            this.resource = resource;
+        }
+
+        @Override
+        public ItemType getType() {
+            return ItemType.RESOURCE;
+        }
+
+        @Override
+        public String getToken() {
+            return token;
+        }
+
+        @Override
+        public String asError() {
+            return null;
+        }
+
+        @Override
+        public LeafResource asResource() {
+            return resource;
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.connector.read.InputPartition;
+import org.apache.spark.sql.connector.read.PartitionReader;
+import org.apache.spark.sql.connector.read.PartitionReaderFactory;
+
+/**
+ * Creates the readers run on the executors
+ *
+ * @since 0.5.0
+ */
+class PalisadeReaderFactory implements PartitionReaderFactory {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String mode;
+
+    PalisadeReaderFactory(final String mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public PartitionReader<InternalRow> createReader(final InputPartition partition) {
+        return new PalisadePartitionReader((ResourcePartition) partition, mode.equals(PalisadeDataSource.TEXT_MODE));
+    }
+
+}
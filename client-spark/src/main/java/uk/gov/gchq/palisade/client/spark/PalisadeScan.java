@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import org.apache.spark.sql.connector.read.Batch;
+import org.apache.spark.sql.connector.read.InputPartition;
+import org.apache.spark.sql.connector.read.PartitionReaderFactory;
+import org.apache.spark.sql.connector.read.Scan;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.sql.util.CaseInsensitiveStringMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.palisade.client.java.ClientException;
+import uk.gov.gchq.palisade.client.java.ClientManager;
+import uk.gov.gchq.palisade.client.java.QueryItem;
+import uk.gov.gchq.palisade.client.java.QueryItem.ItemType;
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Registers the query with Palisade, on the driver, and plans a partition for
+ * each group of resources returned
+ *
+ * @since 0.5.0
+ */
+class PalisadeScan implements Scan, Batch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PalisadeScan.class);
+
+    private final String uri;
+    private final String resource;
+    private final Map<String, String> context = new HashMap<>();
+    private final String mode;
+    private final int resourcesPerPartition;
+    private InputPartition[] partitions;
+
+    PalisadeScan(final CaseInsensitiveStringMap options) {
+        this.uri = required(options, PalisadeDataSource.URI);
+        this.resource = required(options, PalisadeDataSource.RESOURCE);
+        this.mode = PalisadeDataSource.mode(options);
+        this.resourcesPerPartition = options.getInt(PalisadeDataSource.RESOURCES_PER_PARTITION, PalisadeDataSource.DEFAULT_RESOURCES_PER_PARTITION);
+        options.asCaseSensitiveMap().forEach((key, value) -> {
+            if (key.startsWith(PalisadeDataSource.CONTEXT_PREFIX)) {
+                context.put(key.substring(PalisadeDataSource.CONTEXT_PREFIX.length()), value);
+            }
+        });
+    }
+
+    private static String required(final CaseInsensitiveStringMap options, final String key) {
+        var value = options.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Missing option '%s'", key));
+        }
+        return value;
+    }
+
+    @Override
+    public StructType readSchema() {
+        return PalisadeDataSource.schema(mode);
+    }
+
+    @Override
+    public String description() {
+        return "Palisade query for " + resource;
+    }
+
+    @Override
+    public Batch toBatch() {
+        return this;
+    }
+
+    /*
+     * Spark may plan the partitions more than once, but the query must only be
+     * registered once
+     */
+    @Override
+    public synchronized InputPartition[] planInputPartitions() {
+        if (partitions == null) {
+            partitions = register();
+        }
+        return partitions.clone();
+    }
+
+    private InputPartition[] register() {
+        LOGGER.debug("Registering query for {}", resource);
+        List<QueryItem> items;
+        try (var session = ClientManager.openSession(uri);
+             var stream = session.createQuery(resource, context).execute().join().toStream(false)) {
+            items = new ArrayList<>();
+            stream.forEach(items::add);
+        } catch (CompletionException e) {
+            throw new ClientException("Failed to register query for " + resource, e.getCause());
+        }
+
+        String token = null;
+        var resources = new ArrayList<LeafResource>();
+        for (QueryItem item : items) {
+            if (item.getType() == ItemType.ERROR) {
+                LOGGER.warn("Skipping error from palisade: {}", item.asError());
+            } else {
+                token = item.getToken();
+                resources.add(item.asResource());
+            }
+        }
+
+        var groups = new ResourcePartitioner(resourcesPerPartition).partition(resources);
+        LOGGER.debug("Planned {} partitions for {} resources", groups.size(), resources.size());
+        var planned = new InputPartition[groups.size()];
+        for (int i = 0; i < planned.length; i++) {
+            planned[i] = new ResourcePartition(uri, token, groups.get(i));
+        }
+        return planned;
+    }
+
+    @Override
+    public PartitionReaderFactory createReaderFactory() {
+        return new PalisadeReaderFactory(mode);
+    }
+
+}
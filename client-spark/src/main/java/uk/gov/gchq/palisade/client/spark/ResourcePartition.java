@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import org.apache.spark.sql.connector.read.InputPartition;
+
+import uk.gov.gchq.palisade.client.spark.ResourcePartitioner.Group;
+
+/**
+ * A group of resources from a single Data Service, read by one Spark task
+ *
+ * @since 0.5.0
+ */
+class ResourcePartition implements InputPartition {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String uri;
+    private final String token;
+    private final Group group;
+
+    ResourcePartition(final String uri, final String token, final Group group) {
+        this.uri = uri;
+        this.token = token;
+        this.group = group;
+    }
+
+    String getUri() {
+        return uri;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    Group getGroup() {
+        return group;
+    }
+
+    @Override
+    public String[] preferredLocations() {
+        return new String[]{group.getHost()};
+    }
+
+}
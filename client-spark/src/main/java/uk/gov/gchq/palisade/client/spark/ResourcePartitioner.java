@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import uk.gov.gchq.palisade.resource.LeafResource;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.gchq.palisade.client.java.util.Checks.checkArgument;
+
+/**
+ * Splits the resources returned for a query into partitions to be read in
+ * parallel. Resources are first grouped by the Data Service they are read from,
+ * so that every partition reads from a single service (and may be scheduled on
+ * an executor near it), then each group is split into partitions of at most a
+ * fixed number of resources.
+ *
+ * @since 0.5.0
+ */
+final class ResourcePartitioner {
+
+    /**
+     * A group of resources, all read from the same Data Service
+     */
+    static final class Group implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String serviceName;
+        private final List<LeafResource> resources;
+
+        Group(final String serviceName, final List<LeafResource> resources) {
+            this.serviceName = serviceName;
+            this.resources = List.copyOf(resources);
+        }
+
+        String getServiceName() {
+            return serviceName;
+        }
+
+        List<LeafResource> getResources() {
+            return resources;
+        }
+
+        /**
+         * Returns the host of the Data Service, which is the service name itself
+         * unless it is a URI
+         *
+         * @return the host of the Data Service
+         */
+        String getHost() {
+            try {
+                var host = URI.create(serviceName).getHost();
+                return host != null ? host : serviceName;
+            } catch (IllegalArgumentException e) {
+                return serviceName;
+            }
+        }
+
+    }
+
+    private final int maxResources;
+
+    /**
+     * Returns a new partitioner
+     *
+     * @param maxResources the maximum number of resources in a partition
+     */
+    ResourcePartitioner(final int maxResources) {
+        checkArgument(maxResources > 0, "Resources per partition must be positive: %s", maxResources);
+        this.maxResources = maxResources;
+    }
+
+    /**
+     * Returns the provided resources split into groups, keeping the order in
+     * which each service is first seen
+     *
+     * @param resources the resources to split
+     * @return the groups of resources
+     */
+    List<Group> partition(final List<LeafResource> resources) {
+        Map<String, List<LeafResource>> byService = new LinkedHashMap<>();
+        for (LeafResource resource : resources) {
+            byService.computeIfAbsent(resource.getConnectionDetail().createConnection(), k -> new ArrayList<>())
+                    .add(resource);
+        }
+        var groups = new ArrayList<Group>();
+        byService.forEach((serviceName, serviceResources) -> {
+            for (int i = 0; i < serviceResources.size(); i += maxResources) {
+                groups.add(new Group(serviceName, serviceResources.subList(i, Math.min(i + maxResources, serviceResources.size()))));
+            }
+        });
+        return groups;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018-2021 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.palisade.client.spark;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.gchq.palisade.resource.LeafResource;
+import uk.gov.gchq.palisade.resource.impl.FileResource;
+import uk.gov.gchq.palisade.resource.impl.SimpleConnectionDetail;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ResourcePartitionerTest {
+
+    private static LeafResource resource(final String id, final String serviceName) {
+        return new FileResource().id(id).connectionDetail(new SimpleConnectionDetail().serviceName(serviceName));
+    }
+
+    private static List<String> ids(final ResourcePartitioner.Group group) {
+        return group.getResources().stream().map(LeafResource::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testGroupedByService() {
+        var groups = new ResourcePartitioner(8).partition(List.of(
+                resource("file:/a", "http://data-0:8080"),
+                resource("file:/b", "http://data-1:8080"),
+                resource("file:/c", "http://data-0:8080")));
+
+        assertThat(groups)
+                .as("check a partition is planned for each service")
+                .hasSize(2);
+        assertThat(ids(groups.get(0)))
+                .as("check the first partition holds the resources of the first service seen")
+                .containsExactly("file:/a", "file:/c");
+        assertThat(groups.get(0).getHost())
+                .as("check the preferred host is the host of the service")
+                .isEqualTo("data-0");
+        assertThat(ids(groups.get(1)))
+                .as("check the second partition holds the resources of the second service")
+                .containsExactly("file:/b");
+    }
+
+    @Test
+    void testSplitBySize() {
+        var groups = new ResourcePartitioner(2).partition(List.of(
+                resource("file:/a", "data-service"),
+                resource("file:/b", "data-service"),
+                resource("file:/c", "data-service")));
+
+        assertThat(groups)
+                .as("check the resources of a service are split into partitions of at most 2")
+                .extracting(ResourcePartitioner.Group::getResources)
+                .extracting(List::size)
+                .containsExactly(2, 1);
+        assertThat(groups.get(0).getHost())
+                .as("check a service name which is not a URI is used as the host")
+                .isEqualTo("data-service");
+    }
+
+    @Test
+    void testNoResources() {
+        assertThat(new ResourcePartitioner(1).partition(List.of()))
+                .as("check no partitions are planned for no resources")
+                .isEmpty();
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .as("check partitions must hold at least one resource")
+                .isThrownBy(() -> new ResourcePartitioner(0));
+    }
+
+}